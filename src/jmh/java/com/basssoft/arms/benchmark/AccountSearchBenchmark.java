@@ -0,0 +1,70 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountSvcImpl.searchAccounts latency by account count
+
+ * exact is a rare full term, typo the same term with
+ * two letters swapped, common a prefix every account
+ * shares (the email domain), the worst case for
+ * candidate collection.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AccountSearchBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private final PasswordHasher hasher = new PasswordHasher();
+    private AccountSvcImpl service;
+
+    @Setup
+    public void setUp() {
+        service = new AccountSvcImpl(hasher);
+        List<AccountDTO> batch = new ArrayList<>(1_000);
+        for (int n = 0; n < size; n++) {
+            batch.add(BenchmarkData.accountDTO(n));
+            if (batch.size() == 1_000 || n == size - 1) {
+                service.createAccounts(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHasher() {
+        hasher.shutdown();
+    }
+
+
+    @Benchmark
+    public List<AccountDTO> exact() {
+        return service.searchAccounts("last4242", 10);
+    }
+
+    @Benchmark
+    public List<AccountDTO> typo() {
+        return service.searchAccounts("lsat4242", 10);
+    }
+
+    @Benchmark
+    public List<AccountDTO> common() {
+        return service.searchAccounts("exampl", 10);
+    }
+}
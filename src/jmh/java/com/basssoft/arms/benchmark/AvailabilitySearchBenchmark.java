@@ -0,0 +1,82 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.AvailabilitySearch;
+import com.basssoft.arms.account.service.PasswordHasher;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AvailabilitySearch.findAvailableProviders latency by
+ * provider count, all in one city
+
+ * Every other provider is booked across the window, so
+ * a page of 50 skips as many busy providers as it keeps.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilitySearchBenchmark {
+
+    @Param({"5000", "50000"})
+    public int providers;
+
+    private final PasswordHasher hasher = new PasswordHasher();
+    private AvailabilitySearch search;
+
+    @Setup
+    public void setUp() {
+        AccountSvcImpl accountService = new AccountSvcImpl(hasher);
+        BookingSvcImpl bookingService = new BookingSvcImpl();
+        search = new AvailabilitySearch(accountService, bookingService);
+
+        for (int n = 0; n < providers; n++) {
+            AccountDTO account = new AccountDTO();
+            account.setProvider(true);
+            account.setCity("Denver");
+            account.setState("CO");
+            account.setZipCode("80202");
+            int id = accountService.createAccount(account).getAccountId();
+
+            if (n % 2 == 0) {
+                Account provider = new Account();
+                provider.setAccountId(id);
+                BookingDTO booking = new BookingDTO();
+                booking.setProvider(provider);
+                booking.setStartTime("2025-03-01T09:00");
+                booking.setEndTime("2025-03-01T17:00");
+                bookingService.createBooking(booking);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHasher() {
+        hasher.shutdown();
+    }
+
+
+    @Benchmark
+    public List<AccountDTO> firstPage() {
+        return search.findAvailableProviders("Denver", "CO", null,
+                "2025-03-01T12:00", "2025-03-01T13:00", 0, 50);
+    }
+
+    @Benchmark
+    public List<AccountDTO> zipCode() {
+        return search.findAvailableProviders(null, null, "80202",
+                "2025-03-01T12:00", "2025-03-01T13:00", 0, 50);
+    }
+}
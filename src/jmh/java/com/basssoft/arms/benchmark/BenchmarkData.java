@@ -0,0 +1,112 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test data shared by the benchmarks
+
+ * Bookings are spread over PROVIDERS providers in
+ * back to back half hour slots, so any number of
+ * them can be stored without schedule conflicts.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+final class BenchmarkData {
+
+    static final int PROVIDERS = 100;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private BenchmarkData() {
+    }
+
+
+    /**
+     * booking in slot n (provider n % PROVIDERS)
+
+     * @param n int
+     * @return BookingDTO without id
+     */
+    static BookingDTO booking(int n) {
+
+        LocalDateTime start = EPOCH.plusMinutes(30L * (n / PROVIDERS));
+
+        BookingDTO booking = new BookingDTO();
+        booking.setProvider(account(n % PROVIDERS + 1));
+        booking.setCustomer(account(PROVIDERS + n % 1_000 + 1));
+        booking.setHourlyRate(75.5f);
+        booking.setStartTime(start.toString());
+        booking.setEndTime(start.plusMinutes(30).toString());
+        booking.setLocStreet("1 Main St");
+        booking.setLocCity("Denver");
+        booking.setLocState("CO");
+        booking.setLocZipCode("80202");
+        return booking;
+    }
+
+    static List<BookingDTO> bookings(int count) {
+
+        List<BookingDTO> bookings = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            BookingDTO booking = booking(n);
+            booking.setBookingId(n + 1);
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    // no password: a bcrypt hash per account would swamp setup and the CRUD numbers
+    static AccountDTO accountDTO(int n) {
+
+        return new AccountDTO(0, "user" + n, null, n % 10 == 0,
+                "First" + n, "Last" + n, "user" + n + "@example.com", "555-0100",
+                "1 Main St", "Denver", "CO", "80202", 0);
+    }
+
+    static List<AccountDTO> accounts(int count) {
+
+        List<AccountDTO> accounts = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            AccountDTO account = accountDTO(n);
+            account.setAccountId(n + 1);
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    static InvoiceDTO invoiceDTO(int n) {
+
+        InvoiceDTO invoice = new InvoiceDTO();
+        invoice.setProviderId(n % PROVIDERS + 1);
+        invoice.setCustomerId(PROVIDERS + n % 1_000 + 1);
+        invoice.setTotalAmountDue(120.25f);
+        invoice.setLastContacted(EPOCH.toString());
+        return invoice;
+    }
+
+    static List<InvoiceDTO> invoices(int count) {
+
+        List<InvoiceDTO> invoices = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            InvoiceDTO invoice = invoiceDTO(n);
+            invoice.setInvoiceId(n + 1);
+            invoices.add(invoice);
+        }
+        return invoices;
+    }
+
+    private static Account account(int accountId) {
+
+        Account account = new Account();
+        account.setAccountId(accountId);
+        return account;
+    }
+}
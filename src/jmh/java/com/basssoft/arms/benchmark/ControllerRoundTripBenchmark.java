@@ -0,0 +1,110 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.ArmsApplication;
+import com.basssoft.arms.account.service.IaccountService;
+import com.basssoft.arms.booking.service.IbookingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Full controller round trip through MockMvc
+ * (dispatch, service, assembler, HAL rendering)
+ * against the real application context
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerRoundTripBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"50", "500"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private ObjectMapper mapper;
+
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ArmsApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        mapper = context.getBean(ObjectMapper.class);
+
+        IbookingService bookingService = context.getBean(IbookingService.class);
+        IaccountService accountService = context.getBean(IaccountService.class);
+        for (int n = 0; n < size; n++) {
+            bookingService.createBooking(BenchmarkData.booking(n));
+            accountService.createAccount(BenchmarkData.accountDTO(n));
+        }
+        nextSlot.set(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+
+    @Benchmark
+    public MvcResult getBooking() throws Exception {
+        return mockMvc.perform(get("/bookings/{id}", randomId()).accept(MediaTypes.HAL_JSON)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getBookingsPage() throws Exception {
+        return mockMvc.perform(get("/bookings")
+                .accept(MediaTypes.HAL_JSON)
+                .param("after", String.valueOf(randomId()))
+                .param("size", String.valueOf(pageSize))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createDeleteBooking() throws Exception {
+        byte[] body = mapper.writeValueAsBytes(BenchmarkData.booking(nextSlot.getAndIncrement()));
+        MvcResult created = mockMvc.perform(post("/bookings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .content(body)).andReturn();
+
+        int id = mapper.readTree(created.getResponse().getContentAsByteArray()).get("bookingId").asInt();
+        return mockMvc.perform(delete("/bookings/{id}", id)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAccountsPage() throws Exception {
+        return mockMvc.perform(get("/accounts")
+                .accept(MediaTypes.HAL_JSON)
+                .param("after", String.valueOf(randomId()))
+                .param("size", String.valueOf(pageSize))).andReturn();
+    }
+
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(size) + 1;
+    }
+}
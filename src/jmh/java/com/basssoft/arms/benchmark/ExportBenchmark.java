@@ -0,0 +1,92 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.booking.controller.BookingController;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-table booking export through the controller's
+ * streaming bodies, into a stream that only counts bytes
+
+ * bookingsCsv and bookingsNdjson write every booking;
+ * providerCsv filters to one provider of PROVIDERS, so
+ * it mostly measures the filtered store scan.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ExportBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private BookingController controller;
+
+    @Setup
+    public void setUp() {
+
+        BookingSvcImpl service = new BookingSvcImpl();
+        for (int n = 0; n < size; n++) {
+            service.createBooking(BenchmarkData.booking(n));
+        }
+        controller = new BookingController();
+        ReflectionTestUtils.setField(controller, "bookingService", service);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+    }
+
+
+    @Benchmark
+    public long bookingsCsv() throws IOException {
+
+        CountingStream out = new CountingStream();
+        controller.exportBookings(0, null, null).getBody().writeTo(out);
+        return out.bytes;
+    }
+
+    @Benchmark
+    public long bookingsNdjson() throws IOException {
+
+        CountingStream out = new CountingStream();
+        controller.streamBookings("full").getBody().writeTo(out);
+        return out.bytes;
+    }
+
+    @Benchmark
+    public long providerCsv() throws IOException {
+
+        CountingStream out = new CountingStream();
+        controller.exportBookings(1, null, null).getBody().writeTo(out);
+        return out.bytes;
+    }
+
+
+    /**
+     * stands in for the response stream
+     */
+    private static final class CountingStream extends OutputStream {
+
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
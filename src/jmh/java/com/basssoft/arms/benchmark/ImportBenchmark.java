@@ -0,0 +1,116 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.PasswordHasher;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.basssoft.arms.importer.domain.ImportSummary;
+import com.basssoft.arms.importer.service.CsvImporter;
+import com.basssoft.arms.mapping.CsvWriter;
+import org.openjdk.jmh.annotations.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsvImporter throughput, one whole file per invocation
+ * into empty stores (rows/s = size / time)
+
+ * bookings imports size bookings of the PROVIDERS
+ * providers and their 1000 customers, which are stored
+ * before each invocation; accounts imports size accounts.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ImportBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private static final int CUSTOMERS = 1_000;
+    private static final int PROVIDERS_AND_CUSTOMERS = BenchmarkData.PROVIDERS + CUSTOMERS;
+
+    private byte[] bookingsCsv;
+    private byte[] accountsCsv;
+
+    private final PasswordHasher hasher = new PasswordHasher();
+    private CsvImporter importer;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        writer.row(CsvImporter.BOOKING_COLUMNS);
+        for (int n = 0; n < size; n++) {
+            BookingDTO booking = BenchmarkData.booking(n);
+            writer.field(n + 1).field(booking.getProvider().getAccountId())
+                    .field(booking.getCustomer().getAccountId())
+                    .field(booking.getStartTime()).field(booking.getEndTime())
+                    .field(booking.getHourlyRate(), 2).field(0.0, 2).field(false).field(false)
+                    .field(booking.getLocStreet()).field(booking.getLocCity())
+                    .field(booking.getLocState()).field(booking.getLocZipCode()).endRow();
+        }
+        writer.flush();
+        bookingsCsv = out.toByteArray();
+
+        out = new ByteArrayOutputStream();
+        writer = new CsvWriter(out);
+        writer.row(CsvImporter.ACCOUNT_COLUMNS);
+        for (int n = 0; n < size; n++) {
+            AccountDTO account = BenchmarkData.accountDTO(n);
+            writer.field(PROVIDERS_AND_CUSTOMERS + n + 1).field("import" + n).field(account.isProvider())
+                    .field(account.getFirstName()).field(account.getLastName()).field(account.getEmail())
+                    .field(account.getPhoneNumber()).field(account.getStreet()).field(account.getCity())
+                    .field(account.getState()).field(account.getZipCode()).endRow();
+        }
+        writer.flush();
+        accountsCsv = out.toByteArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+
+        AccountSvcImpl accounts = new AccountSvcImpl(hasher);
+        List<AccountDTO> batch = new ArrayList<>(PROVIDERS_AND_CUSTOMERS);
+        for (int n = 0; n < PROVIDERS_AND_CUSTOMERS; n++) {
+            AccountDTO account = BenchmarkData.accountDTO(n);
+            account.setAccountId(n + 1);
+            account.setProvider(n < BenchmarkData.PROVIDERS);
+            batch.add(account);
+        }
+        accounts.createAccounts(batch);
+
+        importer = new CsvImporter(accounts, new BookingSvcImpl());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHasher() {
+        hasher.shutdown();
+    }
+
+
+    @Benchmark
+    public ImportSummary bookings() throws IOException {
+
+        return importer.importBookings(new ByteArrayInputStream(bookingsCsv));
+    }
+
+    @Benchmark
+    public ImportSummary accounts() throws IOException {
+
+        return importer.importAccounts(new ByteArrayInputStream(accountsCsv));
+    }
+}
@@ -0,0 +1,187 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.service.BookingMapper;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.basssoft.arms.journal.StateJournal;
+import com.basssoft.arms.mapping.EntityCodec;
+import com.basssoft.arms.store.Journal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Journal write throughput and recovery time
+
+ * appendGroupCommit waits for the fsync covering each
+ * append, as a service write does; concurrent writers
+ * share one force. Compare -t 1 (one fsync per write)
+ * with the default 16 threads to see the batching.
+ * appendNoWait leaves forcing to the committer.
+
+ * replay and recoverBookings time a restart over
+ * events journaled booking writes (10 per booking):
+ * reading the files alone, and reading them plus
+ * loading BookingSvcImpl with its schedules.
+ * snapshot=true writes a snapshot after 90% of the
+ * events, leaving a short tail to replay.
+
+ * Needs about 2 GB of disk per recovery setup under
+ * java.io.tmpdir.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class JournalBenchmark {
+
+    private static final int SEGMENT = 64 << 20;
+
+    // bookings updated by the recovery events
+    private static final int KEYS = 1_000_000;
+
+
+    /**
+     * a fresh journal per iteration, so the files stay small
+     */
+    @State(Scope.Benchmark)
+    public static class Writes {
+
+        Path dir;
+        Journal journal;
+        byte[] payload;
+        final AtomicInteger keys = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("arms-journal-writes");
+            journal = new Journal(dir, SEGMENT, (stream, key, value) -> { });
+            payload = encode(1);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            journal.close();
+            delete(dir);
+        }
+    }
+
+
+    /**
+     * events journaled once per trial
+     */
+    @State(Scope.Benchmark)
+    public static class Recovery {
+
+        @Param({"10000000"})
+        public int events;
+
+        @Param({"false", "true"})
+        public boolean snapshot;
+
+        Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("arms-journal-recovery");
+            int snapshotAt = snapshot ? events / 10 * 9 : -1;
+
+            try (Journal journal = new Journal(dir, SEGMENT, (stream, key, value) -> { })) {
+                for (int n = 0; n < events; n++) {
+                    if (n == snapshotAt) {
+                        // latest value of every key written so far
+                        journal.snapshot(out -> {
+                            for (int key = 1; key <= Math.min(KEYS, snapshotAt); key++) {
+                                out.accept(StateJournal.BOOKINGS, key, encode(key));
+                            }
+                        });
+                    }
+                    int key = n % KEYS + 1;
+                    journal.append(StateJournal.BOOKINGS, key, encode(key));
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(dir);
+        }
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public long appendGroupCommit(Writes writes) throws IOException {
+        long lsn = writes.journal.append(StateJournal.BOOKINGS, writes.keys.incrementAndGet(), writes.payload);
+        writes.journal.awaitDurable(lsn);
+        return lsn;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public long appendNoWait(Writes writes) throws IOException {
+        return writes.journal.append(StateJournal.BOOKINGS, writes.keys.incrementAndGet(), writes.payload);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long replay(Recovery recovery) throws IOException {
+        long[] entries = new long[1];
+        new Journal(recovery.dir, SEGMENT, (stream, key, value) -> entries[0]++).close();
+        return entries[0];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int recoverBookings(Recovery recovery) throws IOException {
+        StateJournal state = new StateJournal(recovery.dir, SEGMENT);
+        try {
+            BookingSvcImpl service = new BookingSvcImpl();
+            ReflectionTestUtils.setField(service, "journal", state);
+            service.recover();
+            return service.getBookingsAfter(0, 1).size();
+        } finally {
+            state.close();
+        }
+    }
+
+
+    // booking n as the journal stores it
+    private static byte[] encode(int n) throws IOException {
+
+        Booking entity = BookingMapper.toEntity(BenchmarkData.booking(n - 1), n);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        EntityCodec.BOOKING.write(new DataOutputStream(bytes), entity);
+        return bytes.toByteArray();
+    }
+
+    private static void delete(Path dir) throws IOException {
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
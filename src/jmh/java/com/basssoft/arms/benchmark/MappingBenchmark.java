@@ -0,0 +1,105 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking <-> BookingDTO mapping over 100k bookings
+
+ * jdkToDTOs / jdkToEntities are the LocalDateTime.toString
+ * and LocalDateTime.parse copies the mapper replaced.
+ * distinctTimes = true gives every booking its own
+ * start time, so the TimeCodec caches never hit.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean distinctTimes;
+
+    private List<BookingDTO> dtos;
+    private List<Booking> entities;
+
+    @Setup
+    public void setUp() {
+
+        dtos = BenchmarkData.bookings(size);
+        if (distinctTimes) {
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+            for (int n = 0; n < size; n++) {
+                dtos.get(n).setStartTime(start.plusMinutes(n).toString());
+                dtos.get(n).setEndTime(start.plusMinutes(n + 30).toString());
+            }
+        }
+        entities = new ArrayList<>(size);
+        for (BookingDTO dto : dtos) {
+            entities.add(BookingMapper.toEntity(dto, dto.getBookingId()));
+        }
+    }
+
+
+    @Benchmark
+    public List<BookingDTO> toDTOs() {
+        return BookingMapper.toDTOs(entities);
+    }
+
+    @Benchmark
+    public List<BookingDTO> jdkToDTOs() {
+
+        List<BookingDTO> result = new ArrayList<>(entities.size());
+        for (Booking entity : entities) {
+            result.add(new BookingDTO(entity.getBookingId(), entity.getProvider(), entity.getCustomer(),
+                    entity.getHourlyRate(), entity.getStartTime().toString(), entity.getEndTime().toString(),
+                    entity.getLocStreet(), entity.getLocCity(), entity.getLocState(), entity.getLocZipCode(),
+                    entity.isCompleted(), entity.getOverHours(), entity.isPaid(), entity.getVersion()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void toEntities(Blackhole blackhole) {
+        for (BookingDTO dto : dtos) {
+            blackhole.consume(BookingMapper.toEntity(dto, dto.getBookingId()));
+        }
+    }
+
+    @Benchmark
+    public void jdkToEntities(Blackhole blackhole) {
+        for (BookingDTO dto : dtos) {
+            Booking entity = new Booking();
+            entity.setBookingId(dto.getBookingId());
+            entity.setProvider(dto.getProvider());
+            entity.setCustomer(dto.getCustomer());
+            entity.setHourlyRate(dto.getHourlyRate());
+            entity.setStartTime(LocalDateTime.parse(dto.getStartTime()));
+            entity.setEndTime(LocalDateTime.parse(dto.getEndTime()));
+            entity.setLocStreet(dto.getLocStreet());
+            entity.setLocCity(dto.getLocCity());
+            entity.setLocState(dto.getLocState());
+            entity.setLocZipCode(dto.getLocZipCode());
+            entity.setCompleted(dto.isCompleted());
+            entity.setOverHours(dto.getOverHours());
+            entity.setPaid(dto.isPaid());
+            blackhole.consume(entity);
+        }
+    }
+}
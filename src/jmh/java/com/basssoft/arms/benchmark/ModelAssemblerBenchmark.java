@@ -0,0 +1,103 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.controller.AccountModelAssembler;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.booking.controller.BookingController;
+import com.basssoft.arms.booking.controller.BookingModelAssembler;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.invoice.controller.InvoiceModelAssembler;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * *ModelAssembler.toModel over one collection response
+
+ * Every invocation binds a fresh request, like a real
+ * collection response does. bookingLinkBuilder is the
+ * linkTo(methodOn(..)) baseline the assemblers replaced.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelAssemblerBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private final BookingModelAssembler bookingAssembler = new BookingModelAssembler();
+    private final AccountModelAssembler accountAssembler = new AccountModelAssembler();
+    private final InvoiceModelAssembler invoiceAssembler = new InvoiceModelAssembler();
+
+    private List<BookingDTO> bookings;
+    private List<AccountDTO> accounts;
+    private List<InvoiceDTO> invoices;
+
+    @Setup
+    public void setUp() {
+        bookings = BenchmarkData.bookings(size);
+        accounts = BenchmarkData.accounts(size);
+        invoices = BenchmarkData.invoices(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    @Benchmark
+    public void bookingToModel(Blackhole blackhole) {
+        bindRequest("/bookings");
+        for (BookingDTO booking : bookings) {
+            blackhole.consume(bookingAssembler.toModel(booking));
+        }
+    }
+
+    @Benchmark
+    public void bookingLinkBuilder(Blackhole blackhole) {
+        bindRequest("/bookings");
+        for (BookingDTO booking : bookings) {
+            blackhole.consume(EntityModel.of(booking,
+                    linkTo(methodOn(BookingController.class).getBooking(booking.getBookingId(), null, null)).withSelfRel().expand(),
+                    linkTo(BookingController.class).withRel("bookings")));
+        }
+    }
+
+    @Benchmark
+    public void accountToModel(Blackhole blackhole) {
+        bindRequest("/accounts");
+        for (AccountDTO account : accounts) {
+            blackhole.consume(accountAssembler.toModel(account));
+        }
+    }
+
+    @Benchmark
+    public void invoiceToModel(Blackhole blackhole) {
+        bindRequest("/invoices");
+        for (InvoiceDTO invoice : invoices) {
+            blackhole.consume(invoiceAssembler.toModel(invoice));
+        }
+    }
+
+
+    private static void bindRequest(String uri) {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", uri)));
+    }
+}
@@ -0,0 +1,105 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import org.openjdk.jmh.annotations.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice totalling over size bookings, float amounts
+ * against long cents
+
+ * bill*: amount of every booking (rate over its hours,
+ * overtime included) and their total. billFloat is the
+ * former float path, billCents the Money one.
+
+ * sum*: total of amounts already billed, a float[]
+ * against a long[] (Money.sum, vectorized by the JIT).
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class MoneyBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private float[] rates;
+    private float[] hours;
+    private float[] amounts;
+
+    private long[] rateCents;
+    private long[] seconds;
+    private long[] cents;
+
+    @Setup
+    public void setUp() {
+
+        Random random = new Random(42);
+        rates = new float[size];
+        hours = new float[size];
+        amounts = new float[size];
+        rateCents = new long[size];
+        seconds = new long[size];
+        cents = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            // 15.00 to 214.99 an hour, half hour slots, some over or under by quarter hours
+            double rate = (1_500 + random.nextInt(20_000)) / 100.0;
+            double booked = (1 + random.nextInt(8)) / 2.0 + (random.nextInt(5) - 1) / 4.0;
+
+            rates[i] = (float) rate;
+            hours[i] = (float) booked;
+            amounts[i] = rates[i] * hours[i];
+
+            rateCents[i] = Money.of(rate);
+            seconds[i] = TimeCodec.seconds(booked);
+            cents[i] = Money.forSeconds(rateCents[i], seconds[i]);
+        }
+    }
+
+
+    @Benchmark
+    public float billFloat() {
+
+        float total = 0;
+        for (int i = 0; i < size; i++) {
+            total += rates[i] * hours[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long billCents() {
+
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += Money.forSeconds(rateCents[i], seconds[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public float sumFloat() {
+
+        float total = 0;
+        for (int i = 0; i < size; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumCents() {
+
+        return Money.sum(cents, 0, size);
+    }
+}
@@ -0,0 +1,68 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.service.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt cost per strength, for choosing arms.password.strength
+
+ * Pick the highest strength whose hash stays near 100 ms
+ * on the production hardware; each step doubles the cost.
+ * hashBurst is the wall time of 64 hashes through the
+ * bounded pool, roughly what a burst of sign-ups or
+ * logins holds the hashing cores for.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"10", "11", "12", "13"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHasher hasher;
+    private String hash;
+    private List<String> burst;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hasher = new PasswordHasher(strength, 0, 256, new SimpleMeterRegistry());
+        hash = encoder.encode("secret");
+        burst = Collections.nCopies(64, "secret");
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("secret");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("secret", hash);
+    }
+
+    @Benchmark
+    public List<String> hashBurst() {
+        return hasher.hashAll(burst);
+    }
+}
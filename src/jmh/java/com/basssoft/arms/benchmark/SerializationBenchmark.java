@@ -0,0 +1,59 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of DTO lists
+ * (plain Jackson, no HATEOAS wrapping)
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<BookingDTO> bookings;
+    private List<AccountDTO> accounts;
+    private List<InvoiceDTO> invoices;
+
+    @Setup
+    public void setUp() {
+        bookings = BenchmarkData.bookings(size);
+        accounts = BenchmarkData.accounts(size);
+        invoices = BenchmarkData.invoices(size);
+    }
+
+
+    @Benchmark
+    public byte[] bookings() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] accounts() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(accounts);
+    }
+
+    @Benchmark
+    public byte[] invoices() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(invoices);
+    }
+}
@@ -0,0 +1,111 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.PasswordHasher;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.invoice.service.InvoiceSvcImpl;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service CRUD methods against a pre-filled store
+
+ * Run with -t to measure contention, e.g. -t 8.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private BookingSvcImpl bookingService;
+    private final PasswordHasher hasher = new PasswordHasher();
+    private AccountSvcImpl accountService;
+    private InvoiceSvcImpl invoiceService;
+
+    // slots after the pre-filled ones, for create / delete
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        bookingService = new BookingSvcImpl();
+        accountService = new AccountSvcImpl(hasher);
+        invoiceService = new InvoiceSvcImpl();
+
+        for (int n = 0; n < size; n++) {
+            bookingService.createBooking(BenchmarkData.booking(n));
+            accountService.createAccount(BenchmarkData.accountDTO(n));
+            invoiceService.createInvoice(BenchmarkData.invoiceDTO(n));
+        }
+        nextSlot.set(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHasher() {
+        hasher.shutdown();
+    }
+
+
+    @Benchmark
+    public BookingDTO getBooking() {
+        return bookingService.getBooking(randomId());
+    }
+
+    @Benchmark
+    public BookingDTO updateBooking() {
+        int id = randomId();
+        BookingDTO booking = BenchmarkData.booking(id - 1);
+        booking.setBookingId(id);
+        booking.setLocCity("Boulder");
+        return bookingService.updateBooking(booking);
+    }
+
+    @Benchmark
+    public int createDeleteBooking() {
+        BookingDTO created = bookingService.createBooking(BenchmarkData.booking(nextSlot.getAndIncrement()));
+        return bookingService.deleteBooking(created.getBookingId());
+    }
+
+    @Benchmark
+    public List<BookingDTO> bookingsPage() {
+        return bookingService.getBookingsAfter(randomId(), 50);
+    }
+
+    @Benchmark
+    public AccountDTO getAccount() {
+        return accountService.getAccount(randomId());
+    }
+
+    @Benchmark
+    public AccountDTO updateAccount() {
+        int id = randomId();
+        AccountDTO account = BenchmarkData.accountDTO(id - 1);
+        account.setAccountId(id);
+        return accountService.updateAccount(account);
+    }
+
+    @Benchmark
+    public InvoiceDTO getInvoice() {
+        return invoiceService.getInvoice(randomId());
+    }
+
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(size) + 1;
+    }
+}
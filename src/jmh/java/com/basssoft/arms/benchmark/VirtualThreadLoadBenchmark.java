@@ -0,0 +1,95 @@
+package com.basssoft.arms.benchmark;
+
+import com.basssoft.arms.ArmsApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Request latency through Tomcat, platform request
+ * threads against virtual ones (the virtual profile)
+
+ * The application runs on a random port with the journal
+ * on, so every create blocks on a group commit fsync, its
+ * real blocking I/O. 400 client threads keep Tomcat's 200
+ * platform threads saturated. SampleTime reports p50/p99.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private Path journalDir;
+    private ConfigurableApplicationContext context;
+    private ObjectMapper mapper;
+    private HttpClient client;
+    private URI bookings;
+
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException {
+        journalDir = Files.createTempDirectory("arms-journal");
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ArmsApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN", "arms.journal.dir=" + journalDir);
+        if ("virtual".equals(threads)) {
+            builder.profiles("virtual");
+        }
+        context = builder.run();
+        mapper = context.getBean(ObjectMapper.class);
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        bookings = URI.create("http://localhost:" + port + "/bookings");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(journalDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+
+    @Benchmark
+    public int createBooking() throws Exception {
+        byte[] body = mapper.writeValueAsBytes(BenchmarkData.booking(nextSlot.getAndIncrement()));
+        HttpRequest request = HttpRequest.newBuilder(bookings)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int getBookingsPage() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(bookings + "?size=50")).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -1,17 +1,26 @@
 package com.basssoft.arms.account.controller;
 
 import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.domain.LoginDTO;
+import com.basssoft.arms.account.service.AvailabilitySearch;
 import com.basssoft.arms.account.service.IaccountService;
+import com.basssoft.arms.gateway.View;
+import com.basssoft.arms.store.BatchResult;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.hateoas.EntityModel;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Account Controller
@@ -31,6 +40,18 @@ public class AccountController {
     @Autowired
     private AccountModelAssembler assembler;
 
+    @Autowired
+    private AvailabilitySearch availabilitySearch;
+
+    // upper bound for one page of accounts
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // upper bound for one batch request
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // seconds a client should wait when password hashing is saturated
+    private static final String BUSY_RETRY_AFTER = "1";
+
 
     /**
      * Create new Account
@@ -65,6 +86,10 @@ public class AccountController {
             // handle bad request status:400
             return ResponseEntity.badRequest().body(ex.getMessage());
 
+        } catch (RejectedExecutionException ree) {
+            // password hashing saturated status:503
+            return busy();
+
         } catch (Exception ex) {
             // handle other exceptions status:500
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Internal server error.");
@@ -72,14 +97,48 @@ public class AccountController {
     }
 
 
+    /**
+     * Create many Accounts in one request
+     *
+     * @param accountDtos List<AccountDTO>
+     * @return ResponseEntity with one result per item and status
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createAccounts(@RequestBody List<AccountDTO> accountDtos) {
+
+        try {
+            checkBatchSize(accountDtos);
+
+            // call service / create all valid items in one batch
+            List<BatchResult<AccountDTO>> results = accountService.createAccounts(accountDtos);
+
+            // all created status:201, otherwise per item results status:207
+            return ResponseEntity.status(batchStatus(results, HttpStatus.CREATED)).body(results);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (RejectedExecutionException ree) {
+            // password hashing saturated status:503
+            return busy();
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Account batch creation failed.");
+        }
+    }
+
+
     /**
      * Get Account by ID
      *
      * @param id int Account ID from path
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
      * @return ResponseEntity with AccountDTO and/or status
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getAccount(@PathVariable int id) {
+    public ResponseEntity<?> getAccount(@PathVariable int id, WebRequest request) {
 
         try {
             // call service / get account
@@ -90,6 +149,11 @@ public class AccountController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found.");
             }
 
+            // client copy still current status:304, nothing assembled or serialized
+            if (request.checkNotModified(View.FULL.etag(account.getVersion()), account.getVersion())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             // wrap account w HATEOAS links
             EntityModel<AccountDTO> resource = assembler.toModel(account);
 
@@ -109,27 +173,58 @@ public class AccountController {
 
 
     /**
-     * Get all Accounts
+     * Get one page of Accounts (keyset pagination)
      *
-     * @return ResponseEntity with List of AccountDTOs and or status code
+     * @param after return accounts with a greater id (optional)
+     * @param before return accounts with a smaller id (optional)
+     * @param size max accounts per page
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
+     * @return ResponseEntity with page of AccountDTOs and or status code
      */
     @GetMapping
-    public ResponseEntity<?> getAccounts() {
+    public ResponseEntity<?> getAccounts(@RequestParam(required = false) Integer after,
+                                         @RequestParam(required = false) Integer before,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         WebRequest request) {
 
         try {
-            // call service / get accounts
-            List<AccountDTO> accounts = accountService.getAllAccounts();
-
-            // wrap accounts w HATEOAS links
-            List<EntityModel<AccountDTO>> accountResources = accounts.stream()
-                    .map(assembler::toModel)
-                    .collect(Collectors.toList());
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
 
-            // create collection of link wrapped DTOs
-            CollectionModel<EntityModel<AccountDTO>> collection = CollectionModel.of(accountResources);
+            // table version read before the page, unchanged table status:304
+            long version = accountService.getAccountsVersion();
+            if (request.checkNotModified(View.FULL.etag(version), version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            List<AccountDTO> page;
+            boolean hasPrev;
+            boolean hasNext;
+
+            // fetch one extra row to learn if the walk continues
+            if (before != null) {
+                page = accountService.getAccountsBefore(before, size + 1);
+                hasPrev = page.size() > size;
+                if (hasPrev) {
+                    page = page.subList(1, page.size());
+                }
+                // probe one row past the page, so next never leads to an empty page
+                hasNext = !page.isEmpty()
+                        && !accountService.getAccountsAfter(page.get(page.size() - 1).getAccountId(), 1).isEmpty();
+
+            } else {
+                int from = after == null ? 0 : after;
+                page = accountService.getAccountsAfter(from, size + 1);
+                hasNext = page.size() > size;
+                if (hasNext) {
+                    page = page.subList(0, size);
+                }
+                hasPrev = from > 0 && !page.isEmpty()
+                        && !accountService.getAccountsBefore(page.get(0).getAccountId(), 1).isEmpty();
+            }
 
-            // return collection, success status:200
-            return ResponseEntity.ok(collection);
+            // return page wrapped with self / next / prev links, success status:200
+            return ResponseEntity.ok(assembler.toPageModel(page, after, before, size, hasPrev, hasNext));
 
         } catch (IllegalArgumentException iae) {
             // handle bad request status:400
@@ -143,6 +238,89 @@ public class AccountController {
     }
 
 
+    /**
+     * Search Accounts by screen name, name, email or phone
+     *
+     * @param q search words (prefixes and small typos match)
+     * @param size max accounts returned
+     * @return ResponseEntity with ranked AccountDTOs and or status code
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAccounts(@RequestParam String q,
+                                            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
+            // call service / ranked matches
+            List<AccountDTO> found = accountService.searchAccounts(q, size);
+
+            // return matches wrapped w HATEOAS links, success status:200
+            return ResponseEntity.ok(assembler.toSearchModel(found, false));
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Internal server error.");
+        }
+    }
+
+
+    /**
+     * Find providers with no booking in a time window
+     * at a city (and state) or zip code
+     *
+     * @param from start of window (inclusive)
+     * @param to end of window (exclusive)
+     * @param city provider city (optional when zipCode is given)
+     * @param state provider state (optional)
+     * @param zipCode provider zip code (optional when city is given)
+     * @param after return providers with a greater id (optional)
+     * @param size max providers per page
+     * @return ResponseEntity with page of AccountDTOs and or status code
+     */
+    @GetMapping("/available")
+    public ResponseEntity<?> getAvailableProviders(@RequestParam String from,
+                                                   @RequestParam String to,
+                                                   @RequestParam(required = false) String city,
+                                                   @RequestParam(required = false) String state,
+                                                   @RequestParam(required = false) String zipCode,
+                                                   @RequestParam(defaultValue = "0") int after,
+                                                   @RequestParam(defaultValue = "50") int size) {
+
+        try {
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
+
+            // call service / fetch one extra provider to learn if the search continues
+            List<AccountDTO> page = availabilitySearch.findAvailableProviders(
+                    city, state, zipCode, from, to, after, size + 1);
+            boolean hasNext = page.size() > size;
+            if (hasNext) {
+                page = page.subList(0, size);
+            }
+
+            // return page wrapped with self / next links, success status:200
+            return ResponseEntity.ok(assembler.toSearchModel(page, hasNext));
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Internal server error.");
+        }
+    }
+
+
     /**
      * Update existing Account
      *
@@ -174,6 +352,10 @@ public class AccountController {
             // bad request status:400
             return ResponseEntity.badRequest().body(ex.getMessage());
 
+        } catch (RejectedExecutionException ree) {
+            // password hashing saturated status:503
+            return busy();
+
         } catch (Exception ex) {
             // other errors status:500
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Internal server error.");
@@ -182,6 +364,39 @@ public class AccountController {
 
 
 
+    /**
+     * Update many Accounts in one request
+     *
+     * @param accountDtos List<AccountDTO> (ids in the body)
+     * @return ResponseEntity with one result per item and status
+     */
+    @PutMapping("/batch")
+    public ResponseEntity<?> updateAccounts(@RequestBody List<AccountDTO> accountDtos) {
+
+        try {
+            checkBatchSize(accountDtos);
+
+            // call service / update all valid items
+            List<BatchResult<AccountDTO>> results = accountService.updateAccounts(accountDtos);
+
+            // all updated status:200, otherwise per item results status:207
+            return ResponseEntity.status(batchStatus(results, HttpStatus.OK)).body(results);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (RejectedExecutionException ree) {
+            // password hashing saturated status:503
+            return busy();
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Account batch update failed.");
+        }
+    }
+
+
     /**
      * Delete Account by ID
      *
@@ -213,4 +428,95 @@ public class AccountController {
     }
 
 
+    /**
+     * Log in with screen name and password
+     *
+     * The password check runs on the password hashing pool,
+     * the request thread is released while it waits.
+     *
+     * @param login LoginDTO
+     * @return CompletableFuture of ResponseEntity with the AccountDTO and or status code
+     */
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginDTO login) {
+
+        try {
+            // links are built on the hasher thread, from this request
+            RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
+
+            // call service / check credentials
+            return accountService.verifyCredentials(login.getScreenName(), login.getPassword())
+                    .handle((account, ex) -> {
+                        if (ex != null) {
+                            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                            if (cause instanceof RejectedExecutionException) {
+                                // password hashing saturated status:503
+                                return busy();
+                            }
+                            // handle other errors status:500
+                            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Login failed.");
+                        }
+                        if (account == null) {
+                            // unknown screen name or wrong password status:401
+                            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                    .body("Invalid screen name or password.");
+                        }
+                        // return account wrapped w HATEOAS links, success status:200
+                        return ResponseEntity.ok(toModel(account, requestAttributes));
+                    });
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(iae.getMessage()));
+
+        } catch (RejectedExecutionException ree) {
+            // password hashing saturated status:503
+            return CompletableFuture.completedFuture(busy());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Login failed."));
+        }
+    }
+
+
+    // assemble with the request bound, when called off the request thread
+    private EntityModel<AccountDTO> toModel(AccountDTO account, RequestAttributes requestAttributes) {
+
+        if (RequestContextHolder.getRequestAttributes() != null) {
+            return assembler.toModel(account);
+        }
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        try {
+            return assembler.toModel(account);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static ResponseEntity<?> busy() {
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, BUSY_RETRY_AFTER)
+                .body("Password hashing is busy, try again.");
+    }
+
+    private static void checkBatchSize(List<?> batch) {
+
+        if (batch == null || batch.isEmpty() || batch.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " accounts.");
+        }
+    }
+
+    private static HttpStatus batchStatus(List<? extends BatchResult<?>> results, HttpStatus allSucceeded) {
+
+        for (BatchResult<?> result : results) {
+            if (!result.isSuccess()) {
+                return HttpStatus.MULTI_STATUS;
+            }
+        }
+        return allSucceeded;
+    }
+
 }
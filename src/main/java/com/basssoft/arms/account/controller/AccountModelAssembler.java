@@ -1,11 +1,16 @@
 package com.basssoft.arms.account.controller;
 
 import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.gateway.LinkTemplate;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.stereotype.Component;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Assembles Account models (links)
@@ -18,6 +23,9 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Component
 public class AccountModelAssembler implements RepresentationModelAssembler<AccountDTO, EntityModel<AccountDTO>> {
 
+    // controller base URI resolved once per request
+    private static final LinkTemplate LINKS = new LinkTemplate(AccountController.class);
+
     /**
      * Convert AccountDTO to EntityModel<AccountDTO> with links
      *
@@ -28,9 +36,72 @@ public class AccountModelAssembler implements RepresentationModelAssembler<Accou
     public EntityModel<AccountDTO> toModel(AccountDTO account) {
 
         return EntityModel.of(account,
-                linkTo(methodOn(AccountController.class).getAccount(account.getAccountId())).withSelfRel(),
-                linkTo(methodOn(AccountController.class).getAccounts()).withRel("accounts")
+                LINKS.self(account.getAccountId()),
+                LINKS.collection("accounts")
         );
     }
 
+
+    /**
+     * Wrap one keyset page of accounts
+     * with self / next / prev links
+     *
+     * @param page List<AccountDTO> ordered by accountId
+     * @param after Integer cursor of this request (or null)
+     * @param before Integer cursor of this request (or null)
+     * @param size int page size
+     * @param hasPrev boolean earlier accounts exist
+     * @param hasNext boolean later accounts exist
+     * @return CollectionModel<EntityModel<AccountDTO>>
+     */
+    public CollectionModel<EntityModel<AccountDTO>> toPageModel(List<AccountDTO> page, Integer after, Integer before,
+                                                                int size, boolean hasPrev, boolean hasNext) {
+
+        List<EntityModel<AccountDTO>> accountResources = new ArrayList<>(page.size());
+        for (AccountDTO account : page) {
+            accountResources.add(toModel(account));
+        }
+        List<Link> links = new ArrayList<>(3);
+
+        // self repeats the cursor this page was requested with
+        if (before != null) {
+            links.add(LINKS.page("before", before, size, IanaLinkRelations.SELF));
+        } else {
+            links.add(LINKS.page("after", after == null ? 0 : after, size, IanaLinkRelations.SELF));
+        }
+        if (hasNext && !page.isEmpty()) {
+            links.add(LINKS.page("after", page.get(page.size() - 1).getAccountId(), size, IanaLinkRelations.NEXT));
+        }
+        if (hasPrev && !page.isEmpty()) {
+            links.add(LINKS.page("before", page.get(0).getAccountId(), size, IanaLinkRelations.PREV));
+        }
+        return CollectionModel.of(accountResources, links);
+    }
+
+
+    /**
+     * Wrap search results (availability, account search),
+     * next repeats the search after the last account
+     *
+     * @param page List<AccountDTO> ordered by accountId
+     * @param hasNext boolean more providers may match
+     * @return CollectionModel<EntityModel<AccountDTO>>
+     */
+    public CollectionModel<EntityModel<AccountDTO>> toSearchModel(List<AccountDTO> page, boolean hasNext) {
+
+        List<EntityModel<AccountDTO>> accountResources = new ArrayList<>(page.size());
+        for (AccountDTO account : page) {
+            accountResources.add(toModel(account));
+        }
+        List<Link> links = new ArrayList<>(2);
+        links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString(), IanaLinkRelations.SELF));
+
+        if (hasNext && !page.isEmpty()) {
+            links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.get(page.size() - 1).getAccountId())
+                    .toUriString(), IanaLinkRelations.NEXT));
+        }
+        return CollectionModel.of(accountResources, links);
+    }
+
 }
@@ -1,11 +1,13 @@
 package com.basssoft.arms.account.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Account
@@ -17,6 +19,8 @@ import lombok.AllArgsConstructor;
  */
 @Data
 @Entity
+// lazy account references are loaded up to 100 per query
+@BatchSize(size = 100)
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PUBLIC, force = true)
 public class Account {
@@ -25,6 +29,8 @@ public class Account {
     private int accountId;
 
     private String screenName;
+    // accepted on input, never rendered
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     private boolean isProvider;
 
@@ -38,4 +44,7 @@ public class Account {
     private String city;
     private String state;
     private String zipCode;
+
+    // VersionClock value of the last write (ETag / Last-Modified)
+    private long version;
 }
@@ -1,7 +1,9 @@
 package com.basssoft.arms.account.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 /**
@@ -20,6 +22,8 @@ public class AccountDTO {
     private int accountId;
 
     private String screenName;
+    // accepted on input, never rendered
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     private boolean isProvider;
 
@@ -33,4 +37,8 @@ public class AccountDTO {
     private String city;
     private String state;
     private String zipCode;
+
+    // write version (ETag), not part of the content
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
@@ -0,0 +1,22 @@
+package com.basssoft.arms.account.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object
+ * for a login attempt
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginDTO {
+
+    private String screenName;
+    private String password;
+}
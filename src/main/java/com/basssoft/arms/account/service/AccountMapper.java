@@ -0,0 +1,112 @@
+package com.basssoft.arms.account.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.store.VersionClock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Account <-> AccountDTO mapping
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class AccountMapper {
+
+    private AccountMapper() {
+    }
+
+
+    /**
+     * copy DTO onto a new Account entity
+     * (stamped with a new version)
+
+     * @param dto AccountDTO
+     * @param accountId int
+     * @return Account
+     */
+    public static Account toEntity(AccountDTO dto, int accountId) {
+
+        return new Account(
+                accountId,
+                dto.getScreenName(),
+                dto.getPassword(),
+                dto.isProvider(),
+                dto.getFirstName(),
+                dto.getLastName(),
+                dto.getEmail(),
+                dto.getPhoneNumber(),
+                dto.getStreet(),
+                dto.getCity(),
+                dto.getState(),
+                dto.getZipCode(),
+                VersionClock.next());
+    }
+
+
+    /**
+     * copy Account entity, version included
+
+     * @param entity Account
+     * @return Account
+     */
+    public static Account copyOf(Account entity) {
+
+        return new Account(
+                entity.getAccountId(),
+                entity.getScreenName(),
+                entity.getPassword(),
+                entity.isProvider(),
+                entity.getFirstName(),
+                entity.getLastName(),
+                entity.getEmail(),
+                entity.getPhoneNumber(),
+                entity.getStreet(),
+                entity.getCity(),
+                entity.getState(),
+                entity.getZipCode(),
+                entity.getVersion());
+    }
+
+
+    /**
+     * copy Account entity onto a new DTO
+     * (password hash left out)
+
+     * @param entity Account
+     * @return AccountDTO
+     */
+    public static AccountDTO toDTO(Account entity) {
+
+        return new AccountDTO(
+                entity.getAccountId(),
+                entity.getScreenName(),
+                null,
+                entity.isProvider(),
+                entity.getFirstName(),
+                entity.getLastName(),
+                entity.getEmail(),
+                entity.getPhoneNumber(),
+                entity.getStreet(),
+                entity.getCity(),
+                entity.getState(),
+                entity.getZipCode(),
+                entity.getVersion());
+    }
+
+
+    /**
+     * @param entities List of Account
+     * @return List of AccountDTO, same order
+     */
+    public static List<AccountDTO> toDTOs(List<Account> entities) {
+
+        List<AccountDTO> result = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            result.add(toDTO(entities.get(i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,519 @@
+package com.basssoft.arms.account.service;
+
+import com.basssoft.arms.account.domain.Account;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Trigram index over account screen name, first and
+ * last name, email and phone number
+
+ * Field text is lower cased and split into terms on
+ * anything that is not a letter or digit (phone numbers
+ * become one digits-only term). Each term is indexed
+ * under its trigrams, padded at both ends, in sorted
+ * posting lists of accountIds.
+
+ * A search collects candidates from the rarest query
+ * trigrams (at most MAX_CANDIDATES, lowest ids first),
+ * counts the shared trigrams of each, with a binary
+ * search per candidate once posting lists get long and
+ * skipping trigrams most accounts have (say "com"),
+ * then ranks the best counted against the stored
+ * account: exact term > prefix > one or two typos in
+ * the term prefix > substring. Every query word must
+ * match some term. Query words are padded at the front
+ * only, so "smi" finds "smith". Numbers get no typos.
+
+ * The index is updated after the store write. Removed
+ * postings are re-checked against the stored account
+ * and put back if a concurrent write still needs them,
+ * and every hit is ranked against the stored account,
+ * so stale postings never produce a wrong result.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+final class AccountSearchIndex {
+
+    // accounts collected from postings per search, later trigrams only re-count them
+    private static final int MAX_CANDIDATES = 20_000;
+
+    // posting list length per candidate above which a trigram is not counted
+    private static final int MAX_LIST_PER_CANDIDATE = 16;
+
+    // candidates ranked per requested result
+    private static final int CANDIDATES_PER_RESULT = 20;
+
+    // term padding
+    private static final char PAD = '\0';
+
+    private final ConcurrentHashMap<Long, Postings> postings = new ConcurrentHashMap<>();
+
+    // stored account by id, for re-checks and ranking
+    private final IntFunction<Account> accounts;
+
+
+    AccountSearchIndex(IntFunction<Account> accounts) {
+        this.accounts = accounts;
+    }
+
+
+    /**
+     * apply the change of one account
+
+     * @param before Account or null (created)
+     * @param after Account or null (deleted)
+     */
+    void update(Account before, Account after) {
+
+        int accountId = before != null ? before.getAccountId() : after.getAccountId();
+        long[] removed = trigrams(before);
+        long[] added = trigrams(after);
+
+        // all of them, before may be an older copy than the one replaced
+        for (long trigram : added) {
+            postings.computeIfAbsent(trigram, k -> new Postings()).add(accountId);
+        }
+        long[] stored = null;
+        for (long trigram : removed) {
+            if (Arrays.binarySearch(added, trigram) >= 0) {
+                continue;
+            }
+            Postings ids = postings.get(trigram);
+            if (ids == null || !ids.remove(accountId)) {
+                continue;
+            }
+            // a write that landed meanwhile may still need it
+            if (stored == null) {
+                stored = trigrams(accounts.apply(accountId));
+            }
+            if (Arrays.binarySearch(stored, trigram) >= 0) {
+                ids.add(accountId);
+            }
+        }
+    }
+
+
+    /**
+     * ranked accounts matching every word of the text
+
+     * @param text String search text
+     * @param limit int max results
+     * @return List<Account> best match first, ties by accountId
+     */
+    List<Account> search(String text, int limit) {
+
+        String[] words = terms(text);
+        if (words.length == 0) {
+            throw new IllegalArgumentException("Search text must contain a letter or digit.");
+        }
+        // rarest trigrams first
+        List<Postings> lists = new ArrayList<>();
+        for (String word : words) {
+            for (long trigram : wordTrigrams(word)) {
+                Postings ids = postings.get(trigram);
+                if (ids != null && !lists.contains(ids)) {
+                    lists.add(ids);
+                }
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        IntCounter counts = new IntCounter();
+        for (Postings ids : lists) {
+            if (counts.size() + ids.size() <= MAX_CANDIDATES || counts.size() == 0) {
+                ids.addTo(counts, MAX_CANDIDATES);
+            } else if (ids.size() <= MAX_LIST_PER_CANDIDATE * counts.size()) {
+                ids.countPresent(counts);
+            }
+            // longer lists are shared by nearly every candidate, they rank nothing
+        }
+
+        // best candidates by shared trigrams, ranked on the stored account
+        int[] candidates = counts.topKeys(Math.max(limit, 1) * CANDIDATES_PER_RESULT);
+        List<Ranked> ranked = new ArrayList<>();
+        for (int accountId : candidates) {
+            Account account = accounts.apply(accountId);
+            double score = account == null ? 0 : score(words, terms(account));
+            if (score > 0) {
+                ranked.add(new Ranked(account, score));
+            }
+        }
+        ranked.sort((a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Integer.compare(a.account.getAccountId(), b.account.getAccountId()));
+
+        List<Account> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(ranked.get(i).account);
+        }
+        return result;
+    }
+
+
+    // sum of the best term score per word, 0 unless every word matches
+    static double score(String[] words, String[] terms) {
+
+        double total = 0;
+        for (String word : words) {
+            double best = 0;
+            for (String term : terms) {
+                best = Math.max(best, score(word, term));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    static double score(String word, String term) {
+
+        if (term.equals(word)) {
+            return 1.0;
+        }
+        if (term.startsWith(word)) {
+            return 0.8;
+        }
+        int typos = maxTypos(word);
+        if (typos > 0) {
+            // typo in the prefix the user has typed so far (or one char more / less)
+            int best = Integer.MAX_VALUE;
+            for (int length = word.length() - 1; length <= word.length() + 1; length++) {
+                if (length > 0 && length <= term.length()) {
+                    best = Math.min(best, distance(word, term.substring(0, length), typos));
+                }
+            }
+            if (best <= typos) {
+                return 0.6 - 0.1 * best;
+            }
+        }
+        return word.length() >= 3 && term.contains(word) ? 0.3 : 0;
+    }
+
+    private static int maxTypos(String word) {
+
+        if (word.chars().allMatch(Character::isDigit)) {
+            return 0;
+        }
+        return word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+    }
+
+    // optimal string alignment distance, anything above limit reported as limit + 1
+    static int distance(String a, String b, int limit) {
+
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+
+    // distinct trigrams of all searchable terms, sorted
+    private static long[] trigrams(Account account) {
+
+        if (account == null) {
+            return new long[0];
+        }
+        long[] all = new long[64];
+        int count = 0;
+        for (String term : terms(account)) {
+            int length = term.length() + 2;
+            for (int i = 0; i + 3 <= length; i++) {
+                if (count == all.length) {
+                    all = Arrays.copyOf(all, count * 2);
+                }
+                all[count++] = trigram(padded(term, i), padded(term, i + 1), padded(term, i + 2));
+            }
+        }
+        Arrays.sort(all, 0, count);
+        return Arrays.stream(all, 0, count).distinct().toArray();
+    }
+
+    // query word trigrams, padded at the front only (prefix search)
+    private static long[] wordTrigrams(String word) {
+
+        int length = word.length() + 1;
+        if (length < 3) {
+            // one char: pad + char + any, not indexable as a trigram
+            return new long[0];
+        }
+        long[] result = new long[length - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = trigram(padded(word, i), padded(word, i + 1), padded(word, i + 2));
+        }
+        return result;
+    }
+
+    // char i of PAD + term + PAD
+    private static char padded(String term, int i) {
+
+        return i == 0 || i > term.length() ? PAD : term.charAt(i - 1);
+    }
+
+    private static long trigram(char a, char b, char c) {
+
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String[] terms(Account account) {
+
+        List<String> terms = new ArrayList<>(8);
+        addTerms(terms, account.getScreenName());
+        addTerms(terms, account.getFirstName());
+        addTerms(terms, account.getLastName());
+        addTerms(terms, account.getEmail());
+
+        // phone number as one run of digits
+        String phone = account.getPhoneNumber();
+        if (phone != null) {
+            StringBuilder digits = new StringBuilder(phone.length());
+            for (int i = 0; i < phone.length(); i++) {
+                if (Character.isDigit(phone.charAt(i))) {
+                    digits.append(phone.charAt(i));
+                }
+            }
+            if (!digits.isEmpty()) {
+                terms.add(digits.toString());
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    static String[] terms(String text) {
+
+        List<String> terms = new ArrayList<>(4);
+        addTerms(terms, text);
+        return terms.toArray(new String[0]);
+    }
+
+    private static void addTerms(List<String> terms, String text) {
+
+        if (text == null) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean inTerm = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (inTerm && start < 0) {
+                start = i;
+            } else if (!inTerm && start >= 0) {
+                terms.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+
+    /**
+     * sorted accountIds of one trigram
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void add(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        synchronized boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        // count ids until counts holds limit keys (later ids are all new)
+        synchronized void addTo(IntCounter counts, int limit) {
+            for (int i = 0; i < size && counts.size() < limit; i++) {
+                counts.increment(ids[i]);
+            }
+        }
+
+        // count only ids counts already holds, walking whichever side is shorter
+        synchronized void countPresent(IntCounter counts) {
+            if (size <= counts.size()) {
+                for (int i = 0; i < size; i++) {
+                    counts.incrementIfPresent(ids[i]);
+                }
+            } else {
+                counts.incrementIf(id -> Arrays.binarySearch(ids, 0, size, id) >= 0);
+            }
+        }
+    }
+
+
+    /**
+     * open addressing int -> count map, one per search
+     */
+    private static final class IntCounter {
+
+        private int[] keys = new int[1024];
+        private int[] counts = new int[1024];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void incrementIfPresent(int key) {
+            int slot = find(key);
+            if (keys[slot] == key) {
+                counts[slot]++;
+            }
+        }
+
+        void incrementIf(IntPredicate test) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && test.test(keys[i])) {
+                    counts[i]++;
+                }
+            }
+        }
+
+        void increment(int key) {
+            int slot = find(key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    counts[slot] = 1;
+                    grow();
+                    return;
+                }
+            }
+            counts[slot]++;
+        }
+
+        // up to k keys with the highest counts, ties by smaller key (unordered)
+        int[] topKeys(int k) {
+            // counts are small (shared trigrams), pick the cut-off from a histogram
+            int max = 0;
+            for (int i = 0; i < keys.length; i++) {
+                max = Math.max(max, counts[i]);
+            }
+            int[] histogram = new int[max + 1];
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    histogram[counts[i]]++;
+                }
+            }
+            int threshold = max;
+            int above = 0;
+            while (threshold > 1 && above + histogram[threshold] < k) {
+                above += histogram[threshold--];
+            }
+            int[] top = new int[Math.min(k, size)];
+            int[] tied = new int[histogram[threshold]];
+            int n = 0;
+            int t = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && counts[i] > threshold) {
+                    top[n++] = keys[i];
+                } else if (keys[i] != 0 && counts[i] == threshold) {
+                    tied[t++] = keys[i];
+                }
+            }
+            Arrays.sort(tied);
+            for (int i = 0; n < top.length && i < tied.length; i++) {
+                top[n++] = tied[i];
+            }
+            return top;
+        }
+
+        // slot holding key, or the free slot where it would go (ids are positive, 0 marks free)
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 7 & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = (oldKeys[i] * 0x9E3779B9) >>> 7 & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * one ranked hit
+     */
+    private static final class Ranked {
+
+        private final Account account;
+        private final double score;
+
+        Ranked(Account account, double score) {
+            this.account = account;
+            this.score = score;
+        }
+    }
+}
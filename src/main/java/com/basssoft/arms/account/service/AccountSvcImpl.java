@@ -1,14 +1,53 @@
 package com.basssoft.arms.account.service;
 
+import com.basssoft.arms.account.domain.Account;
 import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.journal.StateJournal;
+import com.basssoft.arms.mapping.EntityCodec;
+import com.basssoft.arms.store.BatchResult;
+import com.basssoft.arms.store.IntKeyStore;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service Implementation
  * for Account CRUD operations
 
+ * getAccount reads through the "accounts" cache
+ * (Caffeine, sized by spring.cache.caffeine.spec).
+ * Updates and deletes evict; a read racing a write
+ * can re-cache the old value, bounded by the TTL.
+
+ * Passwords are stored as BCrypt hashes made on the
+ * PasswordHasher pool and never leave the service:
+ * returned DTOs carry no password. A blank password
+ * on update keeps the stored hash. Screen names are
+ * unique (case sensitive), they are the login name.
+
+ * Providers are indexed by zip code and by city (case
+ * insensitive) for availability search. The index only
+ * narrows the candidates, every hit is checked against
+ * the stored account, so a stale entry costs a lookup
+ * and never a wrong answer.
+
+ * searchAccounts is served by an AccountSearchIndex
+ * (trigrams of screen name, names, email and phone)
+ * kept up to date by the same write paths.
+
  * arms application
  * @author Matthew Bass
  * @version 1.0
@@ -16,17 +55,158 @@ import java.util.List;
 @Service
 public class AccountSvcImpl implements IaccountService {
 
+    // cache in front of getAccount
+    public static final String ACCOUNT_CACHE = "accounts";
+
+    // accounts by accountId
+    private final IntKeyStore<Account> accounts = new IntKeyStore<>();
+
+    // accountId by screenName, for login and uniqueness
+    private final ConcurrentHashMap<String, Integer> screenNames = new ConcurrentHashMap<>();
+
+    // trigram index for searchAccounts
+    private final AccountSearchIndex searchIndex = new AccountSearchIndex(accounts::get);
+
+    // provider accountIds by zip code and by lower case city
+    private final ConcurrentHashMap<String, Set<Integer>> providersByZip = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Integer>> providersByCity = new ConcurrentHashMap<>();
+
+    // BCrypt on its own bounded pool, owned (and shut down) by its bean
+    private final PasswordHasher passwordHasher;
+
+    // keeps accounts on disk, when arms.journal.dir is set
+    @Autowired(required = false)
+    private StateJournal journal;
+
+
+    @Autowired
+    public AccountSvcImpl(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+
+    /**
+     * Load the journaled accounts and rebuild the
+     * screen name, location and search indexes
+     */
+    @PostConstruct
+    public void recover() {
+
+        if (journal == null) {
+            return;
+        }
+        journal.attach(StateJournal.ACCOUNTS, accounts, EntityCodec.ACCOUNT);
+        for (Account entity : accounts.values()) {
+            claimScreenName(entity.getScreenName(), entity.getAccountId());
+            indexLocation(entity);
+            searchIndex.update(null, entity);
+        }
+    }
 
 
     /**
      * Create new Account
 
      * @param account AccountDTO
-     * @return AccountDTO created account
+     * @return AccountDTO created account (with assigned id)
      */
     public AccountDTO createAccount(AccountDTO account){
 
-        return account;
+        validate(account);
+
+        // assign id when none supplied
+        int accountId = account.getAccountId() > 0 ? account.getAccountId() : accounts.nextKey();
+
+        Account entity = AccountMapper.toEntity(account, accountId);
+        entity.setPassword(hashOrNull(account.getPassword()));
+
+        boolean claimed = claimScreenName(entity.getScreenName(), accountId);
+        if (accounts.putIfAbsent(accountId, entity) != null) {
+            if (claimed) {
+                releaseScreenName(entity.getScreenName(), accountId);
+            }
+            throw new IllegalArgumentException("Account " + accountId + " already exists.");
+        }
+        indexLocation(entity);
+        searchIndex.update(null, entity);
+        awaitDurable();
+        return AccountMapper.toDTO(entity);
+    }
+
+
+    /**
+     * Create many Accounts
+
+     * Every item is validated first, the valid ones are
+     * then written to the store in one batch.
+
+     * @param batch List<AccountDTO>
+     * @return List<BatchResult<AccountDTO>> one result per item, in order
+     */
+    public List<BatchResult<AccountDTO>> createAccounts(List<AccountDTO> batch) {
+
+        checkBatch(batch);
+        List<BatchResult<AccountDTO>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        // validate first, claiming supplied ids before any id is generated
+        boolean[] valid = new boolean[batch.size()];
+        Set<Integer> batchIds = new HashSet<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                validate(batch.get(i));
+                valid[i] = true;
+                batchIds.add(batch.get(i).getAccountId());
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+            }
+        }
+
+        int[] positions = new int[batch.size()];
+        int[] keys = new int[batch.size()];
+        boolean[] claimed = new boolean[batch.size()];
+        List<Account> entities = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            AccountDTO account = batch.get(i);
+
+            // assign id when none supplied, skipping ids claimed by the batch
+            int accountId = account.getAccountId();
+            if (accountId == 0) {
+                do {
+                    accountId = accounts.nextKey();
+                } while (batchIds.contains(accountId));
+            }
+            try {
+                claimed[entities.size()] = claimScreenName(account.getScreenName(), accountId);
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+                continue;
+            }
+            positions[entities.size()] = i;
+            keys[entities.size()] = accountId;
+            entities.add(AccountMapper.toEntity(account, accountId));
+        }
+        hashPasswords(batch, positions, entities);
+        boolean[] stored = accounts.putAllIfAbsent(Arrays.copyOf(keys, entities.size()), entities);
+        awaitDurable();
+
+        for (int j = 0; j < entities.size(); j++) {
+            int i = positions[j];
+            if (stored[j]) {
+                indexLocation(entities.get(j));
+                searchIndex.update(null, entities.get(j));
+            } else if (claimed[j]) {
+                releaseScreenName(entities.get(j).getScreenName(), keys[j]);
+            }
+            results.set(i, stored[j]
+                    ? BatchResult.ok(i, AccountMapper.toDTO(entities.get(j)))
+                    : BatchResult.failed(i, "Account " + keys[j] + " already exists."));
+        }
+        return results;
     }
 
 
@@ -34,25 +214,66 @@ public class AccountSvcImpl implements IaccountService {
      * Get Account by ID
 
      * @param accountId int
-     * @return AccountDTO (just id right now)
+     * @return AccountDTO or null when not found
      */
+    @Cacheable(cacheNames = ACCOUNT_CACHE, key = "#accountId", unless = "#result == null")
     public AccountDTO getAccount(int accountId) {
 
-        AccountDTO created = new AccountDTO();
-        created.setAccountId(accountId);
-        return created;
+        if (accountId <= 0) {
+            return null;
+        }
+        Account entity = accounts.get(accountId);
+
+        return entity == null ? null : AccountMapper.toDTO(entity);
     }
 
     /**
      * Get all Accounts
 
-     * @return List<AccountDTO> (empty list right now)
+     * @return List<AccountDTO> ordered by accountId
      */
     public List<AccountDTO> getAllAccounts() {
 
-        List<AccountDTO> accounts = new ArrayList<>();
+        return AccountMapper.toDTOs(accounts.pageAfter(0, Integer.MAX_VALUE));
+    }
 
-        return accounts;
+
+    /**
+     * Get one page of Accounts after a cursor
+
+     * @param afterId int (0 = from the first account)
+     * @param size int max accounts returned
+     * @return List<AccountDTO> ordered by accountId
+     */
+    public List<AccountDTO> getAccountsAfter(int afterId, int size) {
+
+        checkPageSize(size);
+        return AccountMapper.toDTOs(accounts.pageAfter(afterId, size));
+    }
+
+
+    /**
+     * Get one page of Accounts before a cursor
+
+     * @param beforeId int
+     * @param size int max accounts returned
+     * @return List<AccountDTO> ordered by accountId
+     */
+    public List<AccountDTO> getAccountsBefore(int beforeId, int size) {
+
+        checkPageSize(size);
+        return AccountMapper.toDTOs(accounts.pageBefore(beforeId, size));
+    }
+
+
+    /**
+     * Version of the account table, advanced by every write
+
+     * @return long
+     */
+    public long getAccountsVersion() {
+
+        return accounts.version();
     }
 
 
@@ -60,11 +281,128 @@ public class AccountSvcImpl implements IaccountService {
      * Update existing Account
 
      * @param account AccountDTO
-     * @return AccountDTO updated account
+     * @return AccountDTO updated account or null when not found
      */
+    @CacheEvict(cacheNames = ACCOUNT_CACHE, key = "#account.accountId", condition = "#account != null")
     public AccountDTO updateAccount(AccountDTO account) {
 
-        return account;
+        validate(account);
+
+        int accountId = account.getAccountId();
+        if (accountId <= 0) {
+            return null;
+        }
+        Account current = accounts.get(accountId);
+        if (current == null) {
+            return null;
+        }
+        Account entity = AccountMapper.toEntity(account, accountId);
+        String hash = hashOrNull(account.getPassword());
+        boolean claimed = claimScreenName(entity.getScreenName(), accountId);
+
+        // swap against the copy read, retry when another write got there first
+        do {
+            entity.setPassword(hash != null ? hash : current.getPassword());
+            if (accounts.replace(accountId, current, entity)) {
+                if (!Objects.equals(current.getScreenName(), entity.getScreenName())) {
+                    releaseScreenName(current.getScreenName(), accountId);
+                }
+                unindexLocation(current);
+                indexLocation(entity);
+                searchIndex.update(current, entity);
+                awaitDurable();
+                return AccountMapper.toDTO(entity);
+            }
+            current = accounts.get(accountId);
+        } while (current != null);
+
+        if (claimed) {
+            releaseScreenName(entity.getScreenName(), accountId);
+        }
+        return null;
+    }
+
+
+    /**
+     * Update many Accounts
+     * (validated up front, written in one batch;
+     * an accountId may appear only once)
+
+     * @param batch List<AccountDTO>
+     * @return List<BatchResult<AccountDTO>> one result per item, in order
+     */
+    @CacheEvict(cacheNames = ACCOUNT_CACHE, allEntries = true)
+    public List<BatchResult<AccountDTO>> updateAccounts(List<AccountDTO> batch) {
+
+        checkBatch(batch);
+        List<BatchResult<AccountDTO>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        int[] positions = new int[batch.size()];
+        int[] keys = new int[batch.size()];
+        boolean[] claimed = new boolean[batch.size()];
+        Set<Integer> batchIds = new HashSet<>();
+        List<Account> currents = new ArrayList<>(batch.size());
+        List<Account> entities = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            AccountDTO account = batch.get(i);
+            try {
+                validate(account);
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+                continue;
+            }
+            Account current = account.getAccountId() == 0 ? null : accounts.get(account.getAccountId());
+            if (current == null) {
+                results.set(i, BatchResult.failed(i, "Account not found."));
+                continue;
+            }
+            if (!batchIds.add(account.getAccountId())) {
+                results.set(i, BatchResult.failed(i,
+                        "Account " + account.getAccountId() + " appears twice in the batch."));
+                continue;
+            }
+            try {
+                claimed[entities.size()] = claimScreenName(account.getScreenName(), account.getAccountId());
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+                continue;
+            }
+            positions[entities.size()] = i;
+            keys[entities.size()] = account.getAccountId();
+            currents.add(current);
+            entities.add(AccountMapper.toEntity(account, account.getAccountId()));
+        }
+        hashPasswords(batch, positions, entities);
+
+        // blank passwords keep the hash read above (last writer wins, like the other fields)
+        for (int j = 0; j < entities.size(); j++) {
+            if (entities.get(j).getPassword() == null) {
+                entities.get(j).setPassword(currents.get(j).getPassword());
+            }
+        }
+        boolean[] replaced = accounts.replaceAllIfPresent(Arrays.copyOf(keys, entities.size()), entities);
+        awaitDurable();
+
+        for (int j = 0; j < entities.size(); j++) {
+            int i = positions[j];
+            String oldName = currents.get(j).getScreenName();
+            String newName = entities.get(j).getScreenName();
+            if (replaced[j]) {
+                if (!Objects.equals(oldName, newName)) {
+                    releaseScreenName(oldName, keys[j]);
+                }
+                unindexLocation(currents.get(j));
+                indexLocation(entities.get(j));
+                searchIndex.update(currents.get(j), entities.get(j));
+            } else if (claimed[j]) {
+                releaseScreenName(newName, keys[j]);
+            }
+            results.set(i, replaced[j]
+                    ? BatchResult.ok(i, AccountMapper.toDTO(entities.get(j)))
+                    : BatchResult.failed(i, "Account not found."));
+        }
+        return results;
     }
 
 
@@ -72,11 +410,276 @@ public class AccountSvcImpl implements IaccountService {
      * Delete Account by ID
 
      * @param accountId int
-     * @return int deletedAccountId
+     * @return int deletedAccountId or -1 when not found
      */
+    @CacheEvict(cacheNames = ACCOUNT_CACHE, key = "#accountId")
     public int deleteAccount(int accountId) {
 
+        Account removed = accountId <= 0 ? null : accounts.remove(accountId);
+        if (removed == null) {
+            return -1;
+        }
+        releaseScreenName(removed.getScreenName(), accountId);
+        unindexLocation(removed);
+        searchIndex.update(removed, null);
+        awaitDurable();
         return accountId;
     }
 
+
+    /**
+     * Search Accounts by screen name, name, email or phone
+
+     * Words may be prefixes ("smi") or carry a typo
+     * ("jonathon"); every word has to match.
+
+     * @param text String search words
+     * @param limit int max accounts returned
+     * @return List<AccountDTO> best match first
+     */
+    public List<AccountDTO> searchAccounts(String text, int limit) {
+
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search text is required.");
+        }
+        checkPageSize(limit);
+        return AccountMapper.toDTOs(searchIndex.search(text, limit));
+    }
+
+
+    /**
+     * Ids of provider accounts at a location
+
+     * Zip code wins when both are given, the city (and
+     * state, when given) must then match as well.
+
+     * @param city String (case insensitive)
+     * @param state String (case insensitive, optional)
+     * @param zipCode String
+     * @return int[] provider accountIds, ascending
+     */
+    public int[] getProviderIdsAt(String city, String state, String zipCode) {
+
+        boolean byZip = !isBlank(zipCode);
+        if (!byZip && isBlank(city)) {
+            throw new IllegalArgumentException("A city or zip code is required.");
+        }
+        Set<Integer> candidates = byZip
+                ? providersByZip.get(zipCode.trim())
+                : providersByCity.get(cityKey(city));
+        if (candidates == null) {
+            return new int[0];
+        }
+        // drop stale index entries
+        return candidates.stream()
+                .mapToInt(Integer::intValue)
+                .filter(id -> isProviderAt(accounts.get(id), city, state, zipCode))
+                .sorted()
+                .toArray();
+    }
+
+
+    /**
+     * Check a screen name / password pair
+
+     * The hash runs on the PasswordHasher pool. An unknown
+     * screen name costs the same hash as a wrong password.
+     * A hash made with fewer rounds than configured is
+     * replaced after a successful check.
+
+     * @param screenName String
+     * @param password String
+     * @return CompletableFuture<AccountDTO> the account, or null when the pair does not match
+     * @throws RejectedExecutionException when the hasher is saturated
+     */
+    public CompletableFuture<AccountDTO> verifyCredentials(String screenName, String password) {
+
+        if (screenName == null || screenName.isBlank() || password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("Screen name and password are required.");
+        }
+        Integer accountId = screenNames.get(screenName);
+        Account entity = accountId == null ? null : accounts.get(accountId);
+        String hash = entity == null || !screenName.equals(entity.getScreenName()) ? null : entity.getPassword();
+
+        return passwordHasher.matches(password, hash).thenApply(match -> {
+            if (!match) {
+                return null;
+            }
+            if (passwordHasher.needsRehash(hash)) {
+                rehash(entity, password);
+            }
+            return AccountMapper.toDTO(entity);
+        });
+    }
+
+
+    /**
+     * check incoming DTO before it is stored
+
+     * @param account AccountDTO
+     */
+    private void validate(AccountDTO account) {
+
+        if (account == null) {
+            throw new IllegalArgumentException("Account must not be null.");
+        }
+        if (account.getAccountId() < 0) {
+            throw new IllegalArgumentException("Account id must not be negative.");
+        }
+    }
+
+
+    // once the journal has this thread's changes on disk (no journal: at once)
+    private void awaitDurable() {
+
+        if (journal != null) {
+            journal.awaitDurable();
+        }
+    }
+
+    // hash the new password, null when none was sent
+    private String hashOrNull(String password) {
+
+        return password == null || password.isBlank() ? null : passwordHasher.hash(password);
+    }
+
+    // hash the passwords sent for entities[j] = batch[positions[j]], blank ones become null
+    private void hashPasswords(List<AccountDTO> batch, int[] positions, List<Account> entities) {
+
+        List<Account> targets = new ArrayList<>();
+        List<String> passwords = new ArrayList<>();
+        for (int j = 0; j < entities.size(); j++) {
+            String password = batch.get(positions[j]).getPassword();
+            entities.get(j).setPassword(null);
+            if (password != null && !password.isBlank()) {
+                targets.add(entities.get(j));
+                passwords.add(password);
+            }
+        }
+        List<String> hashes = passwordHasher.hashAll(passwords);
+        for (int k = 0; k < targets.size(); k++) {
+            targets.get(k).setPassword(hashes.get(k));
+        }
+    }
+
+    // swap in a stronger hash, skipped when the account changed meanwhile
+    private void rehash(Account entity, String password) {
+
+        try {
+            passwordHasher.hashAsync(password).thenAccept(hash -> {
+                Account upgraded = AccountMapper.copyOf(entity);
+                upgraded.setPassword(hash);
+                accounts.replace(entity.getAccountId(), entity, upgraded);
+            });
+        } catch (RejectedExecutionException ree) {
+            // pool busy, upgrade on a later login
+        }
+    }
+
+    // true when the name was free and is now held by accountId
+    private boolean claimScreenName(String screenName, int accountId) {
+
+        if (screenName == null) {
+            return false;
+        }
+        Integer owner = screenNames.putIfAbsent(screenName, accountId);
+        if (owner != null && owner != accountId) {
+            throw new IllegalArgumentException("Screen name " + screenName + " is already taken.");
+        }
+        return owner == null;
+    }
+
+    private void releaseScreenName(String screenName, int accountId) {
+
+        if (screenName != null) {
+            screenNames.remove(screenName, accountId);
+        }
+    }
+
+
+    private void indexLocation(Account entity) {
+
+        if (!entity.isProvider()) {
+            return;
+        }
+        if (!isBlank(entity.getZipCode())) {
+            providersByZip.computeIfAbsent(entity.getZipCode().trim(), k -> ConcurrentHashMap.newKeySet())
+                    .add(entity.getAccountId());
+        }
+        if (!isBlank(entity.getCity())) {
+            providersByCity.computeIfAbsent(cityKey(entity.getCity()), k -> ConcurrentHashMap.newKeySet())
+                    .add(entity.getAccountId());
+        }
+    }
+
+    // after removing, put the id back if the stored account (maybe written meanwhile) still belongs there
+    private void unindexLocation(Account entity) {
+
+        if (!entity.isProvider()) {
+            return;
+        }
+        int accountId = entity.getAccountId();
+        if (!isBlank(entity.getZipCode())) {
+            String zip = entity.getZipCode().trim();
+            Set<Integer> ids = providersByZip.get(zip);
+            if (ids != null && ids.remove(accountId)) {
+                Account stored = accounts.get(accountId);
+                if (stored != null && stored.isProvider() && stored.getZipCode() != null
+                        && zip.equals(stored.getZipCode().trim())) {
+                    ids.add(accountId);
+                }
+            }
+        }
+        if (!isBlank(entity.getCity())) {
+            String city = cityKey(entity.getCity());
+            Set<Integer> ids = providersByCity.get(city);
+            if (ids != null && ids.remove(accountId)) {
+                Account stored = accounts.get(accountId);
+                if (stored != null && stored.isProvider() && stored.getCity() != null
+                        && city.equals(cityKey(stored.getCity()))) {
+                    ids.add(accountId);
+                }
+            }
+        }
+    }
+
+    private static boolean isProviderAt(Account entity, String city, String state, String zipCode) {
+
+        return entity != null
+                && entity.isProvider()
+                && (isBlank(zipCode) || zipCode.trim().equals(trimmed(entity.getZipCode())))
+                && (isBlank(city) || cityKey(city).equals(cityKey(entity.getCity())))
+                && (isBlank(state) || state.trim().equalsIgnoreCase(trimmed(entity.getState())));
+    }
+
+    private static String cityKey(String city) {
+
+        return city == null ? null : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimmed(String text) {
+
+        return text == null ? null : text.trim();
+    }
+
+    private static boolean isBlank(String text) {
+
+        return text == null || text.isBlank();
+    }
+
+
+    private static void checkBatch(List<AccountDTO> batch) {
+
+        if (batch == null || batch.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one account.");
+        }
+    }
+
+    private static void checkPageSize(int size) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+    }
+
 }
@@ -0,0 +1,94 @@
+package com.basssoft.arms.account.service;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.booking.service.IbookingService;
+import com.basssoft.arms.mapping.TimeCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds providers who are free for a time window
+ * at a location
+
+ * Candidates come from the account location index
+ * (ids in ascending order), the free / busy check from
+ * the per-provider booking schedules. Candidates are
+ * checked a chunk at a time until the page is full, so
+ * a page costs about size schedule probes however many
+ * providers the city has.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Service
+public class AvailabilitySearch {
+
+    private final IaccountService accountService;
+
+    private final IbookingService bookingService;
+
+    // smallest number of candidates checked per booking service call
+    private static final int MIN_CHUNK_SIZE = 64;
+
+
+    @Autowired
+    public AvailabilitySearch(IaccountService accountService, IbookingService bookingService) {
+        this.accountService = accountService;
+        this.bookingService = bookingService;
+    }
+
+
+    /**
+     * Providers at a location with no booking in [from, to)
+
+     * @param city String (optional when zipCode is given)
+     * @param state String (optional)
+     * @param zipCode String (optional when city is given)
+     * @param from String start of window (inclusive)
+     * @param to String end of window (exclusive)
+     * @param afterId int return providers with a greater id (0 = from the first)
+     * @param size int max providers returned
+     * @return List<AccountDTO> ordered by accountId
+     */
+    public List<AccountDTO> findAvailableProviders(String city, String state, String zipCode,
+                                                   String from, String to, int afterId, int size) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        LocalDateTime start = TimeCodec.parse(from);
+        LocalDateTime end = TimeCodec.parse(to);
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new IllegalArgumentException("A time window with from before to is required.");
+        }
+        int[] candidates = accountService.getProviderIdsAt(city, state, zipCode);
+
+        // first candidate after the cursor
+        int next = Arrays.binarySearch(candidates, afterId);
+        next = next >= 0 ? next + 1 : -next - 1;
+
+        List<AccountDTO> result = new ArrayList<>(Math.min(size, candidates.length - next));
+        int chunkSize = Math.max(size, MIN_CHUNK_SIZE);
+
+        while (next < candidates.length && result.size() < size) {
+            int chunkEnd = Math.min(next + chunkSize, candidates.length);
+            int[] free = bookingService.getAvailableProviders(
+                    Arrays.copyOfRange(candidates, next, chunkEnd), from, to);
+
+            for (int i = 0; i < free.length && result.size() < size; i++) {
+                AccountDTO provider = accountService.getAccount(free[i]);
+                // deleted meanwhile
+                if (provider != null) {
+                    result.add(provider);
+                }
+            }
+            next = chunkEnd;
+        }
+        return result;
+    }
+}
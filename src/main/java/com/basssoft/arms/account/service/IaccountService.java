@@ -1,8 +1,10 @@
 package com.basssoft.arms.account.service;
 
 import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.store.BatchResult;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service Interface
@@ -22,11 +24,19 @@ public interface IaccountService {
      */
     public AccountDTO createAccount(AccountDTO account);
 
+    /**
+     * Create many Accounts in one batch
+     *
+     * @param batch List<AccountDTO>
+     * @return List<BatchResult<AccountDTO>> one result per item, in order
+     */
+    public List<BatchResult<AccountDTO>> createAccounts(List<AccountDTO> batch);
+
     /**
      * Get Account by ID
      *
      * @param accountId int
-     * @return AccountDTO
+     * @return AccountDTO or null when not found
      */
     public AccountDTO getAccount(int accountId);
 
@@ -37,19 +47,81 @@ public interface IaccountService {
      */
     public List<AccountDTO> getAllAccounts();
 
+    /**
+     * Get one page of Accounts after a cursor (keyset pagination)
+     *
+     * @param afterId int accounts with a greater id (0 = from the first)
+     * @param size int max accounts returned
+     * @return List<AccountDTO> ordered by accountId
+     */
+    public List<AccountDTO> getAccountsAfter(int afterId, int size);
+
+    /**
+     * Get one page of Accounts before a cursor (keyset pagination)
+     *
+     * @param beforeId int accounts with a smaller id
+     * @param size int max accounts returned
+     * @return List<AccountDTO> ordered by accountId
+     */
+    public List<AccountDTO> getAccountsBefore(int beforeId, int size);
+
+    /**
+     * Version of the account table, advanced by every write
+     *
+     * @return long (ETag / Last-Modified of collection responses)
+     */
+    public long getAccountsVersion();
+
     /**
      * Update existing Account
      *
      * @param account AccountDTO
-     * @return AccountDTO updated
+     * @return AccountDTO updated or null when not found
      */
     public AccountDTO updateAccount(AccountDTO account);
 
+    /**
+     * Update many Accounts in one batch
+     *
+     * @param batch List<AccountDTO>
+     * @return List<BatchResult<AccountDTO>> one result per item, in order
+     */
+    public List<BatchResult<AccountDTO>> updateAccounts(List<AccountDTO> batch);
+
     /**
      * Delete Account by ID
      *
      * @param accountId int
-     * @return int
+     * @return int deletedId or -1 when not found
      */
     public int deleteAccount(int accountId);
+
+    /**
+     * Search Accounts by screen name, name, email or phone
+     * (prefix and typo tolerant, ranked)
+     *
+     * @param text String search words
+     * @param limit int max accounts returned
+     * @return List<AccountDTO> best match first
+     */
+    public List<AccountDTO> searchAccounts(String text, int limit);
+
+    /**
+     * Ids of provider accounts at a location (city / state or zip code)
+     *
+     * @param city String
+     * @param state String
+     * @param zipCode String
+     * @return int[] provider accountIds, ascending
+     */
+    public int[] getProviderIdsAt(String city, String state, String zipCode);
+
+    /**
+     * Check a screen name / password pair
+     *
+     * @param screenName String
+     * @param password String
+     * @return CompletableFuture<AccountDTO> the account, or null when the pair does not match
+     */
+    public CompletableFuture<AccountDTO> verifyCredentials(String screenName, String password);
 }
@@ -0,0 +1,252 @@
+package com.basssoft.arms.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt password hashing on a dedicated bounded pool
+
+ * One hash costs 2^strength rounds (about 50-100 ms at
+ * the default 10), so hashes run on a fixed number of
+ * worker threads with a bounded queue, never on request
+ * threads. When the queue is full new work is refused
+ * with RejectedExecutionException instead of piling up:
+ * a login storm turns into fast 503s while booking
+ * requests keep their threads and cores.
+
+ * arms.password.hash      timer, time on a worker, tagged op=hash|verify
+ * arms.password.queue     gauge, hashes waiting for a worker
+ * arms.password.active    gauge, hashes running
+ * arms.password.rejected  counter, hashes refused while full
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Component
+public class PasswordHasher {
+
+    static final String TIMER = "arms.password.hash";
+    static final String QUEUE = "arms.password.queue";
+    static final String ACTIVE = "arms.password.active";
+    static final String REJECTED = "arms.password.rejected";
+
+    private static final int DEFAULT_STRENGTH = 10;
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final int threads;
+
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    // checked against for unknown accounts, made on first use
+    private volatile String dummyHash;
+
+
+    /**
+     * Create hasher with default settings and private meters
+     * (for services built outside Spring)
+     */
+    public PasswordHasher() {
+        this(DEFAULT_STRENGTH, 0, DEFAULT_QUEUE_CAPACITY, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Create hasher
+
+     * @param strength int bcrypt log rounds (4 - 31)
+     * @param threads int worker threads, 0 = one per core
+     * @param queueCapacity int hashes allowed to wait for a worker
+     * @param registry MeterRegistry
+     */
+    @Autowired
+    public PasswordHasher(@Value("${arms.password.strength:10}") int strength,
+                          @Value("${arms.password.threads:0}") int threads,
+                          @Value("${arms.password.queue-capacity:256}") int queueCapacity,
+                          MeterRegistry registry) {
+
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.rejected = Counter.builder(REJECTED)
+                .description("password hashes refused, pool saturated")
+                .register(registry);
+
+        AtomicInteger workers = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread worker = new Thread(task, "arms-password-" + workers.incrementAndGet());
+                    worker.setDaemon(true);
+                    return worker;
+                },
+                (task, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Password hashing is busy, try again.");
+                });
+
+        this.hashTimer = Timer.builder(TIMER)
+                .description("password hash latency")
+                .tags("op", "hash")
+                .register(registry);
+        this.verifyTimer = Timer.builder(TIMER)
+                .description("password hash latency")
+                .tags("op", "verify")
+                .register(registry);
+        Gauge.builder(QUEUE, pool, p -> p.getQueue().size())
+                .description("password hashes waiting for a worker")
+                .register(registry);
+        Gauge.builder(ACTIVE, pool, ThreadPoolExecutor::getActiveCount)
+                .description("password hashes running")
+                .register(registry);
+    }
+
+
+    /**
+     * Hash a password, waiting for the result
+
+     * @param raw String password
+     * @return String bcrypt hash
+     * @throws RejectedExecutionException when the pool is saturated
+     */
+    public String hash(String raw) {
+
+        return join(hashAsync(raw));
+    }
+
+
+    /**
+     * Hash many passwords, at most one per worker in flight,
+     * so a single batch never fills the queue by itself
+
+     * @param raws List<String> passwords
+     * @return List<String> bcrypt hashes, same order
+     * @throws RejectedExecutionException when the pool is saturated
+     */
+    public List<String> hashAll(List<String> raws) {
+
+        List<String> hashes = new ArrayList<>(raws.size());
+        List<CompletableFuture<String>> window = new ArrayList<>(threads);
+
+        for (int from = 0; from < raws.size(); from += threads) {
+            window.clear();
+            for (int i = from; i < Math.min(from + threads, raws.size()); i++) {
+                window.add(hashAsync(raws.get(i)));
+            }
+            for (CompletableFuture<String> hash : window) {
+                hashes.add(join(hash));
+            }
+        }
+        return hashes;
+    }
+
+
+    /**
+     * Hash a password on the pool
+
+     * @param raw String password
+     * @return CompletableFuture<String> bcrypt hash
+     * @throws RejectedExecutionException when the pool is saturated
+     */
+    public CompletableFuture<String> hashAsync(String raw) {
+
+        return CompletableFuture.supplyAsync(() -> timed(hashTimer, () -> encoder.encode(raw)), pool);
+    }
+
+
+    /**
+     * Check a password against a stored hash on the pool
+
+     * A missing hash is checked against a dummy one, so
+     * unknown accounts take as long as known ones.
+
+     * @param raw String password
+     * @param hash String stored bcrypt hash, or null
+     * @return CompletableFuture<Boolean> true on a match
+     * @throws RejectedExecutionException when the pool is saturated
+     */
+    public CompletableFuture<Boolean> matches(String raw, String hash) {
+
+        return CompletableFuture.supplyAsync(() -> timed(verifyTimer, () -> {
+            boolean match = encoder.matches(raw, hash != null ? hash : dummyHash());
+            return match && hash != null;
+        }), pool);
+    }
+
+
+    /**
+     * Was a hash made with fewer rounds than configured now?
+
+     * @param hash String bcrypt hash
+     * @return boolean true when it should be re-hashed
+     */
+    public boolean needsRehash(String hash) {
+
+        return hash != null && encoder.upgradeEncoding(hash);
+    }
+
+
+    /**
+     * stop the workers with the application
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        pool.shutdown();
+    }
+
+
+    private String dummyHash() {
+
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = encoder.encode("");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private static <T> T timed(Timer timer, Supplier<T> work) {
+
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+
+        try {
+            return future.join();
+
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ce;
+        }
+    }
+}
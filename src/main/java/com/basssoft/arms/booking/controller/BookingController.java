@@ -1,13 +1,28 @@
 package com.basssoft.arms.booking.controller;
 
 import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.domain.CompactBookingDTO;
 import com.basssoft.arms.booking.service.IbookingService;
+import com.basssoft.arms.booking.service.BookingMapper;
+import com.basssoft.arms.gateway.View;
+import com.basssoft.arms.mapping.CsvWriter;
+import com.basssoft.arms.store.BatchResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -30,6 +45,24 @@ public class BookingController {
     @Autowired
     private BookingModelAssembler assembler;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // upper bound for one page of bookings
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // upper bound for one batch request
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // bookings read per service call while streaming
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    // CSV export columns
+    private static final String[] CSV_HEADER = {
+            "booking_id", "provider_id", "customer_id", "start_time", "end_time", "hourly_rate",
+            "over_hours", "completed", "paid", "street", "city", "state", "zip_code"
+    };
+
 
     /**
      * Create new Booking
@@ -58,16 +91,51 @@ public class BookingController {
     }
 
 
+    /**
+     * Create many Bookings in one request
+     *
+     * @param bookingDtos List<BookingDTO>
+     * @return ResponseEntity with one result per item and status
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBookings(@RequestBody List<BookingDTO> bookingDtos) {
+
+        try {
+            checkBatchSize(bookingDtos);
+
+            // call service / create all valid items in one batch
+            List<BatchResult<BookingDTO>> results = bookingService.createBookings(bookingDtos);
+
+            // all created status:201, otherwise per item results status:207
+            return ResponseEntity.status(batchStatus(results, HttpStatus.CREATED)).body(results);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Booking batch creation failed.");
+        }
+    }
+
+
     /**
      * Get Booking by ID
      *
      * @param id booking ID
+     * @param view full (default) or compact
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
      * @return ResponseEntity with BookingDTO and or status code
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getBooking(@PathVariable int id) {
+    public ResponseEntity<?> getBooking(@PathVariable int id,
+                                        @RequestParam(defaultValue = "full") String view,
+                                        WebRequest request) {
 
         try {
+            View projection = View.of(view);
+
             // call service / get booking
             BookingDTO booking = bookingService.getBooking(id);
 
@@ -76,7 +144,15 @@ public class BookingController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Booking not found.");
             }
 
+            // client copy still current status: 304, nothing assembled or serialized
+            if (request.checkNotModified(projection.etag(booking.getVersion()), booking.getVersion())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             // return link wrapped booking, status: 200
+            if (projection == View.COMPACT) {
+                return ResponseEntity.ok(assembler.toCompactModel(booking));
+            }
             return ResponseEntity.ok(assembler.toModel(booking));
 
         } catch (IllegalArgumentException iae) {
@@ -92,16 +168,237 @@ public class BookingController {
 
 
     /**
-     * Get all Bookings
+     * Get one page of Bookings (keyset pagination)
      *
-     * @return ResponseEntity with list of BookingDTOs or error message
+     * @param after return bookings with a greater id (optional)
+     * @param before return bookings with a smaller id (optional)
+     * @param size max bookings per page
+     * @param view full (default) or compact
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
+     * @return ResponseEntity with page of BookingDTOs or error message
      */
     @GetMapping
-    public ResponseEntity<?> getBookings() {
+    public ResponseEntity<?> getBookings(@RequestParam(required = false) Integer after,
+                                         @RequestParam(required = false) Integer before,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         @RequestParam(defaultValue = "full") String view,
+                                         WebRequest request) {
+
+        try {
+            View projection = View.of(view);
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
+
+            // table version read before the page, unchanged table status: 304
+            long version = bookingService.getBookingsVersion();
+            if (request.checkNotModified(projection.etag(version), version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            List<BookingDTO> page;
+            boolean hasPrev;
+            boolean hasNext;
+
+            // fetch one extra row to learn if the walk continues
+            if (before != null) {
+                page = bookingService.getBookingsBefore(before, size + 1);
+                hasPrev = page.size() > size;
+                if (hasPrev) {
+                    page = page.subList(1, page.size());
+                }
+                // probe one row past the page, so next never leads to an empty page
+                hasNext = !page.isEmpty()
+                        && !bookingService.getBookingsAfter(page.get(page.size() - 1).getBookingId(), 1).isEmpty();
+
+            } else {
+                int from = after == null ? 0 : after;
+                page = bookingService.getBookingsAfter(from, size + 1);
+                hasNext = page.size() > size;
+                if (hasNext) {
+                    page = page.subList(0, size);
+                }
+                hasPrev = from > 0 && !page.isEmpty()
+                        && !bookingService.getBookingsBefore(page.get(0).getBookingId(), 1).isEmpty();
+            }
+
+            // return page wrapped with self / next / prev links, status:200
+            if (projection == View.COMPACT) {
+                return ResponseEntity.ok(
+                        assembler.toCompactPageModel(page, after, before, size, hasPrev, hasNext));
+            }
+            return ResponseEntity.ok(assembler.toPageModel(page, after, before, size, hasPrev, hasNext));
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status: 400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        }catch (Exception ex) {
+            // handle other errors status: 500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Booking retrieval failed.");
+        }
+    }
+
+
+    /**
+     * Stream all Bookings as newline delimited JSON
+     * (Accept: application/x-ndjson)
+
+     * Rows are written as they are read, one keyset chunk
+     * at a time, so memory use does not grow with the table.
+     *
+     * @param view full (default) or compact
+     * @return ResponseEntity with streaming NDJSON body
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookings(@RequestParam(defaultValue = "full") String view) {
+
+        View projection;
+        try {
+            projection = View.of(view);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status: 400
+            byte[] message = iae.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(message));
+        }
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            int after = 0;
+            while (true) {
+                // next chunk after last written booking
+                List<BookingDTO> chunk = bookingService.getBookingsAfter(after, STREAM_CHUNK_SIZE);
+
+                for (BookingDTO booking : chunk) {
+                    if (projection == View.COMPACT) {
+                        generator.writeObject(BookingMapper.toCompactDTO(booking));
+                    } else {
+                        generator.writeObject(booking);
+                    }
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+
+                if (chunk.size() < STREAM_CHUNK_SIZE) {
+                    break;
+                }
+                after = chunk.get(chunk.size() - 1).getBookingId();
+            }
+            generator.close();
+        };
+        // stream, status:200
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+
+    /**
+     * Export Bookings as CSV, one row per booking
+     * (Accept: text/csv)
+
+     * Rows are written as they are read and flushed one
+     * keyset chunk at a time (chunked transfer), so memory
+     * use does not grow with the export.
+     *
+     * @param providerId provider account ID (optional, all when absent)
+     * @param from earliest start time (ISO date-time, inclusive, optional)
+     * @param to latest start time (ISO date-time, exclusive, optional)
+     * @return ResponseEntity with streaming CSV body
+     */
+    @GetMapping(produces = CsvWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportBookings(@RequestParam(defaultValue = "0") int providerId,
+                                                                @RequestParam(required = false) String from,
+                                                                @RequestParam(required = false) String to) {
+
+        List<BookingDTO> first;
+        try {
+            if (providerId < 0) {
+                throw new IllegalArgumentException("Provider id must not be negative.");
+            }
+            // first chunk read up front, so bad filters answer 400
+            first = bookingService.getBookingsAfter(0, STREAM_CHUNK_SIZE, providerId, from, to);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status: 400
+            return textResponse(HttpStatus.BAD_REQUEST, iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status: 500
+            return textResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Booking export failed.");
+        }
+
+        StreamingResponseBody body = out -> {
+            CsvWriter csv = new CsvWriter(out);
+            csv.row(CSV_HEADER);
+
+            List<BookingDTO> chunk = first;
+            while (true) {
+                for (BookingDTO booking : chunk) {
+                    writeRow(csv, booking);
+                }
+                csv.flush();
+
+                if (chunk.size() < STREAM_CHUNK_SIZE) {
+                    break;
+                }
+                // next chunk after last written booking
+                int after = chunk.get(chunk.size() - 1).getBookingId();
+                chunk = bookingService.getBookingsAfter(after, STREAM_CHUNK_SIZE, providerId, from, to);
+            }
+        };
+        // stream as an attachment, status:200
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("bookings.csv").build().toString())
+                .body(body);
+    }
+
+
+    /**
+     * Get a provider's Bookings overlapping a time window
+     *
+     * @param providerId provider account ID
+     * @param from start of window (ISO date-time, inclusive)
+     * @param to end of window (ISO date-time, exclusive)
+     * @param view full (default) or compact
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
+     * @return ResponseEntity with list of BookingDTOs or error message
+     */
+    @GetMapping("/providers/{providerId}")
+    public ResponseEntity<?> getProviderBookings(@PathVariable int providerId,
+                                                 @RequestParam String from,
+                                                 @RequestParam String to,
+                                                 @RequestParam(defaultValue = "full") String view,
+                                                 WebRequest request) {
 
         try {
-            // call service / get bookings
-            List<BookingDTO> bookings = bookingService.getAllBookings();
+            View projection = View.of(view);
+
+            // table version read before the bookings, unchanged table status: 304
+            long version = bookingService.getBookingsVersion();
+            if (request.checkNotModified(projection.etag(version), version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            // call service / get overlapping bookings
+            List<BookingDTO> bookings = bookingService.getProviderBookings(providerId, from, to);
+
+            Link self = linkTo(methodOn(BookingController.class)
+                    .getProviderBookings(providerId, from, to, view, null)).withSelfRel();
+
+            if (projection == View.COMPACT) {
+                List<EntityModel<CompactBookingDTO>> compactModels = bookings.stream()
+                        .map(assembler::toCompactModel)
+                        .collect(Collectors.toList());
+                return ResponseEntity.ok(CollectionModel.of(compactModels, self));
+            }
 
             // wrap each booking with HATEOAS links
             List<EntityModel<BookingDTO>> bookingModels = bookings.stream()
@@ -109,19 +406,16 @@ public class BookingController {
                     .collect(Collectors.toList());
 
             // create collection of link wrapped DTOs
-            CollectionModel<EntityModel<BookingDTO>> collectionModel = CollectionModel.of(
-                    bookingModels,
-                    linkTo(methodOn(BookingController.class).getBookings()).withSelfRel()
-            );
+            CollectionModel<EntityModel<BookingDTO>> collectionModel = CollectionModel.of(bookingModels, self);
+
             // return collection, status:200
             return ResponseEntity.ok(collectionModel);
 
-
         } catch (IllegalArgumentException iae) {
             // handle bad request status: 400
             return ResponseEntity.badRequest().body(iae.getMessage());
 
-        }catch (Exception ex) {
+        } catch (Exception ex) {
             // handle other errors status: 500
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Booking retrieval failed.");
@@ -165,6 +459,34 @@ public class BookingController {
     }
 
 
+    /**
+     * Update many Bookings in one request
+     *
+     * @param bookingDtos List<BookingDTO> (ids in the body)
+     * @return ResponseEntity with one result per item and status
+     */
+    @PutMapping("/batch")
+    public ResponseEntity<?> updateBookings(@RequestBody List<BookingDTO> bookingDtos) {
+
+        try {
+            checkBatchSize(bookingDtos);
+
+            // call service / update all valid items
+            List<BatchResult<BookingDTO>> results = bookingService.updateBookings(bookingDtos);
+
+            // all updated status:200, otherwise per item results status:207
+            return ResponseEntity.status(batchStatus(results, HttpStatus.OK)).body(results);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Booking batch update failed.");
+        }
+    }
+
 
     /**
      * Delete Booking by ID
@@ -199,4 +521,47 @@ public class BookingController {
     }
 
 
+    private static void writeRow(CsvWriter csv, BookingDTO booking) throws IOException {
+
+        csv.field(booking.getBookingId())
+                .field(booking.getProvider() == null ? 0 : booking.getProvider().getAccountId())
+                .field(booking.getCustomer() == null ? 0 : booking.getCustomer().getAccountId())
+                .field(booking.getStartTime())
+                .field(booking.getEndTime())
+                .field(booking.getHourlyRate(), 2)
+                .field(booking.getOverHours(), 2)
+                .field(booking.isCompleted())
+                .field(booking.isPaid())
+                .field(booking.getLocStreet())
+                .field(booking.getLocCity())
+                .field(booking.getLocState())
+                .field(booking.getLocZipCode())
+                .endRow();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(bytes));
+    }
+
+    private static void checkBatchSize(List<?> batch) {
+
+        if (batch == null || batch.isEmpty() || batch.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " bookings.");
+        }
+    }
+
+    private static HttpStatus batchStatus(List<? extends BatchResult<?>> results, HttpStatus allSucceeded) {
+
+        for (BatchResult<?> result : results) {
+            if (!result.isSuccess()) {
+                return HttpStatus.MULTI_STATUS;
+            }
+        }
+        return allSucceeded;
+    }
+
 }
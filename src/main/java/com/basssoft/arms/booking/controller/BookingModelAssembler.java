@@ -1,11 +1,18 @@
 package com.basssoft.arms.booking.controller;
 
+import com.basssoft.arms.booking.domain.CompactBookingDTO;
 import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingMapper;
+import com.basssoft.arms.gateway.LinkTemplate;
+import com.basssoft.arms.gateway.View;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Assembles Booking models (links)
@@ -19,13 +26,104 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 public class BookingModelAssembler
         implements RepresentationModelAssembler<BookingDTO, EntityModel<BookingDTO>>  {
 
+    // controller base URI resolved once per request
+    private static final LinkTemplate LINKS = new LinkTemplate(BookingController.class);
+
     @Override
     public EntityModel<BookingDTO> toModel(BookingDTO booking) {
 
         return EntityModel.of(booking,
-                linkTo(methodOn(BookingController.class).getBooking(booking.getBookingId())).withSelfRel(),
-                linkTo(methodOn(BookingController.class).getBookings()).withRel("bookings")
+                LINKS.self(booking.getBookingId()),
+                LINKS.collection("bookings")
+        );
+    }
+
+
+    /**
+     * Wrap one keyset page of bookings
+     * with self / next / prev links
+     *
+     * @param page List<BookingDTO> ordered by bookingId
+     * @param after Integer cursor of this request (or null)
+     * @param before Integer cursor of this request (or null)
+     * @param size int page size
+     * @param hasPrev boolean earlier bookings exist
+     * @param hasNext boolean later bookings exist
+     * @return CollectionModel<EntityModel<BookingDTO>>
+     */
+    public CollectionModel<EntityModel<BookingDTO>> toPageModel(List<BookingDTO> page, Integer after, Integer before,
+                                                                int size, boolean hasPrev, boolean hasNext) {
+
+        List<EntityModel<BookingDTO>> bookingModels = new ArrayList<>(page.size());
+        for (BookingDTO booking : page) {
+            bookingModels.add(toModel(booking));
+        }
+        return CollectionModel.of(bookingModels, pageLinks(page.isEmpty() ? 0 : page.get(0).getBookingId(),
+                page.isEmpty() ? 0 : page.get(page.size() - 1).getBookingId(),
+                after, before, size, hasPrev && !page.isEmpty(), hasNext && !page.isEmpty(), View.FULL));
+    }
+
+
+    /**
+     * Compact model of one booking (?view=compact)
+     *
+     * @param booking BookingDTO
+     * @return EntityModel<CompactBookingDTO> with the same links as toModel
+     */
+    public EntityModel<CompactBookingDTO> toCompactModel(BookingDTO booking) {
+
+        return EntityModel.of(BookingMapper.toCompactDTO(booking),
+                LINKS.self(booking.getBookingId()),
+                LINKS.collection("bookings")
         );
     }
 
+
+    /**
+     * Wrap one keyset page of bookings in the compact view,
+     * page links keep view=compact
+     *
+     * @param page List<BookingDTO> ordered by bookingId
+     * @param after Integer cursor of this request (or null)
+     * @param before Integer cursor of this request (or null)
+     * @param size int page size
+     * @param hasPrev boolean earlier bookings exist
+     * @param hasNext boolean later bookings exist
+     * @return CollectionModel<EntityModel<CompactBookingDTO>>
+     */
+    public CollectionModel<EntityModel<CompactBookingDTO>> toCompactPageModel(List<BookingDTO> page, Integer after,
+                                                                         Integer before, int size,
+                                                                         boolean hasPrev, boolean hasNext) {
+
+        List<EntityModel<CompactBookingDTO>> models = new ArrayList<>(page.size());
+        for (BookingDTO booking : page) {
+            models.add(toCompactModel(booking));
+        }
+        return CollectionModel.of(models, pageLinks(page.isEmpty() ? 0 : page.get(0).getBookingId(),
+                page.isEmpty() ? 0 : page.get(page.size() - 1).getBookingId(),
+                after, before, size, hasPrev && !page.isEmpty(), hasNext && !page.isEmpty(), View.COMPACT));
+    }
+
+
+    // self / next / prev links of a page from firstId to lastId
+    private static List<Link> pageLinks(int firstId, int lastId, Integer after, Integer before, int size,
+                                        boolean hasPrev, boolean hasNext, View view) {
+
+        List<Link> links = new ArrayList<>(3);
+
+        // self repeats the cursor this page was requested with
+        if (before != null) {
+            links.add(LINKS.page("before", before, size, view, IanaLinkRelations.SELF));
+        } else {
+            links.add(LINKS.page("after", after == null ? 0 : after, size, view, IanaLinkRelations.SELF));
+        }
+        if (hasNext) {
+            links.add(LINKS.page("after", lastId, size, view, IanaLinkRelations.NEXT));
+        }
+        if (hasPrev) {
+            links.add(LINKS.page("before", firstId, size, view, IanaLinkRelations.PREV));
+        }
+        return links;
+    }
+
 }
@@ -1,9 +1,14 @@
 package com.basssoft.arms.booking.domain;
 
 import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
-import jakarta.persistence.OneToOne;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -27,13 +32,18 @@ public class Booking {
     @Id
     private int bookingId;
 
-    @OneToOne
+    // many bookings per account, loaded on first use
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "provider_id")
     private Account provider;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
     private Account customer;
 
-    private float hourlyRate;
+    // per hour, in cents (Money)
+    @JsonIgnore
+    private long hourlyRateCents;
 
     // start-end times
     private LocalDateTime startTime;
@@ -49,10 +59,34 @@ public class Booking {
     private boolean completed;
 
     // time used over booking (or under if negative)
-    // in hours (ex:  1.5 = one hour 30 minutes over
-    //           ex: -0.5 = half hour under)
-    private float overHours;
+    // in seconds (ex:  5400 = one hour 30 minutes over
+    //           ex: -1800 = half hour under)
+    @JsonIgnore
+    private long overSeconds;
 
     // has payment been received?
     private boolean paid;
+
+    // VersionClock value of the last write (ETag / Last-Modified)
+    private long version;
+
+
+    // decimal hourlyRate and overHours, as in BookingDTO
+    // (and the JSON of the bookings on an invoice)
+
+    public double getHourlyRate() {
+        return Money.toDouble(hourlyRateCents);
+    }
+
+    public void setHourlyRate(double hourlyRate) {
+        this.hourlyRateCents = Money.of(hourlyRate);
+    }
+
+    public double getOverHours() {
+        return TimeCodec.hours(overSeconds);
+    }
+
+    public void setOverHours(double overHours) {
+        this.overSeconds = TimeCodec.seconds(overHours);
+    }
 }
@@ -0,0 +1,32 @@
+package com.basssoft.arms.booking.domain;
+
+/**
+ * Published after a Booking is created,
+ * updated or deleted
+
+ * before is null for a create, after is
+ * null for a delete.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class BookingChangedEvent {
+
+    private final BookingDTO before;
+    private final BookingDTO after;
+
+
+    public BookingChangedEvent(BookingDTO before, BookingDTO after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public BookingDTO getBefore() {
+        return before;
+    }
+
+    public BookingDTO getAfter() {
+        return after;
+    }
+}
@@ -3,6 +3,7 @@ package com.basssoft.arms.booking.domain;
 import com.basssoft.arms.account.domain.Account;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 /**
@@ -23,7 +24,7 @@ public class BookingDTO {
     private Account provider;
     private Account customer;
 
-    private float hourlyRate;
+    private double hourlyRate;
     private String startTime;
     private String endTime;
 
@@ -33,5 +34,11 @@ public class BookingDTO {
     private String locZipCode;
 
     private boolean completed;
-    private float overHours;
+    private double overHours;
+
+    private boolean paid;
+
+    // write version (ETag), not part of the content
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
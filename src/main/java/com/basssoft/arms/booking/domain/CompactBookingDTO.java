@@ -0,0 +1,41 @@
+package com.basssoft.arms.booking.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact projection of a Booking
+ * (?view=compact)
+
+ * Provider and customer by accountId only,
+ * instead of embedded Account objects.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompactBookingDTO {
+
+    private int bookingId;
+
+    private int providerId;
+    private int customerId;
+
+    private double hourlyRate;
+    private String startTime;
+    private String endTime;
+
+    private String locStreet;
+    private String locCity;
+    private String locState;
+    private String locZipCode;
+
+    private boolean completed;
+    private double overHours;
+
+    private boolean paid;
+}
@@ -0,0 +1,121 @@
+package com.basssoft.arms.booking.service;
+
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.domain.CompactBookingDTO;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.VersionClock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Booking <-> BookingDTO mapping
+
+ * Plain field copies; start and end times go
+ * through TimeCodec.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class BookingMapper {
+
+    private BookingMapper() {
+    }
+
+
+    /**
+     * copy DTO onto a new Booking entity
+     * (stamped with a new version)
+
+     * @param dto BookingDTO
+     * @param bookingId int
+     * @return Booking
+     * @throws IllegalArgumentException on an invalid start or end time, rate or overtime
+     */
+    public static Booking toEntity(BookingDTO dto, int bookingId) {
+
+        Booking entity = new Booking();
+        entity.setBookingId(bookingId);
+        entity.setProvider(dto.getProvider());
+        entity.setCustomer(dto.getCustomer());
+        entity.setHourlyRateCents(Money.of(dto.getHourlyRate()));
+        entity.setStartTime(TimeCodec.parse(dto.getStartTime()));
+        entity.setEndTime(TimeCodec.parse(dto.getEndTime()));
+        entity.setLocStreet(dto.getLocStreet());
+        entity.setLocCity(dto.getLocCity());
+        entity.setLocState(dto.getLocState());
+        entity.setLocZipCode(dto.getLocZipCode());
+        entity.setCompleted(dto.isCompleted());
+        entity.setOverSeconds(TimeCodec.seconds(dto.getOverHours()));
+        entity.setPaid(dto.isPaid());
+        entity.setVersion(VersionClock.next());
+        return entity;
+    }
+
+
+    /**
+     * copy Booking entity onto a new DTO
+
+     * @param entity Booking
+     * @return BookingDTO
+     */
+    public static BookingDTO toDTO(Booking entity) {
+
+        return new BookingDTO(
+                entity.getBookingId(),
+                entity.getProvider(),
+                entity.getCustomer(),
+                Money.toDouble(entity.getHourlyRateCents()),
+                TimeCodec.format(entity.getStartTime()),
+                TimeCodec.format(entity.getEndTime()),
+                entity.getLocStreet(),
+                entity.getLocCity(),
+                entity.getLocState(),
+                entity.getLocZipCode(),
+                entity.isCompleted(),
+                TimeCodec.hours(entity.getOverSeconds()),
+                entity.isPaid(),
+                entity.getVersion());
+    }
+
+
+    /**
+     * @param entities List of Booking
+     * @return List of BookingDTO, same order
+     */
+    public static List<BookingDTO> toDTOs(List<Booking> entities) {
+
+        List<BookingDTO> result = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            result.add(toDTO(entities.get(i)));
+        }
+        return result;
+    }
+
+
+    /**
+     * compact projection, accounts by id
+
+     * @param dto BookingDTO
+     * @return CompactBookingDTO
+     */
+    public static CompactBookingDTO toCompactDTO(BookingDTO dto) {
+
+        return new CompactBookingDTO(
+                dto.getBookingId(),
+                dto.getProvider() == null ? 0 : dto.getProvider().getAccountId(),
+                dto.getCustomer() == null ? 0 : dto.getCustomer().getAccountId(),
+                dto.getHourlyRate(),
+                dto.getStartTime(),
+                dto.getEndTime(),
+                dto.getLocStreet(),
+                dto.getLocCity(),
+                dto.getLocState(),
+                dto.getLocZipCode(),
+                dto.isCompleted(),
+                dto.getOverHours(),
+                dto.isPaid());
+    }
+}
@@ -1,9 +1,27 @@
 package com.basssoft.arms.booking.service;
 
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingChangedEvent;
 import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.journal.StateJournal;
+import com.basssoft.arms.mapping.EntityCodec;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.BatchResult;
+import com.basssoft.arms.store.IntKeyStore;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /** * Booking Service Implementation
 
@@ -14,16 +32,184 @@ import java.util.List;
 @Service
 public class BookingSvcImpl implements IbookingService {
 
+    // bookings by bookingId
+    private final IntKeyStore<Booking> bookings = new IntKeyStore<>();
+
+    // booked intervals by provider accountId
+    private final IntKeyStore<ProviderSchedule> schedules = new IntKeyStore<>();
+
+    // notifies listeners (invoice totals) of every change
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
+
+    // keeps bookings on disk, when arms.journal.dir is set
+    @Autowired(required = false)
+    private StateJournal journal;
+
+    // bookings read per store page while filtering
+    private static final int SCAN_CHUNK_SIZE = 1_000;
+
+
+    /**
+     * Load the journaled bookings and rebuild the schedules
+     */
+    @PostConstruct
+    public void recover() {
+
+        if (journal == null) {
+            return;
+        }
+        journal.attach(StateJournal.BOOKINGS, bookings, EntityCodec.BOOKING);
+        for (Booking entity : bookings.values()) {
+            if (hasProvider(entity)) {
+                schedule(entity.getProvider().getAccountId());
+                index(entity);
+            }
+        }
+    }
+
 
     /**
      * Create new Booking
 
      * @param booking BookingDTO
-     * @return BookingDTO (same as input right now)
+     * @return BookingDTO created booking (with assigned id)
      */
     public BookingDTO createBooking(BookingDTO booking) {
 
-        return booking;
+        validate(booking);
+
+        // assign id when none supplied
+        int bookingId = booking.getBookingId() > 0 ? booking.getBookingId() : bookings.nextKey();
+
+        Booking entity = BookingMapper.toEntity(booking, bookingId);
+
+        ProviderSchedule[] locked = lockSchedules(null, entity);
+        try {
+            checkConflict(entity);
+
+            if (bookings.putIfAbsent(bookingId, entity) != null) {
+                throw new IllegalArgumentException("Booking " + bookingId + " already exists.");
+            }
+            index(entity);
+
+        } finally {
+            unlock(locked);
+        }
+        awaitDurable();
+        BookingDTO created = BookingMapper.toDTO(entity);
+        publish(null, created);
+        return created;
+    }
+
+
+    /**
+     * Create many Bookings
+
+     * Every item is validated first. The schedules of all
+     * providers in the batch are then locked once, conflicts
+     * are checked against stored bookings and earlier items of
+     * the batch, and the accepted bookings are stored in one batch.
+
+     * @param batch List<BookingDTO>
+     * @return List<BatchResult<BookingDTO>> one result per item, in order
+     */
+    public List<BatchResult<BookingDTO>> createBookings(List<BookingDTO> batch) {
+
+        checkBatch(batch);
+        List<BatchResult<BookingDTO>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        // validate first, claiming supplied ids before any id is generated
+        boolean[] valid = new boolean[batch.size()];
+        Set<Integer> batchIds = new HashSet<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            BookingDTO booking = batch.get(i);
+            try {
+                validate(booking);
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+                continue;
+            }
+            int bookingId = booking.getBookingId();
+            if (bookingId > 0 && !batchIds.add(bookingId)) {
+                results.set(i, BatchResult.failed(i, "Booking " + bookingId + " appears twice in the batch."));
+                continue;
+            }
+            valid[i] = true;
+        }
+
+        List<Integer> positions = new ArrayList<>(batch.size());
+        List<Booking> candidates = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            // assign id when none supplied, skipping ids claimed by the batch
+            int bookingId = batch.get(i).getBookingId();
+            if (bookingId == 0) {
+                do {
+                    bookingId = bookings.nextKey();
+                } while (batchIds.contains(bookingId));
+            }
+            positions.add(i);
+            candidates.add(BookingMapper.toEntity(batch.get(i), bookingId));
+        }
+
+        List<Booking> accepted = new ArrayList<>(candidates.size());
+        List<Integer> acceptedAt = new ArrayList<>(candidates.size());
+        List<BookingDTO> created = new ArrayList<>(candidates.size());
+
+        ProviderSchedule[] locked = lockSchedules(candidates);
+        try {
+            for (int j = 0; j < candidates.size(); j++) {
+                Booking entity = candidates.get(j);
+                int i = positions.get(j);
+
+                if (bookings.containsKey(entity.getBookingId())) {
+                    results.set(i, BatchResult.failed(i, "Booking " + entity.getBookingId() + " already exists."));
+                    continue;
+                }
+                try {
+                    checkConflict(entity);
+                } catch (IllegalArgumentException iae) {
+                    results.set(i, BatchResult.failed(i, iae.getMessage()));
+                    continue;
+                }
+                // index now so later items of the batch see it
+                index(entity);
+                accepted.add(entity);
+                acceptedAt.add(i);
+            }
+
+            int[] keys = new int[accepted.size()];
+            for (int j = 0; j < keys.length; j++) {
+                keys[j] = accepted.get(j).getBookingId();
+            }
+            boolean[] stored = bookings.putAllIfAbsent(keys, accepted);
+
+            for (int j = 0; j < stored.length; j++) {
+                Booking entity = accepted.get(j);
+                int i = acceptedAt.get(j);
+                if (stored[j]) {
+                    BookingDTO dto = BookingMapper.toDTO(entity);
+                    created.add(dto);
+                    results.set(i, BatchResult.ok(i, dto));
+                } else {
+                    // same id created concurrently
+                    unindex(entity);
+                    results.set(i, BatchResult.failed(i, "Booking " + entity.getBookingId() + " already exists."));
+                }
+            }
+        } finally {
+            unlock(locked);
+        }
+        awaitDurable();
+        for (BookingDTO dto : created) {
+            publish(null, dto);
+        }
+        return results;
     }
 
 
@@ -31,26 +217,240 @@ public class BookingSvcImpl implements IbookingService {
      * Get Booking by ID
 
      * @param bookingId int
-     * @return BookingDTO
+     * @return BookingDTO or null when not found
      */
     public BookingDTO getBooking(int bookingId) {
 
-        BookingDTO created = new BookingDTO();
-        created.setBookingId(bookingId);
-        return created;
+        if (bookingId <= 0) {
+            return null;
+        }
+        Booking entity = bookings.get(bookingId);
+
+        return entity == null ? null : BookingMapper.toDTO(entity);
     }
 
 
     /**
      * Get all Bookings
 
-     * @return List<BookingDTO> (empty right now)
+     * @return List<BookingDTO> ordered by bookingId
      */
     public List<BookingDTO> getAllBookings() {
 
-        List<BookingDTO> bookings = new ArrayList<>();
+        List<Booking> entities = bookings.values();
+        entities.sort(Comparator.comparingInt(Booking::getBookingId));
+
+        return BookingMapper.toDTOs(entities);
+    }
+
+
+    /**
+     * Get one page of Bookings after a cursor
+
+     * @param afterId int (0 = from the first booking)
+     * @param size int max bookings returned
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    public List<BookingDTO> getBookingsAfter(int afterId, int size) {
+
+        checkPageSize(size);
+        return BookingMapper.toDTOs(bookings.pageAfter(afterId, size));
+    }
+
+
+    /**
+     * Get one page of matching Bookings after a cursor
+     * (exports: walk with the last returned bookingId)
+
+     * With a provider, walks only that provider's schedule.
+     * Otherwise scans the store in id order until size
+     * bookings match. Either way a short page means the
+     * walk is done.
 
-        return bookings;
+     * @param afterId int (0 = from the first booking)
+     * @param size int max bookings returned
+     * @param providerId int (0 = every provider)
+     * @param from String earliest startTime (inclusive, null = open)
+     * @param to String latest startTime (exclusive, null = open)
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    public List<BookingDTO> getBookingsAfter(int afterId, int size, int providerId, String from, String to) {
+
+        checkPageSize(size);
+        LocalDateTime start = TimeCodec.parse(from);
+        LocalDateTime end = TimeCodec.parse(to);
+        checkRange(start, end);
+
+        if (providerId > 0) {
+            return providerBookingsAfter(afterId, size, providerId, start, end);
+        }
+        List<BookingDTO> result = new ArrayList<>();
+        int cursor = afterId;
+        while (true) {
+            List<Booking> page = bookings.pageAfter(cursor, SCAN_CHUNK_SIZE);
+            for (Booking entity : page) {
+                if (matches(entity, providerId, start, end)) {
+                    result.add(BookingMapper.toDTO(entity));
+                    if (result.size() == size) {
+                        return result;
+                    }
+                }
+            }
+            if (page.size() < SCAN_CHUNK_SIZE) {
+                return result;
+            }
+            cursor = page.get(page.size() - 1).getBookingId();
+        }
+    }
+
+
+    /**
+     * matching Bookings of one provider after a cursor,
+     * from its schedule instead of a store scan
+
+     * Copies the provider's next bookingIds a chunk at a
+     * time under its schedule lock, then reads them outside
+     * it, so a page costs about size reads.
+
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    private List<BookingDTO> providerBookingsAfter(int afterId, int size, int providerId,
+                                                   LocalDateTime start, LocalDateTime end) {
+
+        List<BookingDTO> result = new ArrayList<>();
+        ProviderSchedule schedule = schedules.get(providerId);
+        if (schedule == null) {
+            return result;
+        }
+        int[] chunk = new int[Math.min(size, SCAN_CHUNK_SIZE)];
+        int cursor = afterId;
+        while (true) {
+            int count = 0;
+            schedule.lock.lock();
+            try {
+                for (int id : schedule.ids.tailSet(cursor, false)) {
+                    chunk[count++] = id;
+                    if (count == chunk.length) {
+                        break;
+                    }
+                }
+            } finally {
+                schedule.lock.unlock();
+            }
+            for (int i = 0; i < count; i++) {
+                Booking entity = bookings.get(chunk[i]);
+                // null or elsewhere when deleted or moved meanwhile
+                if (entity != null && matches(entity, providerId, start, end)) {
+                    result.add(BookingMapper.toDTO(entity));
+                    if (result.size() == size) {
+                        return result;
+                    }
+                }
+            }
+            if (count < chunk.length) {
+                return result;
+            }
+            cursor = chunk[count - 1];
+        }
+    }
+
+
+    /**
+     * Get one page of Bookings before a cursor
+
+     * @param beforeId int
+     * @param size int max bookings returned
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    public List<BookingDTO> getBookingsBefore(int beforeId, int size) {
+
+        checkPageSize(size);
+        return BookingMapper.toDTOs(bookings.pageBefore(beforeId, size));
+    }
+
+
+    /**
+     * Get Bookings of one provider overlapping a time window
+
+     * @param providerId int
+     * @param from String start of window (inclusive)
+     * @param to String end of window (exclusive)
+     * @return List<BookingDTO> ordered by startTime
+     */
+    public List<BookingDTO> getProviderBookings(int providerId, String from, String to) {
+
+        long[] window = window(from, to);
+        List<BookingDTO> result = new ArrayList<>();
+
+        ProviderSchedule schedule = providerId > 0 ? schedules.get(providerId) : null;
+        if (schedule == null) {
+            return result;
+        }
+        List<Booking> found = new ArrayList<>();
+
+        schedule.lock.lock();
+        try {
+            schedule.intervals.forEachOverlap(window[0], window[1], id -> {
+                Booking entity = bookings.get(id);
+                if (entity != null) {
+                    found.add(entity);
+                }
+            });
+        } finally {
+            schedule.lock.unlock();
+        }
+        for (Booking entity : found) {
+            result.add(BookingMapper.toDTO(entity));
+        }
+        return result;
+    }
+
+
+    /**
+     * Providers with no Booking overlapping a time window
+
+     * One interval tree probe per provider, under that
+     * provider's schedule lock only. Providers without
+     * any booking are free.
+
+     * @param providerIds int[] provider accountIds
+     * @param from String start of window (inclusive)
+     * @param to String end of window (exclusive)
+     * @return int[] the free providerIds, in the given order
+     */
+    public int[] getAvailableProviders(int[] providerIds, String from, String to) {
+
+        long[] window = window(from, to);
+        int[] free = new int[providerIds.length];
+        int count = 0;
+
+        for (int providerId : providerIds) {
+            ProviderSchedule schedule = providerId > 0 ? schedules.get(providerId) : null;
+            if (schedule == null) {
+                free[count++] = providerId;
+                continue;
+            }
+            schedule.lock.lock();
+            try {
+                if (schedule.intervals.findOverlap(window[0], window[1], -1) == -1) {
+                    free[count++] = providerId;
+                }
+            } finally {
+                schedule.lock.unlock();
+            }
+        }
+        return Arrays.copyOf(free, count);
+    }
+
+
+    /**
+     * Version of the booking table, advanced by every write
+
+     * @return long
+     */
+    public long getBookingsVersion() {
+
+        return bookings.version();
     }
 
 
@@ -58,11 +458,171 @@ public class BookingSvcImpl implements IbookingService {
      * Update existing Booking
 
      * @param booking BookingDTO
-     * @return BookingDTO (same as input right now)
+     * @return BookingDTO updated booking or null when not found
      */
     public BookingDTO updateBooking(BookingDTO booking) {
 
-        return booking;
+        validate(booking);
+
+        int bookingId = booking.getBookingId();
+        if (bookingId <= 0) {
+            return null;
+        }
+        while (true) {
+            Booking existing = bookings.get(bookingId);
+            if (existing == null) {
+                return null;
+            }
+            Booking entity = BookingMapper.toEntity(booking, bookingId);
+
+            ProviderSchedule[] locked = lockSchedules(existing, entity);
+            try {
+                checkConflict(entity);
+
+                if (!bookings.replace(bookingId, existing, entity)) {
+                    // changed concurrently, start over
+                    continue;
+                }
+                unindex(existing);
+                index(entity);
+
+            } finally {
+                unlock(locked);
+            }
+            awaitDurable();
+            BookingDTO updated = BookingMapper.toDTO(entity);
+            publish(BookingMapper.toDTO(existing), updated);
+            return updated;
+        }
+    }
+
+
+    /**
+     * Update many Bookings
+
+     * Every item is validated first. The schedules of all
+     * providers the batch touches, before and after the change,
+     * are then locked once, conflicts are checked against stored
+     * bookings and earlier items of the batch, and the changes
+     * are stored in one compare-and-set batch. Items changed
+     * concurrently before the locks were taken go round again.
+
+     * @param batch List<BookingDTO>
+     * @return List<BatchResult<BookingDTO>> one result per item, in order
+     */
+    public List<BatchResult<BookingDTO>> updateBookings(List<BookingDTO> batch) {
+
+        checkBatch(batch);
+        List<BatchResult<BookingDTO>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        Booking[] entities = new Booking[batch.size()];
+        Set<Integer> batchIds = new HashSet<>();
+        List<Integer> pending = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            BookingDTO booking = batch.get(i);
+            try {
+                validate(booking);
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+                continue;
+            }
+            int bookingId = booking.getBookingId();
+            if (bookingId <= 0) {
+                results.set(i, BatchResult.failed(i, "Booking not found."));
+                continue;
+            }
+            if (!batchIds.add(bookingId)) {
+                results.set(i, BatchResult.failed(i, "Booking " + bookingId + " appears twice in the batch."));
+                continue;
+            }
+            entities[i] = BookingMapper.toEntity(booking, bookingId);
+            pending.add(i);
+        }
+
+        List<BookingDTO> befores = new ArrayList<>(pending.size());
+        List<BookingDTO> afters = new ArrayList<>(pending.size());
+
+        while (!pending.isEmpty()) {
+            // stored bookings as read now, their providers are locked with the new ones
+            List<Booking> existing = new ArrayList<>(pending.size());
+            List<Booking> touched = new ArrayList<>(pending.size() * 2);
+            for (int i : pending) {
+                Booking stored = bookings.get(entities[i].getBookingId());
+                existing.add(stored);
+                if (stored != null) {
+                    touched.add(stored);
+                }
+                touched.add(entities[i]);
+            }
+            List<Integer> retry = new ArrayList<>();
+
+            ProviderSchedule[] locked = lockSchedules(touched);
+            try {
+                List<Booking> expected = new ArrayList<>(pending.size());
+                List<Booking> accepted = new ArrayList<>(pending.size());
+                List<Integer> acceptedAt = new ArrayList<>(pending.size());
+
+                for (int j = 0; j < pending.size(); j++) {
+                    int i = pending.get(j);
+                    Booking before = existing.get(j);
+                    Booking entity = entities[i];
+
+                    if (before == null) {
+                        results.set(i, BatchResult.failed(i, "Booking not found."));
+                        continue;
+                    }
+                    if (bookings.get(entity.getBookingId()) != before) {
+                        // changed before the locks were taken
+                        retry.add(i);
+                        continue;
+                    }
+                    // out of the index first, so later items of the batch may take its old time
+                    unindex(before);
+                    try {
+                        checkConflict(entity);
+                    } catch (IllegalArgumentException iae) {
+                        index(before);
+                        results.set(i, BatchResult.failed(i, iae.getMessage()));
+                        continue;
+                    }
+                    index(entity);
+                    expected.add(before);
+                    accepted.add(entity);
+                    acceptedAt.add(i);
+                }
+
+                int[] keys = new int[accepted.size()];
+                for (int j = 0; j < keys.length; j++) {
+                    keys[j] = accepted.get(j).getBookingId();
+                }
+                boolean[] replaced = bookings.replaceAll(keys, expected, accepted);
+
+                for (int j = 0; j < replaced.length; j++) {
+                    int i = acceptedAt.get(j);
+                    if (replaced[j]) {
+                        BookingDTO updated = BookingMapper.toDTO(accepted.get(j));
+                        befores.add(BookingMapper.toDTO(expected.get(j)));
+                        afters.add(updated);
+                        results.set(i, BatchResult.ok(i, updated));
+                    } else {
+                        // unscheduled booking changed concurrently, start over
+                        unindex(accepted.get(j));
+                        index(expected.get(j));
+                        retry.add(i);
+                    }
+                }
+            } finally {
+                unlock(locked);
+            }
+            Collections.sort(retry);
+            pending = retry;
+        }
+        awaitDurable();
+        for (int j = 0; j < afters.size(); j++) {
+            publish(befores.get(j), afters.get(j));
+        }
+        return results;
     }
 
 
@@ -70,11 +630,273 @@ public class BookingSvcImpl implements IbookingService {
      * Delete Booking by ID
 
      * @param bookingId int
-     * @return int deletedId
+     * @return int deletedId or -1 when not found
      */
     public int deleteBooking(int bookingId) {
 
-        return bookingId;
+        if (bookingId <= 0) {
+            return -1;
+        }
+        while (true) {
+            Booking existing = bookings.get(bookingId);
+            if (existing == null) {
+                return -1;
+            }
+            ProviderSchedule[] locked = lockSchedules(existing, null);
+            try {
+                if (!bookings.remove(bookingId, existing)) {
+                    // changed concurrently, start over
+                    continue;
+                }
+                unindex(existing);
+
+            } finally {
+                unlock(locked);
+            }
+            awaitDurable();
+            publish(BookingMapper.toDTO(existing), null);
+            return bookingId;
+        }
+    }
+
+
+    // once the journal has this thread's changes on disk (no journal: at once)
+    private void awaitDurable() {
+
+        if (journal != null) {
+            journal.awaitDurable();
+        }
+    }
+
+    // after the store change, outside the schedule locks
+    private void publish(BookingDTO before, BookingDTO after) {
+
+        if (events != null) {
+            events.publishEvent(new BookingChangedEvent(before, after));
+        }
     }
 
+
+    /**
+     * reject booking when its provider is already
+     * booked for an overlapping time (caller holds schedule lock)
+
+     * @param entity Booking
+     */
+    private void checkConflict(Booking entity) {
+
+        if (!isScheduled(entity)) {
+            return;
+        }
+        ProviderSchedule schedule = schedules.get(entity.getProvider().getAccountId());
+
+        int conflictId = schedule.intervals.findOverlap(
+                epochSeconds(entity.getStartTime()),
+                epochSeconds(entity.getEndTime()),
+                entity.getBookingId());
+
+        if (conflictId != -1) {
+            throw new IllegalArgumentException("Provider " + schedule.providerId
+                    + " is already booked at that time (booking " + conflictId + ").");
+        }
+    }
+
+    private void index(Booking entity) {
+
+        if (!hasProvider(entity)) {
+            return;
+        }
+        ProviderSchedule schedule = schedules.get(entity.getProvider().getAccountId());
+        schedule.ids.add(entity.getBookingId());
+        if (isScheduled(entity)) {
+            schedule.intervals.insert(epochSeconds(entity.getStartTime()), epochSeconds(entity.getEndTime()),
+                    entity.getBookingId());
+        }
+    }
+
+    private void unindex(Booking entity) {
+
+        if (!hasProvider(entity)) {
+            return;
+        }
+        ProviderSchedule schedule = schedules.get(entity.getProvider().getAccountId());
+        schedule.ids.remove(entity.getBookingId());
+        if (isScheduled(entity)) {
+            schedule.intervals.remove(epochSeconds(entity.getStartTime()), entity.getBookingId());
+        }
+    }
+
+
+    /**
+     * lock provider schedules touched by a change
+     * (always in providerId order, so two updates can not deadlock)
+
+     * @param before Booking or null
+     * @param after Booking or null
+     * @return ProviderSchedule[] locked schedules
+     */
+    private ProviderSchedule[] lockSchedules(Booking before, Booking after) {
+
+        ProviderSchedule first = hasProvider(before) ? schedule(before.getProvider().getAccountId()) : null;
+        ProviderSchedule second = hasProvider(after) ? schedule(after.getProvider().getAccountId()) : null;
+
+        ProviderSchedule[] locked;
+        if (first == null || second == null || first == second) {
+            ProviderSchedule only = first != null ? first : second;
+            locked = only == null ? new ProviderSchedule[0] : new ProviderSchedule[] {only};
+
+        } else if (first.providerId < second.providerId) {
+            locked = new ProviderSchedule[] {first, second};
+
+        } else {
+            locked = new ProviderSchedule[] {second, first};
+        }
+        for (ProviderSchedule schedule : locked) {
+            schedule.lock.lock();
+        }
+        return locked;
+    }
+
+    /**
+     * lock the schedules of every provider in a batch
+     * (in providerId order, like lockSchedules above)
+
+     * @param entities List<Booking>
+     * @return ProviderSchedule[] locked schedules
+     */
+    private ProviderSchedule[] lockSchedules(List<Booking> entities) {
+
+        int[] providerIds = new int[entities.size()];
+        int count = 0;
+        for (Booking entity : entities) {
+            if (hasProvider(entity)) {
+                providerIds[count++] = entity.getProvider().getAccountId();
+            }
+        }
+        providerIds = Arrays.stream(providerIds, 0, count).sorted().distinct().toArray();
+
+        ProviderSchedule[] locked = new ProviderSchedule[providerIds.length];
+        for (int i = 0; i < providerIds.length; i++) {
+            locked[i] = schedule(providerIds[i]);
+            locked[i].lock.lock();
+        }
+        return locked;
+    }
+
+    private static void unlock(ProviderSchedule[] locked) {
+
+        for (int i = locked.length - 1; i >= 0; i--) {
+            locked[i].lock.unlock();
+        }
+    }
+
+    private ProviderSchedule schedule(int providerId) {
+
+        ProviderSchedule schedule = schedules.get(providerId);
+        if (schedule == null) {
+            ProviderSchedule created = new ProviderSchedule(providerId);
+            schedule = schedules.putIfAbsent(providerId, created);
+            if (schedule == null) {
+                schedule = created;
+            }
+        }
+        return schedule;
+    }
+
+    // every booking with a provider is in its schedule
+    private static boolean hasProvider(Booking entity) {
+
+        return entity != null
+                && entity.getProvider() != null
+                && entity.getProvider().getAccountId() > 0;
+    }
+
+    // only bookings with a provider and both times take part in conflict checks
+    private static boolean isScheduled(Booking entity) {
+
+        return hasProvider(entity)
+                && entity.getStartTime() != null
+                && entity.getEndTime() != null;
+    }
+
+    // [from, to) as epoch seconds
+    private static long[] window(String from, String to) {
+
+        LocalDateTime start = TimeCodec.parse(from);
+        LocalDateTime end = TimeCodec.parse(to);
+
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new IllegalArgumentException("A time window with from before to is required.");
+        }
+        return new long[] {epochSeconds(start), epochSeconds(end)};
+    }
+
+    // provider (0 = any) and startTime in [start, end), open ends when null
+    private static boolean matches(Booking entity, int providerId, LocalDateTime start, LocalDateTime end) {
+
+        if (providerId != 0 && (entity.getProvider() == null || entity.getProvider().getAccountId() != providerId)) {
+            return false;
+        }
+        if (start == null && end == null) {
+            return true;
+        }
+        LocalDateTime time = entity.getStartTime();
+        return time != null
+                && (start == null || !time.isBefore(start))
+                && (end == null || time.isBefore(end));
+    }
+
+    private static void checkRange(LocalDateTime start, LocalDateTime end) {
+
+        if (start != null && end != null && !end.isAfter(start)) {
+            throw new IllegalArgumentException("From must be before to.");
+        }
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+
+    /**
+     * check incoming DTO before it is stored
+
+     * @param booking BookingDTO
+     */
+    private void validate(BookingDTO booking) {
+
+        if (booking == null) {
+            throw new IllegalArgumentException("Booking must not be null.");
+        }
+        if (booking.getBookingId() < 0) {
+            throw new IllegalArgumentException("Booking id must not be negative.");
+        }
+        LocalDateTime start = TimeCodec.parse(booking.getStartTime());
+        LocalDateTime end = TimeCodec.parse(booking.getEndTime());
+
+        if (start != null && end != null && !end.isAfter(start)) {
+            throw new IllegalArgumentException("Booking end time must be after start time.");
+        }
+        // stored as cents and seconds
+        Money.of(booking.getHourlyRate());
+        TimeCodec.seconds(booking.getOverHours());
+    }
+
+
+    private static void checkBatch(List<BookingDTO> batch) {
+
+        if (batch == null || batch.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one booking.");
+        }
+    }
+
+    private static void checkPageSize(int size) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+    }
+
+
 }
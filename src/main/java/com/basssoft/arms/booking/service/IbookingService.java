@@ -1,6 +1,7 @@
 package com.basssoft.arms.booking.service;
 
 import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.store.BatchResult;
 import java.util.List;
 
 /** * Booking Service Interface
@@ -19,11 +20,19 @@ public interface IbookingService {
      */
     public BookingDTO createBooking(BookingDTO booking);
 
+    /**
+     * Create many Bookings in one batch
+     *
+     * @param batch List<BookingDTO>
+     * @return List<BatchResult<BookingDTO>> one result per item, in order
+     */
+    public List<BatchResult<BookingDTO>> createBookings(List<BookingDTO> batch);
+
     /**
      * Get Booking by ID
      *
      * @param bookingId int
-     * @return BookingDTO
+     * @return BookingDTO or null when not found
      */
     public BookingDTO getBooking(int bookingId);
 
@@ -34,19 +43,84 @@ public interface IbookingService {
      */
     public List<BookingDTO> getAllBookings();
 
+    /**
+     * Get one page of Bookings after a cursor (keyset pagination)
+     *
+     * @param afterId int bookings with a greater id (0 = from the first)
+     * @param size int max bookings returned
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    public List<BookingDTO> getBookingsAfter(int afterId, int size);
+
+    /**
+     * Get one page of matching Bookings after a cursor
+     *
+     * @param afterId int bookings with a greater id (0 = from the first)
+     * @param size int max bookings returned, fewer only at the end
+     * @param providerId int (0 = every provider)
+     * @param from String earliest startTime (inclusive, null = open)
+     * @param to String latest startTime (exclusive, null = open)
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    public List<BookingDTO> getBookingsAfter(int afterId, int size, int providerId, String from, String to);
+
+    /**
+     * Get one page of Bookings before a cursor (keyset pagination)
+     *
+     * @param beforeId int bookings with a smaller id
+     * @param size int max bookings returned
+     * @return List<BookingDTO> ordered by bookingId
+     */
+    public List<BookingDTO> getBookingsBefore(int beforeId, int size);
+
+    /**
+     * Version of the booking table, advanced by every write
+     *
+     * @return long (ETag / Last-Modified of collection responses)
+     */
+    public long getBookingsVersion();
+
+    /**
+     * Get Bookings of one provider overlapping a time window
+     *
+     * @param providerId int
+     * @param from String start of window (inclusive)
+     * @param to String end of window (exclusive)
+     * @return List<BookingDTO>
+     */
+    public List<BookingDTO> getProviderBookings(int providerId, String from, String to);
+
+    /**
+     * Providers with no Booking overlapping a time window
+     *
+     * @param providerIds int[] provider accountIds
+     * @param from String start of window (inclusive)
+     * @param to String end of window (exclusive)
+     * @return int[] the free providerIds, in the given order
+     */
+    public int[] getAvailableProviders(int[] providerIds, String from, String to);
+
     /**
      * Update existing Booking
      *
      * @param booking BookingDTO
-     * @return BookingDTO
+     * @return BookingDTO or null when not found
      */
     public BookingDTO updateBooking(BookingDTO booking);
 
+    /**
+     * Update many Bookings in one call
+     *
+     * @param batch List<BookingDTO>
+     * @return List<BatchResult<BookingDTO>> one result per item, in order
+     */
+    public List<BatchResult<BookingDTO>> updateBookings(List<BookingDTO> batch);
+
     /**
      * Delete Booking by ID
      *
      * @param bookingId int
-     * @return int deletedId
+     * @return int deletedId or -1 when not found
      */
     public int deleteBooking(int bookingId);
 }
@@ -0,0 +1,35 @@
+package com.basssoft.arms.booking.service;
+
+import com.basssoft.arms.store.IntervalTree;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Booked time intervals of one provider
+
+ * Guarded by its own lock so conflict checks for
+ * different providers never wait on each other.
+ * ids holds every booking of the provider, intervals
+ * only those with both times.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+final class ProviderSchedule {
+
+    final int providerId;
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    // booked [start, end) in epoch seconds, tagged with bookingId
+    final IntervalTree intervals = new IntervalTree();
+
+    // bookingIds in ascending order, for cursor walks
+    final TreeSet<Integer> ids = new TreeSet<>();
+
+
+    ProviderSchedule(int providerId) {
+        this.providerId = providerId;
+    }
+}
@@ -2,7 +2,9 @@ package com.basssoft.arms.gateway;
 
 import com.basssoft.arms.account.controller.AccountController;
 import com.basssoft.arms.booking.controller.BookingController;
+import com.basssoft.arms.importer.controller.ImportController;
 import com.basssoft.arms.invoice.controller.InvoiceController;
+import com.basssoft.arms.invoice.controller.ReportController;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,7 +13,8 @@ import org.springframework.web.bind.annotation.RestController;
  * Central REST API endpoint
  * for arms application.
 
- * Aggregates controllers for: account, booking, and invoice service management.
+ * Aggregates controllers for: account, booking, and invoice service management,
+ * finance reports, and CSV imports.
 
  * All endpoints are accessible under the `/api` path.
 
@@ -39,4 +42,16 @@ public class ArmsAPIEndpoint {
      */
     @Autowired
     private InvoiceController invoiceController;
+
+    /**
+     * handles report API requests.
+     */
+    @Autowired
+    private ReportController reportController;
+
+    /**
+     * handles import API requests.
+     */
+    @Autowired
+    private ImportController importController;
 }
@@ -0,0 +1,118 @@
+package com.basssoft.arms.gateway;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * Precompiled link template for one controller.
+
+ * linkTo(methodOn(..)) builds a proxy, reflects over the
+ * mapping and reads the current request for every link.
+ * This resolves the controller base URI once per request
+ * (cached as a request attribute) and then only appends
+ * ids and query parameters, producing identical hrefs.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class LinkTemplate {
+
+    private final Class<?> controller;
+    private final String attributeName;
+
+
+    /**
+     * Create template for a controller class
+     *
+     * @param controller Class<?> annotated with @RequestMapping
+     */
+    public LinkTemplate(Class<?> controller) {
+        this.controller = controller;
+        this.attributeName = LinkTemplate.class.getName() + "." + controller.getName();
+    }
+
+
+    /**
+     * Base URI of the controller for the current request
+     *
+     * @return String e.g. http://localhost/bookings
+     */
+    public String base() {
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            // outside a request, nothing to cache against
+            return resolve();
+        }
+        String base = (String) attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+        if (base == null) {
+            base = resolve();
+            attributes.setAttribute(attributeName, base, RequestAttributes.SCOPE_REQUEST);
+        }
+        return base;
+    }
+
+
+    /**
+     * Self link of one entity, same href as
+     * linkTo(methodOn(controller).getX(id, ..)).withSelfRel().expand()
+     *
+     * @param id int entity ID
+     * @return Link
+     */
+    public Link self(int id) {
+        return Link.of(base() + "/" + id, IanaLinkRelations.SELF);
+    }
+
+
+    /**
+     * Link to the controller root, same href as
+     * linkTo(controller).withRel(rel)
+     *
+     * @param rel String relation
+     * @return Link
+     */
+    public Link collection(String rel) {
+        return Link.of(base(), rel);
+    }
+
+
+    /**
+     * Keyset page link, e.g. base?after=10&size=50
+     *
+     * @param cursor String "after" or "before"
+     * @param id int cursor value
+     * @param size int page size
+     * @param rel LinkRelation
+     * @return Link
+     */
+    public Link page(String cursor, int id, int size, LinkRelation rel) {
+        return page(cursor, id, size, View.FULL, rel);
+    }
+
+
+    /**
+     * Keyset page link keeping the view,
+     * e.g. base?after=10&size=50&view=compact
+     *
+     * @param cursor String "after" or "before"
+     * @param id int cursor value
+     * @param size int page size
+     * @param view View of the page
+     * @param rel LinkRelation
+     * @return Link
+     */
+    public Link page(String cursor, int id, int size, View view, LinkRelation rel) {
+        return Link.of(base() + "?" + cursor + "=" + id + "&size=" + size + view.query(), rel);
+    }
+
+
+    private String resolve() {
+        return linkTo(controller).withSelfRel().getHref();
+    }
+}
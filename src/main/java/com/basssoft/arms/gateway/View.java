@@ -0,0 +1,62 @@
+package com.basssoft.arms.gateway;
+
+/**
+ * Representation requested with ?view=
+
+ * FULL     DTO as stored, embedded accounts included
+ * COMPACT  referenced accounts / bookings by id only
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public enum View {
+
+    FULL(""),
+    COMPACT("&view=compact");
+
+    // carried over into page links
+    private final String query;
+
+    View(String query) {
+        this.query = query;
+    }
+
+
+    /**
+     * Parse the view request parameter
+     *
+     * @param name String "full" or "compact" (any case)
+     * @return View
+     * @throws IllegalArgumentException for any other value
+     */
+    public static View of(String name) {
+
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("full")) {
+            return FULL;
+        }
+        if (name.equalsIgnoreCase("compact")) {
+            return COMPACT;
+        }
+        throw new IllegalArgumentException("Unknown view: " + name + " (expected full or compact).");
+    }
+
+
+    /**
+     * @return String query parameter suffix for links, "" for FULL
+     */
+    public String query() {
+        return query;
+    }
+
+
+    /**
+     * Strong ETag of this representation at a version
+     *
+     * @param version long entity or table version
+     * @return String quoted entity tag
+     */
+    public String etag(long version) {
+        return this == FULL ? "\"" + version + "\"" : "\"" + version + "-compact\"";
+    }
+}
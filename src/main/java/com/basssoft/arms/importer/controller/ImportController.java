@@ -0,0 +1,109 @@
+package com.basssoft.arms.importer.controller;
+
+import com.basssoft.arms.importer.domain.ImportSummary;
+import com.basssoft.arms.importer.service.CsvImporter;
+import com.basssoft.arms.mapping.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.io.InputStream;
+
+/**
+ * Import Controller
+ * for CSV bulk imports (history migration)
+
+ * The request body is streamed into the importer, the
+ * response waits for the whole file. Progress of running
+ * imports can be read meanwhile with GET /imports.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/imports")
+public class ImportController {
+
+    @Autowired
+    private CsvImporter importer;
+
+
+    /**
+     * Import Accounts from CSV (Content-Type: text/csv)
+     *
+     * @param body InputStream CSV with a header row
+     * @return ResponseEntity with ImportSummary and or status
+     */
+    @PostMapping(value = "/accounts", consumes = CsvWriter.MEDIA_TYPE)
+    public ResponseEntity<?> importAccounts(InputStream body) {
+
+        try {
+            // all rows imported status:200, otherwise per line errors status:207
+            ImportSummary summary = importer.importAccounts(body);
+            return ResponseEntity.status(importStatus(summary)).body(summary);
+
+        } catch (IllegalArgumentException iae) {
+            // bad header status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Account import failed.");
+        }
+    }
+
+
+    /**
+     * Import Bookings from CSV (Content-Type: text/csv),
+     * columns as in the booking export
+     *
+     * @param body InputStream CSV with a header row
+     * @return ResponseEntity with ImportSummary and or status
+     */
+    @PostMapping(value = "/bookings", consumes = CsvWriter.MEDIA_TYPE)
+    public ResponseEntity<?> importBookings(InputStream body) {
+
+        try {
+            // all rows imported status:200, otherwise per line errors status:207
+            ImportSummary summary = importer.importBookings(body);
+            return ResponseEntity.status(importStatus(summary)).body(summary);
+
+        } catch (IllegalArgumentException iae) {
+            // bad header status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Booking import failed.");
+        }
+    }
+
+
+    /**
+     * Progress of the imports still running
+     *
+     * @return ResponseEntity with list of ImportSummary
+     */
+    @GetMapping
+    public ResponseEntity<?> getRunningImports() {
+
+        try {
+            // status:200
+            return ResponseEntity.ok(importer.getRunningImports());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Import progress failed.");
+        }
+    }
+
+
+    private static HttpStatus importStatus(ImportSummary summary) {
+
+        return summary.getRowsFailed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+    }
+}
@@ -0,0 +1,23 @@
+package com.basssoft.arms.importer.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One rejected row of a CSV import
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportError {
+
+    // input line the row starts on, the header is line 1
+    private long line;
+
+    private String message;
+}
@@ -0,0 +1,40 @@
+package com.basssoft.arms.importer.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Progress, then outcome, of one CSV import
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportSummary {
+
+    private int importId;
+
+    // accounts or bookings
+    private String kind;
+
+    // still reading the input
+    private boolean running;
+
+    private long bytesRead;
+
+    // data rows parsed so far, header not counted
+    private long rowsRead;
+
+    private long rowsImported;
+    private long rowsFailed;
+
+    // errors ordered by line, at most CsvImporter.MAX_ERRORS of rowsFailed
+    private List<ImportError> errors;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,520 @@
+package com.basssoft.arms.importer.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.IaccountService;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.IbookingService;
+import com.basssoft.arms.importer.domain.ImportError;
+import com.basssoft.arms.importer.domain.ImportSummary;
+import com.basssoft.arms.mapping.CsvReader;
+import com.basssoft.arms.store.BatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bulk import of Accounts and Bookings from CSV
+ * (history migration)
+
+ * The calling thread streams the input in blocks of
+ * whole records (CsvReader.recordsEnd), cutting after
+ * the last line end outside quotes. Each block is parsed,
+ * checked and written on the worker pool, through the
+ * services' batch create methods, WRITE_BATCH_SIZE rows a
+ * call. At most two blocks per worker wait or run at once,
+ * so memory stays bounded whatever the input size.
+
+ * Columns are named by the header row, in any order;
+ * unknown names are refused. Bookings use the columns of
+ * the booking CSV export, their provider and customer must
+ * be existing accounts (import accounts first), looked up
+ * once per import. Accounts are imported without passwords.
+
+ * A bad row is skipped and reported with its line; rows
+ * written before a failure of the input stream stay.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Service
+public class CsvImporter {
+
+    private final IaccountService accountService;
+
+    private final IbookingService bookingService;
+
+    private static final Logger log = LoggerFactory.getLogger(CsvImporter.class);
+
+    // input read per block, one block is parsed by one worker
+    private static final int BLOCK_SIZE = 4 << 20;
+
+    // rows per createAccounts / createBookings call
+    private static final int WRITE_BATCH_SIZE = 5_000;
+
+    // rows between progress log lines
+    private static final long LOG_EVERY_ROWS = 1_000_000;
+
+    // errors listed in a summary, the rest are only counted
+    public static final int MAX_ERRORS = 1_000;
+
+    // account CSV columns
+    public static final String[] ACCOUNT_COLUMNS = {
+            "account_id", "screen_name", "provider", "first_name", "last_name", "email",
+            "phone_number", "street", "city", "state", "zip_code"
+    };
+
+    // booking CSV columns, as the booking export writes them
+    public static final String[] BOOKING_COLUMNS = {
+            "booking_id", "provider_id", "customer_id", "start_time", "end_time", "hourly_rate",
+            "over_hours", "completed", "paid", "street", "city", "state", "zip_code"
+    };
+
+    private static final String[] BOOKING_REQUIRED = {"provider_id", "customer_id", "start_time", "end_time"};
+
+    // looked up account kinds
+    private static final int MISSING = 0;
+    private static final int CUSTOMER = 1;
+    private static final int PROVIDER = 2;
+
+    private final AtomicInteger importIds = new AtomicInteger();
+
+    // imports in progress by importId
+    private final ConcurrentHashMap<Integer, Job> running = new ConcurrentHashMap<>();
+
+    private final int parallelism;
+    private final int blockSize;
+
+
+    @Autowired
+    public CsvImporter(IaccountService accountService, IbookingService bookingService) {
+        this(accountService, bookingService, Runtime.getRuntime().availableProcessors(), BLOCK_SIZE);
+    }
+
+    CsvImporter(IaccountService accountService, IbookingService bookingService, int parallelism, int blockSize) {
+        this.accountService = accountService;
+        this.bookingService = bookingService;
+        this.parallelism = parallelism;
+        this.blockSize = blockSize;
+    }
+
+
+    /**
+     * Import Accounts, one per data row
+
+     * @param in InputStream UTF-8 CSV with a header row
+     * @return ImportSummary counts and per line errors
+     * @throws IllegalArgumentException when the header is missing or names an unknown column
+     * @throws IOException when the input can not be read
+     */
+    public ImportSummary importAccounts(InputStream in) throws IOException {
+
+        return run("accounts", in, ACCOUNT_COLUMNS, new String[0],
+                (row, at, job) -> account(row, at),
+                accountService::createAccounts);
+    }
+
+
+    /**
+     * Import Bookings, one per data row
+
+     * @param in InputStream UTF-8 CSV with a header row
+     * @return ImportSummary counts and per line errors
+     * @throws IllegalArgumentException when the header is missing, names an unknown
+     *         column or lacks provider_id, customer_id, start_time or end_time
+     * @throws IOException when the input can not be read
+     */
+    public ImportSummary importBookings(InputStream in) throws IOException {
+
+        return run("bookings", in, BOOKING_COLUMNS, BOOKING_REQUIRED,
+                this::booking,
+                bookingService::createBookings);
+    }
+
+
+    /**
+     * Progress of the imports still running
+
+     * @return List<ImportSummary> ordered by importId
+     */
+    public List<ImportSummary> getRunningImports() {
+
+        List<ImportSummary> result = new ArrayList<>();
+        for (Job job : running.values()) {
+            result.add(job.summary(true));
+        }
+        result.sort(Comparator.comparingInt(ImportSummary::getImportId));
+        return result;
+    }
+
+
+    private <T> ImportSummary run(String kind, InputStream in, String[] columns, String[] required,
+                                  RowParser<T> parser, Function<List<T>, List<BatchResult<T>>> writer)
+            throws IOException {
+
+        Job job = new Job(importIds.incrementAndGet(), kind);
+        running.put(job.importId, job);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            byte[] block = new byte[blockSize];
+            int filled = fill(in, block, 0, job);
+            int from = filled >= 3 && (block[0] & 0xFF) == 0xEF && (block[1] & 0xFF) == 0xBB
+                    && (block[2] & 0xFF) == 0xBF ? 3 : 0;
+
+            // header row, in the first block
+            CsvReader header = new CsvReader(block, from, filled, 1);
+            String[] names = header.next();
+            if (names == null || (filled == block.length && CsvReader.recordsEnd(block, from, filled) == -1)) {
+                throw new IllegalArgumentException("A header row naming the columns is required.");
+            }
+            int[] at = columnIndexes(names, columns, required);
+            long line = 1 + CsvReader.lineCount(block, from, header.position());
+            from = header.position();
+
+            while (true) {
+                boolean eof = filled < block.length;
+                int cut = eof ? filled : CsvReader.recordsEnd(block, from, filled);
+                if (cut == -1) {
+                    // one record larger than the block
+                    block = Arrays.copyOf(block, block.length * 2);
+                    filled = fill(in, block, filled, job);
+                    continue;
+                }
+                inFlight.acquire();
+                byte[] data = block;
+                int start = from;
+                long firstLine = line;
+                tasks.add(pool.submit(() -> {
+                    try {
+                        parseBlock(data, start, cut, firstLine, names.length, at, parser, writer, job);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                line += CsvReader.lineCount(block, from, cut);
+                if (eof) {
+                    break;
+                }
+                // carry the partial record into a fresh block
+                byte[] next = new byte[blockSize];
+                int rest = filled - cut;
+                System.arraycopy(block, cut, next, 0, rest);
+                block = next;
+                from = 0;
+                filled = fill(in, block, rest, job);
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            ImportSummary summary = job.summary(false);
+            log.info("Import {} of {}: {} rows, {} imported, {} failed in {} ms.", job.importId, kind,
+                    summary.getRowsRead(), summary.getRowsImported(), summary.getRowsFailed(),
+                    summary.getElapsedMillis());
+            return summary;
+
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted.");
+
+        } finally {
+            running.remove(job.importId);
+        }
+    }
+
+    // one block of whole records, on a worker
+    private <T> void parseBlock(byte[] data, int from, int to, long firstLine, int width, int[] at,
+                                RowParser<T> parser, Function<List<T>, List<BatchResult<T>>> writer, Job job) {
+
+        CsvReader reader = new CsvReader(data, from, to, firstLine);
+        List<T> batch = new ArrayList<>();
+        long[] lines = new long[WRITE_BATCH_SIZE];
+        long rows = 0;
+
+        while (true) {
+            String[] row;
+            try {
+                row = reader.next();
+            } catch (IllegalArgumentException iae) {
+                rows++;
+                job.fail(reader.line(), iae.getMessage());
+                continue;
+            }
+            if (row == null) {
+                break;
+            }
+            rows++;
+            try {
+                if (row.length != width) {
+                    throw new IllegalArgumentException("Expected " + width + " fields, found " + row.length + ".");
+                }
+                T item = parser.parse(row, at, job);
+                lines[batch.size()] = reader.line();
+                batch.add(item);
+            } catch (IllegalArgumentException iae) {
+                job.fail(reader.line(), iae.getMessage());
+            }
+            if (batch.size() == WRITE_BATCH_SIZE) {
+                write(batch, lines, writer, job);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, lines, writer, job);
+        }
+        job.read(rows);
+    }
+
+    private static <T> void write(List<T> batch, long[] lines, Function<List<T>, List<BatchResult<T>>> writer,
+                                  Job job) {
+
+        long imported = 0;
+        for (BatchResult<T> result : writer.apply(batch)) {
+            if (result.isSuccess()) {
+                imported++;
+            } else {
+                job.fail(lines[result.getIndex()], result.getError());
+            }
+        }
+        job.rowsImported.addAndGet(imported);
+    }
+
+    // read until the buffer is full or the input ends, returns the filled length
+    private static int fill(InputStream in, byte[] buffer, int filled, Job job) throws IOException {
+
+        int start = filled;
+        while (filled < buffer.length) {
+            int n = in.read(buffer, filled, buffer.length - filled);
+            if (n < 0) {
+                break;
+            }
+            filled += n;
+        }
+        job.bytesRead.addAndGet(filled - start);
+        return filled;
+    }
+
+    // position in the file of each known column, -1 when absent
+    private static int[] columnIndexes(String[] names, String[] columns, String[] required) {
+
+        int[] at = new int[columns.length];
+        Arrays.fill(at, -1);
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim().toLowerCase();
+            int column = Arrays.asList(columns).indexOf(name);
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown column: " + names[i]
+                        + ". Expected: " + String.join(",", columns) + ".");
+            }
+            if (at[column] >= 0) {
+                throw new IllegalArgumentException("Column " + name + " appears twice.");
+            }
+            at[column] = i;
+        }
+        for (String name : required) {
+            if (at[Arrays.asList(columns).indexOf(name)] < 0) {
+                throw new IllegalArgumentException("Column " + name + " is required.");
+            }
+        }
+        return at;
+    }
+
+
+    // ACCOUNT_COLUMNS row
+    private static AccountDTO account(String[] row, int[] at) {
+
+        AccountDTO account = new AccountDTO();
+        account.setAccountId(number(row, at, 0, "account_id"));
+        account.setScreenName(text(row, at, 1));
+        account.setProvider(flag(row, at, 2, "provider"));
+        account.setFirstName(text(row, at, 3));
+        account.setLastName(text(row, at, 4));
+        account.setEmail(text(row, at, 5));
+        account.setPhoneNumber(text(row, at, 6));
+        account.setStreet(text(row, at, 7));
+        account.setCity(text(row, at, 8));
+        account.setState(text(row, at, 9));
+        account.setZipCode(text(row, at, 10));
+        return account;
+    }
+
+    // BOOKING_COLUMNS row, provider and customer checked against the accounts
+    private BookingDTO booking(String[] row, int[] at, Job job) {
+
+        int providerId = number(row, at, 1, "provider_id");
+        int customerId = number(row, at, 2, "customer_id");
+        int providerKind = accountKind(providerId, job);
+        if (providerKind != PROVIDER) {
+            throw new IllegalArgumentException(providerKind == MISSING
+                    ? "Provider account " + providerId + " not found."
+                    : "Account " + providerId + " is not a provider.");
+        }
+        if (accountKind(customerId, job) == MISSING) {
+            throw new IllegalArgumentException("Customer account " + customerId + " not found.");
+        }
+
+        BookingDTO booking = new BookingDTO();
+        booking.setBookingId(number(row, at, 0, "booking_id"));
+        booking.setProvider(accountRef(providerId));
+        booking.setCustomer(accountRef(customerId));
+        booking.setStartTime(text(row, at, 3));
+        booking.setEndTime(text(row, at, 4));
+        booking.setHourlyRate(decimal(row, at, 5, "hourly_rate"));
+        booking.setOverHours(decimal(row, at, 6, "over_hours"));
+        booking.setCompleted(flag(row, at, 7, "completed"));
+        booking.setPaid(flag(row, at, 8, "paid"));
+        booking.setLocStreet(text(row, at, 9));
+        booking.setLocCity(text(row, at, 10));
+        booking.setLocState(text(row, at, 11));
+        booking.setLocZipCode(text(row, at, 12));
+        return booking;
+    }
+
+    private int accountKind(int accountId, Job job) {
+
+        if (accountId <= 0) {
+            return MISSING;
+        }
+        return job.accountKinds.computeIfAbsent(accountId, id -> {
+            AccountDTO account = accountService.getAccount(id);
+            return account == null ? MISSING : account.isProvider() ? PROVIDER : CUSTOMER;
+        });
+    }
+
+    private static Account accountRef(int accountId) {
+
+        Account account = new Account();
+        account.setAccountId(accountId);
+        return account;
+    }
+
+    // null when the column is absent or the field empty
+    private static String text(String[] row, int[] at, int column) {
+
+        if (at[column] < 0) {
+            return null;
+        }
+        String value = row[at[column]];
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int number(String[] row, int[] at, int column, String name) {
+
+        String value = text(row, at, column);
+        try {
+            return value == null ? 0 : Integer.parseInt(value.trim());
+
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static double decimal(String[] row, int[] at, int column, String name) {
+
+        String value = text(row, at, column);
+        try {
+            double parsed = value == null ? 0 : Double.parseDouble(value.trim());
+            if (!Double.isFinite(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static boolean flag(String[] row, int[] at, int column, String name) {
+
+        String value = text(row, at, column);
+        if (value == null || value.trim().equalsIgnoreCase("false")) {
+            return false;
+        }
+        if (value.trim().equalsIgnoreCase("true")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+
+    /**
+     * one row to the item written for it
+     */
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(String[] row, int[] at, Job job);
+    }
+
+
+    /**
+     * counters of one import, updated by the workers
+     */
+    private static final class Job {
+
+        private final int importId;
+        private final String kind;
+        private final long started = System.nanoTime();
+
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong rowsImported = new AtomicLong();
+        private final AtomicLong rowsFailed = new AtomicLong();
+
+        // first MAX_ERRORS, guarded by itself
+        private final List<ImportError> errors = new ArrayList<>();
+
+        // MISSING / CUSTOMER / PROVIDER by accountId
+        private final ConcurrentHashMap<Integer, Integer> accountKinds = new ConcurrentHashMap<>();
+
+        Job(int importId, String kind) {
+            this.importId = importId;
+            this.kind = kind;
+        }
+
+        void read(long rows) {
+
+            long total = rowsRead.addAndGet(rows);
+            if (total / LOG_EVERY_ROWS != (total - rows) / LOG_EVERY_ROWS) {
+                log.info("Import {} of {}: {} rows read, {} failed.", importId, kind, total, rowsFailed.get());
+            }
+        }
+
+        void fail(long line, String message) {
+
+            rowsFailed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(new ImportError(line, message));
+                }
+            }
+        }
+
+        ImportSummary summary(boolean stillRunning) {
+
+            List<ImportError> listed;
+            synchronized (errors) {
+                listed = new ArrayList<>(errors);
+            }
+            listed.sort(Comparator.comparingLong(ImportError::getLine));
+            return new ImportSummary(importId, kind, stillRunning, bytesRead.get(), rowsRead.get(),
+                    rowsImported.get(), rowsFailed.get(), listed, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.basssoft.arms.invoice.controller;
 
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.invoice.domain.GenerationSummary;
 import com.basssoft.arms.invoice.domain.InvoiceDTO;
 import com.basssoft.arms.invoice.service.IinvoiceService;
+import com.basssoft.arms.invoice.service.InvoiceGenerator;
+import com.basssoft.arms.invoice.service.InvoiceMapper;
+import com.basssoft.arms.gateway.View;
+import com.basssoft.arms.mapping.CsvWriter;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.CollectionModel;
-import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Invoice Controller
@@ -29,6 +42,25 @@ public class InvoiceController {
     @Autowired
     private InvoiceModelAssembler assembler;
 
+    @Autowired
+    private InvoiceGenerator generator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // upper bound for one page of invoices
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // invoices read per service call while streaming
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    // CSV export columns, booking columns empty for an invoice without bookings
+    private static final String[] CSV_HEADER = {
+            "invoice_id", "provider_id", "customer_id", "total_amount_due", "last_contacted",
+            "booking_id", "start_time", "end_time", "hourly_rate", "over_hours", "completed", "paid"
+    };
+    private static final int INVOICE_COLUMNS = 5;
+
 
     /**
      * Create new Invoice
@@ -63,12 +95,18 @@ public class InvoiceController {
      * Get Invoice by ID
      *
      * @param id Invoice ID
+     * @param view full (default) or compact
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
      * @return ResponseEntity with InvoiceDTO and or status
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getInvoice(@PathVariable int id) {
+    public ResponseEntity<?> getInvoice(@PathVariable int id,
+                                        @RequestParam(defaultValue = "full") String view,
+                                        WebRequest request) {
 
         try {
+            View projection = View.of(view);
+
             // call service / get invoice
             InvoiceDTO invoice = invoiceService.getInvoice(id);
 
@@ -77,7 +115,15 @@ public class InvoiceController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Invoice not found.");
             }
 
+            // client copy still current: 304, nothing assembled or serialized
+            if (request.checkNotModified(projection.etag(invoice.getVersion()), invoice.getVersion())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             // return invoice, wrapped in HATEOAS links / success: 200
+            if (projection == View.COMPACT) {
+                return ResponseEntity.ok(assembler.toCompactModel(invoice));
+            }
             return ResponseEntity.ok(assembler.toModel(invoice));
 
         } catch (IllegalArgumentException iae) {
@@ -93,24 +139,65 @@ public class InvoiceController {
 
 
     /**
-     * Get all Invoices
+     * Get one page of Invoices (keyset pagination)
      *
-     * @return ResponseEntity with list of InvoiceDTOs and or status
+     * @param after return invoices with a greater id (optional)
+     * @param before return invoices with a smaller id (optional)
+     * @param size max invoices per page
+     * @param view full (default) or compact
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
+     * @return ResponseEntity with page of InvoiceDTOs and or status
      */
     @GetMapping
-    public ResponseEntity<?> getInvoices() {
+    public ResponseEntity<?> getInvoices(@RequestParam(required = false) Integer after,
+                                         @RequestParam(required = false) Integer before,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         @RequestParam(defaultValue = "full") String view,
+                                         WebRequest request) {
 
         try {
-            // call service / get invoices
-            List<InvoiceDTO> invoices = invoiceService.getAllInvoices();
+            View projection = View.of(view);
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
 
-            // wrap each invoice in HATEOAS links
-            List<EntityModel<InvoiceDTO>> wrappedInvoices= invoices.stream()
-                    .map(assembler::toModel)
-                    .collect(Collectors.toList());
+            // table version read before the page, unchanged table: 304
+            long version = invoiceService.getInvoicesVersion();
+            if (request.checkNotModified(projection.etag(version), version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            List<InvoiceDTO> page;
+            boolean hasPrev;
+            boolean hasNext;
+
+            // fetch one extra row to learn if the walk continues
+            if (before != null) {
+                page = invoiceService.getInvoicesBefore(before, size + 1);
+                hasPrev = page.size() > size;
+                if (hasPrev) {
+                    page = page.subList(1, page.size());
+                }
+                // probe one row past the page, so next never leads to an empty page
+                hasNext = !page.isEmpty()
+                        && !invoiceService.getInvoicesAfter(page.get(page.size() - 1).getInvoiceId(), 1).isEmpty();
+
+            } else {
+                int from = after == null ? 0 : after;
+                page = invoiceService.getInvoicesAfter(from, size + 1);
+                hasNext = page.size() > size;
+                if (hasNext) {
+                    page = page.subList(0, size);
+                }
+                hasPrev = from > 0 && !page.isEmpty()
+                        && !invoiceService.getInvoicesBefore(page.get(0).getInvoiceId(), 1).isEmpty();
+            }
 
-            // return list of wrapped invoices / success: 200
-            return ResponseEntity.ok(CollectionModel.of(wrappedInvoices));
+            // return page of wrapped invoices / success: 200
+            if (projection == View.COMPACT) {
+                return ResponseEntity.ok(
+                        assembler.toCompactPageModel(page, after, before, size, hasPrev, hasNext));
+            }
+            return ResponseEntity.ok(assembler.toPageModel(page, after, before, size, hasPrev, hasNext));
 
         } catch (IllegalArgumentException iae) {
             // handle bad request status: 400
@@ -124,6 +211,130 @@ public class InvoiceController {
     }
 
 
+    /**
+     * Stream all Invoices as newline delimited JSON
+     * (Accept: application/x-ndjson)
+
+     * Rows are written as they are read, one keyset chunk
+     * at a time, so memory use does not grow with the table.
+     *
+     * @param view full (default) or compact
+     * @return ResponseEntity with streaming NDJSON body
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamInvoices(@RequestParam(defaultValue = "full") String view) {
+
+        View projection;
+        try {
+            projection = View.of(view);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status: 400
+            byte[] message = iae.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(message));
+        }
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            int after = 0;
+            while (true) {
+                // next chunk after last written invoice
+                List<InvoiceDTO> chunk = invoiceService.getInvoicesAfter(after, STREAM_CHUNK_SIZE);
+
+                for (InvoiceDTO invoice : chunk) {
+                    if (projection == View.COMPACT) {
+                        generator.writeObject(InvoiceMapper.toCompactDTO(invoice));
+                    } else {
+                        generator.writeObject(invoice);
+                    }
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+
+                if (chunk.size() < STREAM_CHUNK_SIZE) {
+                    break;
+                }
+                after = chunk.get(chunk.size() - 1).getInvoiceId();
+            }
+            generator.close();
+        };
+        // stream / success: 200
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+
+    /**
+     * Export Invoices as CSV, one row per invoiced booking
+     * (Accept: text/csv)
+
+     * Invoice columns repeat on each of its booking rows;
+     * an invoice without bookings gets one row with the
+     * booking columns empty. Rows are written as they are
+     * read and flushed one keyset chunk at a time (chunked
+     * transfer), so memory use does not grow with the export.
+     *
+     * @param providerId provider account ID (optional, all when absent)
+     * @param from earliest booking start time (ISO date-time, inclusive, optional)
+     * @param to latest booking start time (ISO date-time, exclusive, optional)
+     * @return ResponseEntity with streaming CSV body
+     */
+    @GetMapping(produces = CsvWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportInvoices(@RequestParam(defaultValue = "0") int providerId,
+                                                                @RequestParam(required = false) String from,
+                                                                @RequestParam(required = false) String to) {
+
+        List<InvoiceDTO> first;
+        try {
+            if (providerId < 0) {
+                throw new IllegalArgumentException("Provider id must not be negative.");
+            }
+            // first chunk read up front, so bad filters answer 400
+            first = invoiceService.getInvoicesAfter(0, STREAM_CHUNK_SIZE, providerId, from, to);
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request / 400
+            return textResponse(HttpStatus.BAD_REQUEST, iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors / 500
+            return textResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Invoice export failed.");
+        }
+
+        StreamingResponseBody body = out -> {
+            CsvWriter csv = new CsvWriter(out);
+            csv.row(CSV_HEADER);
+
+            List<InvoiceDTO> chunk = first;
+            while (true) {
+                for (InvoiceDTO invoice : chunk) {
+                    writeRows(csv, invoice);
+                }
+                csv.flush();
+
+                if (chunk.size() < STREAM_CHUNK_SIZE) {
+                    break;
+                }
+                // next chunk after last written invoice
+                int after = chunk.get(chunk.size() - 1).getInvoiceId();
+                chunk = invoiceService.getInvoicesAfter(after, STREAM_CHUNK_SIZE, providerId, from, to);
+            }
+        };
+        // stream as an attachment / success: 200
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("invoices.csv").build().toString())
+                .body(body);
+    }
+
+
     /**
      * Update existing Invoice
      *
@@ -193,4 +404,72 @@ public class InvoiceController {
     }
 
 
+    /**
+     * Generate invoices from all completed, unpaid bookings
+     *
+     * @return ResponseEntity with GenerationSummary and or status
+     */
+    @PostMapping("/generate")
+    public ResponseEntity<?> generateInvoices() {
+
+        try {
+            // run generation / status: 200 and counts
+            GenerationSummary summary = generator.generateInvoices();
+            return ResponseEntity.ok(summary);
+
+        } catch (IllegalStateException ise) {
+            // run already in progress: 409
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ise.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Invoice generation failed.");
+        }
+    }
+
+
+    private static void writeRows(CsvWriter csv, InvoiceDTO invoice) throws IOException {
+
+        List<Booking> bookings = invoice.getBookings();
+        if (bookings == null || bookings.isEmpty()) {
+            writeInvoiceFields(csv, invoice);
+            // booking columns left empty
+            for (int i = INVOICE_COLUMNS; i < CSV_HEADER.length; i++) {
+                csv.field((String) null);
+            }
+            csv.endRow();
+            return;
+        }
+        for (Booking booking : bookings) {
+            writeInvoiceFields(csv, invoice);
+            csv.field(booking.getBookingId())
+                    .field(TimeCodec.format(booking.getStartTime()))
+                    .field(TimeCodec.format(booking.getEndTime()))
+                    .field(booking.getHourlyRate(), 2)
+                    .field(booking.getOverHours(), 2)
+                    .field(booking.isCompleted())
+                    .field(booking.isPaid())
+                    .endRow();
+        }
+    }
+
+    private static void writeInvoiceFields(CsvWriter csv, InvoiceDTO invoice) throws IOException {
+
+        csv.field(invoice.getInvoiceId())
+                .field(invoice.getProviderId())
+                .field(invoice.getCustomerId())
+                .field(invoice.getTotalAmountDue(), 2)
+                .field(invoice.getLastContacted());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(bytes));
+    }
+
+
 }
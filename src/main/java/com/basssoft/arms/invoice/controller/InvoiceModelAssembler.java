@@ -1,11 +1,18 @@
 package com.basssoft.arms.invoice.controller;
 
+import com.basssoft.arms.invoice.domain.CompactInvoiceDTO;
 import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.invoice.service.InvoiceMapper;
+import com.basssoft.arms.gateway.LinkTemplate;
+import com.basssoft.arms.gateway.View;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Assembles Invoice models (links)
@@ -19,12 +26,103 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class InvoiceModelAssembler
         implements RepresentationModelAssembler<InvoiceDTO, EntityModel<InvoiceDTO>>  {
 
+    // controller base URI resolved once per request
+    private static final LinkTemplate LINKS = new LinkTemplate(InvoiceController.class);
+
     @Override
     public EntityModel<InvoiceDTO> toModel(InvoiceDTO invoice) {
 
         return EntityModel.of(invoice,
-                linkTo(methodOn(InvoiceController.class).getInvoice(invoice.getInvoiceId())).withSelfRel(),
-                linkTo(methodOn(InvoiceController.class).getInvoices()).withRel("invoices")
+                LINKS.self(invoice.getInvoiceId()),
+                LINKS.collection("invoices")
+        );
+    }
+
+
+    /**
+     * Wrap one keyset page of invoices
+     * with self / next / prev links
+     *
+     * @param page List<InvoiceDTO> ordered by invoiceId
+     * @param after Integer cursor of this request (or null)
+     * @param before Integer cursor of this request (or null)
+     * @param size int page size
+     * @param hasPrev boolean earlier invoices exist
+     * @param hasNext boolean later invoices exist
+     * @return CollectionModel<EntityModel<InvoiceDTO>>
+     */
+    public CollectionModel<EntityModel<InvoiceDTO>> toPageModel(List<InvoiceDTO> page, Integer after, Integer before,
+                                                                int size, boolean hasPrev, boolean hasNext) {
+
+        List<EntityModel<InvoiceDTO>> wrappedInvoices = new ArrayList<>(page.size());
+        for (InvoiceDTO invoice : page) {
+            wrappedInvoices.add(toModel(invoice));
+        }
+        return CollectionModel.of(wrappedInvoices, pageLinks(page.isEmpty() ? 0 : page.get(0).getInvoiceId(),
+                page.isEmpty() ? 0 : page.get(page.size() - 1).getInvoiceId(),
+                after, before, size, hasPrev && !page.isEmpty(), hasNext && !page.isEmpty(), View.FULL));
+    }
+
+
+    /**
+     * Compact model of one invoice (?view=compact)
+     *
+     * @param invoice InvoiceDTO
+     * @return EntityModel<CompactInvoiceDTO> with the same links as toModel
+     */
+    public EntityModel<CompactInvoiceDTO> toCompactModel(InvoiceDTO invoice) {
+
+        return EntityModel.of(InvoiceMapper.toCompactDTO(invoice),
+                LINKS.self(invoice.getInvoiceId()),
+                LINKS.collection("invoices")
         );
     }
+
+
+    /**
+     * Wrap one keyset page of invoices in the compact view,
+     * page links keep view=compact
+     *
+     * @param page List<InvoiceDTO> ordered by invoiceId
+     * @param after Integer cursor of this request (or null)
+     * @param before Integer cursor of this request (or null)
+     * @param size int page size
+     * @param hasPrev boolean earlier invoices exist
+     * @param hasNext boolean later invoices exist
+     * @return CollectionModel<EntityModel<CompactInvoiceDTO>>
+     */
+    public CollectionModel<EntityModel<CompactInvoiceDTO>> toCompactPageModel(List<InvoiceDTO> page, Integer after,
+                                                                         Integer before, int size,
+                                                                         boolean hasPrev, boolean hasNext) {
+
+        List<EntityModel<CompactInvoiceDTO>> models = new ArrayList<>(page.size());
+        for (InvoiceDTO invoice : page) {
+            models.add(toCompactModel(invoice));
+        }
+        return CollectionModel.of(models, pageLinks(page.isEmpty() ? 0 : page.get(0).getInvoiceId(),
+                page.isEmpty() ? 0 : page.get(page.size() - 1).getInvoiceId(),
+                after, before, size, hasPrev && !page.isEmpty(), hasNext && !page.isEmpty(), View.COMPACT));
+    }
+
+
+    // self / next / prev links of a page from firstId to lastId
+    private static List<Link> pageLinks(int firstId, int lastId, Integer after, Integer before, int size,
+                                        boolean hasPrev, boolean hasNext, View view) {
+
+        List<Link> links = new ArrayList<>(3);
+
+        // self repeats the cursor this page was requested with
+        if (before != null) {
+            links.add(LINKS.page("before", before, size, view, IanaLinkRelations.SELF));
+        } else {
+            links.add(LINKS.page("after", after == null ? 0 : after, size, view, IanaLinkRelations.SELF));
+        }
+        if (hasNext) {
+            links.add(LINKS.page("after", lastId, size, view, IanaLinkRelations.NEXT));
+        }
+        if (hasPrev) {
+            links.add(LINKS.page("before", firstId, size, view, IanaLinkRelations.PREV));
+        }
+        return links;
+    }
 }
@@ -0,0 +1,123 @@
+package com.basssoft.arms.invoice.controller;
+
+import com.basssoft.arms.gateway.View;
+import com.basssoft.arms.invoice.domain.RevenueDTO;
+import com.basssoft.arms.invoice.service.IinvoiceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Report Controller
+ * for finance reports read from the revenue rollups
+ *
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    @Autowired
+    private IinvoiceService invoiceService;
+
+    // months in a provider report when no range is given
+    private static final int DEFAULT_MONTHS = 12;
+
+
+    /**
+     * Revenue of one provider per month
+     *
+     * @param providerId provider account ID
+     * @param from first month yyyy-MM (default 11 months before to)
+     * @param to last month yyyy-MM (default this month)
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
+     * @return ResponseEntity with RevenueDTOs, oldest month first, and or status
+     */
+    @GetMapping("/revenue/providers/{providerId}")
+    public ResponseEntity<?> getProviderRevenue(@PathVariable int providerId,
+                                                @RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to,
+                                                WebRequest request) {
+
+        try {
+            // rollups unchanged since the client copy: 304
+            long version = invoiceService.getRevenueVersion();
+            if (request.checkNotModified(View.FULL.etag(version), version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            String last = to != null ? to : YearMonth.now().toString();
+            String first = from != null ? from : YearMonth.parse(last).minusMonths(DEFAULT_MONTHS - 1).toString();
+
+            // call service / one row per month with revenue
+            List<RevenueDTO> rows = invoiceService.getProviderRevenue(providerId, first, last);
+
+            // return rows wrapped w self link, success status:200
+            return ResponseEntity.ok(toReportModel(rows));
+
+        } catch (DateTimeParseException dtpe) {
+            // handle bad month status:400
+            return ResponseEntity.badRequest().body("Invalid month: " + dtpe.getParsedString());
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Report generation failed.");
+        }
+    }
+
+
+    /**
+     * Revenue of every provider in one month
+     *
+     * @param month yyyy-MM
+     * @param request WebRequest (If-None-Match / If-Modified-Since)
+     * @return ResponseEntity with RevenueDTOs ordered by providerId and or status
+     */
+    @GetMapping("/revenue/months/{month}")
+    public ResponseEntity<?> getMonthRevenue(@PathVariable String month, WebRequest request) {
+
+        try {
+            // rollups unchanged since the client copy: 304
+            long version = invoiceService.getRevenueVersion();
+            if (request.checkNotModified(View.FULL.etag(version), version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            // call service / one row per provider with revenue
+            List<RevenueDTO> rows = invoiceService.getMonthRevenue(month);
+
+            // return rows wrapped w self link, success status:200
+            return ResponseEntity.ok(toReportModel(rows));
+
+        } catch (IllegalArgumentException iae) {
+            // handle bad request status:400
+            return ResponseEntity.badRequest().body(iae.getMessage());
+
+        } catch (Exception ex) {
+            // handle other errors status:500
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Report generation failed.");
+        }
+    }
+
+
+    private static CollectionModel<RevenueDTO> toReportModel(List<RevenueDTO> rows) {
+
+        return CollectionModel.of(rows,
+                Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString(), IanaLinkRelations.SELF));
+    }
+}
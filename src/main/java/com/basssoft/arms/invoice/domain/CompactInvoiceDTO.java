@@ -0,0 +1,31 @@
+package com.basssoft.arms.invoice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact projection of an Invoice
+ * (?view=compact)
+
+ * Bookings by bookingId only,
+ * instead of embedded Booking objects.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompactInvoiceDTO {
+
+    private int invoiceId;
+    private int providerId;
+    private int customerId;
+
+    private int[] bookingIds;
+
+    private double totalAmountDue;
+    private String lastContacted;
+}
@@ -0,0 +1,35 @@
+package com.basssoft.arms.invoice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one invoice generation run
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GenerationSummary {
+
+    // all bookings read
+    private int bookingsScanned;
+
+    // completed, unpaid bookings placed on an invoice
+    private int bookingsInvoiced;
+
+    // distinct provider / customer pairs invoiced
+    private int pairs;
+
+    private int invoicesCreated;
+    private int invoicesRefreshed;
+
+    // items the invoice service rejected
+    private int failures;
+
+    private long elapsedMillis;
+}
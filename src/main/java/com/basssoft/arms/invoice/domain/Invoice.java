@@ -2,13 +2,22 @@ package com.basssoft.arms.invoice.domain;
 
 import com.basssoft.arms.account.domain.Account;
 import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.mapping.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
-import jakarta.persistence.OneToOne;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.OneToMany;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import java.util.List;
 import java.time.LocalDateTime;
 
@@ -16,31 +25,65 @@ import java.time.LocalDateTime;
  * Invoice
  * domain entity class
 
+ * Loading a page of invoices: fetch with the
+ * WITH_ACCOUNTS graph (provider / customer joined),
+ * bookings then load 100 invoices per query.
+
  * arms application
  * @author Matthew Bass
  * @version 1.0
  */
 @Data
 @Entity
+@NamedEntityGraph(name = Invoice.WITH_ACCOUNTS, attributeNodes = {
+        @NamedAttributeNode("provider"),
+        @NamedAttributeNode("customer")
+})
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PUBLIC, force = true)
 public class Invoice {
 
+    // entity graph joining provider and customer
+    public static final String WITH_ACCOUNTS = "Invoice.withAccounts";
+
     @Id
     private int invoiceId;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "provider_id")
     private Account provider;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
     private Account customer;
 
     // all unpaid bookings between
     // this provider and this customer
+    @OneToMany
+    @JoinTable(name = "invoice_bookings",
+            joinColumns = @JoinColumn(name = "invoice_id"),
+            inverseJoinColumns = @JoinColumn(name = "booking_id", unique = true))
+    @BatchSize(size = 100)
     private List<Booking> bookings;
 
-    private float totalAmountDue;
+    // in cents (Money)
+    @JsonIgnore
+    private long totalAmountDueCents;
 
     // timestamp of last attempt to collect
     private LocalDateTime lastContacted;
+
+    // VersionClock value of the last write (ETag / Last-Modified)
+    private long version;
+
+
+    // decimal totalAmountDue, as in InvoiceDTO
+
+    public double getTotalAmountDue() {
+        return Money.toDouble(totalAmountDueCents);
+    }
+
+    public void setTotalAmountDue(double totalAmountDue) {
+        this.totalAmountDueCents = Money.of(totalAmountDue);
+    }
 }
@@ -0,0 +1,31 @@
+package com.basssoft.arms.invoice.domain;
+
+/**
+ * Published after an Invoice is created,
+ * updated or deleted
+
+ * invoice is null for a delete.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class InvoiceChangedEvent {
+
+    private final int invoiceId;
+    private final InvoiceDTO invoice;
+
+
+    public InvoiceChangedEvent(int invoiceId, InvoiceDTO invoice) {
+        this.invoiceId = invoiceId;
+        this.invoice = invoice;
+    }
+
+    public int getInvoiceId() {
+        return invoiceId;
+    }
+
+    public InvoiceDTO getInvoice() {
+        return invoice;
+    }
+}
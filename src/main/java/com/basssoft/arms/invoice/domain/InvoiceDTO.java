@@ -2,6 +2,7 @@ package com.basssoft.arms.invoice.domain;
 
 import com.basssoft.arms.booking.domain.Booking;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import java.util.List;
 
 /**
@@ -22,7 +23,11 @@ public class InvoiceDTO {
 
     private List<Booking> bookings;
 
-    private float totalAmountDue;
+    private double totalAmountDue;
 
     private String lastContacted;
+
+    // write version (ETag), not part of the content
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
@@ -0,0 +1,28 @@
+package com.basssoft.arms.invoice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Revenue of one provider in one month
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevenueDTO {
+
+    private int providerId;
+
+    // yyyy-MM, month the bookings started
+    private String month;
+
+    // completed bookings earning it
+    private long bookings;
+
+    private double revenue;
+}
@@ -0,0 +1,195 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.invoice.domain.InvoiceChangedEvent;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.TimerWheel;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contacts customers about unpaid invoices, at most
+ * once per arms.collections.interval
+
+ * Every invoice waits in a TimerWheel at its next
+ * contact time, lastContacted + interval (now when never
+ * contacted), kept current by InvoiceChangedEvents. A
+ * tick takes only the invoices that fell due, re-reads
+ * them a batch at a time and stamps lastContacted of
+ * the ones still owing money in one markContacted call.
+ * Invoices with nothing due are looked at again one
+ * interval later, amounts move with bookings.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Service
+public class CollectionScheduler {
+
+    @Autowired
+    private IinvoiceService invoiceService;
+
+    private static final Logger log = LoggerFactory.getLogger(CollectionScheduler.class);
+
+    // invoices read per service call while loading the wheel
+    private static final int LOAD_CHUNK_SIZE = 5_000;
+
+    private final Clock clock;
+    private final Duration interval;
+    private final int batchSize;
+    private final TimerWheel wheel;
+
+
+    /**
+     * Create scheduler
+     *
+     * @param interval Duration between contacts about one invoice
+     * @param tick Duration wheel tick, the due time resolution
+     * @param batchSize int invoices per markContacted call
+     */
+    @Autowired
+    public CollectionScheduler(@Value("${arms.collections.interval:P7D}") Duration interval,
+                               @Value("${arms.collections.tick:PT1M}") Duration tick,
+                               @Value("${arms.collections.batch-size:500}") int batchSize) {
+        this(null, Clock.systemDefaultZone(), interval, tick, batchSize);
+    }
+
+    CollectionScheduler(IinvoiceService invoiceService, Clock clock, Duration interval, Duration tick,
+                        int batchSize) {
+        if (interval.isNegative() || interval.isZero() || batchSize < 1) {
+            throw new IllegalArgumentException("Collections interval and batch size must be positive.");
+        }
+        this.invoiceService = invoiceService;
+        this.clock = clock;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.wheel = new TimerWheel(tick.toMillis(), clock.millis());
+    }
+
+
+    /**
+     * schedule the invoices stored before the first event
+     */
+    @PostConstruct
+    public void load() {
+
+        int after = 0;
+        while (true) {
+            List<InvoiceDTO> chunk = invoiceService.getInvoicesAfter(after, LOAD_CHUNK_SIZE);
+            for (InvoiceDTO invoice : chunk) {
+                wheel.schedule(invoice.getInvoiceId(), nextContact(invoice));
+            }
+            if (chunk.size() < LOAD_CHUNK_SIZE) {
+                return;
+            }
+            after = chunk.get(chunk.size() - 1).getInvoiceId();
+        }
+    }
+
+
+    /**
+     * Move an invoice to its next contact time,
+     * or drop it when deleted
+     *
+     * @param event InvoiceChangedEvent
+     */
+    @EventListener
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+
+        if (event.getInvoice() == null) {
+            wheel.cancel(event.getInvoiceId());
+        } else {
+            wheel.schedule(event.getInvoiceId(), nextContact(event.getInvoice()));
+        }
+    }
+
+
+    /**
+     * Contact every invoice that fell due since the last tick
+     * (run every arms.collections.tick)
+     *
+     * @return int invoices marked contacted
+     */
+    @Scheduled(initialDelayString = "${arms.collections.tick:PT1M}",
+            fixedDelayString = "${arms.collections.tick:PT1M}")
+    public int runCollections() {
+
+        long now = clock.millis();
+        int[] due = wheel.advance(now);
+        String contactedAt = TimeCodec.format(LocalDateTime.now(clock));
+        int contacted = 0;
+
+        for (int from = 0; from < due.length; from += batchSize) {
+            int[] batch = Arrays.copyOfRange(due, from, Math.min(from + batchSize, due.length));
+            int[] owing = new int[batch.length];
+            int count = 0;
+
+            for (int invoiceId : batch) {
+                InvoiceDTO invoice = invoiceService.getInvoice(invoiceId);
+                if (invoice == null) {
+                    continue;
+                }
+                long next = nextContact(invoice);
+                if (next > now) {
+                    // contacted meanwhile
+                    wheel.schedule(invoiceId, next);
+                } else if (invoice.getTotalAmountDue() <= 0) {
+                    // nothing owed today, look again later
+                    wheel.schedule(invoiceId, now + interval.toMillis());
+                } else {
+                    owing[count++] = invoiceId;
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            // rescheduled here as well, the change events may not reach this bean
+            for (int invoiceId : invoiceService.markContacted(Arrays.copyOf(owing, count), contactedAt)) {
+                wheel.schedule(invoiceId, now + interval.toMillis());
+                contacted++;
+            }
+        }
+        if (contacted > 0) {
+            log.info("Collections: {} of {} due invoices contacted.", contacted, due.length);
+        }
+        return contacted;
+    }
+
+
+    /**
+     * @return int invoices waiting in the wheel
+     */
+    public int scheduled() {
+
+        return wheel.size();
+    }
+
+
+    // epoch millis of the next contact, now when never contacted
+    private long nextContact(InvoiceDTO invoice) {
+
+        LocalDateTime last;
+        try {
+            last = TimeCodec.parse(invoice.getLastContacted());
+
+        } catch (IllegalArgumentException iae) {
+            last = null;
+        }
+        if (last == null) {
+            return clock.millis();
+        }
+        return last.plus(interval).atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
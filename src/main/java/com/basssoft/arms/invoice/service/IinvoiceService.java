@@ -1,6 +1,8 @@
 package com.basssoft.arms.invoice.service;
 
 import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.invoice.domain.RevenueDTO;
+import com.basssoft.arms.store.BatchResult;
 import java.util.List;
 
 /**
@@ -20,11 +22,19 @@ public interface IinvoiceService {
      */
     public InvoiceDTO createInvoice(InvoiceDTO account);
 
+    /**
+     * Create many Invoices in one batch
+     *
+     * @param batch List<InvoiceDTO>
+     * @return List<BatchResult<InvoiceDTO>> one result per item, in order
+     */
+    public List<BatchResult<InvoiceDTO>> createInvoices(List<InvoiceDTO> batch);
+
     /**
      * Get Invoice by ID
      *
      * @param invoiceId int
-     * @return InvoiceDTO
+     * @return InvoiceDTO or null when not found
      */
     public InvoiceDTO getInvoice(int invoiceId);
 
@@ -35,19 +45,99 @@ public interface IinvoiceService {
      */
     public List<InvoiceDTO> getAllInvoices();
 
+    /**
+     * Get one page of Invoices after a cursor (keyset pagination)
+     *
+     * @param afterId int invoices with a greater id (0 = from the first)
+     * @param size int max invoices returned
+     * @return List<InvoiceDTO> ordered by invoiceId
+     */
+    public List<InvoiceDTO> getInvoicesAfter(int afterId, int size);
+
+    /**
+     * Get one page of matching Invoices after a cursor
+     *
+     * @param afterId int invoices with a greater id (0 = from the first)
+     * @param size int max invoices returned, fewer only at the end
+     * @param providerId int (0 = every provider)
+     * @param from String earliest booking startTime (inclusive, null = open)
+     * @param to String latest booking startTime (exclusive, null = open)
+     * @return List<InvoiceDTO> ordered by invoiceId, bookings narrowed to the window
+     */
+    public List<InvoiceDTO> getInvoicesAfter(int afterId, int size, int providerId, String from, String to);
+
+    /**
+     * Get one page of Invoices before a cursor (keyset pagination)
+     *
+     * @param beforeId int invoices with a smaller id
+     * @param size int max invoices returned
+     * @return List<InvoiceDTO> ordered by invoiceId
+     */
+    public List<InvoiceDTO> getInvoicesBefore(int beforeId, int size);
+
+    /**
+     * Version of the invoice table, advanced by every write
+     * (including changes to amounts due)
+     *
+     * @return long (ETag / Last-Modified of collection responses)
+     */
+    public long getInvoicesVersion();
+
     /**
      * Update existing Invoice
      *
      * @param account InvoiceDTO
-     * @return InvoiceDTO
+     * @return InvoiceDTO or null when not found
      */
     public InvoiceDTO updateInvoice(InvoiceDTO account);
 
+    /**
+     * Update many Invoices in one batch
+     *
+     * @param batch List<InvoiceDTO>
+     * @return List<BatchResult<InvoiceDTO>> one result per item, in order
+     */
+    public List<BatchResult<InvoiceDTO>> updateInvoices(List<InvoiceDTO> batch);
+
     /**
      * Delete Invoice by ID
      *
      * @param invoiceId int
-     * @return int deletedId
+     * @return int deletedId or -1 when not found
      */
     public int deleteInvoice(int invoiceId);
+
+    /**
+     * Set lastContacted of many Invoices in one call
+     *
+     * @param invoiceIds int[]
+     * @param contactedAt String ISO local date-time
+     * @return int[] ids updated (missing invoices skipped)
+     */
+    public int[] markContacted(int[] invoiceIds, String contactedAt);
+
+    /**
+     * Revenue of one provider per month
+     *
+     * @param providerId int
+     * @param fromMonth String yyyy-MM (inclusive)
+     * @param toMonth String yyyy-MM (inclusive)
+     * @return List<RevenueDTO> months with revenue, oldest first
+     */
+    public List<RevenueDTO> getProviderRevenue(int providerId, String fromMonth, String toMonth);
+
+    /**
+     * Revenue of every provider in one month
+     *
+     * @param month String yyyy-MM
+     * @return List<RevenueDTO> providers with revenue, ordered by providerId
+     */
+    public List<RevenueDTO> getMonthRevenue(String month);
+
+    /**
+     * Version of the revenue rollups, advanced by every change
+     *
+     * @return long (ETag / Last-Modified of report responses)
+     */
+    public long getRevenueVersion();
 }
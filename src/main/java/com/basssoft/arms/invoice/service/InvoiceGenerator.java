@@ -0,0 +1,314 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingMapper;
+import com.basssoft.arms.booking.service.IbookingService;
+import com.basssoft.arms.invoice.domain.GenerationSummary;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.store.BatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds invoices from completed, unpaid bookings
+
+ * One run reads every booking, groups the completed
+ * unpaid ones by (provider, customer) and creates or
+ * refreshes one invoice per pair through IinvoiceService.
+ * Bookings are grouped a chunk at a time as they are read,
+ * so only the billable ones stay in memory. Grouping and
+ * invoice assembly are split across cores with fork/join;
+ * writes go out in batches, also in parallel. Invoices of pairs with nothing left to bill
+ * are refreshed to an empty booking list.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Service
+public class InvoiceGenerator {
+
+    private final IinvoiceService invoiceService;
+
+    private final IbookingService bookingService;
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceGenerator.class);
+
+    // rows read per service call
+    private static final int READ_CHUNK_SIZE = 5_000;
+
+    // rows a fork/join leaf handles without splitting further
+    private static final int SPLIT_THRESHOLD = 1_024;
+
+    // invoices per createInvoices / updateInvoices call
+    private static final int WRITE_BATCH_SIZE = 1_000;
+
+    // one run at a time
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final int parallelism;
+
+
+    @Autowired
+    public InvoiceGenerator(IinvoiceService invoiceService, IbookingService bookingService) {
+        this(invoiceService, bookingService, Runtime.getRuntime().availableProcessors());
+    }
+
+    InvoiceGenerator(IinvoiceService invoiceService, IbookingService bookingService, int parallelism) {
+        this.invoiceService = invoiceService;
+        this.bookingService = bookingService;
+        this.parallelism = parallelism;
+    }
+
+
+    /**
+     * Generate or refresh invoices for all completed, unpaid bookings
+     * (also run on the arms.invoice.generate-cron schedule)
+
+     * @return GenerationSummary counts of this run
+     * @throws IllegalStateException when a run is already in progress
+     */
+    @Scheduled(cron = "${arms.invoice.generate-cron:-}")
+    public GenerationSummary generateInvoices() {
+
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Invoice generation is already running.");
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            long began = System.nanoTime();
+            GenerationSummary summary = new GenerationSummary();
+
+            // billable bookings by pair
+            Map<Long, List<BookingDTO>> billable = new HashMap<>();
+            forEachChunk(bookingService::getBookingsAfter, BookingDTO::getBookingId, chunk -> {
+                summary.setBookingsScanned(summary.getBookingsScanned() + chunk.size());
+                merge(billable, pool.invoke(new GroupTask(chunk, 0, chunk.size())));
+            });
+
+            // lowest invoice id per pair
+            Map<Long, InvoiceDTO> invoiced = new HashMap<>();
+            forEachChunk(invoiceService::getInvoicesAfter, InvoiceDTO::getInvoiceId, chunk -> {
+                for (InvoiceDTO invoice : chunk) {
+                    long key = InvoiceLedger.pairKey(invoice.getProviderId(), invoice.getCustomerId());
+                    if (key != 0) {
+                        invoiced.putIfAbsent(key, invoice);
+                    }
+                }
+            });
+
+            // pairs to write: every billable pair, plus invoiced pairs now fully paid
+            List<Long> pairs = new ArrayList<>(billable.keySet());
+            for (Map.Entry<Long, InvoiceDTO> entry : invoiced.entrySet()) {
+                List<?> listed = entry.getValue().getBookings();
+                if (!billable.containsKey(entry.getKey()) && listed != null && !listed.isEmpty()) {
+                    pairs.add(entry.getKey());
+                }
+            }
+            InvoiceDTO[] built = new InvoiceDTO[pairs.size()];
+            pool.invoke(new BuildTask(pairs, billable, invoiced, built, 0, built.length));
+
+            List<InvoiceDTO> creates = new ArrayList<>();
+            List<InvoiceDTO> updates = new ArrayList<>();
+            for (InvoiceDTO invoice : built) {
+                (invoice.getInvoiceId() == 0 ? creates : updates).add(invoice);
+                summary.setBookingsInvoiced(summary.getBookingsInvoiced() + invoice.getBookings().size());
+            }
+            summary.setPairs(billable.size());
+
+            // batches written in parallel
+            List<ForkJoinTask<List<BatchResult<InvoiceDTO>>>> creating = write(pool, creates, true);
+            List<ForkJoinTask<List<BatchResult<InvoiceDTO>>>> refreshing = write(pool, updates, false);
+
+            for (ForkJoinTask<List<BatchResult<InvoiceDTO>>> task : creating) {
+                for (BatchResult<InvoiceDTO> result : task.join()) {
+                    if (result.isSuccess()) {
+                        summary.setInvoicesCreated(summary.getInvoicesCreated() + 1);
+                    } else {
+                        summary.setFailures(summary.getFailures() + 1);
+                    }
+                }
+            }
+            for (ForkJoinTask<List<BatchResult<InvoiceDTO>>> task : refreshing) {
+                for (BatchResult<InvoiceDTO> result : task.join()) {
+                    if (result.isSuccess()) {
+                        summary.setInvoicesRefreshed(summary.getInvoicesRefreshed() + 1);
+                    } else {
+                        summary.setFailures(summary.getFailures() + 1);
+                    }
+                }
+            }
+            summary.setElapsedMillis((System.nanoTime() - began) / 1_000_000);
+
+            log.info("Invoice generation: {}", summary);
+            return summary;
+
+        } finally {
+            running.set(false);
+        }
+    }
+
+
+    // keyset walk over a whole store, one chunk in memory at a time
+    private static <T> void forEachChunk(BiFunction<Integer, Integer, List<T>> pageAfter, ToIntFunction<T> id,
+                                         Consumer<List<T>> action) {
+
+        int after = 0;
+        while (true) {
+            List<T> chunk = pageAfter.apply(after, READ_CHUNK_SIZE);
+            action.accept(chunk);
+            if (chunk.size() < READ_CHUNK_SIZE) {
+                return;
+            }
+            after = id.applyAsInt(chunk.get(chunk.size() - 1));
+        }
+    }
+
+    // appends the groups of from (later bookingIds) to those of into
+    private static void merge(Map<Long, List<BookingDTO>> into, Map<Long, List<BookingDTO>> from) {
+
+        for (Map.Entry<Long, List<BookingDTO>> entry : from.entrySet()) {
+            into.merge(entry.getKey(), entry.getValue(), (a, b) -> {
+                a.addAll(b);
+                return a;
+            });
+        }
+    }
+
+    private List<ForkJoinTask<List<BatchResult<InvoiceDTO>>>> write(ForkJoinPool pool, List<InvoiceDTO> invoices,
+                                                                   boolean create) {
+
+        List<ForkJoinTask<List<BatchResult<InvoiceDTO>>>> tasks = new ArrayList<>();
+        for (int from = 0; from < invoices.size(); from += WRITE_BATCH_SIZE) {
+            List<InvoiceDTO> batch = invoices.subList(from, Math.min(from + WRITE_BATCH_SIZE, invoices.size()));
+            tasks.add(pool.submit(() -> create
+                    ? invoiceService.createInvoices(batch)
+                    : invoiceService.updateInvoices(batch)));
+        }
+        return tasks;
+    }
+
+
+    /**
+     * groups billable bookings in [from, to) by pair
+     */
+    private static final class GroupTask extends RecursiveTask<Map<Long, List<BookingDTO>>> {
+
+        private final List<BookingDTO> bookings;
+        private final int from;
+        private final int to;
+
+        GroupTask(List<BookingDTO> bookings, int from, int to) {
+            this.bookings = bookings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, List<BookingDTO>> compute() {
+
+            if (to - from <= SPLIT_THRESHOLD) {
+                Map<Long, List<BookingDTO>> groups = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    BookingDTO booking = bookings.get(i);
+                    if (InvoiceLedger.billable(booking)) {
+                        groups.computeIfAbsent(InvoiceLedger.pairKey(booking), k -> new ArrayList<>()).add(booking);
+                    }
+                }
+                return groups;
+            }
+            int middle = (from + to) >>> 1;
+            GroupTask left = new GroupTask(bookings, from, middle);
+            left.fork();
+            Map<Long, List<BookingDTO>> right = new GroupTask(bookings, middle, to).compute();
+            Map<Long, List<BookingDTO>> merged = left.join();
+            merge(merged, right);
+            return merged;
+        }
+    }
+
+
+    /**
+     * builds the invoice of every pair in [from, to)
+     */
+    private static final class BuildTask extends RecursiveAction {
+
+        private final List<Long> pairs;
+        private final Map<Long, List<BookingDTO>> billable;
+        private final Map<Long, InvoiceDTO> invoiced;
+        private final InvoiceDTO[] built;
+        private final int from;
+        private final int to;
+
+        BuildTask(List<Long> pairs, Map<Long, List<BookingDTO>> billable, Map<Long, InvoiceDTO> invoiced,
+                  InvoiceDTO[] built, int from, int to) {
+            this.pairs = pairs;
+            this.billable = billable;
+            this.invoiced = invoiced;
+            this.built = built;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    built[i] = build(pairs.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildTask(pairs, billable, invoiced, built, from, middle),
+                    new BuildTask(pairs, billable, invoiced, built, middle, to));
+        }
+
+        private InvoiceDTO build(long key) {
+
+            // paid up pairs have no entry
+            List<BookingDTO> due = billable.getOrDefault(key, new ArrayList<>());
+            due.sort(Comparator.comparingInt(BookingDTO::getBookingId));
+
+            List<Booking> bookings = new ArrayList<>(due.size());
+            long[] cents = new long[due.size()];
+            for (int i = 0; i < cents.length; i++) {
+                BookingDTO booking = due.get(i);
+                Booking entity = BookingMapper.toEntity(booking, booking.getBookingId());
+                entity.setVersion(booking.getVersion());
+                bookings.add(entity);
+                cents[i] = InvoiceLedger.dueCents(booking);
+            }
+
+            // refresh keeps id and lastContacted of the existing invoice
+            InvoiceDTO existing = invoiced.get(key);
+            InvoiceDTO invoice = new InvoiceDTO();
+            if (existing != null) {
+                invoice.setInvoiceId(existing.getInvoiceId());
+                invoice.setLastContacted(existing.getLastContacted());
+            }
+            invoice.setProviderId(InvoiceLedger.providerOf(key));
+            invoice.setCustomerId(InvoiceLedger.customerOf(key));
+            invoice.setBookings(bookings);
+            invoice.setTotalAmountDue(Money.toDouble(Money.sum(cents, 0, cents.length)));
+            return invoice;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.VersionClock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running amount due per (provider, customer) pair
+
+ * Every booking change adds only its delta, in cents
+ * so the sums are exact and order independent.
+ * reconcile() compares against a full recount and
+ * repairs a pair only when the same mismatch is seen
+ * twice with no change to the pair in between.
+ * Each pair, and the ledger as a whole, carries the
+ * VersionClock value of its last change.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+final class InvoiceLedger {
+
+    private final ConcurrentHashMap<Long, Entry> totals = new ConcurrentHashMap<>();
+
+    // last change to any pair
+    private final AtomicLong version = new AtomicLong();
+
+
+    /**
+     * apply the change of one booking
+
+     * @param before BookingDTO or null (created)
+     * @param after BookingDTO or null (deleted)
+     */
+    void apply(BookingDTO before, BookingDTO after) {
+
+        long beforeKey = pairKey(before);
+        long afterKey = pairKey(after);
+
+        if (beforeKey == afterKey) {
+            add(afterKey, dueCents(after) - dueCents(before));
+        } else {
+            // moved to another provider / customer
+            add(beforeKey, -dueCents(before));
+            add(afterKey, dueCents(after));
+        }
+    }
+
+
+    /**
+     * current amount due between a provider and a customer
+
+     * @param providerId int
+     * @param customerId int
+     * @return long cents
+     */
+    long centsDue(int providerId, int customerId) {
+
+        Entry entry = totals.get(pairKey(providerId, customerId));
+        return entry == null ? 0 : entry.cents.get();
+    }
+
+
+    /**
+     * version of the amount due between a provider and a customer
+
+     * @param providerId int
+     * @param customerId int
+     * @return long VersionClock value of the last change, 0 when never changed
+     */
+    long versionOf(int providerId, int customerId) {
+
+        Entry entry = totals.get(pairKey(providerId, customerId));
+        return entry == null ? 0 : entry.version.get();
+    }
+
+
+    /**
+     * version of the whole ledger
+
+     * @return long VersionClock value of the last change to any pair, 0 when none
+     */
+    long version() {
+
+        return version.get();
+    }
+
+
+    /**
+     * change count per pair, taken before a recount
+
+     * @return Map<Long, Long> pair key to change count
+     */
+    Map<Long, Long> changeCounts() {
+
+        Map<Long, Long> counts = new HashMap<>(totals.size() * 2);
+        totals.forEach((key, entry) -> counts.put(key, entry.changes.get()));
+        return counts;
+    }
+
+
+    /**
+     * add one booking to a recount
+
+     * @param expected Map<Long, Long> pair key to cents
+     * @param booking BookingDTO
+     */
+    static void count(Map<Long, Long> expected, BookingDTO booking) {
+
+        long key = pairKey(booking);
+        long cents = dueCents(booking);
+        if (key != 0 && cents != 0) {
+            expected.merge(key, cents, Long::sum);
+        }
+    }
+
+
+    /**
+     * compare running totals with a recount
+
+     * @param counts Map<Long, Long> change counts from before the recount
+     * @param expected Map<Long, Long> recounted cents per pair
+     * @return int pairs repaired
+     */
+    int reconcile(Map<Long, Long> counts, Map<Long, Long> expected) {
+
+        Set<Long> keys = new HashSet<>(totals.keySet());
+        keys.addAll(expected.keySet());
+
+        int repaired = 0;
+        for (long key : keys) {
+            Entry entry = totals.computeIfAbsent(key, k -> new Entry());
+            long changes = entry.changes.get();
+
+            // changed while recounting, the recount may be stale
+            if (changes != counts.getOrDefault(key, 0L)) {
+                entry.suspect = null;
+                continue;
+            }
+            long want = expected.getOrDefault(key, 0L);
+            long have = entry.cents.get();
+            if (have == want) {
+                entry.suspect = null;
+                continue;
+            }
+            long[] suspect = entry.suspect;
+            if (suspect != null && suspect[0] == changes && suspect[1] == want) {
+                // same mismatch, nothing changed since: repair
+                if (entry.cents.compareAndSet(have, want)) {
+                    advanceVersion(entry);
+                    repaired++;
+                }
+                entry.suspect = null;
+            } else {
+                entry.suspect = new long[] {changes, want};
+            }
+        }
+        return repaired;
+    }
+
+
+    /**
+     * whether a booking goes on its pair's invoice:
+     * completed, not paid, with a provider and a customer
+     * (InvoiceGenerator lists exactly these)
+
+     * @param booking BookingDTO or null
+     * @return boolean
+     */
+    static boolean billable(BookingDTO booking) {
+
+        return booking != null && booking.isCompleted() && !booking.isPaid() && pairKey(booking) != 0;
+    }
+
+
+    /**
+     * amount a booking adds to its invoice
+
+     * Billable bookings owe hourlyRate for the booked hours
+     * plus overHours, all others nothing. Counted in cents
+     * and seconds, rounded once.
+
+     * @param booking BookingDTO or null
+     * @return long cents (never negative)
+     */
+    static long dueCents(BookingDTO booking) {
+
+        if (!billable(booking)) {
+            return 0;
+        }
+        long seconds = bookedSeconds(booking) + TimeCodec.seconds(booking.getOverHours());
+        if (seconds <= 0) {
+            return 0;
+        }
+        return Money.forSeconds(Money.of(booking.getHourlyRate()), seconds);
+    }
+
+
+    private void add(long key, long cents) {
+
+        if (key == 0 || cents == 0) {
+            return;
+        }
+        Entry entry = totals.computeIfAbsent(key, k -> new Entry());
+        entry.cents.addAndGet(cents);
+        entry.changes.incrementAndGet();
+        advanceVersion(entry);
+    }
+
+    // after the change, never backwards
+    private void advanceVersion(Entry entry) {
+
+        long next = VersionClock.next();
+        entry.version.accumulateAndGet(next, Math::max);
+        version.accumulateAndGet(next, Math::max);
+    }
+
+    static long bookedSeconds(BookingDTO booking) {
+
+        LocalDateTime start = parseTime(booking.getStartTime());
+        LocalDateTime end = parseTime(booking.getEndTime());
+
+        if (start == null || end == null) {
+            return 0;
+        }
+        return Duration.between(start, end).getSeconds();
+    }
+
+    /**
+     * key of the (provider, customer) pair a booking bills to
+
+     * @param booking BookingDTO or null
+     * @return long, 0 when the booking is not linked to both accounts
+     */
+    static long pairKey(BookingDTO booking) {
+
+        if (booking == null || booking.getProvider() == null || booking.getCustomer() == null) {
+            return 0;
+        }
+        return pairKey(booking.getProvider().getAccountId(), booking.getCustomer().getAccountId());
+    }
+
+    /**
+     * key of a (provider, customer) pair, shared by the
+     * running totals and InvoiceGenerator's grouping
+
+     * @param providerId int
+     * @param customerId int
+     * @return long, 0 unless both ids are positive
+     */
+    static long pairKey(int providerId, int customerId) {
+
+        if (providerId <= 0 || customerId <= 0) {
+            return 0;
+        }
+        return ((long) providerId << 32) | customerId;
+    }
+
+    // the two halves of a pair key
+    static int providerOf(long pairKey) {
+        return (int) (pairKey >>> 32);
+    }
+
+    static int customerOf(long pairKey) {
+        return (int) pairKey;
+    }
+
+    private static LocalDateTime parseTime(String time) {
+
+        try {
+            return TimeCodec.parse(time);
+
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+
+    private static final class Entry {
+
+        final AtomicLong cents = new AtomicLong();
+
+        // bumped on every applied delta
+        final AtomicLong changes = new AtomicLong();
+
+        // VersionClock value of the last change
+        final AtomicLong version = new AtomicLong();
+
+        // {changes, expected cents} of a mismatch seen last reconcile
+        volatile long[] suspect;
+    }
+}
@@ -0,0 +1,109 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.invoice.domain.CompactInvoiceDTO;
+import com.basssoft.arms.invoice.domain.Invoice;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.VersionClock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Invoice <-> InvoiceDTO mapping
+
+ * Accounts are carried by id only, account details
+ * live in the account service.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class InvoiceMapper {
+
+    private InvoiceMapper() {
+    }
+
+
+    /**
+     * copy DTO onto a new Invoice entity
+     * (stamped with a new version)
+
+     * @param dto InvoiceDTO
+     * @param invoiceId int
+     * @return Invoice
+     * @throws IllegalArgumentException on an invalid lastContacted time or amount
+     */
+    public static Invoice toEntity(InvoiceDTO dto, int invoiceId) {
+
+        Invoice entity = new Invoice();
+        entity.setInvoiceId(invoiceId);
+        entity.setProvider(accountRef(dto.getProviderId()));
+        entity.setCustomer(accountRef(dto.getCustomerId()));
+        entity.setBookings(dto.getBookings() == null ? null : new ArrayList<>(dto.getBookings()));
+        entity.setTotalAmountDueCents(Money.of(dto.getTotalAmountDue()));
+        entity.setLastContacted(TimeCodec.parse(dto.getLastContacted()));
+        entity.setVersion(VersionClock.next());
+        return entity;
+    }
+
+
+    /**
+     * copy Invoice entity onto a new DTO
+
+     * @param entity Invoice
+     * @param centsDue long current amount due, in cents
+     * @return InvoiceDTO
+     */
+    public static InvoiceDTO toDTO(Invoice entity, long centsDue) {
+
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setInvoiceId(entity.getInvoiceId());
+        dto.setProviderId(entity.getProvider() == null ? 0 : entity.getProvider().getAccountId());
+        dto.setCustomerId(entity.getCustomer() == null ? 0 : entity.getCustomer().getAccountId());
+        dto.setBookings(entity.getBookings() == null ? null : new ArrayList<>(entity.getBookings()));
+        dto.setTotalAmountDue(Money.toDouble(centsDue));
+        dto.setLastContacted(TimeCodec.format(entity.getLastContacted()));
+        dto.setVersion(entity.getVersion());
+        return dto;
+    }
+
+
+    /**
+     * compact projection, bookings by id
+
+     * @param dto InvoiceDTO
+     * @return CompactInvoiceDTO
+     */
+    public static CompactInvoiceDTO toCompactDTO(InvoiceDTO dto) {
+
+        List<Booking> bookings = dto.getBookings();
+        int[] bookingIds = null;
+        if (bookings != null) {
+            bookingIds = new int[bookings.size()];
+            for (int i = 0; i < bookingIds.length; i++) {
+                bookingIds[i] = bookings.get(i).getBookingId();
+            }
+        }
+        return new CompactInvoiceDTO(
+                dto.getInvoiceId(),
+                dto.getProviderId(),
+                dto.getCustomerId(),
+                bookingIds,
+                dto.getTotalAmountDue(),
+                dto.getLastContacted());
+    }
+
+
+    private static Account accountRef(int accountId) {
+
+        if (accountId <= 0) {
+            return null;
+        }
+        Account account = new Account();
+        account.setAccountId(accountId);
+        return account;
+    }
+}
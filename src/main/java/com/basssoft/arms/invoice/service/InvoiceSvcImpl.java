@@ -1,9 +1,39 @@
 package com.basssoft.arms.invoice.service;
 
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingChangedEvent;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.IbookingService;
+import com.basssoft.arms.invoice.domain.Invoice;
+import com.basssoft.arms.invoice.domain.InvoiceChangedEvent;
 import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.invoice.domain.RevenueDTO;
+import com.basssoft.arms.journal.StateJournal;
+import com.basssoft.arms.mapping.EntityCodec;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.BatchResult;
+import com.basssoft.arms.store.IntKeyStore;
+import com.basssoft.arms.store.VersionClock;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service Implementation
@@ -16,17 +46,147 @@ import java.util.List;
 @Service
 public class InvoiceSvcImpl implements IinvoiceService {
 
+    // invoices by invoiceId
+    private final IntKeyStore<Invoice> invoices = new IntKeyStore<>();
+
+    // amount due per provider / customer, kept current by booking events
+    private final InvoiceLedger ledger = new InvoiceLedger();
+
+    // revenue per provider / month, kept current by booking events
+    private final RevenueRollup revenue = new RevenueRollup();
+
+    // source of the periodic recount
+    @Autowired(required = false)
+    private IbookingService bookingService;
+
+    // notifies listeners (collections) of every invoice write
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
+
+    // keeps invoices on disk, when arms.journal.dir is set
+    @Autowired(required = false)
+    private StateJournal journal;
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceSvcImpl.class);
+
+    // bookings read per call while recounting
+    private static final int RECOUNT_CHUNK_SIZE = 500;
+
+    // invoices read per store page while filtering
+    private static final int SCAN_CHUNK_SIZE = 1_000;
+
+
+    /**
+     * Load the journaled invoices and rebuild the running
+     * totals and rollups from the recovered bookings
+     * (booking events start after startup)
+     */
+    @PostConstruct
+    public void recover() {
+
+        if (journal == null) {
+            return;
+        }
+        journal.attach(StateJournal.INVOICES, invoices, EntityCodec.INVOICE);
+        if (bookingService == null) {
+            return;
+        }
+        int after = 0;
+        while (true) {
+            List<BookingDTO> chunk = bookingService.getBookingsAfter(after, RECOUNT_CHUNK_SIZE);
+            for (BookingDTO booking : chunk) {
+                onBookingChanged(new BookingChangedEvent(null, booking));
+            }
+            if (chunk.size() < RECOUNT_CHUNK_SIZE) {
+                return;
+            }
+            after = chunk.get(chunk.size() - 1).getBookingId();
+        }
+    }
 
 
     /**
      * Create new Invoice
 
      * @param account InvoiceDTO
-     * @return InvoiceDTO (passed in DTO right now)
+     * @return InvoiceDTO created invoice (with assigned id)
      */
     public InvoiceDTO createInvoice(InvoiceDTO account) {
 
-        return account;
+        validate(account);
+
+        // assign id when none supplied
+        int invoiceId = account.getInvoiceId() > 0 ? account.getInvoiceId() : invoices.nextKey();
+
+        Invoice entity = InvoiceMapper.toEntity(account, invoiceId);
+
+        if (invoices.putIfAbsent(invoiceId, entity) != null) {
+            throw new IllegalArgumentException("Invoice " + invoiceId + " already exists.");
+        }
+        awaitDurable();
+        return published(entity);
+    }
+
+
+    /**
+     * Create many Invoices
+
+     * Every item is validated first, the valid ones are
+     * then written to the store in one batch.
+
+     * @param batch List<InvoiceDTO>
+     * @return List<BatchResult<InvoiceDTO>> one result per item, in order
+     */
+    public List<BatchResult<InvoiceDTO>> createInvoices(List<InvoiceDTO> batch) {
+
+        checkBatch(batch);
+        List<BatchResult<InvoiceDTO>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        // validate first, claiming supplied ids before any id is generated
+        boolean[] valid = new boolean[batch.size()];
+        Set<Integer> batchIds = new HashSet<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                validate(batch.get(i));
+                valid[i] = true;
+                batchIds.add(batch.get(i).getInvoiceId());
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+            }
+        }
+
+        int[] positions = new int[batch.size()];
+        int[] keys = new int[batch.size()];
+        List<Invoice> entities = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            InvoiceDTO invoice = batch.get(i);
+
+            // assign id when none supplied, skipping ids claimed by the batch
+            int invoiceId = invoice.getInvoiceId();
+            if (invoiceId == 0) {
+                do {
+                    invoiceId = invoices.nextKey();
+                } while (batchIds.contains(invoiceId));
+            }
+            positions[entities.size()] = i;
+            keys[entities.size()] = invoiceId;
+            entities.add(InvoiceMapper.toEntity(invoice, invoiceId));
+        }
+        boolean[] stored = invoices.putAllIfAbsent(Arrays.copyOf(keys, entities.size()), entities);
+        awaitDurable();
+
+        for (int j = 0; j < entities.size(); j++) {
+            int i = positions[j];
+            results.set(i, stored[j]
+                    ? BatchResult.ok(i, published(entities.get(j)))
+                    : BatchResult.failed(i, "Invoice " + keys[j] + " already exists."));
+        }
+        return results;
     }
 
 
@@ -34,26 +194,133 @@ public class InvoiceSvcImpl implements IinvoiceService {
      * Get Invoice by ID
 
      * @param invoiceId int
-     * @return InvoiceDTO
+     * @return InvoiceDTO or null when not found
      */
     public InvoiceDTO getInvoice(int invoiceId) {
 
-        InvoiceDTO created = new InvoiceDTO();
-        created.setInvoiceId(invoiceId);
-        return created;
+        if (invoiceId <= 0) {
+            return null;
+        }
+        Invoice entity = invoices.get(invoiceId);
+
+        return entity == null ? null : toDTO(entity);
     }
 
 
     /**
      * Get all Invoices
 
-     * @return List<InvoiceDTO> invoices
+     * @return List<InvoiceDTO> invoices ordered by invoiceId
      */
     public List<InvoiceDTO> getAllInvoices() {
 
-        List<InvoiceDTO> invoices = new ArrayList<>();
+        return toDTOs(invoices.pageAfter(0, Integer.MAX_VALUE));
+    }
+
+
+    /**
+     * Get one page of Invoices after a cursor
+
+     * @param afterId int (0 = from the first invoice)
+     * @param size int max invoices returned
+     * @return List<InvoiceDTO> ordered by invoiceId
+     */
+    public List<InvoiceDTO> getInvoicesAfter(int afterId, int size) {
 
-        return invoices;
+        checkPageSize(size);
+        return toDTOs(invoices.pageAfter(afterId, size));
+    }
+
+
+    /**
+     * Get one page of matching Invoices after a cursor
+     * (exports: walk with the last returned invoiceId)
+
+     * With a time window an invoice is returned only when
+     * one of its bookings starts inside it, and lists just
+     * those bookings; the amount due stays the invoice's.
+     * Scans the store in id order until size invoices
+     * match, so a short page means the walk is done.
+
+     * @param afterId int (0 = from the first invoice)
+     * @param size int max invoices returned
+     * @param providerId int (0 = every provider)
+     * @param from String earliest booking startTime (inclusive, null = open)
+     * @param to String latest booking startTime (exclusive, null = open)
+     * @return List<InvoiceDTO> ordered by invoiceId
+     */
+    public List<InvoiceDTO> getInvoicesAfter(int afterId, int size, int providerId, String from, String to) {
+
+        checkPageSize(size);
+        LocalDateTime start = TimeCodec.parse(from);
+        LocalDateTime end = TimeCodec.parse(to);
+        if (start != null && end != null && !end.isAfter(start)) {
+            throw new IllegalArgumentException("From must be before to.");
+        }
+        boolean windowed = start != null || end != null;
+
+        List<InvoiceDTO> result = new ArrayList<>();
+        int cursor = afterId;
+        while (true) {
+            List<Invoice> page = invoices.pageAfter(cursor, SCAN_CHUNK_SIZE);
+            for (Invoice entity : page) {
+                if (providerId != 0
+                        && (entity.getProvider() == null || entity.getProvider().getAccountId() != providerId)) {
+                    continue;
+                }
+                InvoiceDTO dto = toDTO(entity);
+                if (windowed) {
+                    List<Booking> inWindow = new ArrayList<>();
+                    if (dto.getBookings() != null) {
+                        for (Booking booking : dto.getBookings()) {
+                            LocalDateTime time = booking.getStartTime();
+                            if (time != null && (start == null || !time.isBefore(start))
+                                    && (end == null || time.isBefore(end))) {
+                                inWindow.add(booking);
+                            }
+                        }
+                    }
+                    if (inWindow.isEmpty()) {
+                        continue;
+                    }
+                    dto.setBookings(inWindow);
+                }
+                result.add(dto);
+                if (result.size() == size) {
+                    return result;
+                }
+            }
+            if (page.size() < SCAN_CHUNK_SIZE) {
+                return result;
+            }
+            cursor = page.get(page.size() - 1).getInvoiceId();
+        }
+    }
+
+
+    /**
+     * Get one page of Invoices before a cursor
+
+     * @param beforeId int
+     * @param size int max invoices returned
+     * @return List<InvoiceDTO> ordered by invoiceId
+     */
+    public List<InvoiceDTO> getInvoicesBefore(int beforeId, int size) {
+
+        checkPageSize(size);
+        return toDTOs(invoices.pageBefore(beforeId, size));
+    }
+
+
+    /**
+     * Version of the invoice table, advanced by every invoice
+     * write and every change to an amount due
+
+     * @return long
+     */
+    public long getInvoicesVersion() {
+
+        return Math.max(invoices.version(), ledger.version());
     }
 
 
@@ -61,11 +328,68 @@ public class InvoiceSvcImpl implements IinvoiceService {
      * Update existing Invoice
 
      * @param account InvoiceDTO
-     * @return InvoiceDTO (same as passed in right now)
+     * @return InvoiceDTO updated invoice or null when not found
      */
     public InvoiceDTO updateInvoice(InvoiceDTO account) {
 
-        return account;
+        validate(account);
+
+        int invoiceId = account.getInvoiceId();
+        if (invoiceId <= 0) {
+            return null;
+        }
+        Invoice entity = InvoiceMapper.toEntity(account, invoiceId);
+
+        if (invoices.replace(invoiceId, entity) == null) {
+            return null;
+        }
+        awaitDurable();
+        return published(entity);
+    }
+
+
+    /**
+     * Update many Invoices
+     * (validated up front, written in one batch)
+
+     * @param batch List<InvoiceDTO>
+     * @return List<BatchResult<InvoiceDTO>> one result per item, in order
+     */
+    public List<BatchResult<InvoiceDTO>> updateInvoices(List<InvoiceDTO> batch) {
+
+        checkBatch(batch);
+        List<BatchResult<InvoiceDTO>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        int[] positions = new int[batch.size()];
+        int[] keys = new int[batch.size()];
+        List<Invoice> entities = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            InvoiceDTO invoice = batch.get(i);
+            try {
+                validate(invoice);
+            } catch (IllegalArgumentException iae) {
+                results.set(i, BatchResult.failed(i, iae.getMessage()));
+                continue;
+            }
+            if (invoice.getInvoiceId() == 0) {
+                results.set(i, BatchResult.failed(i, "Invoice not found."));
+                continue;
+            }
+            positions[entities.size()] = i;
+            keys[entities.size()] = invoice.getInvoiceId();
+            entities.add(InvoiceMapper.toEntity(invoice, invoice.getInvoiceId()));
+        }
+        boolean[] replaced = invoices.replaceAllIfPresent(Arrays.copyOf(keys, entities.size()), entities);
+        awaitDurable();
+
+        for (int j = 0; j < entities.size(); j++) {
+            int i = positions[j];
+            results.set(i, replaced[j]
+                    ? BatchResult.ok(i, published(entities.get(j)))
+                    : BatchResult.failed(i, "Invoice not found."));
+        }
+        return results;
     }
 
 
@@ -73,11 +397,244 @@ public class InvoiceSvcImpl implements IinvoiceService {
      * Delete Invoice by ID
 
      * @param invoiceId int
-     * @return int deletedId (same as passed in right now)
+     * @return int deletedId or -1 when not found
      */
     public int deleteInvoice(int invoiceId) {
 
+        if (invoiceId <= 0 || invoices.remove(invoiceId) == null) {
+            return -1;
+        }
+        awaitDurable();
+        if (events != null) {
+            events.publishEvent(new InvoiceChangedEvent(invoiceId, null));
+        }
         return invoiceId;
     }
 
+
+    /**
+     * Set lastContacted of many Invoices, keeping
+     * every other field as stored
+
+     * @param invoiceIds int[]
+     * @param contactedAt String ISO local date-time
+     * @return int[] ids updated (missing invoices skipped)
+     */
+    public int[] markContacted(int[] invoiceIds, String contactedAt) {
+
+        LocalDateTime time = TimeCodec.parse(contactedAt);
+        if (time == null) {
+            throw new IllegalArgumentException("A contact time is required.");
+        }
+        int[] updated = new int[invoiceIds.length];
+        int count = 0;
+
+        for (int invoiceId : invoiceIds) {
+            Invoice current = invoiceId > 0 ? invoices.get(invoiceId) : null;
+            while (current != null) {
+                Invoice entity = new Invoice(invoiceId, current.getProvider(), current.getCustomer(),
+                        current.getBookings(), current.getTotalAmountDueCents(), time, VersionClock.next());
+
+                if (invoices.replace(invoiceId, current, entity)) {
+                    published(entity);
+                    updated[count++] = invoiceId;
+                    break;
+                }
+                // changed concurrently, start over
+                current = invoices.get(invoiceId);
+            }
+        }
+        // one wait for the whole batch
+        awaitDurable();
+        return Arrays.copyOf(updated, count);
+    }
+
+
+    /**
+     * Revenue of one provider per month
+
+     * @param providerId int
+     * @param fromMonth String yyyy-MM (inclusive)
+     * @param toMonth String yyyy-MM (inclusive)
+     * @return List<RevenueDTO> months with revenue, oldest first
+     */
+    public List<RevenueDTO> getProviderRevenue(int providerId, String fromMonth, String toMonth) {
+
+        if (providerId <= 0) {
+            throw new IllegalArgumentException("Provider id must be positive.");
+        }
+        YearMonth from = parseMonth(fromMonth);
+        YearMonth to = parseMonth(toMonth);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Month range must not end before it starts.");
+        }
+        return revenue.provider(providerId, from, to);
+    }
+
+
+    /**
+     * Revenue of every provider in one month
+
+     * @param month String yyyy-MM
+     * @return List<RevenueDTO> providers with revenue, ordered by providerId
+     */
+    public List<RevenueDTO> getMonthRevenue(String month) {
+
+        return revenue.month(parseMonth(month));
+    }
+
+
+    /**
+     * Version of the revenue rollups
+
+     * @return long
+     */
+    public long getRevenueVersion() {
+
+        return revenue.version();
+    }
+
+
+    /**
+     * Apply a booking change to the running totals
+     * and revenue rollups
+
+     * @param event BookingChangedEvent
+     */
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+
+        ledger.apply(event.getBefore(), event.getAfter());
+        revenue.apply(event.getBefore(), event.getAfter());
+    }
+
+
+    /**
+     * Recount amounts due from all bookings and
+     * repair running totals that drifted
+
+     * @return int provider / customer pairs repaired
+     */
+    @Scheduled(initialDelayString = "${arms.invoice.verify-interval:PT5M}",
+            fixedDelayString = "${arms.invoice.verify-interval:PT5M}")
+    public int verifyTotals() {
+
+        if (bookingService == null) {
+            return 0;
+        }
+        Map<Long, Long> counts = ledger.changeCounts();
+        Map<Long, Long> expected = new HashMap<>();
+
+        int after = 0;
+        while (true) {
+            List<BookingDTO> chunk = bookingService.getBookingsAfter(after, RECOUNT_CHUNK_SIZE);
+            for (BookingDTO booking : chunk) {
+                InvoiceLedger.count(expected, booking);
+            }
+            if (chunk.size() < RECOUNT_CHUNK_SIZE) {
+                break;
+            }
+            after = chunk.get(chunk.size() - 1).getBookingId();
+        }
+        int repaired = ledger.reconcile(counts, expected);
+        if (repaired > 0) {
+            log.warn("Invoice totals drifted, repaired {} provider/customer pairs.", repaired);
+        }
+        return repaired;
+    }
+
+
+    /**
+     * check incoming DTO before it is stored
+
+     * @param invoice InvoiceDTO
+     */
+    private void validate(InvoiceDTO invoice) {
+
+        if (invoice == null) {
+            throw new IllegalArgumentException("Invoice must not be null.");
+        }
+        if (invoice.getInvoiceId() < 0) {
+            throw new IllegalArgumentException("Invoice id must not be negative.");
+        }
+        TimeCodec.parse(invoice.getLastContacted());
+        Money.of(invoice.getTotalAmountDue());
+    }
+
+
+    private static YearMonth parseMonth(String month) {
+
+        if (month == null || month.isBlank()) {
+            throw new IllegalArgumentException("A month (yyyy-MM) is required.");
+        }
+        try {
+            YearMonth parsed = YearMonth.parse(month.trim());
+            if (parsed.getYear() < 1) {
+                throw new IllegalArgumentException("Invalid month: " + month);
+            }
+            return parsed;
+
+        } catch (DateTimeParseException dtpe) {
+            throw new IllegalArgumentException("Invalid month: " + month);
+        }
+    }
+
+
+    // once the journal has this thread's changes on disk (no journal: at once)
+    private void awaitDurable() {
+
+        if (journal != null) {
+            journal.awaitDurable();
+        }
+    }
+
+    // DTO of a stored write, announced to listeners
+    private InvoiceDTO published(Invoice entity) {
+
+        InvoiceDTO dto = toDTO(entity);
+        if (events != null) {
+            events.publishEvent(new InvoiceChangedEvent(entity.getInvoiceId(), dto));
+        }
+        return dto;
+    }
+
+    // linked invoices read the running total, others keep the stored amount
+    private InvoiceDTO toDTO(Invoice entity) {
+
+        if (entity.getProvider() == null || entity.getCustomer() == null) {
+            return InvoiceMapper.toDTO(entity, entity.getTotalAmountDueCents());
+        }
+        int providerId = entity.getProvider().getAccountId();
+        int customerId = entity.getCustomer().getAccountId();
+
+        // version before total, so the version never runs ahead of the amount
+        long totalVersion = ledger.versionOf(providerId, customerId);
+        InvoiceDTO dto = InvoiceMapper.toDTO(entity, ledger.centsDue(providerId, customerId));
+        dto.setVersion(Math.max(entity.getVersion(), totalVersion));
+        return dto;
+    }
+
+    private List<InvoiceDTO> toDTOs(List<Invoice> entities) {
+
+        List<InvoiceDTO> result = new ArrayList<>(entities.size());
+        for (Invoice entity : entities) {
+            result.add(toDTO(entity));
+        }
+        return result;
+    }
+
+    private static void checkBatch(List<InvoiceDTO> batch) {
+
+        if (batch == null || batch.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one invoice.");
+        }
+    }
+
+    private static void checkPageSize(int size) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+    }
+
 }
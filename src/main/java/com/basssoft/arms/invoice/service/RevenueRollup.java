@@ -0,0 +1,209 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.invoice.domain.RevenueDTO;
+import com.basssoft.arms.mapping.Money;
+import com.basssoft.arms.mapping.TimeCodec;
+import com.basssoft.arms.store.VersionClock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revenue per (provider, month) bucket
+
+ * A completed booking earns hourlyRate for the booked
+ * hours plus overHours, in the month it starts, paid or
+ * not. Every booking change adds only its delta, in
+ * cents, so the sums are exact and order independent.
+
+ * Each bucket is reachable from two sorted maps, one
+ * keyed provider then month, one month then provider,
+ * so a provider's months or a month's providers are a
+ * range read: the cost is the number of buckets
+ * returned, never the number of bookings.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+final class RevenueRollup {
+
+    private final ConcurrentSkipListMap<Long, Bucket> byProvider = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, Bucket> byMonth = new ConcurrentSkipListMap<>();
+
+    // last change to any bucket
+    private final AtomicLong version = new AtomicLong();
+
+
+    /**
+     * apply the change of one booking
+
+     * @param before BookingDTO or null (created)
+     * @param after BookingDTO or null (deleted)
+     */
+    void apply(BookingDTO before, BookingDTO after) {
+
+        long beforeKey = bucketKey(before);
+        long afterKey = bucketKey(after);
+        long beforeCents = earnedCents(before);
+        long afterCents = earnedCents(after);
+        int beforeCount = counted(before) ? 1 : 0;
+        int afterCount = counted(after) ? 1 : 0;
+
+        if (beforeKey == afterKey) {
+            add(afterKey, afterCents - beforeCents, afterCount - beforeCount);
+        } else {
+            // moved to another provider / month
+            add(beforeKey, -beforeCents, -beforeCount);
+            add(afterKey, afterCents, afterCount);
+        }
+    }
+
+
+    /**
+     * revenue of one provider, month by month
+
+     * @param providerId int
+     * @param from YearMonth first month (inclusive)
+     * @param to YearMonth last month (inclusive)
+     * @return List<RevenueDTO> months with revenue, oldest first
+     */
+    List<RevenueDTO> provider(int providerId, YearMonth from, YearMonth to) {
+
+        return rows(byProvider.subMap(key(providerId, monthIndex(from)), true,
+                key(providerId, monthIndex(to)), true), false);
+    }
+
+
+    /**
+     * revenue of every provider in one month
+
+     * @param month YearMonth
+     * @return List<RevenueDTO> providers with revenue, ordered by providerId
+     */
+    List<RevenueDTO> month(YearMonth month) {
+
+        int index = monthIndex(month);
+        return rows(byMonth.subMap((long) index << 32, true, ((long) index << 32) | 0xFFFFFFFFL, true), true);
+    }
+
+
+    /**
+     * version of the whole rollup
+
+     * @return long VersionClock value of the last change, 0 when none
+     */
+    long version() {
+
+        return version.get();
+    }
+
+
+    /**
+     * revenue a booking adds to its bucket
+
+     * @param booking BookingDTO or null
+     * @return long cents (never negative), 0 until completed
+     */
+    static long earnedCents(BookingDTO booking) {
+
+        if (!counted(booking)) {
+            return 0;
+        }
+        long seconds = InvoiceLedger.bookedSeconds(booking) + TimeCodec.seconds(booking.getOverHours());
+        if (seconds <= 0) {
+            return 0;
+        }
+        return Money.forSeconds(Money.of(booking.getHourlyRate()), seconds);
+    }
+
+
+    // completed and linked to a provider and a start month
+    private static boolean counted(BookingDTO booking) {
+
+        return booking != null && booking.isCompleted() && bucketKey(booking) != 0;
+    }
+
+    private void add(long key, long cents, long bookings) {
+
+        if (key == 0 || (cents == 0 && bookings == 0)) {
+            return;
+        }
+        Bucket bucket = byProvider.computeIfAbsent(key, k -> new Bucket());
+        byMonth.putIfAbsent(swap(key), bucket);
+        bucket.cents.addAndGet(cents);
+        bucket.bookings.addAndGet(bookings);
+        version.accumulateAndGet(VersionClock.next(), Math::max);
+    }
+
+    // buckets back to DTOs, skipping ones emptied by later changes
+    private static List<RevenueDTO> rows(Map<Long, Bucket> buckets, boolean monthFirst) {
+
+        List<RevenueDTO> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((key, bucket) -> {
+            long bookings = bucket.bookings.get();
+            long cents = bucket.cents.get();
+            if (bookings == 0 && cents == 0) {
+                return;
+            }
+            long providerKey = monthFirst ? swap(key) : key;
+            int month = (int) providerKey;
+            rows.add(new RevenueDTO((int) (providerKey >>> 32),
+                    YearMonth.of(month / 12, month % 12 + 1).toString(), bookings, Money.toDouble(cents)));
+        });
+        return rows;
+    }
+
+    // provider in the high half, month index in the low half; 0 when not countable
+    private static long bucketKey(BookingDTO booking) {
+
+        if (booking == null || booking.getProvider() == null || booking.getProvider().getAccountId() <= 0) {
+            return 0;
+        }
+        LocalDateTime start = parseTime(booking.getStartTime());
+        if (start == null || start.getYear() < 1) {
+            return 0;
+        }
+        return key(booking.getProvider().getAccountId(), monthIndex(YearMonth.from(start)));
+    }
+
+    private static long key(int high, int low) {
+
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    // provider / month <-> month / provider
+    private static long swap(long key) {
+
+        return (key << 32) | (key >>> 32);
+    }
+
+    private static int monthIndex(YearMonth month) {
+
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private static LocalDateTime parseTime(String time) {
+
+        try {
+            return TimeCodec.parse(time);
+
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+
+    private static final class Bucket {
+
+        final AtomicLong cents = new AtomicLong();
+
+        // completed bookings counted
+        final AtomicLong bookings = new AtomicLong();
+    }
+}
@@ -0,0 +1,282 @@
+package com.basssoft.arms.journal;
+
+import com.basssoft.arms.store.IntKeyStore;
+import com.basssoft.arms.store.Journal;
+import com.basssoft.arms.store.JournalCodec;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the service stores on disk, so the
+ * application runs without an external database
+ * (enabled by setting arms.journal.dir)
+
+ * Each service attaches its IntKeyStore under a stream
+ * id when it starts. Every store change is appended to
+ * the Journal by the store's listener, in store order
+ * per key; a write call then waits in awaitDurable for
+ * the group commit covering it before it returns.
+ * Snapshots are written every arms.journal.snapshot-interval,
+ * bounding how much journal a restart replays.
+
+ * On startup the newest snapshot and the journal after
+ * it are replayed into the latest value per key, handed
+ * to each store as it attaches. The services rebuild
+ * their own indexes from the store.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "arms.journal.dir")
+public class StateJournal {
+
+    // journal streams, one per service store
+    public static final int ACCOUNTS = 1;
+    public static final int BOOKINGS = 2;
+    public static final int INVOICES = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(StateJournal.class);
+
+    private final Journal journal;
+
+    // latest recovered payload per key, per stream not attached yet
+    private final Map<Integer, Map<Integer, byte[]>> recovered = new TreeMap<>();
+
+    // attached stores by stream
+    private final Map<Integer, Attached<?>> attached = new TreeMap<>();
+
+    // guards recovered and attached (also for the whole snapshot)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // LSN of this thread's last append
+    private final ThreadLocal<long[]> lastAppend = ThreadLocal.withInitial(() -> new long[1]);
+
+    // first append that failed: every later write fails too
+    private volatile Exception failure;
+
+
+    /**
+     * Open the journal, replaying what it holds
+     *
+     * @param dir String journal directory
+     * @param segmentSize DataSize per journal segment file
+     * @throws IOException on unreadable journal files
+     */
+    @Autowired
+    public StateJournal(@Value("${arms.journal.dir}") String dir,
+                        @Value("${arms.journal.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        this(Path.of(dir), Math.toIntExact(segmentSize.toBytes()));
+    }
+
+    public StateJournal(Path dir, int segmentSize) throws IOException {
+
+        long started = System.nanoTime();
+        long[] entries = new long[1];
+
+        journal = new Journal(dir, segmentSize, (stream, key, payload) -> {
+            Map<Integer, byte[]> latest = recovered.computeIfAbsent(stream, s -> new HashMap<>());
+            if (payload == null) {
+                latest.remove(key);
+            } else {
+                latest.put(key, payload);
+            }
+            entries[0]++;
+        });
+        log.info("Journal {}: {} entries replayed in {} ms.", dir, entries[0],
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+
+    /**
+     * Load a store with its recovered values, then
+     * journal every later change to it
+
+     * @param stream int one of ACCOUNTS, BOOKINGS, INVOICES
+     * @param store IntKeyStore to fill, empty
+     * @param codec JournalCodec of the store's values
+     */
+    public <V> void attach(int stream, IntKeyStore<V> store, JournalCodec<V> codec) {
+
+        lock.lock();
+        try {
+            if (attached.containsKey(stream)) {
+                throw new IllegalStateException("Journal stream " + stream + " is already attached.");
+            }
+            Map<Integer, byte[]> latest = recovered.remove(stream);
+            if (latest != null && !latest.isEmpty()) {
+                int[] keys = latest.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                List<V> values = new ArrayList<>(keys.length);
+                for (int key : keys) {
+                    values.add(decode(codec, latest.get(key)));
+                }
+                // before the listener, so nothing is journaled twice
+                store.putAllIfAbsent(keys, values);
+            }
+            store.setListener((key, value) -> append(stream, key, value == null ? null : encode(codec, value)));
+            attached.put(stream, new Attached<>(store, codec));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Wait until this thread's journaled changes are on disk
+     * (called by write methods before they return)
+
+     * @throws IllegalStateException when the journal failed,
+     *         the change is then in memory only
+     */
+    public void awaitDurable() {
+
+        if (failure != null) {
+            throw new IllegalStateException("Journal write failed, changes are not saved.", failure);
+        }
+        try {
+            journal.awaitDurable(lastAppend.get()[0]);
+
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Journal write failed, changes are not saved.", ioe);
+        }
+    }
+
+
+    /**
+     * Write a snapshot of every store, dropping the journal
+     * segments it covers (run every arms.journal.snapshot-interval)
+
+     * @return long LSN the snapshot covers up to, -1 when it failed
+     */
+    @Scheduled(initialDelayString = "${arms.journal.snapshot-interval:PT15M}",
+            fixedDelayString = "${arms.journal.snapshot-interval:PT15M}")
+    public long snapshot() {
+
+        long started = System.nanoTime();
+        lock.lock();
+        try {
+            long lsn = journal.snapshot(out -> {
+                // streams no service attached keep their data
+                for (Map.Entry<Integer, Map<Integer, byte[]>> stream : recovered.entrySet()) {
+                    for (Map.Entry<Integer, byte[]> entry : stream.getValue().entrySet()) {
+                        out.accept(stream.getKey(), entry.getKey(), entry.getValue());
+                    }
+                }
+                for (Map.Entry<Integer, Attached<?>> stream : attached.entrySet()) {
+                    stream.getValue().writeTo(stream.getKey(), out);
+                }
+            });
+            log.info("Journal snapshot at LSN {} written in {} ms.", lsn,
+                    (System.nanoTime() - started) / 1_000_000);
+            return lsn;
+
+        } catch (IOException | UncheckedIOException ex) {
+            // journal keeps working, the next snapshot tries again
+            log.error("Journal snapshot failed.", ex);
+            return -1;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Force the journal and close it
+     *
+     * @throws IOException when the final force fails
+     */
+    @PreDestroy
+    public void close() throws IOException {
+
+        journal.close();
+    }
+
+
+    // store listener: runs under the store's stripe lock, must not throw
+    private void append(int stream, int key, byte[] payload) {
+
+        try {
+            lastAppend.get()[0] = journal.append(stream, key, payload);
+
+        } catch (IOException | RuntimeException ex) {
+            if (failure == null) {
+                failure = ex;
+                log.error("Journal append failed, later writes are refused.", ex);
+            }
+        }
+    }
+
+    private static <V> byte[] encode(JournalCodec<V> codec, V value) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            codec.write(new DataOutputStream(bytes), value);
+
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <V> V decode(JournalCodec<V> codec, byte[] payload) {
+
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(payload)));
+
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Journal entry can not be read: " + ioe.getMessage(), ioe);
+        }
+    }
+
+
+    /**
+     * one attached store
+     */
+    private static final class Attached<V> {
+
+        private final IntKeyStore<V> store;
+        private final JournalCodec<V> codec;
+
+        Attached(IntKeyStore<V> store, JournalCodec<V> codec) {
+            this.store = store;
+            this.codec = codec;
+        }
+
+        void writeTo(int stream, Journal.Sink out) throws IOException {
+
+            try {
+                store.forEach(value -> {
+                    try {
+                        out.accept(stream, codec.keyOf(value), encode(codec, value));
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                });
+            } catch (UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.basssoft.arms.mapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV records read from a UTF-8 byte range
+
+ * Reads what CsvWriter writes: quoted fields may hold
+ * commas, doubled quotes and line breaks, rows end with
+ * LF or CRLF, blank lines are skipped. The ' CsvWriter
+ * puts before formula-like text is dropped again, so an
+ * export imports back unchanged.
+
+ * recordsEnd() lets a reader cut a stream into blocks
+ * of whole records, each then parsed on its own thread.
+
+ * Not thread safe, one reader per block.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class CsvReader {
+
+    private final byte[] data;
+    private final int end;
+    private int position;
+
+    // physical line at position, and where the last record started
+    private long line;
+    private long recordLine;
+
+    // quoted field bytes, unescaped
+    private byte[] scratch = new byte[256];
+
+    private final List<String> fields = new ArrayList<>();
+
+
+    /**
+     * @param data byte[] holding the records
+     * @param from int first byte
+     * @param to int end of the records (exclusive)
+     * @param firstLine long line number of the first byte, for line()
+     */
+    public CsvReader(byte[] data, int from, int to, long firstLine) {
+        this.data = data;
+        this.position = from;
+        this.end = to;
+        this.line = firstLine;
+    }
+
+
+    /**
+     * next record
+
+     * @return String[] fields, "" for empty ones, null after the last record
+     * @throws IllegalArgumentException on a malformed quoted field,
+     *         the reader then continues after that record
+     */
+    public String[] next() {
+
+        // skip blank lines
+        while (position < end && (data[position] == '\n' || data[position] == '\r')) {
+            if (data[position++] == '\n') {
+                line++;
+            }
+        }
+        if (position >= end) {
+            return null;
+        }
+        recordLine = line;
+        fields.clear();
+        while (true) {
+            if (data[position] == '"') {
+                readQuoted();
+            } else {
+                readPlain();
+            }
+            if (position >= end) {
+                break;
+            }
+            byte b = data[position++];
+            if (b == '\n') {
+                line++;
+                break;
+            }
+            if (b == '\r') {
+                if (position < end && data[position] == '\n') {
+                    position++;
+                }
+                line++;
+                break;
+            }
+            // b is ','
+            if (position >= end) {
+                fields.add("");
+                break;
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+
+
+    /**
+     * line the last record returned by next() starts on
+
+     * @return long
+     */
+    public long line() {
+
+        return recordLine;
+    }
+
+
+    /**
+     * position after the last record returned by next()
+
+     * @return int
+     */
+    public int position() {
+
+        return position;
+    }
+
+
+    /**
+     * position just after the last complete record of
+     * data[from, to), a line end outside quotes
+
+     * @param data byte[]
+     * @param from int start of a record
+     * @param to int end of the data read so far
+     * @return int, -1 when no record ends in the range
+     */
+    public static int recordsEnd(byte[] data, int from, int to) {
+
+        boolean quoted = false;
+        int last = -1;
+        for (int i = from; i < to; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                last = i + 1;
+            }
+        }
+        return last;
+    }
+
+
+    /**
+     * line ends in data[from, to), quoted ones included
+
+     * @param data byte[]
+     * @param from int
+     * @param to int
+     * @return int
+     */
+    public static int lineCount(byte[] data, int from, int to) {
+
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    private void readPlain() {
+
+        int start = position;
+        while (position < end) {
+            byte b = data[position];
+            if (b == ',' || b == '\n' || b == '\r') {
+                break;
+            }
+            position++;
+        }
+        fields.add(new String(data, start, position - start, StandardCharsets.UTF_8));
+    }
+
+    private void readQuoted() {
+
+        int length = 0;
+        position++;
+        while (true) {
+            if (position >= end) {
+                throw new IllegalArgumentException("Quoted field is not closed.");
+            }
+            byte b = data[position++];
+            if (b == '"') {
+                if (position < end && data[position] == '"') {
+                    position++;
+                } else {
+                    break;
+                }
+            } else if (b == '\n') {
+                line++;
+            }
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length++] = b;
+        }
+        // formula guard written by CsvWriter
+        int from = length > 1 && scratch[0] == '\'' && isFormulaStart(scratch[1]) ? 1 : 0;
+        fields.add(new String(scratch, from, length - from, StandardCharsets.UTF_8));
+
+        if (position < end && data[position] != ',' && data[position] != '\n' && data[position] != '\r') {
+            skipRecord();
+            throw new IllegalArgumentException("Unexpected text after a quoted field.");
+        }
+    }
+
+    // rest of a malformed record, up to its line end
+    private void skipRecord() {
+
+        while (position < end) {
+            if (data[position++] == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    private static boolean isFormulaStart(byte b) {
+
+        return b == '=' || b == '+' || b == '-' || b == '@' || b == '\t' || b == '\r';
+    }
+}
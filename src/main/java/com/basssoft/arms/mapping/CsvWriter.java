@@ -0,0 +1,313 @@
+package com.basssoft.arms.mapping;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV rows written as UTF-8 to a stream
+
+ * Fields are encoded straight into one byte buffer,
+ * handed to the stream only when it fills or on flush(),
+ * so a row costs no String building and no per field
+ * write call. Text holding a comma, quote or line break
+ * is quoted; text starting with = + - @ or a tab is
+ * prefixed with ' so spreadsheets do not run it as a
+ * formula. Rows end with CRLF.
+
+ * Not thread safe, one writer per response.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class CsvWriter implements Flushable {
+
+    // produces value of the CSV exports
+    public static final String MEDIA_TYPE = "text/csv";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // 10^decimals
+    private static final long[] POWERS = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    // no separator before the first field of a row
+    private boolean rowStarted;
+
+
+    public CsvWriter(OutputStream out) {
+        this.out = out;
+    }
+
+
+    /**
+     * write a header or data row of text fields
+
+     * @param fields String... null written as an empty field
+     * @return CsvWriter this
+     * @throws IOException when the stream fails
+     */
+    public CsvWriter row(String... fields) throws IOException {
+
+        for (String field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+
+    /**
+     * text field
+
+     * @param value String, null written as an empty field
+     * @return CsvWriter this
+     * @throws IOException when the stream fails
+     */
+    public CsvWriter field(String value) throws IOException {
+
+        separator();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        boolean formula = isFormulaStart(value.charAt(0));
+        boolean quoted = formula || needsQuotes(value);
+        if (!quoted && value.length() <= BUFFER_SIZE && isAscii(value)) {
+            // common case: ASCII with nothing to escape
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (!quoted) {
+            write(bytes, bytes.length);
+            return this;
+        }
+        int bound = bytes.length * 2 + 3;
+        if (bound > BUFFER_SIZE) {
+            // larger than the buffer: quoted on its own, then written through
+            byte[] escaped = new byte[bound];
+            write(escaped, quote(bytes, formula, escaped, 0));
+            return this;
+        }
+        ensure(bound);
+        position = quote(bytes, formula, buffer, position);
+        return this;
+    }
+
+
+    /**
+     * whole number field
+
+     * @param value long
+     * @return CsvWriter this
+     * @throws IOException when the stream fails
+     */
+    public CsvWriter field(long value) throws IOException {
+
+        separator();
+        ensure(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return this;
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        writeDigits(value, 1);
+        return this;
+    }
+
+
+    /**
+     * fixed point field, rounded half up (2.5 -> "2.50" with 2 decimals)
+
+     * @param value double
+     * @param decimals int digits after the point, 0 to 9
+     * @return CsvWriter this
+     * @throws IOException when the stream fails
+     */
+    public CsvWriter field(double value, int decimals) throws IOException {
+
+        if (decimals < 0 || decimals > 9) {
+            throw new IllegalArgumentException("Decimals must be between 0 and 9.");
+        }
+        separator();
+        long scale = POWERS[decimals];
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) * scale >= 1e18) {
+            // out of fixed point range, written as Java prints it
+            writeAscii(Double.toString(value));
+            return this;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        ensure(22);
+        if (value < 0 && scaled != 0) {
+            buffer[position++] = '-';
+        }
+        writeDigits(scaled / scale, 1);
+        if (decimals > 0) {
+            buffer[position++] = '.';
+            writeDigits(scaled % scale, decimals);
+        }
+        return this;
+    }
+
+
+    /**
+     * boolean field, "true" or "false"
+
+     * @param value boolean
+     * @return CsvWriter this
+     * @throws IOException when the stream fails
+     */
+    public CsvWriter field(boolean value) throws IOException {
+
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+
+    /**
+     * end the current row
+
+     * @return CsvWriter this
+     * @throws IOException when the stream fails
+     */
+    public CsvWriter endRow() throws IOException {
+
+        ensure(2);
+        buffer[position++] = '\r';
+        buffer[position++] = '\n';
+        rowStarted = false;
+        return this;
+    }
+
+
+    /**
+     * hand buffered rows to the stream and flush it
+     * (once per chunk: each flush goes out as an HTTP chunk)
+
+     * @throws IOException when the stream fails
+     */
+    @Override
+    public void flush() throws IOException {
+
+        drain();
+        out.flush();
+    }
+
+
+    private void separator() throws IOException {
+
+        if (rowStarted) {
+            ensure(1);
+            buffer[position++] = ',';
+        }
+        rowStarted = true;
+    }
+
+    // room for count more bytes, draining to the stream when needed
+    private void ensure(int count) throws IOException {
+
+        if (position + count > buffer.length) {
+            drain();
+        }
+    }
+
+    // "text" with quotes doubled into to at from, returns the end position
+    private static int quote(byte[] bytes, boolean formula, byte[] to, int from) {
+
+        int at = from;
+        to[at++] = '"';
+        if (formula) {
+            to[at++] = '\'';
+        }
+        for (byte b : bytes) {
+            if (b == '"') {
+                to[at++] = '"';
+            }
+            to[at++] = b;
+        }
+        to[at++] = '"';
+        return at;
+    }
+
+    private void drain() throws IOException {
+
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+
+        if (length > BUFFER_SIZE) {
+            drain();
+            out.write(bytes, 0, length);
+            return;
+        }
+        ensure(length);
+        System.arraycopy(bytes, 0, buffer, position, length);
+        position += length;
+    }
+
+    private void writeAscii(String text) throws IOException {
+
+        ensure(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+    // non negative value, zero padded to at least width digits
+    private void writeDigits(long value, int width) {
+
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int length = Math.max(digits, width);
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += length;
+    }
+
+    private static boolean needsQuotes(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAscii(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFormulaStart(char c) {
+
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+}
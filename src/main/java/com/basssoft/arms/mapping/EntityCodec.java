@@ -0,0 +1,265 @@
+package com.basssoft.arms.mapping;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.invoice.domain.Invoice;
+import com.basssoft.arms.store.JournalCodec;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of the stored entities,
+ * for the StateJournal
+
+ * Every value starts with a format byte. Strings are
+ * a UTF-8 byte count (-1 = null) and the bytes, times
+ * are UTC epoch seconds and nanos, nested accounts and
+ * bookings are written in full, as stored. Passwords are
+ * kept (they are hashes).
+
+ * Format 2 writes amounts as long cents and overtime as
+ * long seconds; format 1 (float amounts and hours) is
+ * still read, so older journals replay.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class EntityCodec {
+
+    // layout version, checked on read
+    private static final int FORMAT = 2;
+
+    // float amounts and hours
+    private static final int FORMAT_FLOATS = 1;
+
+    public static final JournalCodec<Account> ACCOUNT = new AccountCodec();
+    public static final JournalCodec<Booking> BOOKING = new BookingCodec();
+    public static final JournalCodec<Invoice> INVOICE = new InvoiceCodec();
+
+    private EntityCodec() {
+    }
+
+
+    /**
+     * Account fields
+     */
+    private static final class AccountCodec implements JournalCodec<Account> {
+
+        @Override
+        public int keyOf(Account value) {
+            return value.getAccountId();
+        }
+
+        @Override
+        public void write(DataOutput out, Account value) throws IOException {
+            out.writeByte(FORMAT);
+            writeAccount(out, value);
+        }
+
+        @Override
+        public Account read(DataInput in) throws IOException {
+            checkFormat(in);
+            return readAccount(in);
+        }
+    }
+
+
+    /**
+     * Booking fields, provider and customer nested
+     */
+    private static final class BookingCodec implements JournalCodec<Booking> {
+
+        @Override
+        public int keyOf(Booking value) {
+            return value.getBookingId();
+        }
+
+        @Override
+        public void write(DataOutput out, Booking value) throws IOException {
+            out.writeByte(FORMAT);
+            writeBooking(out, value);
+        }
+
+        @Override
+        public Booking read(DataInput in) throws IOException {
+            return readBooking(in, checkFormat(in));
+        }
+    }
+
+
+    /**
+     * Invoice fields, accounts and bookings nested
+     */
+    private static final class InvoiceCodec implements JournalCodec<Invoice> {
+
+        @Override
+        public int keyOf(Invoice value) {
+            return value.getInvoiceId();
+        }
+
+        @Override
+        public void write(DataOutput out, Invoice value) throws IOException {
+            out.writeByte(FORMAT);
+            out.writeInt(value.getInvoiceId());
+            writeAccount(out, value.getProvider());
+            writeAccount(out, value.getCustomer());
+            List<Booking> bookings = value.getBookings();
+            out.writeInt(bookings == null ? -1 : bookings.size());
+            if (bookings != null) {
+                for (Booking booking : bookings) {
+                    writeBooking(out, booking);
+                }
+            }
+            out.writeLong(value.getTotalAmountDueCents());
+            writeTime(out, value.getLastContacted());
+            out.writeLong(value.getVersion());
+        }
+
+        @Override
+        public Invoice read(DataInput in) throws IOException {
+            int format = checkFormat(in);
+            int invoiceId = in.readInt();
+            Account provider = readAccount(in);
+            Account customer = readAccount(in);
+            int count = in.readInt();
+            List<Booking> bookings = count < 0 ? null : new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                bookings.add(readBooking(in, format));
+            }
+            return new Invoice(invoiceId, provider, customer, bookings,
+                    readCents(in, format), readTime(in), in.readLong());
+        }
+    }
+
+
+    // null written as a false flag
+    private static void writeAccount(DataOutput out, Account account) throws IOException {
+
+        out.writeBoolean(account != null);
+        if (account == null) {
+            return;
+        }
+        out.writeInt(account.getAccountId());
+        writeString(out, account.getScreenName());
+        writeString(out, account.getPassword());
+        out.writeBoolean(account.isProvider());
+        writeString(out, account.getFirstName());
+        writeString(out, account.getLastName());
+        writeString(out, account.getEmail());
+        writeString(out, account.getPhoneNumber());
+        writeString(out, account.getStreet());
+        writeString(out, account.getCity());
+        writeString(out, account.getState());
+        writeString(out, account.getZipCode());
+        out.writeLong(account.getVersion());
+    }
+
+    private static Account readAccount(DataInput in) throws IOException {
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new Account(in.readInt(), readString(in), readString(in), in.readBoolean(),
+                readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in), readString(in), in.readLong());
+    }
+
+    private static void writeBooking(DataOutput out, Booking booking) throws IOException {
+
+        out.writeBoolean(booking != null);
+        if (booking == null) {
+            return;
+        }
+        out.writeInt(booking.getBookingId());
+        writeAccount(out, booking.getProvider());
+        writeAccount(out, booking.getCustomer());
+        out.writeLong(booking.getHourlyRateCents());
+        writeTime(out, booking.getStartTime());
+        writeTime(out, booking.getEndTime());
+        writeString(out, booking.getLocStreet());
+        writeString(out, booking.getLocCity());
+        writeString(out, booking.getLocState());
+        writeString(out, booking.getLocZipCode());
+        out.writeBoolean(booking.isCompleted());
+        out.writeLong(booking.getOverSeconds());
+        out.writeBoolean(booking.isPaid());
+        out.writeLong(booking.getVersion());
+    }
+
+    private static Booking readBooking(DataInput in, int format) throws IOException {
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new Booking(in.readInt(), readAccount(in), readAccount(in), readCents(in, format),
+                readTime(in), readTime(in), readString(in), readString(in), readString(in), readString(in),
+                in.readBoolean(), readSeconds(in, format), in.readBoolean(), in.readLong());
+    }
+
+    private static long readCents(DataInput in, int format) throws IOException {
+
+        return format == FORMAT_FLOATS ? Money.of(in.readFloat()) : in.readLong();
+    }
+
+    private static long readSeconds(DataInput in, int format) throws IOException {
+
+        return format == FORMAT_FLOATS ? TimeCodec.seconds(in.readFloat()) : in.readLong();
+    }
+
+    private static void writeString(DataOutput out, String text) throws IOException {
+
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    // format of the value that follows
+    private static int checkFormat(DataInput in) throws IOException {
+
+        int format = in.readUnsignedByte();
+        if (format != FORMAT && format != FORMAT_FLOATS) {
+            throw new IOException("Unknown entity format " + format + ".");
+        }
+        return format;
+    }
+}
@@ -0,0 +1,138 @@
+package com.basssoft.arms.mapping;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Money as long cents (minor units)
+
+ * Entities and running totals hold cents, so sums are
+ * exact and order independent. DTOs and JSON keep the
+ * decimal amount; of() and toDouble() convert at the
+ * mappers, rounding half up to the cent once. Up to
+ * MAX_CENTS, of(toDouble(cents)) == cents, so an amount
+ * survives any number of round trips.
+
+ * Billing is integer only: forSeconds() rounds the
+ * amount of a rate over a duration once, at the end.
+ * sum() is a plain loop over a long[], which the JIT
+ * unrolls and vectorizes.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class Money {
+
+    // largest amount (about 45 trillion): up to it, each
+    // cent value has a double of its own, cents / 100
+    public static final long MAX_CENTS = 1L << 52;
+
+    private static final long SECONDS_PER_HOUR = 3_600;
+
+    // shifts int values to [0, 2^32)
+    private static final long INT_OFFSET = 1L << 31;
+
+    private Money() {
+    }
+
+
+    /**
+     * decimal amount to cents, rounded half up
+
+     * @param amount double
+     * @return long cents
+     * @throws IllegalArgumentException when the amount is not finite or beyond MAX_CENTS
+     */
+    public static long of(double amount) {
+
+        double scaled = amount * 100;
+        if (!(Math.abs(scaled) <= MAX_CENTS)) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+        // whole cents, the usual case: no rounding needed
+        long cents = Math.round(scaled);
+        if (cents / 100.0 == amount) {
+            return cents;
+        }
+        // rounded as the decimal text reads (1.005 -> 1.01)
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+
+    /**
+     * cents to the decimal amount, for DTOs
+
+     * @param cents long
+     * @return double nearest to cents / 100
+     */
+    public static double toDouble(long cents) {
+
+        return cents / 100.0;
+    }
+
+
+    /**
+     * amount of an hourly rate over a duration,
+     * rounded half up to the cent (saturates at
+     * the long range)
+
+     * @param centsPerHour long
+     * @param seconds long
+     * @return long cents
+     */
+    public static long forSeconds(long centsPerHour, long seconds) {
+
+        // both in int range, the usual case: the product fits
+        if (((centsPerHour + INT_OFFSET) | (seconds + INT_OFFSET)) >>> 32 == 0) {
+            long product = centsPerHour * seconds;
+            return product >= 0
+                    ? (product + SECONDS_PER_HOUR / 2) / SECONDS_PER_HOUR
+                    : -((SECONDS_PER_HOUR / 2 - product) / SECONDS_PER_HOUR);
+        }
+        long high = Math.multiplyHigh(centsPerHour, seconds);
+        long low = centsPerHour * seconds;
+        if (high == (low >> 63)) {
+            return divideHalfUp(low, SECONDS_PER_HOUR);
+        }
+        // beyond 2^63 cent-seconds
+        BigInteger[] division = BigInteger.valueOf(centsPerHour).multiply(BigInteger.valueOf(seconds))
+                .divideAndRemainder(BigInteger.valueOf(SECONDS_PER_HOUR));
+        BigInteger cents = division[0];
+        if (division[1].abs().shiftLeft(1).compareTo(BigInteger.valueOf(SECONDS_PER_HOUR)) >= 0) {
+            cents = cents.add(BigInteger.valueOf(division[1].signum()));
+        }
+        return cents.bitLength() < 64 ? cents.longValue() : cents.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+
+    /**
+     * total of cents[from, to)
+
+     * @param cents long[]
+     * @param from int
+     * @param to int (exclusive)
+     * @return long cents
+     */
+    public static long sum(long[] cents, int from, int to) {
+
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += cents[i];
+        }
+        return total;
+    }
+
+
+    // value / divisor, halves away from zero
+    private static long divideHalfUp(long value, long divisor) {
+
+        long quotient = value / divisor;
+        long remainder = value % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(remainder);
+        }
+        return quotient;
+    }
+}
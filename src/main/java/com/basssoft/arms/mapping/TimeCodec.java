@@ -0,0 +1,271 @@
+package com.basssoft.arms.mapping;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * ISO-8601 local date-time text <-> LocalDateTime
+ * for the DTO mappers, and DTO hours <-> stored seconds
+
+ * Same results as LocalDateTime.parse / toString.
+ * The common yyyy-MM-ddTHH:mm[:ss[.fffffffff]] shape is
+ * read and written by hand, anything else goes through
+ * ISO_LOCAL_DATE_TIME. Recent values are kept in small
+ * direct-mapped caches: bookings share a handful of slot
+ * times, so a hit returns the same instance with no
+ * parsing and no allocation.
+
+ * Cache slots are written without locking; entries are
+ * immutable, so a racing reader sees either a whole entry
+ * or a miss.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class TimeCodec {
+
+    /** overHours bound either way, a leap year of hours */
+    public static final double MAX_HOURS = 24 * 366;
+
+    // power of two
+    private static final int CACHE_SIZE = 1024;
+
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final Entry[] parsed = new Entry[CACHE_SIZE];
+    private static final Entry[] formatted = new Entry[CACHE_SIZE];
+
+    private TimeCodec() {
+    }
+
+
+    /**
+     * parse ISO local date-time
+
+     * @param text String
+     * @return LocalDateTime, null for null or blank text
+     * @throws IllegalArgumentException when text is not a valid date-time
+     */
+    public static LocalDateTime parse(String text) {
+
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        int slot = slot(text.hashCode());
+        Entry hit = parsed[slot];
+        if (hit != null && hit.text.equals(text)) {
+            return hit.time;
+        }
+
+        LocalDateTime time = parseUncached(text);
+        parsed[slot] = new Entry(text, time);
+        return time;
+    }
+
+
+    /**
+     * format as ISO local date-time (LocalDateTime.toString)
+
+     * @param time LocalDateTime
+     * @return String, null for null time
+     */
+    public static String format(LocalDateTime time) {
+
+        if (time == null) {
+            return null;
+        }
+        int slot = slot(time.hashCode());
+        Entry hit = formatted[slot];
+        if (hit != null && hit.time.equals(time)) {
+            return hit.text;
+        }
+
+        String text = formatUncached(time);
+        formatted[slot] = new Entry(text, time);
+        return text;
+    }
+
+
+    /**
+     * hours (DTO overHours) as whole seconds, rounded half up
+
+     * @param hours double, negative when under
+     * @return long seconds
+     * @throws IllegalArgumentException when hours is not finite or beyond MAX_HOURS
+     */
+    public static long seconds(double hours) {
+
+        // also keeps sums of seconds (and cents) far from overflow
+        if (!(Math.abs(hours) <= MAX_HOURS)) {
+            throw new IllegalArgumentException("Invalid hours: " + hours);
+        }
+        double seconds = hours * 3_600;
+        // Math.round rounds -0.5 up, halves go away from zero here
+        return (long) (seconds < 0 ? -Math.floor(0.5 - seconds) : Math.floor(seconds + 0.5));
+    }
+
+
+    /**
+     * seconds back to hours, for DTOs
+
+     * @param seconds long
+     * @return double
+     */
+    public static double hours(long seconds) {
+
+        return seconds / 3_600.0;
+    }
+
+
+    static LocalDateTime parseUncached(String text) {
+
+        LocalDateTime time = parseFixed(text);
+        if (time != null) {
+            return time;
+        }
+        // lower case 't', signed or 5+ digit years, ...
+        try {
+            return LocalDateTime.parse(text, ISO);
+
+        } catch (DateTimeParseException dtpe) {
+            throw new IllegalArgumentException("Invalid date-time: " + text);
+        }
+    }
+
+    // null when text is not in the common shape
+    private static LocalDateTime parseFixed(String text) {
+
+        int length = text.length();
+        if (length < 16 || length == 17 || length == 18 || length == 20 || length > 29
+                || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != 'T' || text.charAt(13) != ':') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = 0;
+        int nano = 0;
+
+        if (length > 16) {
+            if (text.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(text, 17, 19);
+
+            if (length > 19) {
+                if (text.charAt(19) != '.') {
+                    return null;
+                }
+                nano = digits(text, 20, length);
+                for (int i = length; i < 29 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+
+        } catch (DateTimeException de) {
+            throw new IllegalArgumentException("Invalid date-time: " + text);
+        }
+    }
+
+    // -1 unless every char in [from, to) is a digit
+    private static int digits(String text, int from, int to) {
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+
+    static String formatUncached(LocalDateTime time) {
+
+        int year = time.getYear();
+        if (year < 1000 || year > 9999) {
+            // padded / signed years
+            return time.toString();
+        }
+        int second = time.getSecond();
+        int nano = time.getNano();
+
+        byte[] out = new byte[29];
+        put(out, 0, year, 4);
+        out[4] = '-';
+        put(out, 5, time.getMonthValue(), 2);
+        out[7] = '-';
+        put(out, 8, time.getDayOfMonth(), 2);
+        out[10] = 'T';
+        put(out, 11, time.getHour(), 2);
+        out[13] = ':';
+        put(out, 14, time.getMinute(), 2);
+        int length = 16;
+
+        // seconds and fraction only when set, in groups of 3 digits
+        if (second > 0 || nano > 0) {
+            out[16] = ':';
+            put(out, 17, second, 2);
+            length = 19;
+
+            if (nano > 0) {
+                out[19] = '.';
+                if (nano % 1_000_000 == 0) {
+                    put(out, 20, nano / 1_000_000, 3);
+                    length = 23;
+                } else if (nano % 1_000 == 0) {
+                    put(out, 20, nano / 1_000, 6);
+                    length = 26;
+                } else {
+                    put(out, 20, nano, 9);
+                    length = 29;
+                }
+            }
+        }
+        return new String(out, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    // zero padded decimal of value into out[at, at + width)
+    private static void put(byte[] out, int at, int value, int width) {
+
+        for (int i = at + width - 1; i >= at; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int slot(int hash) {
+
+        return (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+    }
+
+
+    /**
+     * one cached text / time pair
+     */
+    private static final class Entry {
+
+        private final String text;
+        private final LocalDateTime time;
+
+        Entry(String text, LocalDateTime time) {
+            this.text = text;
+            this.time = time;
+        }
+    }
+}
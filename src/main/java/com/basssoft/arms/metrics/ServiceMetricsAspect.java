@@ -0,0 +1,130 @@
+package com.basssoft.arms.metrics;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency, throughput, error and in-flight metrics
+ * for every I*Service method
+
+ * arms.service         timer (count = throughput), tagged
+ *                      class, method, outcome, exception
+ * arms.service.active  long task timer, calls in flight
+
+ * Controllers are covered by Spring's own
+ * http.server.requests (tagged with the status code)
+ * and http.server.requests.active.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    static final String TIMER = "arms.service";
+    static final String ACTIVE = "arms.service.active";
+
+    private static final String NONE = "none";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // meters per service method, so the hot path skips the registry lookup
+    private final ConcurrentHashMap<Method, Meters> meters = new ConcurrentHashMap<>();
+
+
+    public ServiceMetricsAspect() {
+    }
+
+    ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+
+    /**
+     * times one service call
+
+     * @param call ProceedingJoinPoint
+     * @return Object result of the call
+     * @throws Throwable whatever the service throws
+     */
+    @Around("execution(* com.basssoft.arms..service.I*Service.*(..))")
+    public Object time(ProceedingJoinPoint call) throws Throwable {
+
+        MethodSignature signature = (MethodSignature) call.getSignature();
+        Meters m = meters.computeIfAbsent(signature.getMethod(),
+                method -> register(call.getTarget().getClass().getSimpleName(), method.getName()));
+
+        LongTaskTimer.Sample active = m.active.start();
+        long start = System.nanoTime();
+        try {
+            Object result = call.proceed();
+            m.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+
+        } catch (Throwable e) {
+            // rare, so looked up per call (the registry caches by id)
+            m.failure(registry, e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+
+        } finally {
+            active.stop();
+        }
+    }
+
+
+    private Meters register(String className, String methodName) {
+
+        Timer success = Timer.builder(TIMER)
+                .description("service call latency")
+                .tags("class", className, "method", methodName, "outcome", "success", "exception", NONE)
+                .register(registry);
+
+        LongTaskTimer active = LongTaskTimer.builder(ACTIVE)
+                .description("service calls in flight")
+                .tags("class", className, "method", methodName)
+                .register(registry);
+
+        return new Meters(className, methodName, success, active);
+    }
+
+
+    /**
+     * meters of one service method
+     */
+    private static final class Meters {
+
+        private final String className;
+        private final String methodName;
+        private final Timer success;
+        private final LongTaskTimer active;
+
+        Meters(String className, String methodName, Timer success, LongTaskTimer active) {
+            this.className = className;
+            this.methodName = methodName;
+            this.success = success;
+            this.active = active;
+        }
+
+        Timer failure(MeterRegistry registry, Throwable e) {
+
+            return Timer.builder(TIMER)
+                    .description("service call latency")
+                    .tags("class", className, "method", methodName, "outcome", "error",
+                            "exception", e.getClass().getSimpleName())
+                    .register(registry);
+        }
+    }
+}
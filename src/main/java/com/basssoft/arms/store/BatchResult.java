@@ -0,0 +1,65 @@
+package com.basssoft.arms.store;
+
+/**
+ * Outcome of one item of a batched write
+
+ * index is the position of the item in the request,
+ * value is set on success, error on failure.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class BatchResult<T> {
+
+    private final int index;
+    private final boolean success;
+    private final T value;
+    private final String error;
+
+
+    private BatchResult(int index, boolean success, T value, String error) {
+        this.index = index;
+        this.success = success;
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Item was written
+     *
+     * @param index int position in the batch
+     * @param value T stored value
+     * @return BatchResult<T>
+     */
+    public static <T> BatchResult<T> ok(int index, T value) {
+        return new BatchResult<>(index, true, value, null);
+    }
+
+    /**
+     * Item was rejected
+     *
+     * @param index int position in the batch
+     * @param error String reason
+     * @return BatchResult<T>
+     */
+    public static <T> BatchResult<T> failed(int index, String error) {
+        return new BatchResult<>(index, false, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,180 @@
+package com.basssoft.arms.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ordered set of positive int ids
+
+ * A paged bitset: ids are split into pages of 65536 bits,
+ * pages are only allocated once an id in their range is added.
+ * Gives keyset pagination an ordered walk (next / previous id)
+ * without boxing or a global lock.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class ConcurrentIdSet {
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_WORDS = (1 << PAGE_BITS) >>> 6;
+    private static final int PAGE_COUNT = 1 << (31 - PAGE_BITS);
+
+    private final AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>(PAGE_COUNT);
+
+    // highest allocated page, forward walks stop there
+    private final AtomicInteger highestPage = new AtomicInteger(-1);
+
+
+    /**
+     * Add id
+     *
+     * @param id int positive
+     */
+    public void add(int id) {
+
+        checkId(id);
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            pages.compareAndSet(id >>> PAGE_BITS, null, new AtomicLongArray(PAGE_WORDS));
+            page = pages.get(id >>> PAGE_BITS);
+            highestPage.accumulateAndGet(id >>> PAGE_BITS, Math::max);
+        }
+        int word = (id & 0xFFFF) >>> 6;
+        long bit = 1L << id;
+
+        long current = page.get(word);
+        while ((current & bit) == 0 && !page.compareAndSet(word, current, current | bit)) {
+            current = page.get(word);
+        }
+    }
+
+
+    /**
+     * Remove id
+     *
+     * @param id int positive
+     */
+    public void remove(int id) {
+
+        checkId(id);
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            return;
+        }
+        int word = (id & 0xFFFF) >>> 6;
+        long bit = 1L << id;
+
+        long current = page.get(word);
+        while ((current & bit) != 0 && !page.compareAndSet(word, current, current & ~bit)) {
+            current = page.get(word);
+        }
+    }
+
+
+    /**
+     * Is id present?
+     *
+     * @param id int
+     * @return boolean
+     */
+    public boolean contains(int id) {
+
+        if (id <= 0) {
+            return false;
+        }
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        return page != null && (page.get((id & 0xFFFF) >>> 6) & (1L << id)) != 0;
+    }
+
+
+    /**
+     * Smallest id greater than or equal to from
+     *
+     * @param from int
+     * @return int id or -1 when none
+     */
+    public int next(int from) {
+
+        if (from < 1) {
+            from = 1;
+        }
+        int last = highestPage.get();
+        for (int p = from >>> PAGE_BITS; p <= last; p++) {
+            AtomicLongArray page = pages.get(p);
+            if (page == null) {
+                continue;
+            }
+            int start = p == from >>> PAGE_BITS ? (from & 0xFFFF) : 0;
+            int word = start >>> 6;
+            long bits = page.get(word) & (-1L << start);
+
+            while (true) {
+                if (bits != 0) {
+                    return (p << PAGE_BITS) | (word << 6) | Long.numberOfTrailingZeros(bits);
+                }
+                if (++word == PAGE_WORDS) {
+                    break;
+                }
+                bits = page.get(word);
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Largest id less than or equal to from
+     *
+     * @param from int
+     * @return int id or -1 when none
+     */
+    public int previous(int from) {
+
+        if (from < 1) {
+            return -1;
+        }
+        for (int p = from >>> PAGE_BITS; p >= 0; p--) {
+            AtomicLongArray page = pages.get(p);
+            if (page == null) {
+                continue;
+            }
+            int start = p == from >>> PAGE_BITS ? (from & 0xFFFF) : 0xFFFF;
+            int word = start >>> 6;
+            long bits = page.get(word) & (-1L >>> (63 - (start & 63)));
+
+            while (true) {
+                if (bits != 0) {
+                    return (p << PAGE_BITS) | (word << 6) | (63 - Long.numberOfLeadingZeros(bits));
+                }
+                if (--word < 0) {
+                    break;
+                }
+                bits = page.get(word);
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Remove every id
+     */
+    public void clear() {
+
+        for (int p = 0; p < PAGE_COUNT; p++) {
+            pages.set(p, null);
+        }
+        highestPage.set(-1);
+    }
+
+
+    private static void checkId(int id) {
+
+        if (id <= 0) {
+            throw new IllegalArgumentException("Id must be positive: " + id);
+        }
+    }
+}
@@ -0,0 +1,809 @@
+package com.basssoft.arms.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent in-memory store
+ * keyed by positive int ids
+
+ * Entries are spread over independently locked stripes,
+ * each an open addressing int -> value table (no Integer boxing).
+ * Reads are optimistic and normally take no lock at all,
+ * writers only serialize with other writers on the same stripe.
+ * Keys are also tracked in an ordered id set for keyset paging.
+ * Every write that changes the store advances its version
+ * (a VersionClock value), which callers use as a table ETag.
+ * An optional Listener sees every change, in store order
+ * per key (used by the StateJournal).
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class IntKeyStore<V> {
+
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int MAX_STRIPES = 256;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // 0 marks an empty slot, so keys must be positive
+    private static final int FREE = 0;
+
+    private final Stripe<V>[] stripes;
+    private final int stripeMask;
+
+    // stored keys in order, for paging
+    private final ConcurrentIdSet keys = new ConcurrentIdSet();
+
+    // id sequence, kept ahead of any caller supplied key
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    // table version, advanced after every change
+    private final AtomicLong version = new AtomicLong(VersionClock.next());
+
+    // told of every change, null when nobody listens
+    private volatile Listener<? super V> listener;
+
+
+    /**
+     * Create store with default stripe count
+     */
+    public IntKeyStore() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Create store with given stripe count
+     *
+     * @param stripeCount int (rounded up to a power of two, at most 256)
+     */
+    @SuppressWarnings("unchecked")
+    public IntKeyStore(int stripeCount) {
+
+        if (stripeCount < 1 || stripeCount > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripe count must be between 1 and " + MAX_STRIPES + ".");
+        }
+        int count = 1;
+        while (count < stripeCount) {
+            count <<= 1;
+        }
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(this);
+        }
+        stripeMask = count - 1;
+    }
+
+
+    /**
+     * Get value by key
+     *
+     * @param key int
+     * @return V or null when absent
+     */
+    public V get(int key) {
+
+        checkKey(key);
+        return stripeFor(key).get(key);
+    }
+
+
+    /**
+     * Insert or replace value
+
+     * @param key int
+     * @param value V
+     * @return V previous value or null
+     */
+    public V put(int key, V value) {
+
+        checkKey(key);
+        checkValue(value);
+        advanceSequence(key);
+        V previous = stripeFor(key).put(key, value, false, false);
+        advanceVersion();
+        return previous;
+    }
+
+
+    /**
+     * Insert value only when key is absent
+     *
+     * @param key int
+     * @param value V
+     * @return V existing value (nothing stored) or null (value stored)
+     */
+    public V putIfAbsent(int key, V value) {
+
+        checkKey(key);
+        checkValue(value);
+        advanceSequence(key);
+        V existing = stripeFor(key).put(key, value, true, false);
+        if (existing == null) {
+            advanceVersion();
+        }
+        return existing;
+    }
+
+
+    /**
+     * Insert many values, each only when its key is absent
+
+     * Entries are grouped by stripe and each stripe's write
+     * lock is taken once for the whole batch. Of two entries
+     * with the same key only the first is stored.
+     *
+     * @param keys int[]
+     * @param values List<V> same length as keys
+     * @return boolean[] true where the value was stored
+     */
+    public boolean[] putAllIfAbsent(int[] keys, List<? extends V> values) {
+
+        checkBatch(keys, values);
+        int max = 0;
+        for (int key : keys) {
+            max = Math.max(max, key);
+        }
+        advanceSequence(max);
+        return writeAll(keys, null, values, true, false);
+    }
+
+
+    /**
+     * Replace many values, each only when its key is present
+     * (grouped by stripe like putAllIfAbsent)
+     *
+     * @param keys int[]
+     * @param values List<V> same length as keys
+     * @return boolean[] true where the value was replaced
+     */
+    public boolean[] replaceAllIfPresent(int[] keys, List<? extends V> values) {
+
+        checkBatch(keys, values);
+        return writeAll(keys, null, values, false, true);
+    }
+
+
+    /**
+     * Replace many values, each only when its key still
+     * maps to the expected value (identity compare, grouped
+     * by stripe like putAllIfAbsent)
+     *
+     * @param keys int[]
+     * @param expected List<V> values the caller last read, same length as keys
+     * @param values List<V> same length as keys
+     * @return boolean[] true where the value was replaced
+     */
+    public boolean[] replaceAll(int[] keys, List<? extends V> expected, List<? extends V> values) {
+
+        checkBatch(keys, values);
+        checkBatch(keys, expected);
+        return writeAll(keys, expected, values, false, true);
+    }
+
+
+    /**
+     * Replace value only when key is present
+     *
+     * @param key int
+     * @param value V
+     * @return V previous value or null (nothing stored)
+     */
+    public V replace(int key, V value) {
+
+        checkKey(key);
+        checkValue(value);
+        V previous = stripeFor(key).put(key, value, false, true);
+        if (previous != null) {
+            advanceVersion();
+        }
+        return previous;
+    }
+
+
+    /**
+     * Replace value only when key still maps to expected
+     * (identity compare)
+     *
+     * @param key int
+     * @param expected V value the caller last read
+     * @param value V
+     * @return boolean true when replaced
+     */
+    public boolean replace(int key, V expected, V value) {
+
+        checkKey(key);
+        checkValue(value);
+        boolean replaced = stripeFor(key).replace(key, expected, value);
+        if (replaced) {
+            advanceVersion();
+        }
+        return replaced;
+    }
+
+
+    /**
+     * Remove value by key
+     *
+     * @param key int
+     * @return V removed value or null when absent
+     */
+    public V remove(int key) {
+
+        checkKey(key);
+        V removed = stripeFor(key).remove(key, null);
+        if (removed != null) {
+            advanceVersion();
+        }
+        return removed;
+    }
+
+
+    /**
+     * Remove only when key still maps to expected
+     * (identity compare)
+     *
+     * @param key int
+     * @param expected V value the caller last read
+     * @return boolean true when removed
+     */
+    public boolean remove(int key, V expected) {
+
+        checkKey(key);
+        checkValue(expected);
+        boolean removed = stripeFor(key).remove(key, expected) != null;
+        if (removed) {
+            advanceVersion();
+        }
+        return removed;
+    }
+
+
+    /**
+     * Is key present?
+     *
+     * @param key int
+     * @return boolean
+     */
+    public boolean containsKey(int key) {
+
+        return get(key) != null;
+    }
+
+
+    /**
+     * Number of stored entries
+     * (sum over stripes, not an atomic snapshot)
+     *
+     * @return int
+     */
+    public int size() {
+
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+
+    /**
+     * Current table version
+     * (read it before the values it is meant to describe)
+     *
+     * @return long VersionClock value of the last change
+     */
+    public long version() {
+
+        return version.get();
+    }
+
+
+    /**
+     * Allocate next unused key
+     *
+     * @return int
+     */
+    public int nextKey() {
+
+        return sequence.incrementAndGet();
+    }
+
+
+    /**
+     * Visit every stored value
+     * (each stripe is visited under its read lock)
+     *
+     * @param action Consumer
+     */
+    public void forEach(Consumer<? super V> action) {
+
+        for (Stripe<V> stripe : stripes) {
+            stripe.forEach(action);
+        }
+    }
+
+
+    /**
+     * Copy of all stored values
+     *
+     * @return List<V>
+     */
+    public List<V> values() {
+
+        List<V> values = new ArrayList<>(size());
+        forEach(values::add);
+        return values;
+    }
+
+
+    /**
+     * Values with keys greater than afterKey,
+     * in ascending key order (keyset paging)
+     *
+     * @param afterKey int (0 = from the first key)
+     * @param limit int max values returned
+     * @return List<V>
+     */
+    public List<V> pageAfter(int afterKey, int limit) {
+
+        List<V> page = new ArrayList<>(Math.min(limit, 1024));
+        int key = afterKey < 0 ? 0 : afterKey;
+
+        while (page.size() < limit && key < Integer.MAX_VALUE) {
+            key = keys.next(key + 1);
+            if (key == -1) {
+                break;
+            }
+            V value = get(key);
+            // removed since the key was seen, skip
+            if (value != null) {
+                page.add(value);
+            }
+        }
+        return page;
+    }
+
+
+    /**
+     * Values with keys less than beforeKey,
+     * closest first taken, returned in ascending key order
+     *
+     * @param beforeKey int
+     * @param limit int max values returned
+     * @return List<V>
+     */
+    public List<V> pageBefore(int beforeKey, int limit) {
+
+        List<V> page = new ArrayList<>(Math.min(limit, 1024));
+        int key = beforeKey;
+
+        while (page.size() < limit && key > 1) {
+            key = keys.previous(key - 1);
+            if (key == -1) {
+                break;
+            }
+            V value = get(key);
+            if (value != null) {
+                page.add(value);
+            }
+        }
+        Collections.reverse(page);
+        return page;
+    }
+
+
+    /**
+     * Set the listener told of every later change
+     * (null to stop)
+     *
+     * @param listener Listener or null
+     */
+    public void setListener(Listener<? super V> listener) {
+
+        this.listener = listener;
+    }
+
+
+    /**
+     * Remove every entry
+     * (not reported to the listener)
+     */
+    public void clear() {
+
+        for (Stripe<V> stripe : stripes) {
+            stripe.clear();
+        }
+        keys.clear();
+        advanceVersion();
+    }
+
+
+    // expected null: plain writes, else compare-and-set against it
+    private boolean[] writeAll(int[] keys, List<? extends V> expected, List<? extends V> values,
+                               boolean onlyIfAbsent, boolean onlyIfPresent) {
+
+        // counting sort of entry positions by stripe, keeping batch order
+        int[] stripeOf = new int[keys.length];
+        int[] start = new int[stripes.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            stripeOf[i] = (mix(keys[i]) >>> 24) & stripeMask;
+            start[stripeOf[i] + 1]++;
+        }
+        for (int s = 0; s < stripes.length; s++) {
+            start[s + 1] += start[s];
+        }
+        int[] order = new int[keys.length];
+        int[] fill = start.clone();
+        for (int i = 0; i < keys.length; i++) {
+            order[fill[stripeOf[i]]++] = i;
+        }
+
+        boolean[] written = new boolean[keys.length];
+        for (int s = 0; s < stripes.length; s++) {
+            if (start[s] < start[s + 1]) {
+                stripes[s].writeAll(keys, expected, values, order, start[s], start[s + 1],
+                        onlyIfAbsent, onlyIfPresent, written);
+            }
+        }
+        for (boolean stored : written) {
+            if (stored) {
+                advanceVersion();
+                break;
+            }
+        }
+        return written;
+    }
+
+    private Stripe<V> stripeFor(int key) {
+
+        // high bits pick the stripe, low bits pick the slot
+        return stripes[(mix(key) >>> 24) & stripeMask];
+    }
+
+    // after the change, so a reader never pairs a new version with old values;
+    // max keeps it from going back when two writers race
+    private void advanceVersion() {
+
+        version.accumulateAndGet(VersionClock.next(), Math::max);
+    }
+
+    private void advanceSequence(int key) {
+
+        int current = sequence.get();
+        while (key > current && !sequence.compareAndSet(current, key)) {
+            current = sequence.get();
+        }
+    }
+
+    private static void checkKey(int key) {
+
+        if (key <= FREE) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+    }
+
+    private static void checkValue(Object value) {
+
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null.");
+        }
+    }
+
+    private static void checkBatch(int[] keys, List<?> values) {
+
+        if (keys.length != values.size()) {
+            throw new IllegalArgumentException("Keys and values must have the same length.");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            checkKey(keys[i]);
+            checkValue(values.get(i));
+        }
+    }
+
+    // caller holds the key's stripe write lock
+    private void changed(int key, V value) {
+
+        Listener<? super V> current = listener;
+        if (current != null) {
+            current.changed(key, value);
+        }
+    }
+
+    static int mix(int key) {
+
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+    /**
+     * Told of each change while the key's stripe is
+     * write locked, so the calls for one key come in
+     * the order the changes were made. Must be quick
+     * and must not call back into the store.
+     */
+    @FunctionalInterface
+    public interface Listener<V> {
+
+        /**
+         * @param key int
+         * @param value V stored value, null when removed
+         */
+        void changed(int key, V value);
+    }
+
+
+    /**
+     * open addressing table, swapped as a whole on resize
+     * so optimistic readers always see matching arrays
+     */
+    private static final class Table {
+
+        final int[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+
+    /**
+     * single lock stripe (linear probing, backward shift deletion)
+     */
+    private static final class Stripe<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(INITIAL_CAPACITY);
+        private int size;
+
+        // shared ordered key set, updated under this stripe's write lock
+        private final ConcurrentIdSet keys;
+
+        // owner, told of changes
+        private final IntKeyStore<V> store;
+
+        Stripe(IntKeyStore<V> store) {
+            this.store = store;
+            this.keys = store.keys;
+        }
+
+        V get(int key) {
+
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                Object found = find(table, key);
+                if (lock.validate(stamp)) {
+                    return cast(found);
+                }
+            }
+            // writer interfered, retry under read lock
+            stamp = lock.readLock();
+            try {
+                return cast(find(table, key));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        V put(int key, V value, boolean onlyIfAbsent, boolean onlyIfPresent) {
+
+            long stamp = lock.writeLock();
+            try {
+                return putLocked(key, value, onlyIfAbsent, onlyIfPresent);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // batch entries order[from..to) under one write lock
+        void writeAll(int[] batchKeys, List<? extends V> expected, List<? extends V> values, int[] order,
+                      int from, int to, boolean onlyIfAbsent, boolean onlyIfPresent, boolean[] written) {
+
+            long stamp = lock.writeLock();
+            try {
+                for (int i = from; i < to; i++) {
+                    int at = order[i];
+                    if (expected != null) {
+                        written[at] = replaceLocked(batchKeys[at], expected.get(at), values.get(at));
+                        continue;
+                    }
+                    V previous = putLocked(batchKeys[at], values.get(at), onlyIfAbsent, onlyIfPresent);
+                    written[at] = onlyIfPresent ? previous != null : previous == null;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // caller holds the write lock
+        private V putLocked(int key, V value, boolean onlyIfAbsent, boolean onlyIfPresent) {
+
+            Table t = table;
+            int slot = mix(key) & t.mask;
+            while (t.keys[slot] != FREE) {
+                if (t.keys[slot] == key) {
+                    Object previous = t.values[slot];
+                    if (!onlyIfAbsent) {
+                        t.values[slot] = value;
+                        store.changed(key, value);
+                    }
+                    return cast(previous);
+                }
+                slot = (slot + 1) & t.mask;
+            }
+            if (onlyIfPresent) {
+                return null;
+            }
+            // value first, so a reader never pairs a key with no value
+            t.values[slot] = value;
+            t.keys[slot] = key;
+            keys.add(key);
+            store.changed(key, value);
+            if (++size > (t.keys.length >>> 1) + (t.keys.length >>> 2)) {
+                resize(t);
+            }
+            return null;
+        }
+
+        boolean replace(int key, Object expected, V value) {
+
+            long stamp = lock.writeLock();
+            try {
+                return replaceLocked(key, expected, value);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // caller holds the write lock
+        private boolean replaceLocked(int key, Object expected, V value) {
+
+            Table t = table;
+            int slot = mix(key) & t.mask;
+            while (t.keys[slot] != FREE) {
+                if (t.keys[slot] == key) {
+                    if (t.values[slot] != expected) {
+                        return false;
+                    }
+                    t.values[slot] = value;
+                    store.changed(key, value);
+                    return true;
+                }
+                slot = (slot + 1) & t.mask;
+            }
+            return false;
+        }
+
+        // expected == null removes whatever is stored
+        V remove(int key, Object expected) {
+
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int slot = mix(key) & t.mask;
+                while (t.keys[slot] != FREE) {
+                    if (t.keys[slot] == key) {
+                        Object previous = t.values[slot];
+                        if (expected != null && previous != expected) {
+                            return null;
+                        }
+                        deleteSlot(t, slot);
+                        keys.remove(key);
+                        size--;
+                        store.changed(key, null);
+                        return cast(previous);
+                    }
+                    slot = (slot + 1) & t.mask;
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void forEach(Consumer<? super V> action) {
+
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                for (int i = 0; i < t.keys.length; i++) {
+                    if (t.keys[i] != FREE) {
+                        action.accept(cast(t.values[i]));
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(INITIAL_CAPACITY);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static Object find(Table t, int key) {
+
+            int slot = mix(key) & t.mask;
+            // bounded probe, a torn optimistic read must not spin forever
+            for (int probes = 0; probes <= t.mask; probes++) {
+                int k = t.keys[slot];
+                if (k == key) {
+                    return t.values[slot];
+                }
+                if (k == FREE) {
+                    return null;
+                }
+                slot = (slot + 1) & t.mask;
+            }
+            return null;
+        }
+
+        private void resize(Table old) {
+
+            Table grown = new Table(old.keys.length << 1);
+            for (int i = 0; i < old.keys.length; i++) {
+                int k = old.keys[i];
+                if (k != FREE) {
+                    int slot = mix(k) & grown.mask;
+                    while (grown.keys[slot] != FREE) {
+                        slot = (slot + 1) & grown.mask;
+                    }
+                    grown.keys[slot] = k;
+                    grown.values[slot] = old.values[i];
+                }
+            }
+            table = grown;
+        }
+
+        private static void deleteSlot(Table t, int slot) {
+
+            // shift following entries back so probe chains stay unbroken
+            int gap = slot;
+            int next = (gap + 1) & t.mask;
+            while (t.keys[next] != FREE) {
+                int home = mix(t.keys[next]) & t.mask;
+                // move entry when its home slot is not within (gap, next]
+                if (((next - home) & t.mask) >= ((next - gap) & t.mask)) {
+                    t.keys[gap] = t.keys[next];
+                    t.values[gap] = t.values[next];
+                    gap = next;
+                }
+                next = (next + 1) & t.mask;
+            }
+            t.keys[gap] = FREE;
+            t.values[gap] = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V cast(Object value) {
+            return (V) value;
+        }
+    }
+}
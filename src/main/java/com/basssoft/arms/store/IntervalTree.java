@@ -0,0 +1,276 @@
+package com.basssoft.arms.store;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Interval tree over half open [start, end) intervals
+ * tagged with a positive int id
+
+ * AVL tree ordered by (start, id), each node carries
+ * the largest end in its subtree so overlap searches
+ * can skip whole branches. Not thread safe, callers lock.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class IntervalTree {
+
+    private Node root;
+    private int size;
+
+
+    /**
+     * Add interval
+     *
+     * @param start long inclusive
+     * @param end long exclusive
+     * @param id int
+     */
+    public void insert(long start, long end, int id) {
+
+        if (end <= start) {
+            throw new IllegalArgumentException("Interval end must be after start.");
+        }
+        root = insert(root, start, end, id);
+        size++;
+    }
+
+
+    /**
+     * Remove interval
+     *
+     * @param start long start it was inserted with
+     * @param id int
+     * @return boolean true when found and removed
+     */
+    public boolean remove(long start, int id) {
+
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+
+    /**
+     * Find any interval overlapping [start, end)
+     *
+     * @param start long inclusive
+     * @param end long exclusive
+     * @param excludeId int id to ignore (the interval being replaced)
+     * @return int id of an overlapping interval or -1
+     */
+    public int findOverlap(long start, long end, int excludeId) {
+
+        return findOverlap(root, start, end, excludeId);
+    }
+
+
+    /**
+     * Visit every interval overlapping [start, end)
+     * in start order
+     *
+     * @param start long inclusive
+     * @param end long exclusive
+     * @param action IntConsumer receiving ids
+     */
+    public void forEachOverlap(long start, long end, IntConsumer action) {
+
+        forEachOverlap(root, start, end, action);
+    }
+
+
+    /**
+     * Number of stored intervals
+     *
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+
+    private static int findOverlap(Node node, long start, long end, int excludeId) {
+
+        while (node != null && node.maxEnd > start) {
+
+            if (node.left != null && node.left.maxEnd > start) {
+                int found = findOverlap(node.left, start, end, excludeId);
+                if (found != -1) {
+                    return found;
+                }
+            }
+            // this node and everything right of it starts too late
+            if (node.start >= end) {
+                return -1;
+            }
+            if (node.end > start && node.id != excludeId) {
+                return node.id;
+            }
+            node = node.right;
+        }
+        return -1;
+    }
+
+    private static void forEachOverlap(Node node, long start, long end, IntConsumer action) {
+
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        forEachOverlap(node.left, start, end, action);
+
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start) {
+            action.accept(node.id);
+        }
+        forEachOverlap(node.right, start, end, action);
+    }
+
+
+    private Node insert(Node node, long start, long end, int id) {
+
+        if (node == null) {
+            return new Node(start, end, id);
+        }
+        if (compare(start, id, node) < 0) {
+            node.left = insert(node.left, start, end, id);
+        } else {
+            node.right = insert(node.right, start, end, id);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long start, int id) {
+
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // take over the in-order successor, then drop it from the right
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+            node.right = removeMin(node.right);
+        }
+        return rebalance(node);
+    }
+
+    private Node removeMin(Node node) {
+
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int compare(long start, int id, Node node) {
+
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Integer.compare(id, node.id);
+    }
+
+
+    private static Node rebalance(Node node) {
+
+        update(node);
+        int balance = height(node.left) - height(node.right);
+
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+
+    /**
+     * tree node
+     */
+    private static final class Node {
+
+        long start;
+        long end;
+        int id;
+
+        // largest end in this subtree
+        long maxEnd;
+        int height = 1;
+
+        Node left;
+        Node right;
+
+        Node(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+}
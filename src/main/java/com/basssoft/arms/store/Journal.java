@@ -0,0 +1,659 @@
+package com.basssoft.arms.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only journal of keyed changes, in memory
+ * mapped segment files, with group commit and snapshots
+
+ * A change is one record (stream, key, payload; no
+ * payload = removed) copied into the mapped segment
+ * under a short lock. Positions (LSNs) are byte offsets
+ * over all segments. A committer thread forces written
+ * pages to disk: writers waiting in awaitDurable while
+ * a force is running are all covered by the next one,
+ * so concurrent writes share one fsync. Writes nobody
+ * waits for are forced within a second.
+
+ * snapshot() rolls to a new segment and writes the
+ * caller's full state as of that point; older segments
+ * and snapshots are then deleted. Opening a journal
+ * replays the newest snapshot, then every record after
+ * it, up to the first torn or missing record (a crash
+ * mid-write), and appends from there.
+
+ * Files: journal-{first LSN}.log, snapshot-{LSN}.snap
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class Journal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // "ARMSSNAP"
+    private static final long SNAPSHOT_MAGIC = 0x41524D53534E4150L;
+
+    // record: int size, int crc32c of the rest, byte stream, int key, int payload length
+    private static final int HEADER = 17;
+    private static final int REMOVED = -1;
+
+    // stream 0 ends a snapshot
+    private static final int END = 0;
+    private static final int MAX_STREAM = 255;
+
+    // longest a write nobody waits for stays unforced
+    private static final long IDLE_FORCE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final Path dir;
+    private final int segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // one snapshot at a time; held through its writes and
+    // forces, where a monitor would pin a virtual thread
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private final Condition commitWanted = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+
+    // guarded by lock
+    private Segment segment;
+    private long requested;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+
+    private final Thread committer;
+
+
+    /**
+     * Open (or create) the journal in a directory,
+     * replaying its newest snapshot and later records
+
+     * @param dir Path
+     * @param segmentSize int bytes per segment file
+     * @param replay Sink told of every recovered entry, in order
+     * @throws IOException on unreadable files or a corrupt snapshot
+     */
+    public Journal(Path dir, int segmentSize, Sink replay) throws IOException {
+
+        if (segmentSize < HEADER) {
+            throw new IllegalArgumentException("Journal segment size must be at least " + HEADER + " bytes.");
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(dir);
+
+        for (Path temp : list(TEMP_SUFFIX)) {
+            Files.delete(temp);
+        }
+        long start = 0;
+        List<Path> snapshots = list(SNAPSHOT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            Path newest = snapshots.get(snapshots.size() - 1);
+            start = readSnapshot(newest, replay);
+        }
+        segment = replaySegments(start, replay);
+        requested = durable = segment.base + segment.position;
+
+        committer = Thread.ofPlatform().daemon().name("arms-journal-commit").start(this::commitLoop);
+    }
+
+
+    /**
+     * Append one change
+
+     * @param stream int 1..255, which store the key belongs to
+     * @param key int
+     * @param payload byte[] new value, null when removed
+     * @return long LSN just past the record, for awaitDurable
+     * @throws IOException when the journal failed or is closed
+     */
+    public long append(int stream, int key, byte[] payload) throws IOException {
+
+        checkStream(stream);
+        int length = payload == null ? REMOVED : payload.length;
+        int size = HEADER + Math.max(length, 0);
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + size + " bytes does not fit a segment.");
+        }
+        // built and checksummed before taking the lock
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.putInt(size).putInt(0).put((byte) stream).putInt(key).putInt(length);
+        if (payload != null) {
+            record.put(payload);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 8, size - 8);
+        record.putInt(4, (int) crc.getValue());
+
+        lock.lock();
+        try {
+            checkOpen();
+            if (segment.position + size > segment.buffer.capacity()) {
+                roll();
+            }
+            segment.buffer.put(segment.position, record.array());
+            segment.position += size;
+            return segment.base + segment.position;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Wait until every record up to an LSN is on disk
+
+     * @param lsn long from append
+     * @throws IOException when the journal failed or closed first
+     */
+    public void awaitDurable(long lsn) throws IOException {
+
+        lock.lock();
+        try {
+            if (lsn > requested) {
+                requested = lsn;
+                commitWanted.signal();
+            }
+            while (durable < lsn) {
+                checkOpen();
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Write a snapshot and drop the records it covers
+
+     * The journal rolls to a new segment first, source
+     * then writes every live entry. Changes made while
+     * it runs may or may not be in the snapshot, they
+     * are replayed from the new segment either way.
+
+     * @param source Source writing the full state
+     * @return long LSN the snapshot starts replay from
+     * @throws IOException when writing fails (the journal itself stays usable)
+     */
+    public long snapshot(Source source) throws IOException {
+
+        snapshotLock.lock();
+        try {
+            return writeSnapshot(source);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    // caller holds snapshotLock
+    private long writeSnapshot(Source source) throws IOException {
+
+        long lsn;
+        lock.lock();
+        try {
+            checkOpen();
+            if (segment.position > 0) {
+                roll();
+            }
+            lsn = segment.base;
+        } finally {
+            lock.unlock();
+        }
+
+        Path target = dir.resolve(SNAPSHOT_PREFIX + name(lsn) + SNAPSHOT_SUFFIX);
+        Path temp = dir.resolve(SNAPSHOT_PREFIX + name(lsn) + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), IO_BUFFER));
+            out.writeLong(SNAPSHOT_MAGIC);
+            out.writeLong(lsn);
+            source.writeTo((stream, key, payload) -> {
+                checkStream(stream);
+                if (payload == null) {
+                    throw new IllegalArgumentException("Snapshot entries must have a payload.");
+                }
+                out.writeByte(stream);
+                out.writeInt(key);
+                out.writeInt(payload.length);
+                out.write(payload);
+            });
+            out.writeByte(END);
+            out.flush();
+            // checksum of everything before it
+            out.writeLong(crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+
+        // covered by the new snapshot now
+        for (Path old : list(SNAPSHOT_SUFFIX)) {
+            if (lsnOf(old, SNAPSHOT_SUFFIX) < lsn) {
+                deleteQuietly(old);
+            }
+        }
+        for (Path old : list(SEGMENT_SUFFIX)) {
+            if (lsnOf(old, SEGMENT_SUFFIX) < lsn) {
+                deleteQuietly(old);
+            }
+        }
+        return lsn;
+    }
+
+
+    /**
+     * @return long LSN just past the last record
+     */
+    public long position() {
+
+        lock.lock();
+        try {
+            return segment.base + segment.position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Force what is written and stop the committer
+     * (waiters not yet covered get an IOException)
+     *
+     * @throws IOException when the final force fails
+     */
+    @Override
+    public void close() throws IOException {
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (failure == null) {
+                forceAll(segment);
+                durable = segment.base + segment.position;
+            }
+            closed = true;
+            commitWanted.signalAll();
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    // force written pages, many waiters per force
+    private void commitLoop() {
+
+        lock.lock();
+        try {
+            while (true) {
+                while (!closed && requested <= durable) {
+                    long left = commitWanted.awaitNanos(IDLE_FORCE_NANOS);
+                    if (left <= 0 && segment.base + segment.position > durable) {
+                        break;
+                    }
+                }
+                if (closed || failure != null) {
+                    return;
+                }
+                Segment target = segment;
+                int from = target.forced;
+                int to = target.position;
+
+                lock.unlock();
+                IOException error = null;
+                try {
+                    target.buffer.force(from, to - from);
+                } catch (UncheckedIOException uioe) {
+                    error = uioe.getCause();
+                } finally {
+                    lock.lock();
+                }
+                if (error != null) {
+                    failure = error;
+                    committed.signalAll();
+                    return;
+                }
+                target.forced = Math.max(target.forced, to);
+                durable = Math.max(durable, target.base + to);
+                committed.signalAll();
+            }
+        } catch (InterruptedException ie) {
+            failure = new IOException("Journal committer interrupted.");
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller holds lock: finish the segment on disk, continue in a new one
+    private void roll() throws IOException {
+
+        forceAll(segment);
+        long base = segment.base + segment.position;
+        segment = Segment.create(segmentPath(base), base, segmentSize);
+        syncDirectory();
+        durable = Math.max(durable, base);
+        committed.signalAll();
+    }
+
+    private void forceAll(Segment target) throws IOException {
+
+        try {
+            target.buffer.force();
+            target.forced = target.position;
+
+        } catch (UncheckedIOException uioe) {
+            failure = uioe.getCause();
+            committed.signalAll();
+            throw failure;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+
+        if (failure != null) {
+            throw new IOException("Journal failed.", failure);
+        }
+        if (closed) {
+            throw new IOException("Journal is closed.");
+        }
+    }
+
+
+    /**
+     * replay the segments from start on, stopping at the
+     * first bad record; later segments are then dropped
+
+     * @param start long LSN to replay from
+     * @param replay Sink
+     * @return Segment to append to, positioned after the last good record
+     */
+    private Segment replaySegments(long start, Sink replay) throws IOException {
+
+        Segment current = null;
+        long expected = start;
+
+        for (Path file : list(SEGMENT_SUFFIX)) {
+            long base = lsnOf(file, SEGMENT_SUFFIX);
+            if (base < start) {
+                // covered by the snapshot, cleanup was interrupted
+                deleteQuietly(file);
+                continue;
+            }
+            if (base != expected) {
+                if (current == null) {
+                    throw new IOException("Journal segment at LSN " + expected + " is missing.");
+                }
+                // follows a torn record, never acknowledged
+                Files.delete(file);
+                continue;
+            }
+            Segment next = Segment.open(file, base);
+            next.position = scan(next.buffer, replay);
+            current = next;
+            expected = base + next.position;
+        }
+        if (current != null && current.position == 0 && current.buffer.capacity() < segmentSize) {
+            // created but never sized (crash in create), or from a smaller setting
+            Files.delete(segmentPath(current.base));
+            current = null;
+        }
+        if (current == null) {
+            current = Segment.create(segmentPath(expected), expected, segmentSize);
+            syncDirectory();
+        } else {
+            // clear anything past the last good record before appending over it
+            byte[] zeros = new byte[IO_BUFFER];
+            for (int at = current.position; at < current.buffer.capacity(); at += zeros.length) {
+                current.buffer.put(at, zeros, 0, Math.min(zeros.length, current.buffer.capacity() - at));
+            }
+            current.buffer.force();
+        }
+        current.forced = current.position;
+        return current;
+    }
+
+    // replay one segment's good records, returns the offset after the last
+    private static int scan(MappedByteBuffer buffer, Sink replay) throws IOException {
+
+        CRC32C crc = new CRC32C();
+        int capacity = buffer.capacity();
+        int position = 0;
+
+        while (position + HEADER <= capacity) {
+            int size = buffer.getInt(position);
+            if (size < HEADER || size > capacity - position) {
+                break;
+            }
+            int length = buffer.getInt(position + 13);
+            if (length == REMOVED ? size != HEADER : length != size - HEADER) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + 8, size - 8));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            byte[] payload = null;
+            if (length != REMOVED) {
+                payload = new byte[length];
+                buffer.get(position + HEADER, payload);
+            }
+            replay.accept(buffer.get(position + 8) & 0xFF, buffer.getInt(position + 9), payload);
+            position += size;
+        }
+        return position;
+    }
+
+    // checksum pass, then replay pass; returns the snapshot's LSN
+    private static long readSnapshot(Path file, Sink replay) throws IOException {
+
+        long length = Files.size(file);
+        if (length < 25) {
+            throw new IOException("Snapshot " + file.getFileName() + " is truncated.");
+        }
+        CRC32C crc = new CRC32C();
+        long stored;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(IO_BUFFER);
+            long left = length - 8;
+            while (left > 0) {
+                chunk.clear().limit((int) Math.min(chunk.capacity(), left));
+                int read = channel.read(chunk);
+                if (read < 0) {
+                    throw new IOException("Snapshot " + file.getFileName() + " is truncated.");
+                }
+                crc.update(chunk.flip());
+                left -= read;
+            }
+            ByteBuffer tail = ByteBuffer.allocate(8);
+            channel.read(tail, length - 8);
+            stored = tail.getLong(0);
+        }
+        if (stored != crc.getValue()) {
+            throw new IOException("Snapshot " + file.getFileName() + " is corrupt.");
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), IO_BUFFER))) {
+            long lsn = in.readLong() == SNAPSHOT_MAGIC ? in.readLong() : -1;
+            if (lsn != lsnOf(file, SNAPSHOT_SUFFIX)) {
+                throw new IOException("Snapshot " + file.getFileName() + " is corrupt.");
+            }
+            int stream;
+            while ((stream = in.readUnsignedByte()) != END) {
+                int key = in.readInt();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                replay.accept(stream, key, payload);
+            }
+            return lsn;
+        }
+    }
+
+    // files with a suffix, oldest LSN first
+    private List<Path> list(String suffix) throws IOException {
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(dir)) {
+            entries.filter(path -> path.getFileName().toString().endsWith(suffix)).forEach(files::add);
+        }
+        // fixed width names sort by LSN
+        files.sort(null);
+        return files;
+    }
+
+    private Path segmentPath(long base) {
+
+        return dir.resolve(SEGMENT_PREFIX + name(base) + SEGMENT_SUFFIX);
+    }
+
+    private void syncDirectory() {
+
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UncheckedIOException ioe) {
+            // not supported everywhere (Windows), file data is forced regardless
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ioe) {
+            // still mapped somewhere (Windows), dropped on the next open
+        }
+    }
+
+    private static String name(long lsn) {
+
+        return String.format("%020d", lsn);
+    }
+
+    private static long lsnOf(Path file, String suffix) {
+
+        String name = file.getFileName().toString();
+        int from = name.indexOf('-') + 1;
+        return Long.parseLong(name.substring(from, name.length() - suffix.length()));
+    }
+
+    private static void checkStream(int stream) {
+
+        if (stream <= END || stream > MAX_STREAM) {
+            throw new IllegalArgumentException("Journal stream must be between 1 and " + MAX_STREAM + ".");
+        }
+    }
+
+
+    /**
+     * receives entries: recovered ones when the journal
+     * opens, written ones from a snapshot Source
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * @param stream int
+         * @param key int
+         * @param payload byte[] value, null when removed
+         * @throws IOException to abort
+         */
+        void accept(int stream, int key, byte[] payload) throws IOException;
+    }
+
+
+    /**
+     * writes the full state into a snapshot
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        /**
+         * @param out Sink taking every live entry once
+         * @throws IOException to abort the snapshot
+         */
+        void writeTo(Sink out) throws IOException;
+    }
+
+
+    /**
+     * one mapped segment file
+     */
+    private static final class Segment {
+
+        private final long base;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int forced;
+
+        private Segment(long base, MappedByteBuffer buffer) {
+            this.base = base;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path file, long base, int size) throws IOException {
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(Path file, long base) throws IOException {
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Journal segment " + file.getFileName() + " is too large.");
+                }
+                return new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.basssoft.arms.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary form of the values of one IntKeyStore,
+ * as written to the Journal and its snapshots
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public interface JournalCodec<V> {
+
+    /**
+     * @param value V
+     * @return int the store key of value
+     */
+    int keyOf(V value);
+
+    /**
+     * @param out DataOutput
+     * @param value V
+     * @throws IOException from out
+     */
+    void write(DataOutput out, V value) throws IOException;
+
+    /**
+     * @param in DataInput positioned at a value written by write
+     * @return V
+     * @throws IOException from in, or on data write did not produce
+     */
+    V read(DataInput in) throws IOException;
+}
@@ -0,0 +1,256 @@
+package com.basssoft.arms.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hierarchical timer wheel of positive int ids,
+ * each due at an epoch millisecond time
+
+ * Time moves in ticks of tickMillis. Level 0 has one
+ * slot per tick for the next 64 ticks, each level above
+ * covers 64 times the span of the one below (5 levels,
+ * 64^5 ticks). A timer sits in the slot of the lowest
+ * level its distance fits; when a higher slot comes up
+ * its timers cascade one level down. Scheduling and
+ * cancelling are O(1), advancing costs one slot visit
+ * per tick passed plus the timers that fall due, never
+ * a scan of every timer.
+
+ * Thread safe, every method locks the wheel.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class TimerWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 5;
+
+    private final long tickMillis;
+
+    // [level][slot] head of a doubly linked list
+    private final Timer[][] wheel = new Timer[LEVELS][SLOTS];
+
+    // scheduled timers by id
+    private final Map<Integer, Timer> timers = new HashMap<>();
+
+    // last tick advanced to
+    private long currentTick;
+
+    // ids taken by the advance in progress
+    private int[] fired;
+    private int firedCount;
+
+
+    /**
+     * Create wheel starting at a time
+     *
+     * @param tickMillis long tick length in milliseconds
+     * @param nowMillis long current epoch milliseconds
+     */
+    public TimerWheel(long tickMillis, long nowMillis) {
+
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick length must be positive.");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+
+    /**
+     * Schedule an id, replacing its earlier due time
+     *
+     * @param id int positive
+     * @param dueMillis long epoch milliseconds (the past fires on the next advance)
+     */
+    public synchronized void schedule(int id, long dueMillis) {
+
+        if (id <= 0) {
+            throw new IllegalArgumentException("Timer id must be positive.");
+        }
+        Timer timer = timers.get(id);
+        if (timer == null) {
+            timer = new Timer(id);
+            timers.put(id, timer);
+        } else {
+            unlink(timer);
+        }
+        // rounded up, never fires early
+        timer.dueTick = Math.floorDiv(dueMillis + tickMillis - 1, tickMillis);
+        link(timer);
+    }
+
+
+    /**
+     * Remove an id
+     *
+     * @param id int
+     * @return boolean true when it was scheduled
+     */
+    public synchronized boolean cancel(int id) {
+
+        Timer timer = timers.remove(id);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+
+    /**
+     * Move time forward and take the ids that fell due
+     * (they are no longer scheduled)
+     *
+     * @param nowMillis long current epoch milliseconds
+     * @return int[] due ids, earliest tick first
+     */
+    public synchronized int[] advance(long nowMillis) {
+
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        fired = new int[16];
+        firedCount = 0;
+
+        // overdue when scheduled, waiting in the current slot
+        fire(wheel[0][slot(currentTick, 0)]);
+
+        while (currentTick < targetTick) {
+            if (timers.isEmpty()) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+
+            // each level's slot comes up when the ones below wrap
+            for (int level = 1; level < LEVELS && (currentTick & mask(level)) == 0; level++) {
+                cascade(level);
+            }
+            fire(wheel[0][slot(currentTick, 0)]);
+        }
+        int[] due = Arrays.copyOf(fired, firedCount);
+        fired = null;
+        return due;
+    }
+
+
+    /**
+     * @return int ids scheduled
+     */
+    public synchronized int size() {
+
+        return timers.size();
+    }
+
+
+    /**
+     * @param id int
+     * @return long due tick start in epoch milliseconds, -1 when not scheduled
+     */
+    public synchronized long dueMillis(int id) {
+
+        Timer timer = timers.get(id);
+        return timer == null ? -1 : timer.dueTick * tickMillis;
+    }
+
+
+    // remove and collect every timer due by now from one level 0 slot
+    private void fire(Timer head) {
+
+        Timer timer = head;
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.dueTick <= currentTick) {
+                unlink(timer);
+                timers.remove(timer.id);
+                if (firedCount == fired.length) {
+                    fired = Arrays.copyOf(fired, firedCount * 2);
+                }
+                fired[firedCount++] = timer.id;
+            }
+            timer = next;
+        }
+    }
+
+    // re-place the timers of a level's current slot by their distance now
+    private void cascade(int level) {
+
+        int slot = slot(currentTick, level);
+        Timer timer = wheel[level][slot];
+        wheel[level][slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            link(timer);
+            timer = next;
+        }
+    }
+
+    private void link(Timer timer) {
+
+        long delta = timer.dueTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // overdue: the current slot, taken on the next advance
+        int slot = slot(Math.max(timer.dueTick, currentTick), level);
+
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = wheel[level][slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        wheel[level][slot] = timer;
+    }
+
+    private void unlink(Timer timer) {
+
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else if (wheel[timer.level][timer.slot] == timer) {
+            wheel[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private static int slot(long tick, int level) {
+
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+
+    // ticks below a level's slot boundary
+    private static long mask(int level) {
+
+        return (1L << (SLOT_BITS * level)) - 1;
+    }
+
+
+    /**
+     * one scheduled id
+     */
+    private static final class Timer {
+
+        private final int id;
+        private long dueTick;
+        private int level;
+        private int slot;
+        private Timer prev;
+        private Timer next;
+
+        Timer(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.basssoft.arms.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of entity and table versions
+
+ * Versions are epoch milliseconds, bumped by one when
+ * two writes land in the same millisecond. Every value
+ * is unique and larger than all earlier ones, so it
+ * works as a strong ETag and, rounded to the second,
+ * as Last-Modified.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public final class VersionClock {
+
+    private static final AtomicLong last = new AtomicLong();
+
+    private VersionClock() {
+    }
+
+
+    /**
+     * Next version
+
+     * @return long greater than any earlier version
+     */
+    public static long next() {
+
+        long now = System.currentTimeMillis();
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(previous + 1, now);
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -3,6 +3,16 @@ package com.basssoft.arms;
 import com.basssoft.arms.account.AllAccountTests;
 import com.basssoft.arms.booking.AllBookingTests;
 import com.basssoft.arms.invoice.AllInvoiceTests;
+import com.basssoft.arms.importer.AllImportTests;
+import com.basssoft.arms.journal.StateJournalTest;
+import com.basssoft.arms.mapping.CsvReaderTest;
+import com.basssoft.arms.mapping.CsvWriterTest;
+import com.basssoft.arms.mapping.EntityCodecTest;
+import com.basssoft.arms.mapping.MoneyTest;
+import com.basssoft.arms.mapping.TimeCodecTest;
+import com.basssoft.arms.metrics.ServiceMetricsAspectTest;
+import com.basssoft.arms.store.JournalTest;
+import com.basssoft.arms.store.TimerWheelTest;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.platform.suite.api.Suite;
@@ -18,7 +28,17 @@ import org.junit.platform.suite.api.Suite;
 @SelectClasses({
         AllBookingTests.class,
         AllAccountTests.class,
-        AllInvoiceTests.class
+        AllInvoiceTests.class,
+        AllImportTests.class,
+        ServiceMetricsAspectTest.class,
+        TimeCodecTest.class,
+        CsvWriterTest.class,
+        CsvReaderTest.class,
+        MoneyTest.class,
+        EntityCodecTest.class,
+        TimerWheelTest.class,
+        JournalTest.class,
+        StateJournalTest.class
 })
 class ArmsApplicationTests {
 
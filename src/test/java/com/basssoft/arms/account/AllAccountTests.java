@@ -1,9 +1,14 @@
 package com.basssoft.arms.account;
 
 import com.basssoft.arms.account.controller.AccountControllerTest;
+import com.basssoft.arms.account.controller.AccountModelAssemblerTest;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.platform.suite.api.Suite;
 import com.basssoft.arms.account.service.AccountSvcTest;
+import com.basssoft.arms.account.service.AccountCacheTest;
+import com.basssoft.arms.account.service.AccountSearchTest;
+import com.basssoft.arms.account.service.AvailabilitySearchTest;
+import com.basssoft.arms.account.service.PasswordHasherTest;
 
 /**
  * test suite to run all account-related tests
@@ -15,7 +20,12 @@ import com.basssoft.arms.account.service.AccountSvcTest;
 @Suite
 @SelectClasses({
         AccountSvcTest.class,
-        AccountControllerTest.class
+        AccountCacheTest.class,
+        PasswordHasherTest.class,
+        AvailabilitySearchTest.class,
+        AccountSearchTest.class,
+        AccountControllerTest.class,
+        AccountModelAssemblerTest.class
 })
 public class AllAccountTests {
 
@@ -1,7 +1,9 @@
 package com.basssoft.arms.account.controller;
 
 import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AvailabilitySearch;
 import com.basssoft.arms.account.service.IaccountService;
+import com.basssoft.arms.store.BatchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,13 +15,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -43,6 +51,9 @@ public class AccountControllerTest {
     @Autowired
     private AccountModelAssembler accountModelAssembler;
 
+    @Autowired
+    private AvailabilitySearch availabilitySearch;
+
     private AccountDTO mockAccountDto;
 
     @TestConfiguration
@@ -56,6 +67,10 @@ public class AccountControllerTest {
         AccountModelAssembler accountModelAssembler() {
             return Mockito.mock(AccountModelAssembler.class);
         }
+        @Bean
+        AvailabilitySearch availabilitySearch() {
+            return Mockito.mock(AvailabilitySearch.class);
+        }
     }
 
 
@@ -65,6 +80,9 @@ public class AccountControllerTest {
     @BeforeEach
     void setUp() {
 
+        // mocks are shared by the context, start every test unstubbed
+        Mockito.reset(accountService, accountModelAssembler, availabilitySearch);
+
         mockAccountDto = new AccountDTO(
                 1,
                 "testuser",
@@ -77,7 +95,8 @@ public class AccountControllerTest {
                 "123 Main St",
                 "Testville",
                 "TS",
-                "12345"
+                "12345",
+                0
         );
 
         when(accountModelAssembler.toModel(any(AccountDTO.class)))
@@ -85,10 +104,15 @@ public class AccountControllerTest {
                         EntityModel.of(
                                 invocation.getArgument(0),
                                 linkTo(methodOn(AccountController.class)
-                                        .getAccount(1))
+                                        .getAccount(1, null))
                                         .withSelfRel()
                         )
                 );
+        when(accountModelAssembler.toPageModel(Mockito.anyList(), any(), any(),
+                        Mockito.anyInt(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenCallRealMethod();
+        when(accountModelAssembler.toSearchModel(Mockito.anyList(), Mockito.anyBoolean()))
+                .thenCallRealMethod();
     }
 
 
@@ -162,14 +186,48 @@ public class AccountControllerTest {
     @Test
     void testGetAccounts() throws Exception {
         List<AccountDTO> accounts = List.of(mockAccountDto);
-        when(accountService.getAllAccounts()).thenReturn(accounts);
+        when(accountService.getAccountsAfter(0, 51)).thenReturn(accounts);
 
         mockMvc.perform(get("/accounts"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$._embedded.accountDTOList[0].accountId")
                         .value(1))
                 .andExpect(jsonPath("$._embedded.accountDTOList[0].screenName")
-                        .value("testuser"));
+                        .value("testuser"))
+                .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#getAccounts:previousPage
+     */
+    @Test
+    void testGetAccounts_Before() throws Exception {
+        List<AccountDTO> accounts = List.of(mockAccountDto);
+        when(accountService.getAccountsBefore(5, 11)).thenReturn(accounts);
+        when(accountService.getAccountsAfter(1, 1)).thenReturn(accounts);
+
+        mockMvc.perform(get("/accounts").param("before", "5").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.accountDTOList[0].accountId").value(1))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/accounts?after=1&size=10"))
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#getAccounts:lastPage
+     */
+    @Test
+    void testGetAccounts_BeforeLast() throws Exception {
+        // nothing stored after the page: no next link to an empty page
+        when(accountService.getAccountsBefore(5, 11)).thenReturn(List.of(mockAccountDto));
+        when(accountService.getAccountsAfter(1, 1)).thenReturn(List.of());
+
+        mockMvc.perform(get("/accounts").param("before", "5").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next").doesNotExist())
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
     }
 
 
@@ -182,7 +240,7 @@ public class AccountControllerTest {
         AccountDTO updatedDto = new AccountDTO(1, "updateduser",
                 "password123", false, "Test", "User",
                 "test@example.com", "1234567890", "123 Main St",
-                "Testville", "TS", "12345");
+                "Testville", "TS", "12345", 0);
 
         when(accountService.updateAccount(any(AccountDTO.class))).thenReturn(updatedDto);
 
@@ -255,4 +313,191 @@ public class AccountControllerTest {
     }
 
 
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#createAccounts
+     */
+    @Test
+    void testCreateAccounts() throws Exception {
+
+        when(accountService.createAccounts(Mockito.anyList())).thenReturn(List.of(
+                BatchResult.ok(0, mockAccountDto),
+                BatchResult.failed(1, "Account 1 already exists.")));
+
+        mockMvc.perform(post("/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"screenName\": \"testuser\"}, {\"accountId\": 1}]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[0].value.accountId").value(1))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Account 1 already exists."));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#createAccounts:emptyBatch
+     */
+    @Test
+    void testCreateAccounts_Empty() throws Exception {
+
+        mockMvc.perform(post("/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#updateAccounts
+     */
+    @Test
+    void testUpdateAccounts() throws Exception {
+
+        when(accountService.updateAccounts(Mockito.anyList())).thenReturn(List.of(BatchResult.ok(0, mockAccountDto)));
+
+        mockMvc.perform(put("/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"accountId\": 1, \"screenName\": \"testuser\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value.screenName").value("testuser"));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#login:success
+     */
+    @Test
+    void testLogin_Success() throws Exception {
+
+        when(accountService.verifyCredentials("testuser", "password123"))
+                .thenReturn(CompletableFuture.completedFuture(mockAccountDto));
+
+        MvcResult result = mockMvc.perform(post("/accounts/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"screenName\": \"testuser\", \"password\": \"password123\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // password is never rendered
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountId").value(1))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#login:unauthorized
+     */
+    @Test
+    void testLogin_Unauthorized() throws Exception {
+
+        when(accountService.verifyCredentials("testuser", "wrong"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        MvcResult result = mockMvc.perform(post("/accounts/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"screenName\": \"testuser\", \"password\": \"wrong\"}"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isUnauthorized());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#login:busy
+     */
+    @Test
+    void testLogin_Busy() throws Exception {
+
+        when(accountService.verifyCredentials("testuser", "password123"))
+                .thenThrow(new RejectedExecutionException("Password hashing is busy, try again."));
+
+        MvcResult result = mockMvc.perform(post("/accounts/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"screenName\": \"testuser\", \"password\": \"password123\"}"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#getAvailableProviders
+     */
+    @Test
+    void testGetAvailableProviders() throws Exception {
+
+        AccountDTO second = new AccountDTO();
+        second.setAccountId(2);
+
+        // one more than the page size, so a next link is expected
+        when(availabilitySearch.findAvailableProviders("Denver", null, null,
+                "2025-03-01T10:00", "2025-03-01T11:00", 0, 2))
+                .thenReturn(List.of(mockAccountDto, second));
+
+        mockMvc.perform(get("/accounts/available")
+                        .param("city", "Denver")
+                        .param("from", "2025-03-01T10:00")
+                        .param("to", "2025-03-01T11:00")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.accountDTOList.length()").value(1))
+                .andExpect(jsonPath("$._embedded.accountDTOList[0].accountId").value(1))
+                .andExpect(jsonPath("$._links.next.href").value(containsString("after=1")));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#getAvailableProviders:badRequest
+     */
+    @Test
+    void testGetAvailableProviders_BadRequest() throws Exception {
+
+        when(availabilitySearch.findAvailableProviders(any(), any(), any(), any(), any(),
+                Mockito.anyInt(), Mockito.anyInt()))
+                .thenThrow(new IllegalArgumentException("A city or zip code is required."));
+
+        mockMvc.perform(get("/accounts/available")
+                        .param("from", "2025-03-01T10:00")
+                        .param("to", "2025-03-01T11:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#searchAccounts
+     */
+    @Test
+    void testSearchAccounts() throws Exception {
+
+        when(accountService.searchAccounts("smyth", 5)).thenReturn(List.of(mockAccountDto));
+
+        mockMvc.perform(get("/accounts/search")
+                        .param("q", "smyth")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.accountDTOList[0].accountId").value(1))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.account.controller.AccountController#searchAccounts:badRequest
+     */
+    @Test
+    void testSearchAccounts_BadRequest() throws Exception {
+
+        when(accountService.searchAccounts(any(), Mockito.anyInt()))
+                .thenThrow(new IllegalArgumentException("Search text is required."));
+
+        mockMvc.perform(get("/accounts/search")
+                        .param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
 }
@@ -0,0 +1,107 @@
+package com.basssoft.arms.account.controller;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Unit tests for AccountModelAssembler
+
+ * Links from the precompiled templates must match what
+ * linkTo(methodOn(..)) produces.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class AccountModelAssemblerTest {
+
+    private static final int ENTITIES = 100;
+
+    private AccountModelAssembler assembler;
+    private List<AccountDTO> accounts;
+
+    /**
+     * Bind a request and build test data before each test
+     */
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/accounts");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assembler = new AccountModelAssembler();
+        accounts = new ArrayList<>(ENTITIES);
+        for (int i = 1; i <= ENTITIES; i++) {
+            AccountDTO account = new AccountDTO();
+            account.setAccountId(i);
+            accounts.add(account);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    /**
+     * Tests {@link AccountModelAssembler#toModel} links match linkTo(methodOn(..))
+     */
+    @Test
+    void testToModel_LinksMatchLinkBuilder() {
+
+        for (AccountDTO account : accounts) {
+            EntityModel<AccountDTO> model = assembler.toModel(account);
+
+            assertEquals(selfLink(account).getHref(), model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+            assertEquals(collectionLink().getHref(), model.getRequiredLink("accounts").getHref());
+        }
+        assertEquals("http://localhost/accounts/1", assembler.toModel(accounts.get(0))
+                .getRequiredLink(IanaLinkRelations.SELF).getHref());
+    }
+
+
+    /**
+     * Tests {@link AccountModelAssembler#toPageModel} cursor links
+     */
+    @Test
+    void testToPageModel_Links() {
+
+        CollectionModel<EntityModel<AccountDTO>> page =
+                assembler.toPageModel(accounts.subList(10, 20), null, 21, 10, true, true);
+
+        assertEquals(10, page.getContent().size());
+        assertEquals("http://localhost/accounts?before=21&size=10", page.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertEquals("http://localhost/accounts?after=20&size=10", page.getRequiredLink(IanaLinkRelations.NEXT).getHref());
+        assertEquals("http://localhost/accounts?before=11&size=10", page.getRequiredLink(IanaLinkRelations.PREV).getHref());
+
+        // no rows, no links past them
+        page = assembler.toPageModel(List.of(), 100, null, 10, true, true);
+        assertTrue(page.getLink(IanaLinkRelations.NEXT).isEmpty());
+        assertTrue(page.getLink(IanaLinkRelations.PREV).isEmpty());
+    }
+
+
+    private static Link selfLink(AccountDTO account) {
+        return linkTo(methodOn(AccountController.class).getAccount(account.getAccountId(), null))
+                .withSelfRel().expand();
+    }
+
+    private static Link collectionLink() {
+        return linkTo(AccountController.class).withRel("accounts");
+    }
+
+}
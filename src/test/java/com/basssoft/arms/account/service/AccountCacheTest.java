@@ -0,0 +1,151 @@
+package com.basssoft.arms.account.service;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the account read cache of {@link AccountSvcImpl}
+ *
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@SpringJUnitConfig(AccountCacheTest.TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class AccountCacheTest {
+
+    @Autowired
+    private IaccountService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Configuration
+    @EnableCaching
+    static class TestConfig {
+        @Bean
+        PasswordHasher passwordHasher() {
+            return new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
+        }
+
+        @Bean
+        IaccountService accountService(PasswordHasher passwordHasher) {
+            return new AccountSvcImpl(passwordHasher);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager manager = new CaffeineCacheManager(AccountSvcImpl.ACCOUNT_CACHE);
+            manager.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+            return manager;
+        }
+    }
+
+    private AccountDTO account;
+
+    /**
+     * Sets up one stored account before each test
+     */
+    @BeforeEach
+    public void setUp() {
+        AccountDTO dto = new AccountDTO();
+        dto.setCity("Boulder");
+        account = service.createAccount(dto);
+    }
+
+    /**
+     * Test method for {@link AccountSvcImpl#getAccount(int)}, second read is a hit.
+     */
+    @Test
+    public void testGetAccountCached() {
+        AccountDTO first = service.getAccount(account.getAccountId());
+        AccountDTO second = service.getAccount(account.getAccountId());
+
+        assertSame(first, second);
+        assertEquals(1, stats().missCount());
+        assertEquals(1, stats().hitCount());
+    }
+
+    /**
+     * Test method for {@link AccountSvcImpl#getAccount(int)}, unknown ids are not cached.
+     */
+    @Test
+    public void testGetAccountMissNotCached() {
+        assertNull(service.getAccount(999));
+        assertNull(service.getAccount(999));
+
+        assertEquals(2, stats().missCount());
+        assertNull(cache().get(999));
+    }
+
+    /**
+     * Test method for {@link AccountSvcImpl#updateAccount(AccountDTO)}, evicts the account.
+     */
+    @Test
+    public void testUpdateAccountEvicts() {
+        service.getAccount(account.getAccountId());
+
+        AccountDTO changed = new AccountDTO();
+        changed.setAccountId(account.getAccountId());
+        changed.setCity("Denver");
+        service.updateAccount(changed);
+
+        assertNull(cache().get(account.getAccountId()));
+        assertEquals("Denver", service.getAccount(account.getAccountId()).getCity());
+    }
+
+    /**
+     * Test method for {@link AccountSvcImpl#updateAccounts(List)}, evicts every account.
+     */
+    @Test
+    public void testUpdateAccountsEvicts() {
+        AccountDTO other = service.createAccount(new AccountDTO());
+        service.getAccount(account.getAccountId());
+        service.getAccount(other.getAccountId());
+
+        AccountDTO changed = new AccountDTO();
+        changed.setAccountId(account.getAccountId());
+        changed.setCity("Denver");
+        service.updateAccounts(List.of(changed));
+
+        assertNull(cache().get(account.getAccountId()));
+        assertNull(cache().get(other.getAccountId()));
+        assertEquals("Denver", service.getAccount(account.getAccountId()).getCity());
+    }
+
+    /**
+     * Test method for {@link AccountSvcImpl#deleteAccount(int)}, evicts the account.
+     */
+    @Test
+    public void testDeleteAccountEvicts() {
+        service.getAccount(account.getAccountId());
+        service.deleteAccount(account.getAccountId());
+
+        assertNull(service.getAccount(account.getAccountId()));
+    }
+
+
+    private CaffeineCache cache() {
+        return (CaffeineCache) cacheManager.getCache(AccountSvcImpl.ACCOUNT_CACHE);
+    }
+
+    private CacheStats stats() {
+        return cache().getNativeCache().stats();
+    }
+}
@@ -0,0 +1,160 @@
+package com.basssoft.arms.account.service;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link AccountSvcImpl#searchAccounts(String, int)}
+ * and {@link AccountSearchIndex}
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class AccountSearchTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
+    private AccountSvcImpl service;
+
+    private int smith;
+    private int smithers;
+    private int jonathan;
+
+    /**
+     * Sets up a few stored accounts before each test
+     */
+    @BeforeEach
+    public void setUp() {
+        service = new AccountSvcImpl(hasher);
+        smith = service.createAccount(account("jsmith", "John", "Smith", "john.smith@example.com", "(303) 555-0101")).getAccountId();
+        smithers = service.createAccount(account("wsmithers", "Waylon", "Smithers", "waylon@example.com", "303-555-0199")).getAccountId();
+        jonathan = service.createAccount(account("jdoe", "Jonathan", "Doe", "jd@example.org", "720 555 0142")).getAccountId();
+    }
+
+    /**
+     * stops the hasher's workers after each test
+     */
+    @AfterEach
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+
+    /**
+     * exact term ranks above prefix, prefix above typo
+     */
+    @Test
+    public void testSearchRanked() {
+        assertEquals(List.of(smith, smithers), ids(service.searchAccounts("smith", 10)));
+        assertEquals(List.of(smith, smithers), ids(service.searchAccounts("SMI", 10)));
+        assertEquals(List.of(smithers), ids(service.searchAccounts("smithers", 10)));
+
+        // every word has to match
+        assertEquals(List.of(smith), ids(service.searchAccounts("john smi", 10)));
+        assertEquals(List.of(smith), ids(service.searchAccounts("smith john", 10)));
+        assertTrue(service.searchAccounts("john smithers", 10).isEmpty());
+        assertEquals(1, service.searchAccounts("smith", 1).size());
+    }
+
+
+    /**
+     * typos, email and phone fields
+     */
+    @Test
+    public void testSearchFuzzy() {
+        assertEquals(List.of(jonathan), ids(service.searchAccounts("jonathon", 10)));
+        assertEquals(List.of(smithers), ids(service.searchAccounts("waylno", 10)));
+        assertEquals(List.of(jonathan), ids(service.searchAccounts("example.org", 10)));
+
+        // phone by digits, whatever the punctuation
+        assertEquals(List.of(smith), ids(service.searchAccounts("3035550101", 10)));
+        assertEquals(List.of(smith, smithers), ids(service.searchAccounts("303555", 10)));
+        assertEquals(List.of(jonathan), ids(service.searchAccounts("0142", 10)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchAccounts(" ", 10));
+        assertThrows(IllegalArgumentException.class, () -> service.searchAccounts("--", 10));
+    }
+
+
+    /**
+     * index follows updates and deletes
+     */
+    @Test
+    public void testSearchIncremental() {
+        AccountDTO renamed = account("jsmith", "John", "Smyth", "john@example.com", null);
+        renamed.setAccountId(smith);
+        service.updateAccount(renamed);
+
+        assertEquals(List.of(smithers), ids(service.searchAccounts("smithers", 10)));
+        assertEquals(smith, ids(service.searchAccounts("smyth", 10)).get(0));
+        assertFalse(ids(service.searchAccounts("3035550101", 10)).contains(smith));
+
+        service.deleteAccount(smithers);
+        assertTrue(service.searchAccounts("waylon", 10).isEmpty());
+
+        renamed = account("jdoe", "Jon", "Doe", null, null);
+        renamed.setAccountId(jonathan);
+        service.updateAccounts(List.of(renamed));
+        assertTrue(service.searchAccounts("jonathan", 10).isEmpty());
+        assertEquals(List.of(jonathan), ids(service.searchAccounts("jon doe", 10)));
+    }
+
+
+    /**
+     * Test method for {@link AccountSearchIndex#distance(String, String, int)}.
+     */
+    @Test
+    public void testDistance() {
+        assertEquals(0, AccountSearchIndex.distance("smith", "smith", 2));
+        assertEquals(1, AccountSearchIndex.distance("smith", "smyth", 2));
+        assertEquals(1, AccountSearchIndex.distance("jhon", "john", 2));
+        assertEquals(3, AccountSearchIndex.distance("abc", "xyz", 2));
+        assertEquals(3, AccountSearchIndex.distance("a", "abcdef", 2));
+    }
+
+
+    /**
+     * search finds exact, prefix and typo matches among many accounts
+     */
+    @Test
+    public void testSearchMany() {
+        List<AccountDTO> batch = new ArrayList<>(1000);
+        for (int n = 0; n < 50_000; n++) {
+            batch.add(account("user" + n, "First" + (n % 5000), "Last" + n, "user" + n + "@example.com",
+                    "555-" + (1_000_000 + n)));
+            if (batch.size() == 1000) {
+                service.createAccounts(batch);
+                batch.clear();
+            }
+        }
+        List<AccountDTO> found = service.searchAccounts("last4242", 10);
+        List<AccountDTO> prefix = service.searchAccounts("first42 last", 10);
+        List<AccountDTO> typo = service.searchAccounts("lsat4242", 10);
+
+        assertEquals("user4242", found.get(0).getScreenName());
+        assertEquals(10, prefix.size());
+        assertEquals("user4242", typo.get(0).getScreenName());
+    }
+
+
+    private static AccountDTO account(String screenName, String first, String last, String email, String phone) {
+        AccountDTO account = new AccountDTO();
+        account.setScreenName(screenName);
+        account.setFirstName(first);
+        account.setLastName(last);
+        account.setEmail(email);
+        account.setPhoneNumber(phone);
+        return account;
+    }
+
+    private static List<Integer> ids(List<AccountDTO> accounts) {
+        return accounts.stream().map(AccountDTO::getAccountId).toList();
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.basssoft.arms.account.service;
 
 import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.store.BatchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -17,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class AccountSvcTest {
 
+    // cheap hashes for tests
+    private final PasswordHasher hasher = new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
     private AccountSvcImpl service;
 
     /**
@@ -24,7 +29,15 @@ public class AccountSvcTest {
      */
     @BeforeEach
     public void setUp() {
-        service = new AccountSvcImpl();
+        service = new AccountSvcImpl(hasher);
+    }
+
+    /**
+     * stops the hasher's workers after each test
+     */
+    @AfterEach
+    public void tearDown() {
+        hasher.shutdown();
     }
 
     /**
@@ -35,7 +48,7 @@ public class AccountSvcTest {
         AccountDTO accountDTO = new AccountDTO();
         AccountDTO result = service.createAccount(accountDTO);
         assertNotNull(result);
-        assertNotNull(result.getAccountId());
+        assertTrue(result.getAccountId() > 0);
     }
 
 
@@ -44,8 +57,14 @@ public class AccountSvcTest {
      */
     @Test
     public void testGetAccountById() {
-        AccountDTO account = service.getAccount(1);
+        AccountDTO accountDTO = new AccountDTO();
+        accountDTO.setScreenName("testuser");
+        int id = service.createAccount(accountDTO).getAccountId();
+
+        AccountDTO account = service.getAccount(id);
         assertNotNull(account);
+        assertEquals("testuser", account.getScreenName());
+        assertNull(service.getAccount(id + 1));
     }
 
 
@@ -65,9 +84,14 @@ public class AccountSvcTest {
      */
     @Test
     public void testUpdateAccount() {
-        AccountDTO accountDTO = new AccountDTO();
+        AccountDTO accountDTO = service.createAccount(new AccountDTO());
+        accountDTO.setCity("Denver");
         AccountDTO result = service.updateAccount(accountDTO);
         assertEquals(result, accountDTO);
+
+        AccountDTO missing = new AccountDTO();
+        missing.setAccountId(999);
+        assertNull(service.updateAccount(missing));
     }
 
 
@@ -76,8 +100,244 @@ public class AccountSvcTest {
      */
     @Test
     public void testDeleteAccount() {
+        AccountDTO accountDTO = new AccountDTO();
+        accountDTO.setAccountId(1);
+        service.createAccount(accountDTO);
+
         int result = service.deleteAccount(1);
         assertEquals(1, result);
+        assertEquals(-1, service.deleteAccount(1));
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#getAccountsAfter(int, int)}
+     * and {@link AccountSvcImpl#getAccountsBefore(int, int)}.
+     */
+    @Test
+    public void testGetAccountsPaged() {
+        for (int i = 0; i < 5; i++) {
+            service.createAccount(new AccountDTO());
+        }
+        service.deleteAccount(3);
+
+        List<AccountDTO> first = service.getAccountsAfter(0, 2);
+        assertEquals(List.of(1, 2), first.stream().map(AccountDTO::getAccountId).toList());
+
+        // deleted id is skipped, page stays full
+        List<AccountDTO> second = service.getAccountsAfter(2, 2);
+        assertEquals(List.of(4, 5), second.stream().map(AccountDTO::getAccountId).toList());
+        assertTrue(service.getAccountsAfter(5, 2).isEmpty());
+
+        List<AccountDTO> previous = service.getAccountsBefore(4, 2);
+        assertEquals(List.of(1, 2), previous.stream().map(AccountDTO::getAccountId).toList());
+    }
+
+    /**
+     * Test method for {@link AccountSvcImpl#createAccounts(List)}.
+     */
+    @Test
+    public void testCreateAccounts() {
+        AccountDTO explicit = new AccountDTO();
+        explicit.setAccountId(2);
+        AccountDTO negative = new AccountDTO();
+        negative.setAccountId(-1);
+
+        List<BatchResult<AccountDTO>> results = service.createAccounts(
+                List.of(new AccountDTO(), explicit, negative, explicit));
+
+        assertEquals(1, results.get(0).getValue().getAccountId());
+        assertEquals(2, results.get(1).getValue().getAccountId());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Account 2 already exists.", results.get(3).getError());
+        assertEquals(2, service.getAllAccounts().size());
+
+        // sequence continues after the supplied id
+        assertEquals(3, service.createAccount(new AccountDTO()).getAccountId());
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#updateAccounts(List)}.
+     */
+    @Test
+    public void testUpdateAccounts() {
+        AccountDTO account = service.createAccount(new AccountDTO());
+        account.setCity("Denver");
+        AccountDTO missing = new AccountDTO();
+        missing.setAccountId(999);
+
+        List<BatchResult<AccountDTO>> results = service.updateAccounts(List.of(account, missing));
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Denver", service.getAccount(account.getAccountId()).getCity());
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#updateAccounts(List)}:duplicateId
+     */
+    @Test
+    public void testUpdateAccounts_DuplicateId() {
+        AccountDTO account = new AccountDTO();
+        account.setScreenName("first");
+        account = service.createAccount(account);
+
+        AccountDTO renamed = service.getAccount(account.getAccountId());
+        renamed.setScreenName("second");
+        AccountDTO again = service.getAccount(account.getAccountId());
+        again.setScreenName("third");
+
+        List<BatchResult<AccountDTO>> results = service.updateAccounts(List.of(renamed, again));
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Account " + account.getAccountId() + " appears twice in the batch.", results.get(1).getError());
+        assertEquals("second", service.getAccount(account.getAccountId()).getScreenName());
+
+        // the rejected item left no claim on its screen name
+        AccountDTO other = new AccountDTO();
+        other.setScreenName("third");
+        assertNotNull(service.createAccount(other));
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#getAccountsVersion()}.
+     */
+    @Test
+    public void testVersions() {
+        AccountDTO created = service.createAccount(new AccountDTO());
+        long tableVersion = service.getAccountsVersion();
+        assertTrue(created.getVersion() > 0);
+        assertEquals(created.getVersion(), service.getAccount(created.getAccountId()).getVersion());
+
+        // every write gets a newer version, the version sent by the client is ignored
+        created.setCity("Denver");
+        created.setVersion(Long.MAX_VALUE);
+        AccountDTO updated = service.updateAccount(created);
+        assertTrue(updated.getVersion() > tableVersion);
+        assertTrue(updated.getVersion() < Long.MAX_VALUE);
+        assertTrue(service.getAccountsVersion() >= updated.getVersion());
+
+        // deletes advance the table version, misses do not
+        tableVersion = service.getAccountsVersion();
+        service.deleteAccount(created.getAccountId());
+        assertTrue(service.getAccountsVersion() > tableVersion);
+        tableVersion = service.getAccountsVersion();
+        service.deleteAccount(created.getAccountId());
+        assertEquals(tableVersion, service.getAccountsVersion());
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#verifyCredentials(String, String)}.
+     */
+    @Test
+    public void testVerifyCredentials() {
+        AccountDTO account = new AccountDTO();
+        account.setScreenName("jdoe");
+        account.setPassword("secret");
+        AccountDTO created = service.createAccount(account);
+
+        // the hash never leaves the service
+        assertNull(created.getPassword());
+        assertNull(service.getAccount(created.getAccountId()).getPassword());
+
+        assertEquals(created.getAccountId(), service.verifyCredentials("jdoe", "secret").join().getAccountId());
+        assertNull(service.verifyCredentials("jdoe", "wrong").join());
+        assertNull(service.verifyCredentials("nobody", "secret").join());
+        assertThrows(IllegalArgumentException.class, () -> service.verifyCredentials("jdoe", ""));
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#updateAccount(AccountDTO)}, password kept or replaced.
+     */
+    @Test
+    public void testUpdatePassword() {
+        AccountDTO account = new AccountDTO();
+        account.setScreenName("jdoe");
+        account.setPassword("secret");
+        AccountDTO created = service.createAccount(account);
+
+        // no password sent, stored hash kept
+        created.setCity("Denver");
+        service.updateAccount(created);
+        assertNotNull(service.verifyCredentials("jdoe", "secret").join());
+
+        created.setPassword("changed");
+        service.updateAccounts(List.of(created));
+        assertNull(service.verifyCredentials("jdoe", "secret").join());
+        assertNotNull(service.verifyCredentials("jdoe", "changed").join());
+    }
+
+
+    /**
+     * Test method for screen name uniqueness across create, update and delete.
+     */
+    @Test
+    public void testScreenNameUnique() {
+        AccountDTO first = new AccountDTO();
+        first.setScreenName("jdoe");
+        first = service.createAccount(first);
+
+        AccountDTO second = new AccountDTO();
+        second.setScreenName("jdoe");
+        assertThrows(IllegalArgumentException.class, () -> service.createAccount(second));
+        List<BatchResult<AccountDTO>> results = service.createAccounts(List.of(second));
+        assertEquals("Screen name jdoe is already taken.", results.get(0).getError());
+
+        // renaming frees the old name
+        first.setScreenName("jdoe2");
+        service.updateAccount(first);
+        assertEquals("jdoe", service.createAccount(second).getScreenName());
+
+        // deleting frees the name
+        service.deleteAccount(first.getAccountId());
+        second.setAccountId(0);
+        second.setScreenName("jdoe2");
+        assertNotNull(service.createAccount(second));
+    }
+
+
+    /**
+     * Test method for {@link AccountSvcImpl#getProviderIdsAt(String, String, String)}.
+     */
+    @Test
+    public void testGetProviderIdsAt() {
+        int denver = service.createAccount(provider("Denver", "CO", "80202")).getAccountId();
+        int boulder = service.createAccount(provider("Boulder", "CO", "80301")).getAccountId();
+        AccountDTO customer = provider("Denver", "CO", "80202");
+        customer.setProvider(false);
+        service.createAccount(customer);
+
+        // city is case insensitive, customers are not listed
+        assertArrayEquals(new int[] {denver}, service.getProviderIdsAt(" denver ", null, null));
+        assertArrayEquals(new int[] {denver}, service.getProviderIdsAt(null, null, "80202"));
+        assertArrayEquals(new int[0], service.getProviderIdsAt("Denver", "TX", null));
+
+        // moving and deleting update the index
+        AccountDTO moved = provider("Denver", "CO", "80202");
+        moved.setAccountId(boulder);
+        service.updateAccount(moved);
+        assertArrayEquals(new int[] {denver, boulder}, service.getProviderIdsAt("Denver", "co", null));
+        assertArrayEquals(new int[0], service.getProviderIdsAt(null, null, "80301"));
+
+        service.deleteAccount(denver);
+        assertArrayEquals(new int[] {boulder}, service.getProviderIdsAt("Denver", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.getProviderIdsAt(" ", null, null));
+    }
+
+
+    /**
+     * build a provider account at given location
+     */
+    private static AccountDTO provider(String city, String state, String zipCode) {
+        AccountDTO account = new AccountDTO();
+        account.setProvider(true);
+        account.setCity(city);
+        account.setState(state);
+        account.setZipCode(zipCode);
+        return account;
     }
 
 }
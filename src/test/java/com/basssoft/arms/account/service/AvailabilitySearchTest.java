@@ -0,0 +1,119 @@
+package com.basssoft.arms.account.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link AvailabilitySearch}
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class AvailabilitySearchTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
+    private AccountSvcImpl accountService;
+    private BookingSvcImpl bookingService;
+    private AvailabilitySearch search;
+
+    /**
+     * Setup method wires real account and booking services
+     */
+    @BeforeEach
+    public void setUp() {
+        accountService = new AccountSvcImpl(hasher);
+        bookingService = new BookingSvcImpl();
+        search = new AvailabilitySearch(accountService, bookingService);
+    }
+
+    /**
+     * stops the hasher's workers after each test
+     */
+    @AfterEach
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+
+    /**
+     * Test method for {@link AvailabilitySearch#findAvailableProviders}.
+     */
+    @Test
+    public void testFindAvailableProviders() {
+        int busy = provider("Denver", "80202");
+        int free = provider("Denver", "80202");
+        int later = provider("Denver", "80203");
+        provider("Boulder", "80301");
+
+        book(busy, "2025-03-01T09:00", "2025-03-01T11:00");
+        book(later, "2025-03-01T11:00", "2025-03-01T12:00");
+
+        List<AccountDTO> found = search.findAvailableProviders("Denver", null, null,
+                "2025-03-01T10:00", "2025-03-01T11:00", 0, 10);
+        assertEquals(List.of(free, later), ids(found));
+
+        // zip code, then paging after the first hit
+        assertEquals(List.of(free), ids(search.findAvailableProviders(null, null, "80202",
+                "2025-03-01T10:00", "2025-03-01T11:00", 0, 10)));
+        assertEquals(List.of(later), ids(search.findAvailableProviders("denver", "CO", null,
+                "2025-03-01T10:00", "2025-03-01T11:00", free, 10)));
+
+        assertThrows(IllegalArgumentException.class, () -> search.findAvailableProviders("Denver", null, null,
+                "2025-03-01T11:00", "2025-03-01T10:00", 0, 10));
+    }
+
+
+    /**
+     * Test method for {@link AvailabilitySearch#findAvailableProviders}, thousands of providers in one city.
+     */
+    @Test
+    public void testFindAvailableProviders_Many() {
+        // every other provider is booked for the window
+        for (int n = 0; n < 5_000; n++) {
+            int id = provider("Denver", "80202");
+            if (n % 2 == 0) {
+                book(id, "2025-03-01T09:00", "2025-03-01T17:00");
+            }
+        }
+        List<AccountDTO> page = search.findAvailableProviders("Denver", "CO", null,
+                "2025-03-01T12:00", "2025-03-01T13:00", 0, 50);
+
+        assertEquals(50, page.size());
+        assertTrue(page.stream().allMatch(account -> account.getAccountId() % 2 == 0));
+    }
+
+
+    private int provider(String city, String zipCode) {
+        AccountDTO account = new AccountDTO();
+        account.setProvider(true);
+        account.setCity(city);
+        account.setState("CO");
+        account.setZipCode(zipCode);
+        return accountService.createAccount(account).getAccountId();
+    }
+
+    private void book(int providerId, String start, String end) {
+        Account provider = new Account();
+        provider.setAccountId(providerId);
+
+        BookingDTO booking = new BookingDTO();
+        booking.setProvider(provider);
+        booking.setStartTime(start);
+        booking.setEndTime(end);
+        bookingService.createBooking(booking);
+    }
+
+    private static List<Integer> ids(List<AccountDTO> accounts) {
+        return accounts.stream().map(AccountDTO::getAccountId).toList();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.basssoft.arms.account.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link PasswordHasher}
+ *
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class PasswordHasherTest {
+
+    private SimpleMeterRegistry registry;
+    private PasswordHasher hasher;
+
+    /**
+     * cheap hasher (strength 4) before each test
+     */
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        hasher = new PasswordHasher(4, 2, 16, registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+
+    /**
+     * Test method for {@link PasswordHasher#hash(String)}
+     * and {@link PasswordHasher#matches(String, String)}.
+     */
+    @Test
+    public void testHashMatches() {
+        String hash = hasher.hash("secret");
+
+        assertNotEquals("secret", hash);
+        assertNotEquals(hash, hasher.hash("secret"));
+        assertTrue(hasher.matches("secret", hash).join());
+        assertFalse(hasher.matches("wrong", hash).join());
+
+        // unknown account, still hashed
+        assertFalse(hasher.matches("secret", null).join());
+
+        assertEquals(3, registry.get(PasswordHasher.TIMER).tag("op", "verify").timer().count());
+        assertEquals(2, registry.get(PasswordHasher.TIMER).tag("op", "hash").timer().count());
+    }
+
+
+    /**
+     * Test method for {@link PasswordHasher#hashAll(List)}, results in order.
+     */
+    @Test
+    public void testHashAll() {
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            passwords.add("secret" + i);
+        }
+        List<String> hashes = hasher.hashAll(passwords);
+
+        assertEquals(5, hashes.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(hasher.matches("secret" + i, hashes.get(i)).join());
+        }
+    }
+
+
+    /**
+     * Test method for {@link PasswordHasher#needsRehash(String)}.
+     */
+    @Test
+    public void testNeedsRehash() {
+        PasswordHasher stronger = new PasswordHasher(5, 1, 1, registry);
+        String hash = hasher.hash("secret");
+
+        assertFalse(hasher.needsRehash(hash));
+        assertTrue(stronger.needsRehash(hash));
+        assertFalse(stronger.needsRehash(null));
+        stronger.shutdown();
+    }
+
+
+    /**
+     * Test method for {@link PasswordHasher#hashAsync(String)}, full queue is refused.
+     */
+    @Test
+    public void testSaturated() {
+        // one worker, one waiting slot, hashes slow enough to still be running
+        PasswordHasher small = new PasswordHasher(12, 1, 1, registry);
+        CompletableFuture<String> running = small.hashAsync("first");
+        CompletableFuture<String> queued = small.hashAsync("second");
+
+        assertThrows(RejectedExecutionException.class, () -> small.hashAsync("third"));
+        assertEquals(1, registry.get(PasswordHasher.REJECTED).counter().count());
+
+        assertNotNull(running.join());
+        assertNotNull(queued.join());
+        small.shutdown();
+    }
+
+}
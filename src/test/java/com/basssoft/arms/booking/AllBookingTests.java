@@ -1,7 +1,10 @@
 package com.basssoft.arms.booking;
 
 import com.basssoft.arms.booking.controller.BookingControllerTest;
+import com.basssoft.arms.booking.controller.BookingModelAssemblerTest;
+import com.basssoft.arms.booking.service.BookingSvcConcurrencyTest;
 import com.basssoft.arms.booking.service.BookingSvcTest;
+import com.basssoft.arms.booking.service.BookingSvcVirtualThreadTest;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.platform.suite.api.Suite;
 
@@ -15,7 +18,10 @@ import org.junit.platform.suite.api.Suite;
 @Suite
 @SelectClasses({
         BookingSvcTest.class,
-        BookingControllerTest.class
+        BookingSvcConcurrencyTest.class,
+        BookingSvcVirtualThreadTest.class,
+        BookingControllerTest.class,
+        BookingModelAssemblerTest.class
 })
 public class AllBookingTests {
 
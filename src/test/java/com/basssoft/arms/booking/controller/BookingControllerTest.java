@@ -3,6 +3,7 @@ package com.basssoft.arms.booking.controller;
 import com.basssoft.arms.account.domain.Account;
 import com.basssoft.arms.booking.domain.BookingDTO;
 import com.basssoft.arms.booking.service.IbookingService;
+import com.basssoft.arms.store.BatchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -14,11 +15,17 @@ import org.springframework.context.annotation.Import;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import java.util.List;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -64,6 +71,9 @@ public class BookingControllerTest {
      */
     @BeforeEach
     void setUp() {
+        // the suites run this class twice on one context, drop the last run's stubs
+        Mockito.reset(bookingService, bookingModelAssembler);
+
         provider = new Account();
         provider.setAccountId(10);
         provider.setScreenName("providerUser");
@@ -100,10 +110,18 @@ public class BookingControllerTest {
                         EntityModel.of(
                                 invocation.getArgument(0),
                                 linkTo(methodOn(BookingController.class)
-                                        .getBooking(1))
+                                        .getBooking(1, null, null))
                                         .withSelfRel()
                         )
                 );
+        Mockito.when(bookingModelAssembler.toPageModel(Mockito.anyList(), Mockito.any(), Mockito.any(),
+                        Mockito.anyInt(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenCallRealMethod();
+        Mockito.when(bookingModelAssembler.toCompactModel(Mockito.any(BookingDTO.class)))
+                .thenCallRealMethod();
+        Mockito.when(bookingModelAssembler.toCompactPageModel(Mockito.anyList(), Mockito.any(), Mockito.any(),
+                        Mockito.anyInt(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenCallRealMethod();
     }
 
     /**
@@ -130,6 +148,25 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$._links.self.href").exists());
     }
 
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#createBookings
+     */
+    @Test
+    void testCreateBookings() throws Exception {
+
+        Mockito.when(bookingService.createBookings(Mockito.anyList()))
+                .thenReturn(List.of(BatchResult.ok(0, bookingDto), BatchResult.ok(1, bookingDto)));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + bookingJson + "," + bookingJson + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].value.provider.accountId").value(10));
+    }
+
+
     /**
      * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBooking:success
      */
@@ -167,17 +204,323 @@ public class BookingControllerTest {
 
         List<BookingDTO> bookings = List.of(bookingDto);
 
-        Mockito.when(bookingService.getAllBookings()).thenReturn(bookings);
+        // first page, one extra row requested to detect a next page
+        Mockito.when(bookingService.getBookingsAfter(0, 51)).thenReturn(bookings);
 
         mockMvc.perform(get("/bookings"))
                 .andExpect(jsonPath("$._embedded.bookingDTOList[0].bookingId").value(1))
                 .andExpect(jsonPath("$._embedded.bookingDTOList[0].provider.accountId").value(10))
                 .andExpect(jsonPath("$._embedded.bookingDTOList[0].customer.accountId").value(20))
                 .andExpect(jsonPath("$._embedded.bookingDTOList[0]._links.self.href").exists())
+                .andExpect(jsonPath("$._links.self.href").exists())
+                .andExpect(jsonPath("$._links.next").doesNotExist())
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBookings:nextPage
+     */
+    @Test
+    void testGetBookings_Paged() throws Exception {
+
+        BookingDTO second = new BookingDTO();
+        second.setBookingId(2);
+        BookingDTO third = new BookingDTO();
+        third.setBookingId(3);
+
+        Mockito.when(bookingService.getBookingsAfter(0, 3)).thenReturn(List.of(bookingDto, second, third));
+
+        mockMvc.perform(get("/bookings").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.bookingDTOList.length()").value(2))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/bookings?after=2&size=2"))
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBookings:prevPage
+     */
+    @Test
+    void testGetBookings_PrevProbe() throws Exception {
+
+        BookingDTO second = new BookingDTO();
+        second.setBookingId(2);
+
+        // after=1 page, booking 1 since deleted: no prev link to an empty page
+        Mockito.when(bookingService.getBookingsAfter(1, 3)).thenReturn(List.of(second));
+        Mockito.when(bookingService.getBookingsBefore(2, 1)).thenReturn(List.of());
+
+        mockMvc.perform(get("/bookings").param("after", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.prev").doesNotExist())
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+
+        Mockito.when(bookingService.getBookingsBefore(2, 1)).thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings").param("after", "1").param("size", "2"))
+                .andExpect(jsonPath("$._links.prev.href").value("http://localhost/bookings?before=2&size=2"));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBooking:compact
+     */
+    @Test
+    void testGetBooking_Compact() throws Exception {
+
+        Mockito.when(bookingService.getBooking(1)).thenReturn(bookingDto);
+
+        mockMvc.perform(get("/bookings/1").param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookingId").value(1))
+                .andExpect(jsonPath("$.providerId").value(10))
+                .andExpect(jsonPath("$.customerId").value(20))
+                .andExpect(jsonPath("$.provider").doesNotExist())
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/bookings/1"));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBookings:compact
+     */
+    @Test
+    void testGetBookings_Compact() throws Exception {
+
+        BookingDTO second = new BookingDTO();
+        second.setBookingId(2);
+        BookingDTO third = new BookingDTO();
+        third.setBookingId(3);
+
+        Mockito.when(bookingService.getBookingsAfter(0, 3)).thenReturn(List.of(bookingDto, second, third));
+
+        mockMvc.perform(get("/bookings").param("size", "2").param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.compactBookingDTOList.length()").value(2))
+                .andExpect(jsonPath("$._embedded.compactBookingDTOList[0].providerId").value(10))
+                .andExpect(jsonPath("$._embedded.compactBookingDTOList[0].provider").doesNotExist())
+                .andExpect(jsonPath("$._links.next.href")
+                        .value("http://localhost/bookings?after=2&size=2&view=compact"));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBookings:badView
+     */
+    @Test
+    void testGetBookings_BadView() throws Exception {
+
+        mockMvc.perform(get("/bookings").param("view", "tiny"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBookings:badPageSize
+     */
+    @Test
+    void testGetBookings_BadPageSize() throws Exception {
+
+        mockMvc.perform(get("/bookings").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBooking:etag
+     */
+    @Test
+    void testGetBooking_ETag() throws Exception {
+
+        bookingDto.setVersion(1_700_000_000_000L);
+        Mockito.when(bookingService.getBooking(1)).thenReturn(bookingDto);
+
+        mockMvc.perform(get("/bookings/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1700000000000\""))
+                .andExpect(header().exists("Last-Modified"));
+
+        mockMvc.perform(get("/bookings/1").param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1700000000000-compact\""));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBooking:notModified
+     */
+    @Test
+    void testGetBooking_NotModified() throws Exception {
+
+        bookingDto.setVersion(1_700_000_000_000L);
+        Mockito.when(bookingService.getBooking(1)).thenReturn(bookingDto);
+        Mockito.clearInvocations(bookingModelAssembler);
+
+        mockMvc.perform(get("/bookings/1").header("If-None-Match", "\"1700000000000\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // no assembler work for an unchanged booking
+        Mockito.verify(bookingModelAssembler, Mockito.never()).toModel(Mockito.any(BookingDTO.class));
+
+        // changed since: full response
+        mockMvc.perform(get("/bookings/1").header("If-None-Match", "\"1600000000000\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookingId").value(1));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBooking:ifModifiedSince
+     */
+    @Test
+    void testGetBooking_NotModifiedSince() throws Exception {
+
+        bookingDto.setVersion(1_700_000_000_000L);
+        Mockito.when(bookingService.getBooking(1)).thenReturn(bookingDto);
+
+        mockMvc.perform(get("/bookings/1").header("If-Modified-Since", "Tue, 14 Nov 2023 22:13:20 GMT"))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/bookings/1").header("If-Modified-Since", "Mon, 13 Nov 2023 22:13:20 GMT"))
+                .andExpect(status().isOk());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getBookings:notModified
+     */
+    @Test
+    void testGetBookings_NotModified() throws Exception {
+
+        Mockito.when(bookingService.getBookingsVersion()).thenReturn(42L);
+        Mockito.clearInvocations(bookingService);
+
+        mockMvc.perform(get("/bookings").header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"42\""));
+
+        // page never read for an unchanged table
+        Mockito.verify(bookingService, Mockito.never()).getBookingsAfter(Mockito.anyInt(), Mockito.anyInt());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#streamBookings
+     */
+    @Test
+    void testStreamBookings() throws Exception {
+
+        BookingDTO second = new BookingDTO();
+        second.setBookingId(2);
+
+        Mockito.when(bookingService.getBookingsAfter(0, 500)).thenReturn(List.of(bookingDto, second));
+
+        MvcResult result = mockMvc.perform(get("/bookings").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        // one JSON object per line, no HATEOAS wrapping
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"bookingId\":1,"));
+        assertTrue(lines[1].startsWith("{\"bookingId\":2,"));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#exportBookings
+     */
+    @Test
+    void testExportBookings() throws Exception {
+
+        bookingDto.setStartTime("2025-03-01T09:00");
+        bookingDto.setEndTime("2025-03-01T11:00");
+        bookingDto.setHourlyRate(25f);
+        bookingDto.setLocCity("Fort Collins, CO");
+
+        Mockito.when(bookingService.getBookingsAfter(0, 500, 10, "2025-03-01T00:00", null))
+                .thenReturn(List.of(bookingDto));
+
+        MvcResult result = mockMvc.perform(get("/bookings").accept("text/csv")
+                        .param("providerId", "10")
+                        .param("from", "2025-03-01T00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bookings.csv\""));
+
+        // header row, then one quoted-as-needed row per booking
+        String[] lines = result.getResponse().getContentAsString().split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("booking_id,provider_id,customer_id,start_time"));
+        assertEquals("1,10,20,2025-03-01T09:00,2025-03-01T11:00,25.00,0.00,false,false,,\"Fort Collins, CO\",,",
+                lines[1]);
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#exportBookings:badFilter
+     */
+    @Test
+    void testExportBookings_BadFilter() throws Exception {
+
+        Mockito.when(bookingService.getBookingsAfter(0, 500, 0, "2025-04-01T00:00", "2025-03-01T00:00"))
+                .thenThrow(new IllegalArgumentException("From must be before to."));
+
+        MvcResult result = mockMvc.perform(get("/bookings").accept("text/csv")
+                        .param("from", "2025-04-01T00:00")
+                        .param("to", "2025-03-01T00:00"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("From must be before to."));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#getProviderBookings
+     */
+    @Test
+    void testGetProviderBookings() throws Exception {
+
+        Mockito.when(bookingService.getProviderBookings(10, "2025-03-01T00:00", "2025-03-02T00:00"))
+                .thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings/providers/10")
+                        .param("from", "2025-03-01T00:00")
+                        .param("to", "2025-03-02T00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.bookingDTOList[0].bookingId").value(1))
                 .andExpect(jsonPath("$._links.self.href").exists());
     }
 
 
+    /**
+     * Tests @Link com.basssoft.arms.booking.controller.BookingController#createBooking:providerConflict
+     */
+    @Test
+    void testCreateBooking_Conflict() throws Exception {
+
+        Mockito.when(bookingService.createBooking(Mockito.any(BookingDTO.class)))
+                .thenThrow(new IllegalArgumentException("Provider 10 is already booked at that time (booking 2)."));
+
+        mockMvc.perform(post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(status().isBadRequest());
+    }
+
+
     /**
      * Tests @Link com.basssoft.arms.booking.controller.BookingController#updateBooking:success
      */
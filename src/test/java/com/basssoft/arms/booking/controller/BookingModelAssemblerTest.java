@@ -0,0 +1,122 @@
+package com.basssoft.arms.booking.controller;
+
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.domain.CompactBookingDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Unit tests for BookingModelAssembler
+
+ * Links from the precompiled templates must match what
+ * linkTo(methodOn(..)) produces. Assembly time is measured
+ * by ModelAssemblerBenchmark.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class BookingModelAssemblerTest {
+
+    private static final int ENTITIES = 100;
+
+    private BookingModelAssembler assembler;
+    private List<BookingDTO> bookings;
+
+    /**
+     * Bind a request and build test data before each test
+     */
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookings");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assembler = new BookingModelAssembler();
+        bookings = new ArrayList<>(ENTITIES);
+        for (int i = 1; i <= ENTITIES; i++) {
+            BookingDTO booking = new BookingDTO();
+            booking.setBookingId(i);
+            bookings.add(booking);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    /**
+     * Tests {@link BookingModelAssembler#toModel} links match linkTo(methodOn(..))
+     */
+    @Test
+    void testToModel_LinksMatchLinkBuilder() {
+
+        for (BookingDTO booking : bookings) {
+            EntityModel<BookingDTO> model = assembler.toModel(booking);
+
+            assertEquals(selfLink(booking).getHref(), model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+            assertEquals(collectionLink().getHref(), model.getRequiredLink("bookings").getHref());
+        }
+        assertEquals("http://localhost/bookings/1", assembler.toModel(bookings.get(0))
+                .getRequiredLink(IanaLinkRelations.SELF).getHref());
+    }
+
+
+    /**
+     * Tests {@link BookingModelAssembler#toPageModel} cursor links
+     */
+    @Test
+    void testToPageModel_Links() {
+
+        CollectionModel<EntityModel<BookingDTO>> page =
+                assembler.toPageModel(bookings.subList(10, 20), 10, null, 10, true, true);
+
+        assertEquals(10, page.getContent().size());
+        assertEquals("http://localhost/bookings?after=10&size=10", page.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertEquals("http://localhost/bookings?after=20&size=10", page.getRequiredLink(IanaLinkRelations.NEXT).getHref());
+        assertEquals("http://localhost/bookings?before=11&size=10", page.getRequiredLink(IanaLinkRelations.PREV).getHref());
+    }
+
+
+    /**
+     * Tests {@link BookingModelAssembler#toCompactPageModel} links keep the view
+     */
+    @Test
+    void testToCompactPageModel_Links() {
+
+        CollectionModel<EntityModel<CompactBookingDTO>> page =
+                assembler.toCompactPageModel(bookings.subList(10, 20), 10, null, 10, true, true);
+
+        assertEquals(10, page.getContent().size());
+        assertEquals(11, page.getContent().iterator().next().getContent().getBookingId());
+        assertEquals("http://localhost/bookings?after=20&size=10&view=compact",
+                page.getRequiredLink(IanaLinkRelations.NEXT).getHref());
+        assertEquals("http://localhost/bookings?before=11&size=10&view=compact",
+                page.getRequiredLink(IanaLinkRelations.PREV).getHref());
+    }
+
+
+    private static Link selfLink(BookingDTO booking) {
+        return linkTo(methodOn(BookingController.class).getBooking(booking.getBookingId(), null, null))
+                .withSelfRel().expand();
+    }
+
+    private static Link collectionLink() {
+        return linkTo(BookingController.class).withRel("bookings");
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.basssoft.arms.booking.service;
+
+import com.basssoft.arms.booking.domain.BookingDTO;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency stress test for {@link BookingSvcImpl}
+
+ * Each thread runs a create / get / update / delete mix
+ * against the shared store and tracks what it left behind,
+ * the store must agree with the sum of all threads.
+ * Throughput is measured by ServiceBenchmark (-t).
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class BookingSvcConcurrencyTest {
+
+    private static final int OPS_PER_THREAD = 50_000;
+
+
+    /**
+     * Stress test for concurrent create / update / delete
+     *
+     * @param threads int
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 32})
+    public void testConcurrentCrud(int threads) throws Exception {
+
+        BookingSvcImpl service = new BookingSvcImpl();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return runMix(service);
+            }));
+        }
+
+        start.countDown();
+
+        int expected = 0;
+        List<Integer> survivors = new ArrayList<>();
+        for (Future<List<Integer>> result : results) {
+            List<Integer> live = result.get();
+            expected += live.size();
+            survivors.addAll(live);
+        }
+        pool.shutdown();
+
+        // every surviving booking is readable, nothing else is left
+        assertEquals(expected, service.getAllBookings().size());
+        for (int id : survivors) {
+            BookingDTO found = service.getBooking(id);
+            assertNotNull(found);
+            assertEquals("updated", found.getLocCity());
+        }
+    }
+
+
+    /**
+     * create / read / update / delete mix for one thread
+
+     * @param service BookingSvcImpl
+     * @return List<Integer> ids this thread left in the store
+     */
+    private List<Integer> runMix(BookingSvcImpl service) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Integer> live = new ArrayList<>();
+
+        for (int i = 0; i < OPS_PER_THREAD; i++) {
+            int op = random.nextInt(10);
+
+            if (op < 4 || live.isEmpty()) {
+                BookingDTO created = service.createBooking(new BookingDTO());
+                created.setLocCity("updated");
+                assertNotNull(service.updateBooking(created));
+                live.add(created.getBookingId());
+
+            } else if (op < 8) {
+                int id = live.get(random.nextInt(live.size()));
+                assertEquals(id, service.getBooking(id).getBookingId());
+
+            } else {
+                int id = live.remove(live.size() - 1);
+                assertEquals(id, service.deleteBooking(id));
+            }
+        }
+        return live;
+    }
+
+}
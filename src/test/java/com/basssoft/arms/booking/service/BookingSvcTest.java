@@ -1,8 +1,16 @@
 package com.basssoft.arms.booking.service;
 
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.Booking;
 import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.store.BatchResult;
+import com.basssoft.arms.store.IntKeyStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,7 +41,34 @@ public class BookingSvcTest {
         BookingDTO bookingDTO = new BookingDTO();
         BookingDTO result = service.createBooking(bookingDTO);
         assertNotNull(result);
-        assertNotNull(result.getBookingId());
+        assertTrue(result.getBookingId() > 0);
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#createBooking(BookingDTO)}:duplicateId
+     */
+    @Test
+    public void testCreateBooking_DuplicateId() {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setBookingId(7);
+        service.createBooking(bookingDTO);
+        assertThrows(IllegalArgumentException.class, () -> service.createBooking(bookingDTO));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#createBooking(BookingDTO)}:overHoursOutOfRange
+     */
+    @Test
+    public void testCreateBooking_OverHoursOutOfRange() {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setOverHours(1e12);
+        assertThrows(IllegalArgumentException.class, () -> service.createBooking(bookingDTO));
+
+        bookingDTO.setOverHours(-1e12);
+        assertThrows(IllegalArgumentException.class, () -> service.createBooking(bookingDTO));
+        assertTrue(service.getBookingsAfter(0, 10).isEmpty());
     }
 
 
@@ -42,8 +77,16 @@ public class BookingSvcTest {
      */
     @Test
     public void testGetBookingById() {
-        BookingDTO booking = service.getBooking(1);
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setStartTime("2025-03-01T09:00");
+        bookingDTO.setEndTime("2025-03-01T11:30");
+        int id = service.createBooking(bookingDTO).getBookingId();
+
+        BookingDTO booking = service.getBooking(id);
         assertNotNull(booking);
+        assertEquals(id, booking.getBookingId());
+        assertEquals("2025-03-01T09:00", booking.getStartTime());
+        assertNull(service.getBooking(id + 1));
     }
 
 
@@ -52,8 +95,12 @@ public class BookingSvcTest {
      */
     @Test
     public void testGetAllBookings() {
+        service.createBooking(new BookingDTO());
+        service.createBooking(new BookingDTO());
         List<BookingDTO> bookings = service.getAllBookings();
         assertNotNull(bookings);
+        assertEquals(2, bookings.size());
+        assertTrue(bookings.get(0).getBookingId() < bookings.get(1).getBookingId());
     }
 
 
@@ -62,9 +109,17 @@ public class BookingSvcTest {
      */
     @Test
     public void testUpdateBooking() {
-        BookingDTO bookingDTO = new BookingDTO();
+        BookingDTO bookingDTO = service.createBooking(new BookingDTO());
+        bookingDTO.setLocCity("Denver");
+        bookingDTO.setPaid(true);
         BookingDTO result = service.updateBooking(bookingDTO);
         assertEquals(result, bookingDTO);
+        assertEquals("Denver", service.getBooking(bookingDTO.getBookingId()).getLocCity());
+        assertTrue(service.getBooking(bookingDTO.getBookingId()).isPaid());
+
+        BookingDTO missing = new BookingDTO();
+        missing.setBookingId(999);
+        assertNull(service.updateBooking(missing));
     }
 
 
@@ -73,8 +128,320 @@ public class BookingSvcTest {
      */
     @Test
     public void testDeleteBooking() {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setBookingId(1);
+        service.createBooking(bookingDTO);
+
         int result = service.deleteBooking(1);
         assertEquals(1, result);
+        assertEquals(-1, service.deleteBooking(1));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#createBooking(BookingDTO)}:providerDoubleBooked
+     */
+    @Test
+    public void testCreateBooking_ProviderConflict() {
+        service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T11:00"));
+
+        // overlapping window for same provider is rejected
+        assertThrows(IllegalArgumentException.class,
+                () -> service.createBooking(providerBooking(10, "2025-03-01T10:00", "2025-03-01T12:00")));
+
+        // back to back, or another provider, is fine
+        assertNotNull(service.createBooking(providerBooking(10, "2025-03-01T11:00", "2025-03-01T12:00")));
+        assertNotNull(service.createBooking(providerBooking(11, "2025-03-01T10:00", "2025-03-01T12:00")));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#updateBooking(BookingDTO)}:providerDoubleBooked
+     */
+    @Test
+    public void testUpdateBooking_ProviderConflict() {
+        BookingDTO first = service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00"));
+        service.createBooking(providerBooking(10, "2025-03-01T10:00", "2025-03-01T11:00"));
+
+        // moving within own slot is not a conflict with itself
+        first.setEndTime("2025-03-01T09:30");
+        assertNotNull(service.updateBooking(first));
+
+        first.setEndTime("2025-03-01T10:30");
+        assertThrows(IllegalArgumentException.class, () -> service.updateBooking(first));
+        assertEquals("2025-03-01T09:30", service.getBooking(first.getBookingId()).getEndTime());
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#getProviderBookings(int, String, String)}.
+     */
+    @Test
+    public void testGetProviderBookings() {
+        int morning = service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00")).getBookingId();
+        int evening = service.createBooking(providerBooking(10, "2025-03-01T18:00", "2025-03-01T19:00")).getBookingId();
+        service.createBooking(providerBooking(11, "2025-03-01T09:00", "2025-03-01T10:00"));
+
+        List<BookingDTO> found = service.getProviderBookings(10, "2025-03-01T09:30", "2025-03-01T18:30");
+        assertEquals(2, found.size());
+        assertEquals(morning, found.get(0).getBookingId());
+        assertEquals(evening, found.get(1).getBookingId());
+
+        service.deleteBooking(evening);
+        assertEquals(1, service.getProviderBookings(10, "2025-03-01T00:00", "2025-03-02T00:00").size());
+        assertTrue(service.getProviderBookings(99, "2025-03-01T00:00", "2025-03-02T00:00").isEmpty());
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#getBookingsAfter(int, int, int, String, String)}.
+     */
+    @Test
+    public void testGetBookingsAfter_Filtered() {
+        // hourly bookings from 2025-03-01T00:00, alternating providers 10 and 11
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 0, 0);
+        for (int i = 0; i < 2_500; i++) {
+            service.createBooking(providerBooking(10 + i % 2,
+                    base.plusHours(i).toString(), base.plusHours(i + 1).toString()));
+        }
+        service.createBooking(new BookingDTO());
+
+        // provider 11 starting in March 2025: hours 1, 3 .. 743
+        List<Integer> ids = new ArrayList<>();
+        int after = 0;
+        while (true) {
+            List<BookingDTO> page = service.getBookingsAfter(after, 100, 11, "2025-03-01T00:00", "2025-04-01T00:00");
+            for (BookingDTO booking : page) {
+                assertEquals(11, booking.getProvider().getAccountId());
+                assertTrue(booking.getStartTime().startsWith("2025-03"));
+                ids.add(booking.getBookingId());
+            }
+            if (page.size() < 100) {
+                break;
+            }
+            after = page.get(page.size() - 1).getBookingId();
+        }
+        assertEquals(372, ids.size());
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+
+        // open ends, no filter at all
+        assertEquals(2_500, service.getBookingsAfter(0, 5_000, 0, "2025-03-01T00:00", null).size());
+        assertEquals(10, service.getBookingsAfter(0, 5_000, 0, null, "2025-03-01T10:00").size());
+        assertEquals(2_501, service.getBookingsAfter(0, 5_000, 0, null, null).size());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getBookingsAfter(0, 100, 0, "2025-04-01T00:00", "2025-03-01T00:00"));
+        assertThrows(IllegalArgumentException.class, () -> service.getBookingsAfter(0, 100, 0, "March", null));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#getBookingsAfter(int, int, int, String, String)}:
+     * one provider, with and without times, as bookings move
+     */
+    @Test
+    public void testGetBookingsAfter_Provider() {
+        int first = service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00")).getBookingId();
+        int untimed = service.createBooking(providerBooking(10, null, null)).getBookingId();
+        int openEnd = service.createBooking(providerBooking(10, "2025-03-01T12:00", null)).getBookingId();
+        int other = service.createBooking(providerBooking(11, "2025-03-01T09:00", "2025-03-01T10:00")).getBookingId();
+        int early = service.createBooking(providerBooking(10, "2025-03-01T08:00", "2025-03-01T09:00")).getBookingId();
+
+        // id order, whether scheduled or not
+        assertEquals(List.of(first, untimed, openEnd, early), ids(service.getBookingsAfter(0, 10, 10, null, null)));
+        assertEquals(List.of(untimed, openEnd), ids(service.getBookingsAfter(first, 2, 10, null, null)));
+        assertEquals(List.of(first, openEnd),
+                ids(service.getBookingsAfter(0, 10, 10, "2025-03-01T09:00", "2025-03-02T00:00")));
+
+        // moved to provider 11 with times, then deleted
+        BookingDTO moved = providerBooking(11, "2025-03-02T09:00", "2025-03-02T10:00");
+        moved.setBookingId(untimed);
+        service.updateBooking(moved);
+        assertEquals(List.of(first, openEnd, early), ids(service.getBookingsAfter(0, 10, 10, null, null)));
+        assertEquals(List.of(untimed, other), ids(service.getBookingsAfter(0, 10, 11, null, null)));
+
+        service.deleteBooking(openEnd);
+        assertEquals(List.of(first, early), ids(service.getBookingsAfter(0, 10, 10, null, null)));
+        assertTrue(service.getBookingsAfter(0, 10, 99, null, null).isEmpty());
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#getBookingsAfter(int, int, int, String, String)}:
+     * a provider page reads about size bookings, wherever its cursor is
+     */
+    @Test
+    public void testGetBookingsAfter_ProviderBounded() {
+        // odd ids provider 10, even ids provider 11
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 0, 0);
+        for (int i = 0; i < 5_000; i++) {
+            service.createBooking(providerBooking(10 + i % 2,
+                    base.plusHours(i).toString(), base.plusHours(i + 1).toString()));
+        }
+        @SuppressWarnings("unchecked")
+        IntKeyStore<Booking> store = Mockito.spy((IntKeyStore<Booking>) ReflectionTestUtils.getField(service, "bookings"));
+        ReflectionTestUtils.setField(service, "bookings", store);
+
+        List<BookingDTO> page = service.getBookingsAfter(4_000, 50, 11, null, null);
+        assertEquals(50, page.size());
+        assertEquals(4_002, page.get(0).getBookingId());
+        assertEquals(4_100, page.get(49).getBookingId());
+
+        // only the page's own rows are read, no store scan
+        Mockito.verify(store, Mockito.times(50)).get(Mockito.anyInt());
+        Mockito.verify(store, Mockito.never()).pageAfter(Mockito.anyInt(), Mockito.anyInt());
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#getAvailableProviders(int[], String, String)}.
+     */
+    @Test
+    public void testGetAvailableProviders() {
+        service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00"));
+        service.createBooking(providerBooking(11, "2025-03-01T10:00", "2025-03-01T11:00"));
+
+        // 11 starts when the window ends, 12 has no bookings at all
+        int[] free = service.getAvailableProviders(new int[] {12, 11, 10}, "2025-03-01T09:30", "2025-03-01T10:00");
+        assertArrayEquals(new int[] {12, 11}, free);
+
+        assertArrayEquals(new int[] {12}, service.getAvailableProviders(
+                new int[] {10, 11, 12}, "2025-03-01T08:00", "2025-03-01T12:00"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getAvailableProviders(new int[] {10}, "2025-03-01T12:00", "2025-03-01T08:00"));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#createBooking(BookingDTO)}:invalidTimes
+     */
+    @Test
+    public void testCreateBooking_EndBeforeStart() {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setStartTime("2025-03-01T11:00");
+        bookingDTO.setEndTime("2025-03-01T09:00");
+        assertThrows(IllegalArgumentException.class, () -> service.createBooking(bookingDTO));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#createBookings(List)}.
+     */
+    @Test
+    public void testCreateBookings() {
+        service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00"));
+
+        BookingDTO invalid = providerBooking(10, "2025-03-01T15:00", "2025-03-01T14:00");
+        List<BatchResult<BookingDTO>> results = service.createBookings(List.of(
+                providerBooking(10, "2025-03-01T10:00", "2025-03-01T11:00"),
+                providerBooking(10, "2025-03-01T10:30", "2025-03-01T11:30"),   // overlaps item 0
+                providerBooking(10, "2025-03-01T09:30", "2025-03-01T10:00"),   // overlaps stored booking
+                invalid,
+                providerBooking(11, "2025-03-01T09:00", "2025-03-01T10:00")));
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertTrue(results.get(4).isSuccess());
+        assertEquals(3, results.get(3).getIndex());
+
+        assertEquals(3, service.getAllBookings().size());
+        assertEquals(2, service.getProviderBookings(10, "2025-03-01T00:00", "2025-03-02T00:00").size());
+        assertThrows(IllegalArgumentException.class, () -> service.createBookings(List.of()));
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#createBookings(List)}:suppliedIds
+     */
+    @Test
+    public void testCreateBookings_SuppliedIds() {
+        BookingDTO explicit = new BookingDTO();
+        explicit.setBookingId(2);
+        BookingDTO repeated = new BookingDTO();
+        repeated.setBookingId(2);
+
+        // generated ids skip the id supplied later in the batch
+        List<BatchResult<BookingDTO>> results = service.createBookings(
+                List.of(new BookingDTO(), new BookingDTO(), explicit, repeated));
+
+        assertEquals(1, results.get(0).getValue().getBookingId());
+        assertEquals(3, results.get(1).getValue().getBookingId());
+        assertEquals(2, results.get(2).getValue().getBookingId());
+        assertFalse(results.get(3).isSuccess());
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#updateBookings(List)}.
+     */
+    @Test
+    public void testUpdateBookings() {
+        BookingDTO first = service.createBooking(new BookingDTO());
+        first.setLocCity("Denver");
+        BookingDTO missing = new BookingDTO();
+        missing.setBookingId(999);
+
+        List<BatchResult<BookingDTO>> results = service.updateBookings(List.of(first, missing));
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Booking not found.", results.get(1).getError());
+        assertEquals("Denver", service.getBooking(first.getBookingId()).getLocCity());
+    }
+
+
+    /**
+     * Test method for {@link BookingSvcImpl#updateBookings(List)}:providerSchedules
+     */
+    @Test
+    public void testUpdateBookings_Schedules() {
+        BookingDTO nine = service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00"));
+        BookingDTO ten = service.createBooking(providerBooking(10, "2025-03-01T10:00", "2025-03-01T11:00"));
+        BookingDTO other = service.createBooking(providerBooking(11, "2025-03-01T09:00", "2025-03-01T10:00"));
+
+        // ten moves to eleven, nine takes ten's old slot in the same batch
+        ten.setStartTime("2025-03-01T11:00");
+        ten.setEndTime("2025-03-01T12:00");
+        nine.setStartTime("2025-03-01T10:00");
+        nine.setEndTime("2025-03-01T11:00");
+        // moves onto provider 10 at eleven, taken by ten just before
+        other.setProvider(ten.getProvider());
+        other.setStartTime("2025-03-01T11:30");
+        other.setEndTime("2025-03-01T12:30");
+
+        List<BatchResult<BookingDTO>> results = service.updateBookings(List.of(ten, nine, other, nine));
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Booking " + nine.getBookingId() + " appears twice in the batch.", results.get(3).getError());
+
+        assertEquals(List.of(nine.getBookingId(), ten.getBookingId()),
+                service.getProviderBookings(10, "2025-03-01T00:00", "2025-03-02T00:00").stream()
+                        .map(BookingDTO::getBookingId).toList());
+        assertEquals(1, service.getProviderBookings(11, "2025-03-01T00:00", "2025-03-02T00:00").size());
+
+        // nine's old slot is free again
+        assertNotNull(service.createBooking(providerBooking(10, "2025-03-01T09:00", "2025-03-01T10:00")));
+    }
+
+
+    /**
+     * build a booking for given provider and window
+     */
+    private static List<Integer> ids(List<BookingDTO> bookings) {
+        return bookings.stream().map(BookingDTO::getBookingId).toList();
+    }
+
+    private static BookingDTO providerBooking(int providerId, String start, String end) {
+        Account provider = new Account();
+        provider.setAccountId(providerId);
+
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setProvider(provider);
+        bookingDTO.setStartTime(start);
+        bookingDTO.setEndTime(end);
+        return bookingDTO;
     }
 
 }
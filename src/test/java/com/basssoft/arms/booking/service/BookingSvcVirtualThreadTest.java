@@ -0,0 +1,123 @@
+package com.basssoft.arms.booking.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.journal.StateJournal;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Virtual thread checks for {@link BookingSvcImpl}
+
+ * Service calls must not pin their carrier thread (no
+ * parking inside synchronized), also while they wait for
+ * the journal's group commit and a snapshot runs.
+ * Latency by thread mode is measured under load by
+ * VirtualThreadLoadBenchmark.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class BookingSvcVirtualThreadTest {
+
+    private static final int REQUESTS = 2_000;
+
+    @TempDir
+    Path dir;
+
+
+    /**
+     * contended, journaled service calls on virtual threads record no pinning events
+     */
+    @Test
+    public void testNoPinning() throws Exception {
+
+        AtomicInteger pinned = new AtomicInteger();
+        CountDownLatch drained = new CountDownLatch(1);
+
+        StateJournal journal = new StateJournal(dir, 1 << 20);
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.enable(Drained.class);
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.incrementAndGet());
+            recording.onEvent(Drained.NAME, event -> drained.countDown());
+            recording.startAsync();
+
+            BookingSvcImpl service = new BookingSvcImpl();
+            ReflectionTestUtils.setField(service, "journal", journal);
+            service.recover();
+
+            List<Future<?>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < REQUESTS; i++) {
+                    int k = i;
+                    // few providers, so schedule locks are contended
+                    results.add(executor.submit(() -> request(service, k % 4, k)));
+                    if (i == REQUESTS / 2) {
+                        results.add(executor.submit(journal::snapshot));
+                    }
+                }
+            }
+            for (Future<?> result : results) {
+                assertNotNull(result.get());
+            }
+
+            // events come in commit order, so every earlier pinning event is in once this is
+            new Drained().commit();
+            assertTrue(drained.await(30, TimeUnit.SECONDS));
+
+        } finally {
+            journal.close();
+        }
+        assertEquals(0, pinned.get());
+    }
+
+
+    /**
+     * one request: create (waits for the group commit), read back
+
+     * @return BookingDTO
+     */
+    private static BookingDTO request(BookingSvcImpl service, int provider, int slot) {
+
+        Account account = new Account();
+        account.setAccountId(provider + 1);
+
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(slot);
+        BookingDTO booking = new BookingDTO();
+        booking.setProvider(account);
+        booking.setStartTime(start.toString());
+        booking.setEndTime(start.plusMinutes(30).toString());
+
+        BookingDTO created = service.createBooking(booking);
+        return service.getBooking(created.getBookingId());
+    }
+
+
+    /**
+     * marks the end of the recorded work
+     */
+    @Name(Drained.NAME)
+    private static final class Drained extends Event {
+
+        static final String NAME = "com.basssoft.arms.Drained";
+    }
+
+}
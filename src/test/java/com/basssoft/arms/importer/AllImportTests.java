@@ -0,0 +1,21 @@
+package com.basssoft.arms.importer;
+
+import com.basssoft.arms.importer.controller.ImportControllerTest;
+import com.basssoft.arms.importer.service.CsvImporterTest;
+import org.junit.platform.suite.api.SelectClasses;
+import org.junit.platform.suite.api.Suite;
+
+/**
+ * test suite for all import tests
+ *
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@Suite
+@SelectClasses({
+        CsvImporterTest.class,
+        ImportControllerTest.class
+})
+public class AllImportTests {
+}
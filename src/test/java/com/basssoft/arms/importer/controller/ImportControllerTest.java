@@ -0,0 +1,164 @@
+package com.basssoft.arms.importer.controller;
+
+
+import com.basssoft.arms.importer.domain.ImportError;
+import com.basssoft.arms.importer.domain.ImportSummary;
+import com.basssoft.arms.importer.service.CsvImporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for ImportController
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@WebMvcTest(ImportController.class)
+@Import(ImportControllerTest.TestConfig.class)
+public class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CsvImporter importer;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        CsvImporter csvImporter() {
+            return Mockito.mock(CsvImporter.class);
+        }
+    }
+
+    private static final String BOOKINGS_CSV =
+            "provider_id,customer_id,start_time,end_time\n1,2,2025-05-01T09:00,2025-05-01T10:00\n";
+
+    /**
+     * setup before tests
+     */
+    @BeforeEach
+    public void setUp() {
+        reset(importer);
+    }
+
+
+    /**
+     * Test for importAccounts, every row imported
+     */
+    @Test
+    public void testImportAccounts() throws Exception {
+
+        when(importer.importAccounts(any(InputStream.class))).thenReturn(
+                new ImportSummary(1, "accounts", false, 40, 2, 2, 0, List.of(), 5));
+
+        mockMvc.perform(post("/imports/accounts")
+                        .contentType("text/csv")
+                        .content("screen_name\nalice\nbob\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.kind").value("accounts"))
+                .andExpect(jsonPath("$.rowsImported").value(2));
+    }
+
+
+    /**
+     * Test for importBookings, failed rows give multi-status
+     */
+    @Test
+    public void testImportBookingsPartial() throws Exception {
+
+        when(importer.importBookings(any(InputStream.class))).thenReturn(
+                new ImportSummary(2, "bookings", false, 80, 2, 1, 1,
+                        List.of(new ImportError(3, "Customer account 9 not found.")), 5));
+
+        mockMvc.perform(post("/imports/bookings")
+                        .contentType("text/csv")
+                        .content(BOOKINGS_CSV))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.rowsFailed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Customer account 9 not found."));
+    }
+
+
+    /**
+     * Test for importBookings, bad header
+     */
+    @Test
+    public void testImportBookingsBadHeader() throws Exception {
+
+        when(importer.importBookings(any(InputStream.class)))
+                .thenThrow(new IllegalArgumentException("Column start_time is required."));
+
+        mockMvc.perform(post("/imports/bookings")
+                        .contentType("text/csv")
+                        .content("provider_id,customer_id\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Column start_time is required."));
+    }
+
+
+    /**
+     * Test for importBookings, unreadable input
+     */
+    @Test
+    public void testImportBookingsFailure() throws Exception {
+
+        when(importer.importBookings(any(InputStream.class))).thenThrow(new IOException("reset"));
+
+        mockMvc.perform(post("/imports/bookings")
+                        .contentType("text/csv")
+                        .content(BOOKINGS_CSV))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string("Booking import failed."));
+    }
+
+
+    /**
+     * Test for importAccounts, only text/csv is accepted
+     */
+    @Test
+    public void testImportAccountsJson() throws Exception {
+
+        mockMvc.perform(post("/imports/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+
+    /**
+     * Test for getRunningImports
+     */
+    @Test
+    public void testGetRunningImports() throws Exception {
+
+        when(importer.getRunningImports()).thenReturn(List.of(
+                new ImportSummary(3, "bookings", true, 1 << 20, 9000, 8990, 10, List.of(), 250)));
+
+        mockMvc.perform(get("/imports"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].importId").value(3))
+                .andExpect(jsonPath("$[0].running").value(true))
+                .andExpect(jsonPath("$[0].rowsRead").value(9000));
+    }
+}
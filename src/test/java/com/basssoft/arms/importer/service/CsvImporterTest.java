@@ -0,0 +1,145 @@
+package com.basssoft.arms.importer.service;
+
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.PasswordHasher;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.basssoft.arms.importer.domain.ImportError;
+import com.basssoft.arms.importer.domain.ImportSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link CsvImporter}
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class CsvImporterTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
+    private AccountSvcImpl accounts;
+    private BookingSvcImpl bookings;
+    private CsvImporter importer;
+
+    /**
+     * services and an importer with small blocks, so
+     * records are cut across several of them
+     */
+    @BeforeEach
+    public void setUp() {
+        accounts = new AccountSvcImpl(hasher);
+        bookings = new BookingSvcImpl();
+        importer = new CsvImporter(accounts, bookings, 4, 256);
+    }
+
+    /**
+     * stops the hasher's workers after each test
+     */
+    @AfterEach
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+
+    /**
+     * Test method for {@link CsvImporter#importAccounts(InputStream)}.
+     */
+    @Test
+    public void testImportAccounts() throws IOException {
+
+        ImportSummary summary = importer.importAccounts(csv(
+                "﻿screen_name,provider,city,account_id\r\n"
+                        + "alice,true,\"Fort Collins, CO\",10\r\n"
+                        + "bob,false,Denver,11\r\n"
+                        + "alice,false,Boulder,12\r\n"
+                        + "carol,maybe,Boulder,13\r\n"
+                        + "dave,false,Lyons\r\n"));
+
+        assertEquals(5, summary.getRowsRead());
+        assertEquals(2, summary.getRowsImported());
+        assertEquals(3, summary.getRowsFailed());
+        assertFalse(summary.isRunning());
+        assertEquals(List.of(4L, 5L, 6L), summary.getErrors().stream().map(ImportError::getLine).toList());
+        assertEquals("Invalid provider: maybe", summary.getErrors().get(1).getMessage());
+        assertEquals("Expected 4 fields, found 3.", summary.getErrors().get(2).getMessage());
+
+        assertEquals("Fort Collins, CO", accounts.getAccount(10).getCity());
+        assertTrue(accounts.getAccount(10).isProvider());
+        assertNull(accounts.getAccount(10).getPassword());
+        assertNull(accounts.getAccount(12));
+    }
+
+
+    /**
+     * Test method for {@link CsvImporter#importBookings(InputStream)}.
+     */
+    @Test
+    public void testImportBookings() throws IOException {
+
+        importer.importAccounts(csv("account_id,screen_name,provider\n1,pat,true\n2,sam,false\n"));
+
+        // hourly bookings of provider 1, with a quoted line break to cut across blocks
+        StringBuilder text = new StringBuilder("provider_id,customer_id,start_time,end_time,hourly_rate,street\n");
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0);
+        for (int i = 0; i < 500; i++) {
+            text.append("1,2,").append(start.plusHours(i)).append(',').append(start.plusHours(i + 1))
+                    .append(",25.5,\"").append(i).append(" Main St\nUnit ").append(i).append("\"\n");
+        }
+        // bad references, a bad rate, bad times
+        text.append("2,2,2026-01-01T09:00,2026-01-01T10:00,10,x\n");
+        text.append("1,9,2026-01-01T09:00,2026-01-01T10:00,10,x\n");
+        text.append("1,2,2026-01-01T09:00,2026-01-01T10:00,ten,x\n");
+        text.append("1,2,2026-01-01T09:00,2026-01-01T08:00,10,x\n");
+
+        ImportSummary summary = importer.importBookings(csv(text.toString()));
+        assertEquals(504, summary.getRowsRead());
+        assertEquals(500, summary.getRowsImported());
+        assertEquals(4, summary.getRowsFailed());
+
+        // two lines per booking row after the header
+        List<ImportError> errors = summary.getErrors();
+        assertEquals(List.of(1002L, 1003L, 1004L, 1005L), errors.stream().map(ImportError::getLine).toList());
+        assertEquals("Account 2 is not a provider.", errors.get(0).getMessage());
+        assertEquals("Customer account 9 not found.", errors.get(1).getMessage());
+        assertEquals("Invalid hourly_rate: ten", errors.get(2).getMessage());
+
+        List<BookingDTO> stored = bookings.getAllBookings();
+        assertEquals(500, stored.size());
+        assertTrue(stored.stream().anyMatch(b -> "499 Main St\nUnit 499".equals(b.getLocStreet())));
+        assertEquals(25.5f, stored.get(0).getHourlyRate());
+    }
+
+
+    /**
+     * Test method for {@link CsvImporter#importBookings(InputStream)}:badHeader
+     */
+    @Test
+    public void testBadHeader() {
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importBookings(csv("")));
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importBookings(csv("provider_id,customer_id,start_time,end_time,pasword\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importBookings(csv("provider_id,customer_id,start_time\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importAccounts(csv("city,City\n")));
+        assertTrue(importer.getRunningImports().isEmpty());
+    }
+
+
+    private static InputStream csv(String text) {
+
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,9 +1,14 @@
 package com.basssoft.arms.invoice;
 
 import com.basssoft.arms.invoice.controller.InvoiceControllerTest;
+import com.basssoft.arms.invoice.controller.InvoiceModelAssemblerTest;
+import com.basssoft.arms.invoice.controller.ReportControllerTest;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.platform.suite.api.Suite;
 import com.basssoft.arms.invoice.service.InvoiceSvcTest;
+import com.basssoft.arms.invoice.service.InvoiceGeneratorTest;
+import com.basssoft.arms.invoice.service.CollectionSchedulerTest;
+import com.basssoft.arms.invoice.domain.InvoiceMappingTest;
 
 /**
  * test suite for all invoice tests
@@ -15,7 +20,12 @@ import com.basssoft.arms.invoice.service.InvoiceSvcTest;
 @Suite
 @SelectClasses({
         InvoiceSvcTest.class,
-        InvoiceControllerTest.class
+        InvoiceGeneratorTest.class,
+        CollectionSchedulerTest.class,
+        InvoiceControllerTest.class,
+        InvoiceModelAssemblerTest.class,
+        ReportControllerTest.class,
+        InvoiceMappingTest.class
 })
 public class AllInvoiceTests {
 }
@@ -1,8 +1,11 @@
 package com.basssoft.arms.invoice.controller;
 
 
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.invoice.domain.GenerationSummary;
 import com.basssoft.arms.invoice.domain.InvoiceDTO;
 import com.basssoft.arms.invoice.service.IinvoiceService;
+import com.basssoft.arms.invoice.service.InvoiceGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,13 +18,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.time.LocalDateTime;
 import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -44,6 +53,9 @@ public class InvoiceControllerTest {
     @Autowired
     private InvoiceModelAssembler assembler;
 
+    @Autowired
+    private InvoiceGenerator generator;
+
     @TestConfiguration
     static class TestConfig {
         @Bean
@@ -55,6 +67,11 @@ public class InvoiceControllerTest {
         InvoiceModelAssembler invoiceModelAssembler() {
             return Mockito.mock(InvoiceModelAssembler.class);
         }
+
+        @Bean
+        InvoiceGenerator invoiceGenerator() {
+            return Mockito.mock(InvoiceGenerator.class);
+        }
     }
 
     private InvoiceDTO responseDto;
@@ -64,6 +81,9 @@ public class InvoiceControllerTest {
      */
     @BeforeEach
     void setUp() {
+        // shared by the context, stubs of earlier tests must not leak
+        Mockito.reset(generator);
+
         responseDto = new InvoiceDTO();
         responseDto.setInvoiceId(1);
         responseDto.setProviderId(123);
@@ -71,7 +91,7 @@ public class InvoiceControllerTest {
         responseDto.setTotalAmountDue(250.75f);
 
         EntityModel<InvoiceDTO> model = EntityModel.of(responseDto,
-                linkTo(methodOn(InvoiceController.class).getInvoice(1)).withSelfRel()
+                linkTo(methodOn(InvoiceController.class).getInvoice(1, null, null)).withSelfRel()
         );
 
         when(assembler.toModel(any(InvoiceDTO.class)))
@@ -81,10 +101,18 @@ public class InvoiceControllerTest {
 
             return EntityModel.of(dto,
                     linkTo(methodOn(InvoiceController.class)
-                            .getInvoice(dto.getInvoiceId()))
+                            .getInvoice(dto.getInvoiceId(), null, null))
                             .withSelfRel()
             );
         });
+        when(assembler.toPageModel(Mockito.anyList(), any(), any(),
+                        Mockito.anyInt(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenCallRealMethod();
+        when(assembler.toCompactModel(any(InvoiceDTO.class)))
+                .thenCallRealMethod();
+        when(assembler.toCompactPageModel(Mockito.anyList(), any(), any(),
+                        Mockito.anyInt(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenCallRealMethod();
     }
 
     /**
@@ -111,6 +139,86 @@ public class InvoiceControllerTest {
     }
 
 
+    /**
+     *  Tests {@link InvoiceController#streamInvoices}
+     */
+    @Test
+    void testStreamInvoices() throws Exception {
+
+        when(invoiceService.getInvoicesAfter(0, 500)).thenReturn(List.of(responseDto));
+
+        MvcResult result = mockMvc.perform(get("/invoices").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("{\"invoiceId\":1,"));
+        assertTrue(body.endsWith("}\n"));
+    }
+
+
+    /**
+     *  Tests {@link InvoiceController#exportInvoices}
+     */
+    @Test
+    void testExportInvoices() throws Exception {
+
+        Booking booking = new Booking();
+        booking.setBookingId(7);
+        booking.setStartTime(LocalDateTime.of(2025, 3, 1, 9, 0));
+        booking.setEndTime(LocalDateTime.of(2025, 3, 1, 11, 0));
+        booking.setHourlyRate(25f);
+        booking.setCompleted(true);
+
+        InvoiceDTO billed = new InvoiceDTO();
+        billed.setInvoiceId(1);
+        billed.setProviderId(10);
+        billed.setCustomerId(20);
+        billed.setTotalAmountDue(50f);
+        billed.setBookings(List.of(booking));
+
+        InvoiceDTO empty = new InvoiceDTO();
+        empty.setInvoiceId(2);
+        empty.setProviderId(10);
+        empty.setCustomerId(21);
+
+        when(invoiceService.getInvoicesAfter(0, 500, 10, null, null)).thenReturn(List.of(billed, empty));
+
+        MvcResult result = mockMvc.perform(get("/invoices").accept("text/csv").param("providerId", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"));
+
+        // one row per booking, booking columns empty without bookings
+        String[] lines = result.getResponse().getContentAsString().split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("invoice_id,provider_id,customer_id,total_amount_due"));
+        assertEquals("1,10,20,50.00,,7,2025-03-01T09:00,2025-03-01T11:00,25.00,0.00,true,false", lines[1]);
+        assertEquals("2,10,21,0.00,,,,,,,,", lines[2]);
+    }
+
+
+    /**
+     *  Tests {@link InvoiceController#exportInvoices}:badProvider
+     */
+    @Test
+    void testExportInvoices_BadProvider() throws Exception {
+
+        MvcResult result = mockMvc.perform(get("/invoices").accept("text/csv").param("providerId", "-1"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+    }
+
+
     /**
      *  Tests {@link InvoiceController#getInvoice}:success
      */
@@ -160,14 +268,39 @@ public class InvoiceControllerTest {
         invoiceDto.setTotalAmountDue(100.0f);
 
         List<InvoiceDTO> invoices = List.of(invoiceDto);
-        Mockito.when(invoiceService.getAllInvoices()).thenReturn(invoices);
+        Mockito.when(invoiceService.getInvoicesAfter(0, 51)).thenReturn(invoices);
 
         mockMvc.perform(get("/invoices"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$._embedded.invoiceDTOList[0].invoiceId").value(1))
                 .andExpect(jsonPath("$._embedded.invoiceDTOList[0].totalAmountDue").value(100.0))
-                .andExpect(jsonPath("$._embedded.invoiceDTOList[0]._links.self.href").exists());
-        ;
+                .andExpect(jsonPath("$._embedded.invoiceDTOList[0]._links.self.href").exists())
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/invoices?after=0&size=50"));
+    }
+
+
+    /**
+     *  Tests {@link InvoiceController#getInvoices}:compact
+     */
+    @Test
+    void testGetInvoices_Compact() throws Exception {
+
+        Booking booking = new Booking();
+        booking.setBookingId(7);
+
+        InvoiceDTO invoiceDto = new InvoiceDTO();
+        invoiceDto.setInvoiceId(1);
+        invoiceDto.setBookings(List.of(booking));
+
+        Mockito.when(invoiceService.getInvoicesAfter(0, 51)).thenReturn(List.of(invoiceDto));
+
+        mockMvc.perform(get("/invoices").param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.compactInvoiceDTOList[0].invoiceId").value(1))
+                .andExpect(jsonPath("$._embedded.compactInvoiceDTOList[0].bookingIds[0]").value(7))
+                .andExpect(jsonPath("$._embedded.compactInvoiceDTOList[0].bookings").doesNotExist())
+                .andExpect(jsonPath("$._links.self.href")
+                        .value("http://localhost/invoices?after=0&size=50&view=compact"));
     }
 
 
@@ -256,5 +389,32 @@ public class InvoiceControllerTest {
     }
 
 
+    /**
+     *  Tests {@link InvoiceController#generateInvoices}
+     */
+    @Test
+    void testGenerateInvoices() throws Exception {
+        when(generator.generateInvoices())
+                .thenReturn(new GenerationSummary(10, 6, 2, 1, 1, 0, 5));
+
+        mockMvc.perform(post("/invoices/generate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookingsScanned").value(10))
+                .andExpect(jsonPath("$.bookingsInvoiced").value(6))
+                .andExpect(jsonPath("$.invoicesCreated").value(1))
+                .andExpect(jsonPath("$.invoicesRefreshed").value(1));
+    }
+
+    /**
+     *  Tests {@link InvoiceController#generateInvoices} while a run is in progress
+     */
+    @Test
+    void testGenerateInvoicesAlreadyRunning() throws Exception {
+        when(generator.generateInvoices())
+                .thenThrow(new IllegalStateException("Invoice generation is already running."));
 
+        mockMvc.perform(post("/invoices/generate"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Invoice generation is already running."));
+    }
 }
@@ -0,0 +1,114 @@
+package com.basssoft.arms.invoice.controller;
+
+import com.basssoft.arms.invoice.domain.CompactInvoiceDTO;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Unit tests for InvoiceModelAssembler
+
+ * Links from the precompiled templates must match what
+ * linkTo(methodOn(..)) produces, in both views.
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class InvoiceModelAssemblerTest {
+
+    private static final int ENTITIES = 100;
+
+    private InvoiceModelAssembler assembler;
+    private List<InvoiceDTO> invoices;
+
+    /**
+     * Bind a request and build test data before each test
+     */
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/invoices");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assembler = new InvoiceModelAssembler();
+        invoices = new ArrayList<>(ENTITIES);
+        for (int i = 1; i <= ENTITIES; i++) {
+            InvoiceDTO invoice = new InvoiceDTO();
+            invoice.setInvoiceId(i);
+            invoices.add(invoice);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    /**
+     * Tests {@link InvoiceModelAssembler#toModel} and
+     * {@link InvoiceModelAssembler#toCompactModel} links match linkTo(methodOn(..))
+     */
+    @Test
+    void testToModel_LinksMatchLinkBuilder() {
+
+        for (InvoiceDTO invoice : invoices) {
+            EntityModel<InvoiceDTO> model = assembler.toModel(invoice);
+            EntityModel<CompactInvoiceDTO> compact = assembler.toCompactModel(invoice);
+
+            assertEquals(selfLink(invoice).getHref(), model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+            assertEquals(collectionLink().getHref(), model.getRequiredLink("invoices").getHref());
+            assertEquals(model.getLinks(), compact.getLinks());
+        }
+        assertEquals("http://localhost/invoices/1", assembler.toModel(invoices.get(0))
+                .getRequiredLink(IanaLinkRelations.SELF).getHref());
+    }
+
+
+    /**
+     * Tests {@link InvoiceModelAssembler#toPageModel} and
+     * {@link InvoiceModelAssembler#toCompactPageModel} cursor links
+     */
+    @Test
+    void testToPageModel_Links() {
+
+        CollectionModel<EntityModel<InvoiceDTO>> page =
+                assembler.toPageModel(invoices.subList(10, 20), 10, null, 10, true, true);
+
+        assertEquals(10, page.getContent().size());
+        assertEquals("http://localhost/invoices?after=10&size=10", page.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertEquals("http://localhost/invoices?after=20&size=10", page.getRequiredLink(IanaLinkRelations.NEXT).getHref());
+        assertEquals("http://localhost/invoices?before=11&size=10", page.getRequiredLink(IanaLinkRelations.PREV).getHref());
+
+        CollectionModel<EntityModel<CompactInvoiceDTO>> compact =
+                assembler.toCompactPageModel(invoices.subList(10, 20), 10, null, 10, true, false);
+
+        assertEquals("http://localhost/invoices?before=11&size=10&view=compact",
+                compact.getRequiredLink(IanaLinkRelations.PREV).getHref());
+        assertTrue(compact.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
+
+    private static Link selfLink(InvoiceDTO invoice) {
+        return linkTo(methodOn(InvoiceController.class).getInvoice(invoice.getInvoiceId(), null, null))
+                .withSelfRel().expand();
+    }
+
+    private static Link collectionLink() {
+        return linkTo(InvoiceController.class).withRel("invoices");
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.basssoft.arms.invoice.controller;
+
+import com.basssoft.arms.invoice.domain.RevenueDTO;
+import com.basssoft.arms.invoice.service.IinvoiceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import java.time.YearMonth;
+import java.util.List;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for ReportController
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@WebMvcTest(ReportController.class)
+@Import(ReportControllerTest.TestConfig.class)
+public class ReportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IinvoiceService invoiceService;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        IinvoiceService invoiceService() {
+            return Mockito.mock(IinvoiceService.class);
+        }
+    }
+
+    /**
+     * setup before tests
+     */
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(invoiceService);
+        when(invoiceService.getRevenueVersion()).thenReturn(42L);
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.invoice.controller.ReportController#getProviderRevenue
+     */
+    @Test
+    void testGetProviderRevenue() throws Exception {
+
+        when(invoiceService.getProviderRevenue(10, "2025-01", "2025-06"))
+                .thenReturn(List.of(new RevenueDTO(10, "2025-03", 2, 250.0),
+                        new RevenueDTO(10, "2025-04", 1, 20.0)));
+
+        mockMvc.perform(get("/reports/revenue/providers/10")
+                        .param("from", "2025-01")
+                        .param("to", "2025-06"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"42\""))
+                .andExpect(jsonPath("$._embedded.revenueDTOList.length()").value(2))
+                .andExpect(jsonPath("$._embedded.revenueDTOList[0].month").value("2025-03"))
+                .andExpect(jsonPath("$._embedded.revenueDTOList[0].revenue").value(250.0))
+                .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.invoice.controller.ReportController#getProviderRevenue:defaultRange
+     */
+    @Test
+    void testGetProviderRevenue_DefaultRange() throws Exception {
+
+        YearMonth now = YearMonth.now();
+        when(invoiceService.getProviderRevenue(10, now.minusMonths(11).toString(), now.toString()))
+                .thenReturn(List.of(new RevenueDTO(10, now.toString(), 1, 20.0)));
+
+        mockMvc.perform(get("/reports/revenue/providers/10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.revenueDTOList[0].month").value(now.toString()));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.invoice.controller.ReportController#getProviderRevenue:badRequest
+     */
+    @Test
+    void testGetProviderRevenue_BadRequest() throws Exception {
+
+        mockMvc.perform(get("/reports/revenue/providers/10")
+                        .param("to", "2025-13"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.invoice.controller.ReportController#getMonthRevenue
+     */
+    @Test
+    void testGetMonthRevenue() throws Exception {
+
+        when(invoiceService.getMonthRevenue("2025-03"))
+                .thenReturn(List.of(new RevenueDTO(10, "2025-03", 2, 250.0),
+                        new RevenueDTO(11, "2025-03", 1, 40.0)));
+
+        mockMvc.perform(get("/reports/revenue/months/2025-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.revenueDTOList[1].providerId").value(11));
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.invoice.controller.ReportController#getMonthRevenue:notModified
+     */
+    @Test
+    void testGetMonthRevenue_NotModified() throws Exception {
+
+        mockMvc.perform(get("/reports/revenue/months/2025-03").header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified());
+    }
+
+
+    /**
+     * Tests @Link com.basssoft.invoice.controller.ReportController#getMonthRevenue:badRequest
+     */
+    @Test
+    void testGetMonthRevenue_BadRequest() throws Exception {
+
+        when(invoiceService.getMonthRevenue(anyString()))
+                .thenThrow(new IllegalArgumentException("Invalid month: march"));
+
+        mockMvc.perform(get("/reports/revenue/months/march"))
+                .andExpect(status().isBadRequest());
+    }
+}
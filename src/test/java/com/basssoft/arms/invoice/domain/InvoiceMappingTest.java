@@ -0,0 +1,118 @@
+package com.basssoft.arms.invoice.domain;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.Booking;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Relational mapping of Invoice / Booking / Account
+ * against an embedded H2 database
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+@DataJpaTest(properties = {
+        // the application itself runs without a datasource
+        "spring.autoconfigure.exclude=",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class InvoiceMappingTest {
+
+    private static final int INVOICES = 1_000;
+    private static final int BOOKINGS_PER_INVOICE = 3;
+    private static final int PROVIDERS = 50;
+    private static final int CUSTOMERS = 150;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+
+    @BeforeEach
+    void setUp() {
+
+        List<Account> accounts = new ArrayList<>();
+        for (int id = 1; id <= PROVIDERS + CUSTOMERS; id++) {
+            Account account = new Account();
+            account.setAccountId(id);
+            account.setScreenName("user" + id);
+            account.setProvider(id <= PROVIDERS);
+            entityManager.persist(account);
+            accounts.add(account);
+        }
+
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        int bookingId = 0;
+        for (int id = 1; id <= INVOICES; id++) {
+            Account provider = accounts.get(id % PROVIDERS);
+            Account customer = accounts.get(PROVIDERS + id % CUSTOMERS);
+
+            List<Booking> bookings = new ArrayList<>();
+            for (int n = 0; n < BOOKINGS_PER_INVOICE; n++) {
+                Booking booking = new Booking();
+                booking.setBookingId(++bookingId);
+                booking.setProvider(provider);
+                booking.setCustomer(customer);
+                booking.setStartTime(start.plusHours(bookingId));
+                booking.setEndTime(start.plusHours(bookingId).plusMinutes(30));
+                entityManager.persist(booking);
+                bookings.add(booking);
+            }
+
+            Invoice invoice = new Invoice();
+            invoice.setInvoiceId(id);
+            invoice.setProvider(provider);
+            invoice.setCustomer(customer);
+            invoice.setBookings(bookings);
+            entityManager.persist(invoice);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+
+    /**
+     * Loading 1,000 invoices with their accounts, bookings and
+     * booking accounts takes a bounded number of queries (no N+1)
+     */
+    @Test
+    void testLoadInvoices_QueryCount() {
+
+        EntityManager em = entityManager.getEntityManager();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Invoice> invoices = em.createQuery("select i from Invoice i order by i.invoiceId", Invoice.class)
+                .setHint("jakarta.persistence.fetchgraph", em.getEntityGraph(Invoice.WITH_ACCOUNTS))
+                .getResultList();
+
+        int bookings = 0;
+        for (Invoice invoice : invoices) {
+            assertNotNull(invoice.getProvider().getScreenName());
+            assertNotNull(invoice.getCustomer().getScreenName());
+            for (Booking booking : invoice.getBookings()) {
+                assertNotNull(booking.getProvider().getScreenName());
+                assertNotNull(booking.getCustomer().getScreenName());
+                bookings++;
+            }
+        }
+        assertEquals(INVOICES, invoices.size());
+        assertEquals(INVOICES * BOOKINGS_PER_INVOICE, bookings);
+
+        // 1 for invoices + accounts, 1 per 100 invoices for bookings,
+        // 1 per 100 accounts should any still be unloaded (N+1 would be ~4,000)
+        long queries = statistics.getPrepareStatementCount();
+        assertTrue(queries <= 1 + INVOICES / 100 + (PROVIDERS + CUSTOMERS) / 100, "queries: " + queries);
+    }
+}
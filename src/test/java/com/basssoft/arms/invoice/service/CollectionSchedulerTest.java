@@ -0,0 +1,216 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.BookingChangedEvent;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.invoice.domain.InvoiceChangedEvent;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link CollectionScheduler}
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class CollectionSchedulerTest {
+
+    private InvoiceSvcImpl service;
+    private CollectionScheduler scheduler;
+    private MutableClock clock;
+
+    /**
+     * Setup method wires the scheduler to invoice events
+     */
+    @BeforeEach
+    public void setUp() {
+        service = new InvoiceSvcImpl();
+        clock = new MutableClock(Instant.parse("2025-03-01T09:00:00Z"));
+        scheduler = new CollectionScheduler(service, clock, Duration.ofDays(7), Duration.ofMinutes(1), 500);
+
+        ApplicationEventPublisher events = event -> {
+            if (event instanceof InvoiceChangedEvent changed) {
+                scheduler.onInvoiceChanged(changed);
+            }
+        };
+        ReflectionTestUtils.setField(service, "events", events);
+    }
+
+
+    /**
+     * Test method for {@link CollectionScheduler#runCollections()}.
+     */
+    @Test
+    public void testContactOncePerInterval() {
+
+        int invoiceId = invoice(10, 20, null);
+        service.onBookingChanged(new BookingChangedEvent(null, booking(1, 10, 20)));
+
+        // never contacted: due right away
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, scheduler.runCollections());
+        assertEquals("2025-03-01T09:01", service.getInvoice(invoiceId).getLastContacted());
+
+        // not again until a week later
+        clock.advance(Duration.ofDays(6));
+        assertEquals(0, scheduler.runCollections());
+        clock.advance(Duration.ofDays(1));
+        assertEquals(1, scheduler.runCollections());
+        assertEquals("2025-03-08T09:01", service.getInvoice(invoiceId).getLastContacted());
+    }
+
+
+    /**
+     * Test method for {@link CollectionScheduler#runCollections()}.
+     */
+    @Test
+    public void testNothingOwed() {
+
+        int invoiceId = invoice(10, 20, "2025-02-01T09:00");
+
+        // overdue by time, but nothing due: looked at again next interval
+        assertEquals(0, scheduler.runCollections());
+        assertEquals("2025-02-01T09:00", service.getInvoice(invoiceId).getLastContacted());
+        assertEquals(1, scheduler.scheduled());
+
+        service.onBookingChanged(new BookingChangedEvent(null, booking(1, 10, 20)));
+        clock.advance(Duration.ofDays(3));
+        assertEquals(0, scheduler.runCollections());
+        clock.advance(Duration.ofDays(4));
+        assertEquals(1, scheduler.runCollections());
+    }
+
+
+    /**
+     * Test method for {@link CollectionScheduler#onInvoiceChanged(InvoiceChangedEvent)}.
+     */
+    @Test
+    public void testFollowsInvoiceWrites() {
+
+        int invoiceId = invoice(10, 20, null);
+        service.onBookingChanged(new BookingChangedEvent(null, booking(1, 10, 20)));
+
+        // contacted by hand yesterday: next contact in six days
+        InvoiceDTO invoice = service.getInvoice(invoiceId);
+        invoice.setLastContacted("2025-02-28T09:00");
+        service.updateInvoice(invoice);
+        assertEquals(0, scheduler.runCollections());
+        clock.advance(Duration.ofDays(6));
+        assertEquals(1, scheduler.runCollections());
+
+        service.deleteInvoice(invoiceId);
+        assertEquals(0, scheduler.scheduled());
+    }
+
+
+    /**
+     * Test method for {@link CollectionScheduler#load()}.
+     */
+    @Test
+    public void testLoadAndBatches() {
+
+        // written before the scheduler listened
+        ReflectionTestUtils.setField(service, "events", null);
+        for (int customerId = 1; customerId <= 1_200; customerId++) {
+            invoice(10, customerId, null);
+            service.onBookingChanged(new BookingChangedEvent(null, booking(customerId, 10, customerId)));
+        }
+        assertEquals(0, scheduler.scheduled());
+        scheduler.load();
+        assertEquals(1_200, scheduler.scheduled());
+
+        // three markContacted batches of up to 500
+        assertEquals(1_200, scheduler.runCollections());
+        assertEquals(1_200, scheduler.scheduled());
+        assertEquals(0, scheduler.runCollections());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#markContacted(int[], String)}.
+     */
+    @Test
+    public void testMarkContacted() {
+
+        int first = invoice(10, 20, null);
+        int second = invoice(11, 21, null);
+        long version = service.getInvoice(first).getVersion();
+
+        assertArrayEquals(new int[] {first, second},
+                service.markContacted(new int[] {first, 999, second}, "2025-03-01T10:00"));
+        assertEquals("2025-03-01T10:00", service.getInvoice(second).getLastContacted());
+        assertTrue(service.getInvoice(first).getVersion() > version);
+        assertThrows(IllegalArgumentException.class, () -> service.markContacted(new int[] {first}, null));
+    }
+
+
+    private int invoice(int providerId, int customerId, String lastContacted) {
+
+        InvoiceDTO invoice = new InvoiceDTO();
+        invoice.setProviderId(providerId);
+        invoice.setCustomerId(customerId);
+        invoice.setLastContacted(lastContacted);
+        return service.createInvoice(invoice).getInvoiceId();
+    }
+
+    // completed two hour booking at 50.00
+    private static BookingDTO booking(int bookingId, int providerId, int customerId) {
+
+        Account provider = new Account();
+        provider.setAccountId(providerId);
+        Account customer = new Account();
+        customer.setAccountId(customerId);
+
+        BookingDTO booking = new BookingDTO();
+        booking.setBookingId(bookingId);
+        booking.setProvider(provider);
+        booking.setCustomer(customer);
+        booking.setHourlyRate(50f);
+        booking.setCompleted(true);
+        booking.setStartTime("2025-02-20T09:00");
+        booking.setEndTime("2025-02-20T11:00");
+        return booking;
+    }
+
+
+    /**
+     * clock the tests move by hand
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.basssoft.arms.invoice.service;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingChangedEvent;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.basssoft.arms.invoice.domain.GenerationSummary;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link InvoiceGenerator}
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class InvoiceGeneratorTest {
+
+
+    private BookingSvcImpl bookingService;
+    private InvoiceSvcImpl invoiceService;
+    private InvoiceGenerator generator;
+
+    // next free start hour, keeps provider schedules from overlapping
+    private int nextHour;
+
+    /**
+     * Setup method wires real services, booking events feed the invoice ledger
+     */
+    @BeforeEach
+    public void setUp() {
+        bookingService = new BookingSvcImpl();
+        invoiceService = new InvoiceSvcImpl();
+        ReflectionTestUtils.setField(bookingService, "events", (ApplicationEventPublisher) event ->
+                invoiceService.onBookingChanged((BookingChangedEvent) event));
+        ReflectionTestUtils.setField(invoiceService, "bookingService", bookingService);
+        generator = new InvoiceGenerator(invoiceService, bookingService, 4);
+        nextHour = 0;
+    }
+
+
+    /**
+     * Test method for {@link InvoiceGenerator#generateInvoices()}.
+     */
+    @Test
+    public void testGenerateInvoices() {
+
+        BookingDTO first = bookingService.createBooking(booking(10, 20, true, false));
+        BookingDTO second = bookingService.createBooking(booking(10, 20, true, false));
+        BookingDTO other = bookingService.createBooking(booking(11, 20, true, false));
+        bookingService.createBooking(booking(10, 20, true, true));   // paid
+        bookingService.createBooking(booking(10, 20, false, false)); // not completed
+
+        GenerationSummary summary = generator.generateInvoices();
+        assertEquals(5, summary.getBookingsScanned());
+        assertEquals(3, summary.getBookingsInvoiced());
+        assertEquals(2, summary.getPairs());
+        assertEquals(2, summary.getInvoicesCreated());
+        assertEquals(0, summary.getInvoicesRefreshed());
+        assertEquals(0, summary.getFailures());
+
+        List<InvoiceDTO> invoices = invoiceService.getAllInvoices();
+        assertEquals(2, invoices.size());
+
+        InvoiceDTO pair = invoice(10, 20);
+        assertEquals(List.of(first.getBookingId(), second.getBookingId()),
+                pair.getBookings().stream().map(Booking::getBookingId).toList());
+        assertEquals(200f, pair.getTotalAmountDue());
+        assertEquals(List.of(other.getBookingId()),
+                invoice(11, 20).getBookings().stream().map(Booking::getBookingId).toList());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceGenerator#generateInvoices()}:
+     * the total due is the sum of the listed bookings
+     */
+    @Test
+    public void testGenerateInvoicesTotalMatchesBookings() {
+
+        BookingDTO done = bookingService.createBooking(booking(10, 20, true, false));
+        BookingDTO open = bookingService.createBooking(booking(10, 20, false, false));
+        generator.generateInvoices();
+
+        InvoiceDTO invoice = invoice(10, 20);
+        assertEquals(List.of(done.getBookingId()),
+                invoice.getBookings().stream().map(Booking::getBookingId).toList());
+        assertEquals(100f, invoice.getTotalAmountDue());
+
+        // completed: billed, and listed from the next run on
+        open.setCompleted(true);
+        bookingService.updateBooking(open);
+        assertEquals(200f, invoice(10, 20).getTotalAmountDue());
+
+        generator.generateInvoices();
+        assertEquals(List.of(done.getBookingId(), open.getBookingId()),
+                invoice(10, 20).getBookings().stream().map(Booking::getBookingId).toList());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceGenerator#generateInvoices()} run twice.
+     */
+    @Test
+    public void testGenerateInvoicesRefresh() {
+
+        BookingDTO first = bookingService.createBooking(booking(10, 20, true, false));
+        BookingDTO other = bookingService.createBooking(booking(11, 20, true, false));
+        generator.generateInvoices();
+        InvoiceDTO before = invoice(10, 20);
+
+        // pair 11 / 20 paid up, pair 10 / 20 gets one more booking
+        other.setPaid(true);
+        bookingService.updateBooking(other);
+        BookingDTO added = bookingService.createBooking(booking(10, 20, true, false));
+
+        GenerationSummary summary = generator.generateInvoices();
+        assertEquals(0, summary.getInvoicesCreated());
+        assertEquals(2, summary.getInvoicesRefreshed());
+        assertEquals(2, invoiceService.getAllInvoices().size());
+
+        InvoiceDTO after = invoice(10, 20);
+        assertEquals(before.getInvoiceId(), after.getInvoiceId());
+        assertEquals(List.of(first.getBookingId(), added.getBookingId()),
+                after.getBookings().stream().map(Booking::getBookingId).toList());
+        assertTrue(invoice(11, 20).getBookings().isEmpty());
+
+        // nothing changed, paid up invoice is left alone
+        summary = generator.generateInvoices();
+        assertEquals(1, summary.getInvoicesRefreshed());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceGenerator#generateInvoices()} over many pairs.
+     */
+    @Test
+    public void testGenerateInvoicesManyPairs() {
+
+        for (int n = 0; n < 10_000; n++) {
+            bookingService.createBooking(booking(1 + n % 50, 100 + n % 40, true, false));
+        }
+
+        GenerationSummary summary = generator.generateInvoices();
+        assertEquals(10_000, summary.getBookingsInvoiced());
+        assertEquals(200, summary.getPairs());
+        assertEquals(200, summary.getInvoicesCreated());
+        assertEquals(10_000, invoiceService.getAllInvoices().stream()
+                .mapToInt(invoice -> invoice.getBookings().size()).sum());
+    }
+
+
+    private InvoiceDTO invoice(int providerId, int customerId) {
+
+        return invoiceService.getAllInvoices().stream()
+                .filter(invoice -> invoice.getProviderId() == providerId && invoice.getCustomerId() == customerId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    // one hour booking at 100 / hour, two hours apart
+    private BookingDTO booking(int providerId, int customerId, boolean completed, boolean paid) {
+
+        Account provider = new Account();
+        provider.setAccountId(providerId);
+        Account customer = new Account();
+        customer.setAccountId(customerId);
+
+        int hour = nextHour++;
+        BookingDTO booking = new BookingDTO();
+        booking.setProvider(provider);
+        booking.setCustomer(customer);
+        booking.setHourlyRate(100f);
+        booking.setCompleted(completed);
+        booking.setPaid(paid);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0).plusHours(2L * hour);
+        booking.setStartTime(start.toString());
+        booking.setEndTime(start.plusHours(1).toString());
+        return booking;
+    }
+
+}
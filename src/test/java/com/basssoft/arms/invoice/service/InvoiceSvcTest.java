@@ -1,8 +1,17 @@
 package com.basssoft.arms.invoice.service;
 
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.booking.domain.BookingChangedEvent;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
 import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.invoice.domain.RevenueDTO;
+import com.basssoft.arms.store.BatchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,9 +43,13 @@ public class InvoiceSvcTest {
     public void testCreateInvoice() {
 
         InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setProviderId(10);
+        invoiceDTO.setCustomerId(20);
         InvoiceDTO result = service.createInvoice(invoiceDTO);
         assertNotNull(result);
-        assertNotNull(result.getInvoiceId());
+        assertTrue(result.getInvoiceId() > 0);
+        assertEquals(10, result.getProviderId());
+        assertEquals(20, result.getCustomerId());
     }
     
     /**
@@ -45,8 +58,14 @@ public class InvoiceSvcTest {
     @Test
     public void testGetInvoiceById() {
 
-        InvoiceDTO invoice = service.getInvoice(1);
+        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setLastContacted("2025-03-01T09:00");
+        int id = service.createInvoice(invoiceDTO).getInvoiceId();
+
+        InvoiceDTO invoice = service.getInvoice(id);
         assertNotNull(invoice);
+        assertEquals("2025-03-01T09:00", invoice.getLastContacted());
+        assertNull(service.getInvoice(id + 1));
     }
     
     /**
@@ -65,9 +84,14 @@ public class InvoiceSvcTest {
     @Test
     public void testUpdateInvoice() {
 
-        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        InvoiceDTO invoiceDTO = service.createInvoice(new InvoiceDTO());
+        invoiceDTO.setTotalAmountDue(42.5f);
         InvoiceDTO result = service.updateInvoice(invoiceDTO);
         assertEquals(result, invoiceDTO);
+
+        InvoiceDTO missing = new InvoiceDTO();
+        missing.setInvoiceId(999);
+        assertNull(service.updateInvoice(missing));
     }
     
     /**
@@ -76,10 +100,352 @@ public class InvoiceSvcTest {
     @Test
     public void testDeleteInvoice() {
 
+        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setInvoiceId(1);
+        service.createInvoice(invoiceDTO);
+
         int result = service.deleteInvoice(1);
         assertEquals(1, result);
+        assertEquals(-1, service.deleteInvoice(1));
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#getInvoicesAfter(int, int)}.
+     */
+    @Test
+    public void testGetInvoicesAfter() {
+
+        for (int i = 0; i < 3; i++) {
+            service.createInvoice(new InvoiceDTO());
+        }
+        List<InvoiceDTO> page = service.getInvoicesAfter(1, 10);
+        assertEquals(2, page.size());
+        assertEquals(2, page.get(0).getInvoiceId());
+        assertThrows(IllegalArgumentException.class, () -> service.getInvoicesAfter(0, 0));
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#getInvoicesAfter(int, int, int, String, String)}.
+     */
+    @Test
+    public void testGetInvoicesAfter_Filtered() {
+
+        int both = service.createInvoice(invoice(10, entity(1, "2025-03-31T23:00"), entity(2, "2025-04-01T00:00")))
+                .getInvoiceId();
+        service.createInvoice(invoice(11, entity(3, "2025-03-10T09:00")));
+        int empty = service.createInvoice(invoice(10)).getInvoiceId();
+        // more than one store page in between
+        for (int i = 0; i < 1_200; i++) {
+            service.createInvoice(invoice(12));
+        }
+        int last = service.createInvoice(invoice(10, entity(4, "2025-03-01T00:00"))).getInvoiceId();
+
+        List<InvoiceDTO> all = service.getInvoicesAfter(0, 10, 10, null, null);
+        assertEquals(List.of(both, empty, last), all.stream().map(InvoiceDTO::getInvoiceId).toList());
+        assertEquals(2, all.get(0).getBookings().size());
+
+        // March only: the April booking is left out, the empty invoice dropped
+        List<InvoiceDTO> march = service.getInvoicesAfter(0, 10, 10, "2025-03-01T00:00", "2025-04-01T00:00");
+        assertEquals(List.of(both, last), march.stream().map(InvoiceDTO::getInvoiceId).toList());
+        assertEquals(1, march.get(0).getBookings().size());
+        assertEquals(1, march.get(0).getBookings().get(0).getBookingId());
+
+        // a full page ends at the size, the walk continues after it
+        assertEquals(List.of(both), service.getInvoicesAfter(0, 1, 10, "2025-03-01T00:00", null)
+                .stream().map(InvoiceDTO::getInvoiceId).toList());
+        assertEquals(1_204, service.getInvoicesAfter(0, 5_000, 0, null, null).size());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getInvoicesAfter(0, 10, 0, "2025-04-01T00:00", "2025-04-01T00:00"));
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#onBookingChanged(BookingChangedEvent)}.
+     */
+    @Test
+    public void testOnBookingChanged() {
+
+        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setProviderId(10);
+        invoiceDTO.setCustomerId(20);
+        int invoiceId = service.createInvoice(invoiceDTO).getInvoiceId();
+
+        // 2 hours at 50.00, not billed until completed
+        BookingDTO created = booking(1, 50f);
+        service.onBookingChanged(new BookingChangedEvent(null, created));
+        assertEquals(0f, service.getInvoice(invoiceId).getTotalAmountDue());
+
+        // completed half an hour over
+        BookingDTO completed = booking(1, 50f);
+        completed.setCompleted(true);
+        completed.setOverHours(0.5f);
+        service.onBookingChanged(new BookingChangedEvent(created, completed));
+        assertEquals(125f, service.getInvoice(invoiceId).getTotalAmountDue());
+
+        // paid bookings owe nothing
+        BookingDTO paid = booking(1, 50f);
+        paid.setCompleted(true);
+        paid.setOverHours(0.5f);
+        paid.setPaid(true);
+        service.onBookingChanged(new BookingChangedEvent(completed, paid));
+        assertEquals(0f, service.getInvoice(invoiceId).getTotalAmountDue());
+
+        BookingDTO other = booking(2, 12.5f);
+        other.setCompleted(true);
+        service.onBookingChanged(new BookingChangedEvent(null, other));
+        service.onBookingChanged(new BookingChangedEvent(paid, null));
+        assertEquals(25f, service.getInvoice(invoiceId).getTotalAmountDue());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#onBookingChanged(BookingChangedEvent)}:exact
+     */
+    @Test
+    public void testOnBookingChangedExact() {
+
+        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setProviderId(10);
+        invoiceDTO.setCustomerId(20);
+        int invoiceId = service.createInvoice(invoiceDTO).getInvoiceId();
+
+        // beyond float precision: 2 hours at 1234567.89
+        BookingDTO large = booking(1, 1234567.89);
+        large.setCompleted(true);
+        service.onBookingChanged(new BookingChangedEvent(null, large));
+        assertEquals(2469135.78, service.getInvoice(invoiceId).getTotalAmountDue());
+
+        // 10 minutes over: 2674897.095 rounds half up, once
+        BookingDTO completed = booking(1, 1234567.89);
+        completed.setCompleted(true);
+        completed.setOverHours(1 / 6.0);
+        service.onBookingChanged(new BookingChangedEvent(large, completed));
+        assertEquals(2674897.10, service.getInvoice(invoiceId).getTotalAmountDue());
+
+        // many small amounts add up without drift
+        for (int i = 2; i < 1_002; i++) {
+            BookingDTO small = booking(i, 0.07);
+            small.setCompleted(true);
+            service.onBookingChanged(new BookingChangedEvent(null, small));
+        }
+        assertEquals(2675037.10, service.getInvoice(invoiceId).getTotalAmountDue());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#verifyTotals()}.
+     */
+    @Test
+    public void testVerifyTotals() {
+
+        // booking service without events: the running total misses this booking
+        BookingSvcImpl bookingService = new BookingSvcImpl();
+        BookingDTO completed = booking(0, 50f);
+        completed.setCompleted(true);
+        bookingService.createBooking(completed);
+        ReflectionTestUtils.setField(service, "bookingService", bookingService);
+
+        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setProviderId(10);
+        invoiceDTO.setCustomerId(20);
+        int invoiceId = service.createInvoice(invoiceDTO).getInvoiceId();
+        assertEquals(0f, service.getInvoice(invoiceId).getTotalAmountDue());
+
+        // first recount only notes the mismatch, second one repairs it
+        assertEquals(0, service.verifyTotals());
+        assertEquals(1, service.verifyTotals());
+        assertEquals(100f, service.getInvoice(invoiceId).getTotalAmountDue());
+        assertEquals(0, service.verifyTotals());
+    }
+
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#createInvoices(List)}.
+     */
+    @Test
+    public void testCreateInvoices() {
+        InvoiceDTO explicit = new InvoiceDTO();
+        explicit.setInvoiceId(2);
+        InvoiceDTO negative = new InvoiceDTO();
+        negative.setInvoiceId(-1);
+
+        List<BatchResult<InvoiceDTO>> results = service.createInvoices(
+                List.of(new InvoiceDTO(), explicit, negative, explicit));
+
+        assertEquals(1, results.get(0).getValue().getInvoiceId());
+        assertEquals(2, results.get(1).getValue().getInvoiceId());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Invoice 2 already exists.", results.get(3).getError());
+        assertEquals(2, service.getAllInvoices().size());
+
+        // sequence continues after the supplied id
+        assertEquals(3, service.createInvoice(new InvoiceDTO()).getInvoiceId());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#updateInvoices(List)}.
+     */
+    @Test
+    public void testUpdateInvoices() {
+        InvoiceDTO invoice = service.createInvoice(new InvoiceDTO());
+        invoice.setLastContacted("2025-03-01T09:00");
+        InvoiceDTO missing = new InvoiceDTO();
+        missing.setInvoiceId(999);
+
+        List<BatchResult<InvoiceDTO>> results = service.updateInvoices(List.of(invoice, missing));
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("2025-03-01T09:00", service.getInvoice(invoice.getInvoiceId()).getLastContacted());
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#getInvoicesVersion()}.
+     */
+    @Test
+    public void testVersions() {
+
+        InvoiceDTO invoiceDTO = new InvoiceDTO();
+        invoiceDTO.setProviderId(10);
+        invoiceDTO.setCustomerId(20);
+        InvoiceDTO created = service.createInvoice(invoiceDTO);
+        long tableVersion = service.getInvoicesVersion();
+        assertTrue(created.getVersion() > 0);
+        assertEquals(created.getVersion(), service.getInvoice(created.getInvoiceId()).getVersion());
+
+        // a booking change moves the total, so the invoice and table versions too
+        BookingDTO completed = booking(1, 50f);
+        completed.setCompleted(true);
+        service.onBookingChanged(new BookingChangedEvent(null, completed));
+        long afterBooking = service.getInvoice(created.getInvoiceId()).getVersion();
+        assertTrue(afterBooking > created.getVersion());
+        assertTrue(service.getInvoicesVersion() > tableVersion);
+
+        // as does an update of the invoice itself
+        created.setLastContacted("2025-03-01T09:00");
+        assertTrue(service.updateInvoice(created).getVersion() > afterBooking);
     }
 
 
+    /**
+     * Test method for {@link InvoiceSvcImpl#getProviderRevenue(int, String, String)}.
+     */
+    @Test
+    public void testProviderRevenue() {
+
+        // not earned until completed
+        BookingDTO created = booking(1, 50f);
+        service.onBookingChanged(new BookingChangedEvent(null, created));
+        assertTrue(service.getProviderRevenue(10, "2025-01", "2025-12").isEmpty());
+
+        // completed half an hour over: 2.5 hours at 50.00, paid or not
+        BookingDTO completed = booking(1, 50f);
+        completed.setCompleted(true);
+        completed.setOverHours(0.5f);
+        service.onBookingChanged(new BookingChangedEvent(created, completed));
+        BookingDTO paid = booking(1, 50f);
+        paid.setCompleted(true);
+        paid.setOverHours(0.5f);
+        paid.setPaid(true);
+        service.onBookingChanged(new BookingChangedEvent(completed, paid));
+
+        // another booking in April
+        BookingDTO april = booking(2, 20f);
+        april.setCompleted(true);
+        april.setStartTime("2025-04-02T09:00");
+        april.setEndTime("2025-04-02T10:00");
+        service.onBookingChanged(new BookingChangedEvent(null, april));
+
+        List<RevenueDTO> rows = service.getProviderRevenue(10, "2025-01", "2025-12");
+        assertEquals(2, rows.size());
+        assertEquals(new RevenueDTO(10, "2025-03", 1, 125.0), rows.get(0));
+        assertEquals(new RevenueDTO(10, "2025-04", 1, 20.0), rows.get(1));
+        assertEquals(1, service.getProviderRevenue(10, "2025-04", "2025-04").size());
+        assertEquals(List.of(new RevenueDTO(10, "2025-03", 1, 125.0)), service.getMonthRevenue("2025-03"));
+
+        // moved to May, then deleted
+        BookingDTO may = booking(2, 20f);
+        may.setCompleted(true);
+        may.setStartTime("2025-05-02T09:00");
+        may.setEndTime("2025-05-02T10:00");
+        service.onBookingChanged(new BookingChangedEvent(april, may));
+        assertTrue(service.getMonthRevenue("2025-04").isEmpty());
+        assertEquals(List.of(new RevenueDTO(10, "2025-05", 1, 20.0)), service.getMonthRevenue("2025-05"));
+
+        long version = service.getRevenueVersion();
+        service.onBookingChanged(new BookingChangedEvent(may, null));
+        assertTrue(service.getMonthRevenue("2025-05").isEmpty());
+        assertTrue(service.getRevenueVersion() > version);
+    }
+
+
+    /**
+     * Test method for {@link InvoiceSvcImpl#getMonthRevenue(String)}.
+     */
+    @Test
+    public void testMonthRevenue() {
+
+        for (int providerId = 1; providerId <= 100; providerId++) {
+            for (int day = 1; day <= 20; day++) {
+                BookingDTO booking = booking(providerId * 100 + day, providerId);
+                booking.getProvider().setAccountId(providerId);
+                booking.setCompleted(true);
+                booking.setStartTime(String.format("2025-%02d-01T09:00", day % 12 + 1));
+                booking.setEndTime(String.format("2025-%02d-01T10:00", day % 12 + 1));
+                service.onBookingChanged(new BookingChangedEvent(null, booking));
+            }
+        }
+        List<RevenueDTO> march = service.getMonthRevenue("2025-03");
+        assertEquals(100, march.size());
+        assertEquals(new RevenueDTO(7, "2025-03", 2, 14.0), march.get(6));
+        assertEquals(12, service.getProviderRevenue(7, "2025-01", "2025-12").size());
+        assertEquals(6, service.getProviderRevenue(7, "2025-07", "2026-06").size());
+
+        assertThrows(IllegalArgumentException.class, () -> service.getMonthRevenue("2025-13"));
+        assertThrows(IllegalArgumentException.class, () -> service.getMonthRevenue(null));
+        assertThrows(IllegalArgumentException.class, () -> service.getProviderRevenue(7, "2025-06", "2025-05"));
+        assertThrows(IllegalArgumentException.class, () -> service.getProviderRevenue(0, "2025-01", "2025-12"));
+    }
+
+    // two hour booking between provider 10 and customer 20
+    private static BookingDTO booking(int bookingId, double hourlyRate) {
+
+        Account provider = new Account();
+        provider.setAccountId(10);
+        Account customer = new Account();
+        customer.setAccountId(20);
+
+        BookingDTO booking = new BookingDTO();
+        booking.setBookingId(bookingId);
+        booking.setProvider(provider);
+        booking.setCustomer(customer);
+        booking.setHourlyRate(hourlyRate);
+        booking.setStartTime("2025-03-01T09:00");
+        booking.setEndTime("2025-03-01T11:00");
+        return booking;
+    }
+
+    private static InvoiceDTO invoice(int providerId, Booking... bookings) {
+
+        InvoiceDTO invoice = new InvoiceDTO();
+        invoice.setProviderId(providerId);
+        invoice.setCustomerId(20);
+        invoice.setBookings(List.of(bookings));
+        return invoice;
+    }
+
+    private static Booking entity(int bookingId, String startTime) {
+
+        Booking booking = new Booking();
+        booking.setBookingId(bookingId);
+        booking.setStartTime(LocalDateTime.parse(startTime));
+        booking.setEndTime(booking.getStartTime().plusHours(1));
+        return booking;
+    }
 
 }
@@ -0,0 +1,202 @@
+package com.basssoft.arms.journal;
+
+import com.basssoft.arms.account.domain.Account;
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.PasswordHasher;
+import com.basssoft.arms.booking.domain.BookingChangedEvent;
+import com.basssoft.arms.booking.domain.BookingDTO;
+import com.basssoft.arms.booking.service.BookingSvcImpl;
+import com.basssoft.arms.invoice.domain.InvoiceDTO;
+import com.basssoft.arms.invoice.service.InvoiceSvcImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link StateJournal},
+ * restarting the services on the same directory
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class StateJournalTest {
+
+    private static final int SEGMENT = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    private final PasswordHasher hasher = new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
+    private StateJournal journal;
+    private AccountSvcImpl accounts;
+    private BookingSvcImpl bookings;
+    private InvoiceSvcImpl invoices;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        hasher.shutdown();
+    }
+
+
+    /**
+     * Test method for {@link StateJournal#attach}.
+     */
+    @Test
+    public void testServicesRecoverAfterRestart() throws IOException {
+
+        start();
+        accounts.createAccount(account("alice", true, "Denver"));
+        int bobId = accounts.createAccount(account("bob", false, "Boulder")).getAccountId();
+        int carolId = accounts.createAccount(account("carol", false, "Boulder")).getAccountId();
+        accounts.deleteAccount(carolId);
+
+        int first = bookings.createBooking(booking(1, bobId, "2025-03-03T09:00", "2025-03-03T11:00")).getBookingId();
+        BookingDTO second = bookings.createBooking(booking(1, bobId, "2025-03-03T13:00", "2025-03-03T14:00"));
+        second.setCompleted(true);
+        bookings.updateBooking(second);
+        bookings.deleteBooking(first);
+
+        InvoiceDTO invoice = new InvoiceDTO();
+        invoice.setProviderId(1);
+        invoice.setCustomerId(bobId);
+        int invoiceId = invoices.createInvoice(invoice).getInvoiceId();
+        invoices.markContacted(new int[] {invoiceId}, "2025-03-04T10:00");
+
+        restart();
+        assertEquals(2, accounts.getAllAccounts().size());
+        assertNull(accounts.getAccount(carolId));
+        assertEquals("Boulder", accounts.getAccount(bobId).getCity());
+        assertArrayEquals(new int[] {1}, accounts.getProviderIdsAt("denver", null, null));
+        assertEquals(1, accounts.searchAccounts("alice", 10).size());
+        // screen names are claimed again
+        assertThrows(IllegalArgumentException.class, () -> accounts.createAccount(account("bob", false, "Lyons")));
+
+        assertNull(bookings.getBooking(first));
+        assertTrue(bookings.getBooking(second.getBookingId()).isCompleted());
+        // schedules rebuilt: the slot is taken
+        assertThrows(IllegalArgumentException.class,
+                () -> bookings.createBooking(booking(1, bobId, "2025-03-03T13:30", "2025-03-03T15:00")));
+
+        // stored fields recovered, amount due recounted from the bookings
+        InvoiceDTO recovered = invoices.getInvoice(invoiceId);
+        assertEquals("2025-03-04T10:00", recovered.getLastContacted());
+        assertEquals(25.0f, recovered.getTotalAmountDue());
+        assertEquals(1, invoices.getMonthRevenue("2025-03").size());
+
+        // new ids continue after the recovered ones
+        assertTrue(bookings.createBooking(booking(1, bobId, "2025-03-05T09:00", "2025-03-05T10:00"))
+                .getBookingId() > second.getBookingId());
+    }
+
+
+    /**
+     * Test method for {@link StateJournal#snapshot()}.
+     */
+    @Test
+    public void testSnapshotThenTail() throws IOException {
+
+        start();
+        int bobId = accounts.createAccount(account("bob", false, "Boulder")).getAccountId();
+        assertTrue(journal.snapshot() >= 0);
+
+        AccountDTO bob = accounts.getAccount(bobId);
+        bob.setCity("Lyons");
+        accounts.updateAccount(bob);
+        int daveId = accounts.createAccount(account("dave", false, "Golden")).getAccountId();
+
+        restart();
+        assertEquals("Lyons", accounts.getAccount(bobId).getCity());
+        assertEquals("dave", accounts.getAccount(daveId).getScreenName());
+    }
+
+
+    /**
+     * Test method for {@link StateJournal#snapshot()}.
+     */
+    @Test
+    public void testUnattachedStreamKept() throws IOException {
+
+        start();
+        int bobId = accounts.createAccount(account("bob", false, "Boulder")).getAccountId();
+        journal.close();
+
+        // only bookings attach, the accounts ride along in the snapshot
+        journal = new StateJournal(dir, SEGMENT);
+        bookings = new BookingSvcImpl();
+        ReflectionTestUtils.setField(bookings, "journal", journal);
+        bookings.recover();
+        assertTrue(journal.snapshot() >= 0);
+
+        restart();
+        assertEquals("bob", accounts.getAccount(bobId).getScreenName());
+    }
+
+
+    private void start() throws IOException {
+
+        journal = new StateJournal(dir, SEGMENT);
+        accounts = new AccountSvcImpl(hasher);
+        bookings = new BookingSvcImpl();
+        invoices = new InvoiceSvcImpl();
+        ReflectionTestUtils.setField(accounts, "journal", journal);
+        ReflectionTestUtils.setField(bookings, "journal", journal);
+        ReflectionTestUtils.setField(invoices, "journal", journal);
+        ReflectionTestUtils.setField(invoices, "bookingService", bookings);
+
+        ApplicationEventPublisher events = event -> {
+            if (event instanceof BookingChangedEvent changed) {
+                invoices.onBookingChanged(changed);
+            }
+        };
+        ReflectionTestUtils.setField(bookings, "events", events);
+
+        // dependency order, as Spring starts them
+        accounts.recover();
+        bookings.recover();
+        invoices.recover();
+    }
+
+    private void restart() throws IOException {
+
+        journal.close();
+        start();
+    }
+
+    private static AccountDTO account(String screenName, boolean provider, String city) {
+
+        AccountDTO account = new AccountDTO();
+        account.setScreenName(screenName);
+        account.setProvider(provider);
+        account.setFirstName(screenName);
+        account.setCity(city);
+        return account;
+    }
+
+    // 25.00 an hour
+    private static BookingDTO booking(int providerId, int customerId, String start, String end) {
+
+        Account provider = new Account();
+        provider.setAccountId(providerId);
+        Account customer = new Account();
+        customer.setAccountId(customerId);
+
+        BookingDTO booking = new BookingDTO();
+        booking.setProvider(provider);
+        booking.setCustomer(customer);
+        booking.setHourlyRate(25f);
+        booking.setStartTime(start);
+        booking.setEndTime(end);
+        return booking;
+    }
+}
@@ -0,0 +1,83 @@
+package com.basssoft.arms.mapping;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CsvReader
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class CsvReaderTest {
+
+    @Test
+    void testRecords() {
+
+        CsvReader reader = reader("a,b,c\r\n\r\n1,\"x, \"\"y\"\"\",\n\"two\nlines\",café,\"\"\n last,");
+
+        assertArrayEquals(new String[] {"a", "b", "c"}, reader.next());
+        assertEquals(1, reader.line());
+        assertArrayEquals(new String[] {"1", "x, \"y\"", ""}, reader.next());
+        assertEquals(3, reader.line());
+        assertArrayEquals(new String[] {"two\nlines", "café", ""}, reader.next());
+        assertEquals(4, reader.line());
+        assertArrayEquals(new String[] {" last", ""}, reader.next());
+        assertEquals(6, reader.line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testMalformed() {
+
+        CsvReader reader = reader("\"ok\"x,1\n2,3\n\"open,4");
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals(1, reader.line());
+        // continues with the next record
+        assertArrayEquals(new String[] {"2", "3"}, reader.next());
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals(3, reader.line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testReadsWhatWriterWrites() throws IOException {
+
+        String[] row = {"=SUM(A1)", "-5", "'quoted'", "a,b", "line\r\nbreak", "say \"hi\"", "", "ü"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        writer.row(row).row(row);
+        writer.flush();
+
+        byte[] data = out.toByteArray();
+        CsvReader reader = new CsvReader(data, 0, data.length, 1);
+        assertArrayEquals(row, reader.next());
+        assertArrayEquals(row, reader.next());
+        assertEquals(3, reader.line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testRecordsEnd() {
+
+        byte[] data = "a,\"b\nc\"\nd,\"e\nf".getBytes(StandardCharsets.UTF_8);
+
+        // the line break inside quotes does not end a record
+        assertEquals(8, CsvReader.recordsEnd(data, 0, data.length));
+        assertEquals(-1, CsvReader.recordsEnd(data, 0, 7));
+        assertEquals(-1, CsvReader.recordsEnd(data, 8, data.length));
+        assertEquals(3, CsvReader.lineCount(data, 0, data.length));
+    }
+
+
+    private static CsvReader reader(String text) {
+
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        return new CsvReader(data, 0, data.length, 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.basssoft.arms.mapping;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CsvWriter
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class CsvWriterTest {
+
+    @Test
+    void testQuoting() throws IOException {
+
+        assertEquals("plain,,\"a,b\",\"say \"\"hi\"\"\",\"two\r\nlines\",café\r\n",
+                csv(writer -> writer.row("plain", null, "a,b", "say \"hi\"", "two\r\nlines", "café")));
+    }
+
+    @Test
+    void testFormulaGuard() throws IOException {
+
+        assertEquals("\"'=SUM(A1:A2)\",\"'@cmd\",\"'-1\",\"'+1\",x=1\r\n",
+                csv(writer -> writer.row("=SUM(A1:A2)", "@cmd", "-1", "+1", "x=1")));
+    }
+
+    @Test
+    void testNumbers() throws IOException {
+
+        assertEquals("0,-42,9223372036854775807,-9223372036854775808,true\r\n",
+                csv(writer -> writer.field(0).field(-42).field(Long.MAX_VALUE).field(Long.MIN_VALUE)
+                        .field(true).endRow()));
+
+        assertEquals("2.50,0.05,-1.25,0.00,1234567.89,3,0.001\r\n",
+                csv(writer -> writer.field(2.5f, 2).field(0.049, 2).field(-1.25f, 2).field(-0.001, 2)
+                        .field(1234567.891, 2).field(2.5, 0).field(0.001, 3).endRow()));
+
+        // numbers are never formula guarded
+        assertEquals("-0.50\r\n", csv(writer -> writer.field(-0.5, 2).endRow()));
+        assertThrows(IllegalArgumentException.class, () -> csv(writer -> writer.field(1.0, 10)));
+    }
+
+    @Test
+    void testLargerThanBuffer() throws IOException {
+
+        String big = "x".repeat(100_000);
+        String quoted = "\"" + "y\"\"".repeat(40_000) + "\"";
+
+        assertEquals("a," + big + "," + quoted + "\r\n",
+                csv(writer -> writer.row("a", big, "y\"".repeat(40_000))));
+
+        // many rows drain through the buffer in order
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            expected.append(i).append(",row").append(i).append("\r\n");
+        }
+        assertEquals(expected.toString(), csv(writer -> {
+            for (int i = 0; i < 20_000; i++) {
+                writer.field(i).field("row" + i).endRow();
+            }
+        }));
+    }
+
+
+    private interface Rows {
+        void write(CsvWriter writer) throws IOException;
+    }
+
+    private static String csv(Rows rows) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        rows.write(writer);
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.basssoft.arms.mapping;
+
+import com.basssoft.arms.booking.domain.Booking;
+import com.basssoft.arms.invoice.domain.Invoice;
+import com.basssoft.arms.store.JournalCodec;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EntityCodec
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class EntityCodecTest {
+
+    @Test
+    void testAmountsRoundTrip() throws IOException {
+
+        Booking booking = new Booking();
+        booking.setBookingId(7);
+        booking.setHourlyRateCents(123_456_789);
+        booking.setStartTime(LocalDateTime.of(2025, 3, 1, 9, 0));
+        booking.setEndTime(LocalDateTime.of(2025, 3, 1, 11, 0));
+        booking.setCompleted(true);
+        booking.setOverSeconds(-1_800);
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceId(3);
+        invoice.setBookings(List.of(booking));
+        invoice.setTotalAmountDueCents(246_913_578);
+
+        assertEquals(booking, copy(EntityCodec.BOOKING, booking));
+        Invoice read = copy(EntityCodec.INVOICE, invoice);
+        assertEquals(invoice, read);
+        assertEquals(2469135.78, read.getTotalAmountDue());
+        assertEquals(-0.5, read.getBookings().get(0).getOverHours());
+    }
+
+    @Test
+    void testReadsFloatFormat() throws IOException {
+
+        // a booking as format 1 wrote it
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeBoolean(true);
+        out.writeInt(7);
+        out.writeBoolean(false);
+        out.writeBoolean(false);
+        out.writeFloat(19.99f);
+        out.writeBoolean(false);
+        out.writeBoolean(false);
+        for (int i = 0; i < 4; i++) {
+            out.writeInt(-1);
+        }
+        out.writeBoolean(true);
+        out.writeFloat(0.1f);
+        out.writeBoolean(false);
+        out.writeLong(42);
+
+        Booking booking = EntityCodec.BOOKING.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(7, booking.getBookingId());
+        assertEquals(1_999, booking.getHourlyRateCents());
+        assertEquals(360, booking.getOverSeconds());
+        assertTrue(booking.isCompleted());
+        assertEquals(42, booking.getVersion());
+
+        byte[] unknown = {9};
+        assertThrows(IOException.class,
+                () -> EntityCodec.BOOKING.read(new DataInputStream(new ByteArrayInputStream(unknown))));
+    }
+
+
+    private static <V> V copy(JournalCodec<V> codec, V value) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.write(new DataOutputStream(bytes), value);
+        return codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,94 @@
+package com.basssoft.arms.mapping;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Money
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class MoneyTest {
+
+    @Test
+    void testOf() {
+
+        assertEquals(1_999, Money.of(19.99));
+        assertEquals(-5, Money.of(-0.05));
+        assertEquals(0, Money.of(0.004));
+        // half up, as the decimal reads
+        assertEquals(101, Money.of(1.005));
+        assertEquals(-101, Money.of(-1.005));
+        assertEquals(2_000, Money.of(19.995));
+        // float amounts of older data
+        assertEquals(1_999, Money.of(19.99f));
+
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(1e15));
+    }
+
+    @Test
+    void testRoundTrip() {
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long cents = random.nextLong(-Money.MAX_CENTS, Money.MAX_CENTS + 1);
+            double amount = Money.toDouble(cents);
+            assertEquals(cents, Money.of(amount));
+            assertEquals(BigDecimal.valueOf(cents, 2).doubleValue(), amount);
+        }
+    }
+
+    @Test
+    void testForSeconds() {
+
+        // 25.50 an hour, 1.5 hours
+        assertEquals(3_825, Money.forSeconds(2_550, 5_400));
+        // 19.99 for 10 minutes: 3.331666..
+        assertEquals(333, Money.forSeconds(1_999, 600));
+        // half a cent rounds away from zero
+        assertEquals(1, Money.forSeconds(1, 1_800));
+        assertEquals(0, Money.forSeconds(1, 1_799));
+        assertEquals(-1, Money.forSeconds(-1, 1_800));
+        assertEquals(-1, Money.forSeconds(1, -1_800));
+
+        // beyond 2^63 cent-seconds, exact while the result fits
+        assertEquals(Money.MAX_CENTS * 100, Money.forSeconds(Money.MAX_CENTS, 360_000));
+        assertEquals(Long.MAX_VALUE, Money.forSeconds(Money.MAX_CENTS, Long.MAX_VALUE));
+        assertEquals(Long.MIN_VALUE, Money.forSeconds(-Money.MAX_CENTS, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testForSecondsSameAsBigDecimal() {
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // int range (fast path) and beyond
+            long rate = i % 2 == 0 ? random.nextInt() : random.nextLong(-Money.MAX_CENTS, Money.MAX_CENTS);
+            long seconds = i % 3 == 0 ? random.nextInt() : random.nextLong(-1L << 40, 1L << 40);
+            BigDecimal exact = BigDecimal.valueOf(rate).multiply(BigDecimal.valueOf(seconds))
+                    .divide(BigDecimal.valueOf(3_600), 0, RoundingMode.HALF_UP);
+            long expected = exact.toBigInteger().bitLength() < 64 ? exact.longValue()
+                    : exact.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+            assertEquals(expected, Money.forSeconds(rate, seconds));
+        }
+    }
+
+        @Test
+    void testSum() {
+
+        long[] cents = new long[10_001];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = 10;
+        }
+        // 0.10 ten thousand times is exactly 1000.00
+        assertEquals(100_000, Money.sum(cents, 1, cents.length));
+        assertEquals(0, Money.sum(cents, 5, 5));
+    }
+}
@@ -0,0 +1,93 @@
+package com.basssoft.arms.mapping;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimeCodec
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class TimeCodecTest {
+
+    @Test
+    void testSameAsJdk() {
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int nano = switch (random.nextInt(4)) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1_000) * 1_000_000;
+                case 2 -> random.nextInt(1_000_000) * 1_000;
+                default -> random.nextInt(1_000_000_000);
+            };
+            LocalDateTime time = LocalDateTime.of(random.nextInt(12_000) - 1_000, 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60),
+                    random.nextBoolean() ? 0 : random.nextInt(60), nano);
+
+            String text = time.toString();
+            assertEquals(text, TimeCodec.format(time));
+            assertEquals(time, TimeCodec.parse(text));
+        }
+    }
+
+    @Test
+    void testParseShapes() {
+
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), TimeCodec.parse("2025-01-01T10:00"));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0, 5), TimeCodec.parse("2025-01-01T10:00:05"));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0, 5, 500_000_000), TimeCodec.parse("2025-01-01T10:00:05.5"));
+        // fallback parser
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), TimeCodec.parse("2025-01-01t10:00"));
+
+        assertNull(TimeCodec.parse(null));
+        assertNull(TimeCodec.parse(" "));
+        assertNull(TimeCodec.format(null));
+    }
+
+    @Test
+    void testParseInvalid() {
+
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.parse("2025-02-30T10:00"));
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.parse("2025-01-01T24:00"));
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.parse("2025-01-01 10:00"));
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.parse("not a time"));
+    }
+
+    @Test
+    void testHours() {
+
+        assertEquals(5_400, TimeCodec.seconds(1.5));
+        assertEquals(-1_800, TimeCodec.seconds(-0.5));
+        assertEquals(36, TimeCodec.seconds(0.01));
+        assertEquals(600, TimeCodec.seconds(1 / 6.0));
+        // halves away from zero
+        assertEquals(1, TimeCodec.seconds(0.5 / 3_600));
+        assertEquals(-1, TimeCodec.seconds(-0.5 / 3_600));
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.seconds(Double.NaN));
+
+        // bounded, so long seconds can't saturate or overflow
+        assertEquals(31_622_400, TimeCodec.seconds(TimeCodec.MAX_HOURS));
+        assertEquals(-31_622_400, TimeCodec.seconds(-TimeCodec.MAX_HOURS));
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.seconds(TimeCodec.MAX_HOURS + 1));
+        assertThrows(IllegalArgumentException.class, () -> TimeCodec.seconds(-1e300));
+
+        // two decimal hours survive the round trip
+        for (int hundredths = -1_000; hundredths <= 1_000; hundredths++) {
+            double hours = hundredths / 100.0;
+            assertEquals(hours, TimeCodec.hours(TimeCodec.seconds(hours)));
+        }
+    }
+
+        @Test
+    void testCacheReturnsSameInstance() {
+
+        LocalDateTime time = LocalDateTime.of(2025, 6, 1, 9, 30);
+        assertSame(TimeCodec.format(time), TimeCodec.format(LocalDateTime.of(2025, 6, 1, 9, 30)));
+        assertSame(TimeCodec.parse("2025-06-01T09:30"), TimeCodec.parse(new String("2025-06-01T09:30")));
+    }
+}
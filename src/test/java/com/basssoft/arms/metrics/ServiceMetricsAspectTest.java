@@ -0,0 +1,77 @@
+package com.basssoft.arms.metrics;
+
+import com.basssoft.arms.account.domain.AccountDTO;
+import com.basssoft.arms.account.service.AccountSvcImpl;
+import com.basssoft.arms.account.service.IaccountService;
+import com.basssoft.arms.account.service.PasswordHasher;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ServiceMetricsAspect
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class ServiceMetricsAspectTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(4, 2, 16, new SimpleMeterRegistry());
+    private SimpleMeterRegistry registry;
+    private IaccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+
+        registry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new AccountSvcImpl(hasher));
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        accountService = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+
+    @Test
+    void testSuccessTimed() {
+
+        AccountDTO created = accountService.createAccount(new AccountDTO(0, "jdoe", "secret", false,
+                "John", "Doe", "jdoe@example.com", "555-0100", "1 Main St", "Denver", "CO", "80202", 0));
+        accountService.getAccount(created.getAccountId());
+        accountService.getAccount(created.getAccountId());
+
+        Timer timer = registry.get(ServiceMetricsAspect.TIMER)
+                .tags("class", "AccountSvcImpl", "method", "getAccount", "outcome", "success")
+                .timer();
+        assertEquals(2, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+
+        // nothing left in flight
+        LongTaskTimer active = registry.get(ServiceMetricsAspect.ACTIVE)
+                .tags("method", "getAccount")
+                .longTaskTimer();
+        assertEquals(0, active.activeTasks());
+    }
+
+    @Test
+    void testErrorTimed() {
+
+        assertThrows(IllegalArgumentException.class, () -> accountService.createAccount(null));
+
+        Timer timer = registry.get(ServiceMetricsAspect.TIMER)
+                .tags("method", "createAccount", "outcome", "error", "exception", "IllegalArgumentException")
+                .timer();
+        assertEquals(1, timer.count());
+    }
+}
@@ -0,0 +1,188 @@
+package com.basssoft.arms.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Journal
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class JournalTest {
+
+    private static final int SEGMENT = 1 << 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplayAfterReopen() throws IOException {
+
+        try (Journal journal = new Journal(dir, SEGMENT, (stream, key, payload) -> fail("empty journal"))) {
+            journal.append(1, 10, bytes("a"));
+            journal.append(2, 10, bytes("b"));
+            journal.append(1, 10, null);
+            long lsn = journal.append(1, 11, bytes("c"));
+            journal.awaitDurable(lsn);
+            assertEquals(lsn, journal.position());
+        }
+        assertEquals(List.of("1:10=a", "2:10=b", "1:10=-", "1:11=c"), replay());
+    }
+
+    @Test
+    void testTornRecordEndsLog() throws IOException {
+
+        long second;
+        try (Journal journal = new Journal(dir, SEGMENT, (stream, key, payload) -> { })) {
+            journal.append(1, 1, bytes("one"));
+            second = journal.append(1, 2, bytes("two"));
+            journal.append(1, 3, bytes("three"));
+        }
+        // crash mid-write: the last record is damaged
+        Path segment = files(".log").get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), second + 17);
+        }
+        assertEquals(List.of("1:1=one", "1:2=two"), replay());
+
+        // appends continue after the last good record
+        try (Journal journal = new Journal(dir, SEGMENT, (stream, key, payload) -> { })) {
+            assertEquals(second, journal.position());
+            journal.append(1, 4, bytes("four"));
+        }
+        assertEquals(List.of("1:1=one", "1:2=two", "1:4=four"), replay());
+    }
+
+    @Test
+    void testRollsSegments() throws IOException {
+
+        List<String> expected = new ArrayList<>();
+        try (Journal journal = new Journal(dir, 256, (stream, key, payload) -> { })) {
+            for (int key = 1; key <= 100; key++) {
+                journal.append(3, key, bytes("value" + key));
+                expected.add("3:" + key + "=value" + key);
+            }
+            assertThrows(IllegalArgumentException.class, () -> journal.append(3, 1, new byte[300]));
+            assertThrows(IllegalArgumentException.class, () -> journal.append(0, 1, null));
+        }
+        assertTrue(files(".log").size() > 5);
+        assertEquals(expected, replay(256));
+    }
+
+    @Test
+    void testSnapshotDropsCoveredSegments() throws IOException {
+
+        try (Journal journal = new Journal(dir, 256, (stream, key, payload) -> { })) {
+            for (int key = 1; key <= 20; key++) {
+                journal.append(1, key, bytes("old" + key));
+            }
+            journal.snapshot(out -> {
+                out.accept(1, 7, bytes("kept"));
+                out.accept(2, 8, bytes("other"));
+            });
+            journal.append(1, 7, null);
+            journal.append(1, 9, bytes("after"));
+        }
+        assertEquals(1, files(".snap").size());
+        assertEquals(1, files(".log").size());
+        assertEquals(List.of("1:7=kept", "2:8=other", "1:7=-", "1:9=after"), replay(256));
+
+        // a second snapshot replaces the first
+        try (Journal journal = new Journal(dir, 256, (stream, key, payload) -> { })) {
+            journal.snapshot(out -> out.accept(1, 9, bytes("after")));
+        }
+        assertEquals(1, files(".snap").size());
+        assertEquals(List.of("1:9=after"), replay(256));
+    }
+
+    @Test
+    void testCorruptSnapshotRefused() throws IOException {
+
+        try (Journal journal = new Journal(dir, SEGMENT, (stream, key, payload) -> { })) {
+            journal.append(1, 1, bytes("one"));
+            journal.snapshot(out -> out.accept(1, 1, bytes("one")));
+        }
+        Path snapshot = files(".snap").get(0);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 20);
+        }
+        assertThrows(IOException.class, () -> new Journal(dir, SEGMENT, (stream, key, payload) -> { }));
+    }
+
+    @Test
+    void testGroupCommit() throws Exception {
+
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (Journal journal = new Journal(dir, SEGMENT, (stream, key, payload) -> { })) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread + 1;
+                done.add(pool.submit(() -> {
+                    for (int key = first; key < first + perThread; key++) {
+                        journal.awaitDurable(journal.append(1, key, bytes("v" + key)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        List<String> replayed = replay();
+        assertEquals(threads * perThread, replayed.size());
+        assertEquals(threads * perThread, replayed.stream().distinct().count());
+    }
+
+
+    private List<String> replay() throws IOException {
+
+        return replay(SEGMENT);
+    }
+
+    // "stream:key=payload" per replayed entry, "-" when removed
+    private List<String> replay(int segmentSize) throws IOException {
+
+        List<String> entries = new ArrayList<>();
+        Journal journal = new Journal(dir, segmentSize, (stream, key, payload) ->
+                entries.add(stream + ":" + key + "=" + (payload == null ? "-" : text(payload))));
+        journal.close();
+        return entries;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
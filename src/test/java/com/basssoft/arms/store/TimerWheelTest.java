@@ -0,0 +1,93 @@
+package com.basssoft.arms.store;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimerWheel
+
+ * arms application
+ * @author Matthew Bass
+ * @version 1.0
+ */
+public class TimerWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void testFiresWhenDue() {
+
+        TimerWheel wheel = new TimerWheel(1_000, START);
+        wheel.schedule(1, START + 1_500);
+        wheel.schedule(2, START + 70_000);
+        wheel.schedule(3, START + 10_000_000);
+        wheel.schedule(4, START - 5_000);
+
+        // overdue on the first advance, due times round up to a tick
+        assertArrayEquals(new int[] {4}, wheel.advance(START));
+        assertArrayEquals(new int[0], wheel.advance(START + 1_999));
+        assertArrayEquals(new int[] {1}, wheel.advance(START + 2_000));
+        assertArrayEquals(new int[] {2}, wheel.advance(START + 100_000));
+        assertEquals(1, wheel.size());
+        assertArrayEquals(new int[0], wheel.advance(START + 9_999_000));
+        assertArrayEquals(new int[] {3}, wheel.advance(START + 10_000_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testRescheduleAndCancel() {
+
+        TimerWheel wheel = new TimerWheel(1_000, START);
+        wheel.schedule(1, START + 5_000);
+        wheel.schedule(1, START + 500_000);
+        wheel.schedule(2, START + 5_000);
+        assertTrue(wheel.cancel(2));
+        assertFalse(wheel.cancel(2));
+        assertEquals(START + 500_000, wheel.dueMillis(1));
+
+        assertArrayEquals(new int[0], wheel.advance(START + 10_000));
+        assertArrayEquals(new int[] {1}, wheel.advance(START + 600_000));
+        assertEquals(-1, wheel.dueMillis(1));
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule(0, START));
+    }
+
+    @Test
+    void testSameAsSortedScan() {
+
+        Random random = new Random(7);
+        long[] spans = {10_000L, 300_000L, 50_000_000L, 5_000_000_000L, 3_000_000_000_000L};
+        long now = START;
+        TimerWheel wheel = new TimerWheel(1_000, now);
+        Map<Integer, Long> expected = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(10);
+            int id = 1 + random.nextInt(500);
+            if (op < 5) {
+                long due = now - 5_000 + (long) (random.nextDouble() * spans[random.nextInt(spans.length)]);
+                wheel.schedule(id, due);
+                expected.put(id, due);
+            } else if (op < 6) {
+                assertEquals(expected.remove(id) != null, wheel.cancel(id));
+            } else {
+                now += (long) (random.nextDouble() * new long[] {500, 30_000, 5_000_000, 400_000_000}[op - 6]);
+                int[] fired = wheel.advance(now);
+                Arrays.sort(fired);
+
+                long nowTick = now / 1_000;
+                int[] due = expected.entrySet().stream()
+                        .filter(e -> Math.floorDiv(e.getValue() + 999, 1_000) <= nowTick)
+                        .mapToInt(Map.Entry::getKey).sorted().toArray();
+                assertArrayEquals(due, fired);
+                for (int firedId : fired) {
+                    expected.remove(firedId);
+                }
+                assertEquals(expected.size(), wheel.size());
+            }
+        }
+    }
+}